@@ -0,0 +1,74 @@
+package portsim;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point for running the benchmarks.
+ * <p>
+ * Accepts the same arguments as the JMH command line, for example a regular expression
+ * selecting the benchmarks to run and {@code -p name=value} to restrict their parameters.
+ * Unlike the plain JMH command line, the allocation profiler ({@code -prof gc}) is always
+ * enabled, and every benchmark reports its throughput unless {@code -bm} asks for another
+ * mode, so the scores and {@code gc.alloc.rate.norm} of one run can be compared with the
+ * next.
+ * <p>
+ * The benchmarks are:
+ * <ul>
+ *     <li>{@code ElapseOneMinuteBenchmark} - {@link portsim.port.Port#elapseOneMinute()}
+ *     and {@link portsim.port.Port#advanceTo(long)} by quays, queued ships and
+ *     movements</li>
+ *     <li>{@code ProcessMovementBenchmark} - {@link portsim.port.Port#processMovement} by
+ *     movement kind and direction</li>
+ *     <li>{@code ShipQueueBenchmark} - peek and poll by queue size and flag mix</li>
+ *     <li>{@code InitialisePortBenchmark} and {@code EncodePortBenchmark} - loading and
+ *     saving generated saves</li>
+ *     <li>{@code PortSnapshotBenchmark} - loading text saves and binary snapshots</li>
+ *     <li>{@code StatisticsEvaluatorBenchmark} - each evaluator's
+ *     {@code onProcessMovement}</li>
+ *     <li>{@code MovementSchedulerBenchmark} and {@code RegistryBenchmark} - the data
+ *     structures behind the port</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Runs the benchmarks selected by the given JMH command line arguments.
+     *
+     * @param args JMH command line arguments
+     * @throws RunnerException if a benchmark fails
+     * @throws IOException if the help text cannot be printed
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions commandLine;
+        try {
+            commandLine = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getBenchModes().isEmpty()) {
+            options.mode(Mode.Throughput);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,146 @@
+package portsim.evaluators;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.port.Port;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StatisticsEvaluator#onProcessMovement(Movement)} of each evaluator on a
+ * repeating sequence of movements with an equal mix of ship and cargo movements in both
+ * directions. Ships carry up to ten containers or one bulk cargo, and cargo movements move up
+ * to ten pieces of cargo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatisticsEvaluatorBenchmark {
+    /**
+     * number of distinct movements, a power of two
+     */
+    private static final int MOVEMENTS = 1 << 12;
+    /**
+     * origins of the ships and destinations of the cargo
+     */
+    private static final String[] PORTS = {"Brisbane", "Singapore", "Shanghai", "Rotterdam"};
+
+    /**
+     * evaluator to measure
+     */
+    @Param({"ShipFlagEvaluator", "CargoDecompositionEvaluator", "ShipThroughputEvaluator",
+        "QuayOccupancyEvaluator"})
+    public String evaluator;
+
+    /**
+     * evaluator being measured
+     */
+    private StatisticsEvaluator statisticsEvaluator;
+    /**
+     * movements passed to the evaluator in turn
+     */
+    private Movement[] movements;
+    /**
+     * index of the next movement
+     */
+    private int next;
+
+    /**
+     * Creates the evaluator and the movements, in a context of their own.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("try")
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(2002);
+        movements = new Movement[MOVEMENTS];
+        int cargoId = 1;
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            switch (evaluator) {
+                case "ShipFlagEvaluator":
+                    statisticsEvaluator = new ShipFlagEvaluator();
+                    break;
+                case "CargoDecompositionEvaluator":
+                    statisticsEvaluator = new CargoDecompositionEvaluator();
+                    break;
+                case "ShipThroughputEvaluator":
+                    statisticsEvaluator = new ShipThroughputEvaluator();
+                    break;
+                default:
+                    statisticsEvaluator = new QuayOccupancyEvaluator(new Port("Port"));
+                    break;
+            }
+            for (int i = 0; i < MOVEMENTS; i++) {
+                MovementDirection direction = i % 2 == 0
+                        ? MovementDirection.INBOUND : MovementDirection.OUTBOUND;
+                String port = PORTS[random.nextInt(PORTS.length)];
+                if (i % 4 < 2) {
+                    long imoNumber = 1000000 + i;
+                    Ship ship;
+                    if (random.nextBoolean()) {
+                        ship = new BulkCarrier(imoNumber, "Ship" + i, port,
+                                NauticalFlag.NOVEMBER, 200);
+                        ship.loadCargo(new BulkCargo(cargoId++, port, 100,
+                                BulkCargoType.values()[random.nextInt(4)]));
+                    } else {
+                        ship = new ContainerShip(imoNumber, "Ship" + i, port,
+                                NauticalFlag.NOVEMBER, 10);
+                        for (int j = random.nextInt(10); j >= 0; j--) {
+                            ship.loadCargo(new Container(cargoId++, port,
+                                    ContainerType.values()[random.nextInt(4)]));
+                        }
+                    }
+                    movements[i] = new ShipMovement(0, direction, ship);
+                } else {
+                    Cargo[] cargo = new Cargo[1 + random.nextInt(10)];
+                    for (int j = 0; j < cargo.length; j++) {
+                        cargo[j] = j % 3 == 0
+                                ? new BulkCargo(cargoId++, port, 100, BulkCargoType.OIL)
+                                : new Container(cargoId++, port, ContainerType.REEFER);
+                    }
+                    movements[i] = new CargoMovement(0, direction, List.of(cargo));
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the next movement to the evaluator.
+     *
+     * @return the evaluator
+     */
+    @Benchmark
+    public StatisticsEvaluator onProcessMovement() {
+        statisticsEvaluator.onProcessMovement(movements[next]);
+        next = (next + 1) & (MOVEMENTS - 1);
+        return statisticsEvaluator;
+    }
+}
@@ -0,0 +1,94 @@
+package portsim.movement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.Cargo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the movement schedulers using the "hold" model: the scheduler is kept at a
+ * constant number of pending movements, and each operation removes the earliest movement and
+ * schedules a new one a few days ahead of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MovementSchedulerBenchmark {
+    /**
+     * schedule movements up to three days ahead of the current time
+     */
+    private static final int HORIZON = 3 * 24 * 60;
+
+    /**
+     * number of pending movements in the scheduler
+     */
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int pending;
+
+    /**
+     * scheduler implementation to measure
+     */
+    @Param({"heap", "wheel"})
+    public String scheduler;
+
+    /**
+     * scheduler being measured
+     */
+    private MovementScheduler movements;
+
+    /**
+     * source of times for new movements
+     */
+    private SplittableRandom random;
+
+    /**
+     * shared cargo list of every movement
+     */
+    private List<Cargo> cargo;
+
+    /**
+     * Fills the scheduler with movements spread over the next three days.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        movements = scheduler.equals("heap")
+                ? new HeapMovementScheduler() : new TimingWheelMovementScheduler();
+        random = new SplittableRandom(2002);
+        cargo = new ArrayList<>();
+        for (int i = 0; i < pending; i++) {
+            movements.add(new CargoMovement(random.nextInt(HORIZON),
+                    MovementDirection.INBOUND, cargo));
+        }
+    }
+
+    /**
+     * Removes the earliest movement and schedules a new one.
+     *
+     * @return the removed movement
+     */
+    @Benchmark
+    public Movement hold() {
+        long now = movements.nextTime();
+        Movement movement = movements.pollDue(now);
+        movements.add(new CargoMovement(now + random.nextInt(HORIZON),
+                MovementDirection.INBOUND, cargo));
+        return movement;
+    }
+}
@@ -0,0 +1,97 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.util.SimulationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Port#elapseOneMinute()} and {@link Port#advanceTo(long)} over one simulated
+ * day of a port built by {@link PortFixture}. Every invocation starts from a freshly built
+ * port, built outside the measurement, and the score is per simulated minute.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ElapseOneMinuteBenchmark {
+    /**
+     * minutes simulated by each invocation
+     */
+    private static final int DAY = 24 * 60;
+
+    /**
+     * number of quays in the port
+     */
+    @Param({"4", "64"})
+    public int quays;
+
+    /**
+     * number of ships waiting in the ship queue
+     */
+    @Param({"10", "1000"})
+    public int queued;
+
+    /**
+     * number of movements over the day
+     */
+    @Param({"100", "10000"})
+    public int movements;
+
+    /**
+     * port being simulated
+     */
+    private Port port;
+
+    /**
+     * Builds a new port in its own context, so the registries do not grow between
+     * invocations.
+     */
+    @Setup(Level.Invocation)
+    @SuppressWarnings("try")
+    public void setUp() {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            port = new PortFixture().port(quays, queued, movements, DAY);
+        }
+    }
+
+    /**
+     * Simulates a day one minute at a time.
+     *
+     * @return simulated port
+     */
+    @Benchmark
+    @OperationsPerInvocation(DAY)
+    public Port elapseOneMinute() {
+        for (int i = 0; i < DAY; i++) {
+            port.elapseOneMinute();
+        }
+        return port;
+    }
+
+    /**
+     * Simulates a day in one call to {@link Port#advanceTo(long)}.
+     *
+     * @return simulated port
+     */
+    @Benchmark
+    @OperationsPerInvocation(DAY)
+    public Port advanceTo() {
+        port.advanceTo(DAY);
+        return port;
+    }
+}
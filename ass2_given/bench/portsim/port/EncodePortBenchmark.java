@@ -0,0 +1,83 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.util.BadEncodingException;
+import portsim.util.SimulationContext;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving a port loaded from the save generated by
+ * {@link InitialisePortBenchmark#generate(int)}, both as one string with {@link Port#encode()}
+ * and streamed with {@link Port#encodeTo(Writer)} to a writer that discards its input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EncodePortBenchmark {
+    /**
+     * number of cargo in the port
+     */
+    @Param({"10000", "1000000"})
+    public int cargo;
+
+    /**
+     * port to save
+     */
+    private Port port;
+
+    /**
+     * Loads the generated save in a context of its own.
+     *
+     * @throws IOException never, the save is read from memory
+     * @throws BadEncodingException if the generated save is invalid
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("try")
+    public void setUp() throws IOException, BadEncodingException {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            port = Port.initialisePort(
+                    new StringReader(InitialisePortBenchmark.generate(cargo)));
+        }
+    }
+
+    /**
+     * Encodes the port as a string.
+     *
+     * @return encoded port
+     */
+    @Benchmark
+    public String encode() {
+        return port.encode();
+    }
+
+    /**
+     * Streams the encoding of the port.
+     *
+     * @return the writer written to
+     * @throws IOException never, the writer discards its input
+     */
+    @Benchmark
+    public Writer encodeTo() throws IOException {
+        Writer writer = Writer.nullWriter();
+        port.encodeTo(writer);
+        return writer;
+    }
+}
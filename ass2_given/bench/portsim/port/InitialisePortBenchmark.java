@@ -0,0 +1,163 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.Cargo;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link Port#initialisePort(java.io.Reader)} takes to load a generated save
+ * held in memory, so that only parsing is measured, on this thread and with the cargo and
+ * ships parsed on the common fork/join pool. Divide the size of the save (printed
+ * during setup) by the time per operation for the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InitialisePortBenchmark {
+    /**
+     * destinations of the generated cargo, each also the origin of some ships
+     */
+    private static final String[] PORTS = {"Brisbane", "Singapore", "Shanghai", "Rotterdam"};
+
+    /**
+     * number of cargo lines in the save
+     */
+    @Param({"10000", "1000000"})
+    public int cargo;
+
+    /**
+     * the generated save
+     */
+    private String save;
+
+    /**
+     * Generates the save.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        save = generate(cargo);
+        System.out.printf("%nsave size: %.1f MB%n", save.length() / 1e6);
+    }
+
+    /**
+     * Empties the registries filled by the previous load.
+     */
+    @Setup(Level.Invocation)
+    public void resetRegistries() {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /**
+     * Loads the save.
+     *
+     * @return loaded port
+     * @throws IOException never, the save is read from memory
+     * @throws BadEncodingException if the generated save is invalid
+     */
+    @Benchmark
+    public Port load() throws IOException, BadEncodingException {
+        return Port.initialisePort(new StringReader(save));
+    }
+
+    /**
+     * Loads the save, parsing the cargo and ships on the common fork/join pool.
+     *
+     * @return loaded port
+     * @throws IOException never, the save is read from memory
+     * @throws BadEncodingException if the generated save is invalid
+     */
+    @Benchmark
+    public Port loadParallel() throws IOException, BadEncodingException {
+        return Port.initialisePort(new StringReader(save), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a valid save with the given number of cargo, a tenth as many ships each
+     * carrying up to five containers, one cargo movement per ten cargo and all other cargo
+     * stored at the port.
+     *
+     * @param numCargo number of cargo
+     * @return encoded port
+     */
+    static String generate(int numCargo) {
+        int numShips = Math.max(1, numCargo / 10);
+        StringBuilder save = new StringBuilder(numCargo * 40);
+        save.append("Port of Brisbane\n").append(0).append('\n');
+
+        save.append(numCargo).append('\n');
+        for (int id = 1; id <= numCargo; id++) {
+            String destination = PORTS[id % PORTS.length];
+            if (id % 3 == 0) {
+                save.append("BulkCargo:").append(id).append(':').append(destination)
+                        .append(":GRAIN:").append(id % 500 + 1).append('\n');
+            } else {
+                save.append("Container:").append(id).append(':').append(destination)
+                        .append(":STANDARD\n");
+            }
+        }
+
+        // ship i carries the containers i * 10 + 1 ... i * 10 + 5 bound for its origin
+        save.append(numShips).append('\n');
+        boolean[] carried = new boolean[numCargo + 1];
+        for (int i = 0; i < numShips; i++) {
+            String origin = PORTS[(i * 10 + 1) % PORTS.length];
+            save.append("ContainerShip:").append(1000000 + i).append(":Ship").append(i)
+                    .append(':').append(origin).append(":BRAVO:10:");
+            StringBuilder ids = new StringBuilder();
+            int count = 0;
+            for (int id = i * 10 + 1; id <= Math.min(numCargo, i * 10 + 10); id++) {
+                if (id % 3 != 0 && PORTS[id % PORTS.length].equals(origin) && count < 5) {
+                    ids.append(count++ == 0 ? "" : ",").append(id);
+                    carried[id] = true;
+                }
+            }
+            save.append(count).append(':').append(ids).append('\n');
+        }
+
+        save.append(2).append('\n');
+        save.append("BulkQuay:1:None:500\n");
+        save.append("ContainerQuay:2:None:10\n");
+        save.append("ShipQueue:0:\n");
+
+        StringBuilder stored = new StringBuilder();
+        StringBuilder movements = new StringBuilder();
+        int numStored = 0;
+        int numMovements = 0;
+        for (int id = 1; id <= numCargo; id++) {
+            if (carried[id]) {
+                continue;
+            }
+            if (id % 10 == 0) {
+                movements.append("CargoMovement:").append(id).append(":OUTBOUND:1:")
+                        .append(id).append('\n');
+                numMovements++;
+            }
+            stored.append(numStored++ == 0 ? "" : ",").append(id);
+        }
+        save.append("StoredCargo:").append(numStored).append(':').append(stored).append('\n');
+        save.append("Movements:").append(numMovements).append('\n').append(movements);
+        save.append("Evaluators:2:ShipFlagEvaluator,CargoDecompositionEvaluator\n");
+        return save.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package portsim.port;
+
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.evaluators.QuayOccupancyEvaluator;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.evaluators.ShipThroughputEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds ports, ships and cargo for the benchmarks. A new fixture given the same arguments
+ * always builds the same port. The cargo and ships are added to the registries of the current
+ * context, and no two made by one fixture share an ID.
+ */
+final class PortFixture {
+    /**
+     * origins of the ships and destinations of the cargo
+     */
+    static final String[] PORTS = {"Brisbane", "Singapore", "Shanghai", "Rotterdam"};
+
+    /**
+     * flags of the ships, mostly ships without special requirements
+     */
+    private static final NauticalFlag[] FLAGS = {NauticalFlag.NOVEMBER, NauticalFlag.NOVEMBER,
+        NauticalFlag.NOVEMBER, NauticalFlag.HOTEL, NauticalFlag.BRAVO, NauticalFlag.WHISKEY};
+
+    /**
+     * random source of the port's contents
+     */
+    private final SplittableRandom random = new SplittableRandom(2002);
+    /**
+     * ID of the next cargo to create
+     */
+    private int nextCargoId = 1;
+    /**
+     * IMO number of the next ship to create
+     */
+    private long nextImoNumber = 1000000;
+
+    /**
+     * Creates a fixture that numbers its cargo and ships from the start.
+     */
+    PortFixture() {
+    }
+
+    /**
+     * Builds a port with the given number of quays, half of each kind, the given number of
+     * loaded ships waiting in the ship queue and as many cargo stored at the port. It also has
+     * the given number of movements spread evenly over the first {@code minutes} minutes, an
+     * equal mix of inbound and outbound ship and cargo movements, and one of each evaluator.
+     *
+     * @param quays number of quays
+     * @param queued number of ships in the ship queue
+     * @param movements number of pending movements
+     * @param minutes minutes over which to spread the movements
+     * @return new port at time 0
+     */
+    Port port(int quays, int queued, int movements, int minutes) {
+        List<Quay> quayList = new ArrayList<>(quays);
+        for (int id = 0; id < quays; id++) {
+            quayList.add(id % 2 == 0 ? new BulkQuay(id, 100 * (id % 5 + 1))
+                    : new ContainerQuay(id, 5 * (id % 5 + 1)));
+        }
+        ShipQueue shipQueue = new ShipQueue();
+        List<Ship> ships = new ArrayList<>(queued);
+        for (int i = 0; i < queued; i++) {
+            Ship ship = ship();
+            shipQueue.add(ship);
+            ships.add(ship);
+        }
+        List<Cargo> stored = new ArrayList<>(queued);
+        for (int i = 0; i < queued; i++) {
+            stored.add(cargo());
+        }
+
+        Port port = new Port("Port of Brisbane", 0, shipQueue, quayList, stored);
+        for (int i = 0; i < movements; i++) {
+            long time = 1 + (long) i * minutes / Math.max(1, movements);
+            switch (i % 4) {
+                case 0:
+                    port.addMovement(new ShipMovement(time, MovementDirection.INBOUND,
+                            ship()));
+                    break;
+                case 1:
+                    Ship leaving = ships.isEmpty() ? ship()
+                            : ships.get(random.nextInt(ships.size()));
+                    port.addMovement(new ShipMovement(time, MovementDirection.OUTBOUND,
+                            leaving));
+                    break;
+                case 2:
+                    port.addMovement(new CargoMovement(time, MovementDirection.INBOUND,
+                            List.of(cargo())));
+                    break;
+                default:
+                    Cargo removed = stored.isEmpty() ? cargo()
+                            : stored.get(random.nextInt(stored.size()));
+                    port.addMovement(new CargoMovement(time, MovementDirection.OUTBOUND,
+                            List.of(removed)));
+                    break;
+            }
+        }
+        port.addStatisticsEvaluator(new ShipThroughputEvaluator());
+        port.addStatisticsEvaluator(new ShipFlagEvaluator());
+        port.addStatisticsEvaluator(new CargoDecompositionEvaluator());
+        port.addStatisticsEvaluator(new QuayOccupancyEvaluator(port));
+        return port;
+    }
+
+    /**
+     * Creates a ship, alternating between bulk carriers and container ships, carrying cargo
+     * bound for its origin.
+     *
+     * @return new ship
+     */
+    Ship ship() {
+        long imoNumber = nextImoNumber++;
+        String origin = PORTS[random.nextInt(PORTS.length)];
+        NauticalFlag flag = FLAGS[random.nextInt(FLAGS.length)];
+        if (imoNumber % 2 == 0) {
+            Ship ship = new BulkCarrier(imoNumber, "Ship" + imoNumber, origin, flag, 200);
+            ship.loadCargo(new BulkCargo(nextCargoId++, origin, 1 + random.nextInt(200),
+                    BulkCargoType.values()[random.nextInt(BulkCargoType.values().length)]));
+            return ship;
+        }
+        Ship ship = new ContainerShip(imoNumber, "Ship" + imoNumber, origin, flag, 10);
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            ship.loadCargo(new Container(nextCargoId++, origin,
+                    ContainerType.values()[random.nextInt(ContainerType.values().length)]));
+        }
+        return ship;
+    }
+
+    /**
+     * Creates a container or, one time in three, bulk cargo bound for a random port.
+     *
+     * @return new cargo
+     */
+    Cargo cargo() {
+        int id = nextCargoId++;
+        String destination = PORTS[random.nextInt(PORTS.length)];
+        if (id % 3 == 0) {
+            return new BulkCargo(id, destination, 1 + random.nextInt(200), BulkCargoType.GRAIN);
+        }
+        return new Container(id, destination, ContainerType.STANDARD);
+    }
+}
@@ -0,0 +1,115 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.Cargo;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading the same port from a text save file and from a binary snapshot, both read
+ * from disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PortSnapshotBenchmark {
+    /**
+     * number of cargo in the port
+     */
+    @Param({"10000", "1000000"})
+    public int cargo;
+
+    /**
+     * the text save
+     */
+    private Path text;
+    /**
+     * the binary snapshot
+     */
+    private Path snapshot;
+
+    /**
+     * Writes the port as a text save and as a snapshot.
+     *
+     * @throws IOException if the files cannot be written
+     * @throws BadEncodingException if the generated save is invalid
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, BadEncodingException {
+        String save = InitialisePortBenchmark.generate(cargo);
+        text = Files.createTempFile("port", ".txt");
+        Files.writeString(text, save);
+        snapshot = Files.createTempFile("port", ".snapshot");
+        PortSnapshot.write(Port.initialisePort(new StringReader(save)), snapshot);
+        System.out.printf("%ntext: %.1f MB, snapshot: %.1f MB%n",
+                Files.size(text) / 1e6, Files.size(snapshot) / 1e6);
+    }
+
+    /**
+     * Deletes the files.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(snapshot);
+    }
+
+    /**
+     * Empties the registries filled by the previous load.
+     */
+    @Setup(Level.Invocation)
+    public void resetRegistries() {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /**
+     * Loads the text save.
+     *
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the save is invalid
+     */
+    @Benchmark
+    public Port loadText() throws IOException, BadEncodingException {
+        try (BufferedReader reader = Files.newBufferedReader(text)) {
+            return Port.initialisePort(reader);
+        }
+    }
+
+    /**
+     * Loads the snapshot.
+     *
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the snapshot is invalid
+     */
+    @Benchmark
+    public Port loadSnapshot() throws IOException, BadEncodingException {
+        return PortSnapshot.read(snapshot);
+    }
+}
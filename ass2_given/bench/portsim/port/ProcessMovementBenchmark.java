@@ -0,0 +1,112 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.Cargo;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Port#processMovement(Movement)} for each kind of movement and direction.
+ * <p>
+ * Each invocation processes a batch of movements of one kind against a freshly built port
+ * holding as many queued ships and stored cargo as there are movements in the batch:
+ * <ul>
+ *     <li>inbound ships join the ship queue</li>
+ *     <li>outbound ships are queued ships, which load stored cargo bound for their origin</li>
+ *     <li>inbound cargo is new cargo added to the stored cargo</li>
+ *     <li>outbound cargo is each piece of stored cargo in turn</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProcessMovementBenchmark {
+    /**
+     * number of movements processed by each invocation
+     */
+    private static final int BATCH = 10000;
+
+    /**
+     * kind of movement to process
+     */
+    @Param({"ship", "cargo"})
+    public String kind;
+
+    /**
+     * direction of the movements
+     */
+    @Param({"INBOUND", "OUTBOUND"})
+    public MovementDirection direction;
+
+    /**
+     * port processing the movements
+     */
+    private Port port;
+    /**
+     * movements to process
+     */
+    private List<Movement> movements;
+
+    /**
+     * Builds a new port and batch of movements in their own context, so the registries do not
+     * grow between invocations.
+     */
+    @Setup(Level.Invocation)
+    @SuppressWarnings("try")
+    public void setUp() {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            PortFixture fixture = new PortFixture();
+            port = fixture.port(8, BATCH, 0, 0);
+            movements = new ArrayList<>(BATCH);
+            List<Ship> queued = port.getShipQueue().getShipQueue();
+            List<Cargo> stored = port.getCargo();
+            for (int i = 0; i < BATCH; i++) {
+                boolean in = direction == MovementDirection.INBOUND;
+                if (kind.equals("ship")) {
+                    movements.add(new ShipMovement(0, direction,
+                            in ? fixture.ship() : queued.get(i)));
+                } else {
+                    movements.add(new CargoMovement(0, direction,
+                            List.of(in ? fixture.cargo() : stored.get(i))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the batch of movements.
+     *
+     * @return port the movements were processed by
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Port processMovement() {
+        for (Movement movement : movements) {
+            port.processMovement(movement);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,153 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.cargo.Cargo;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+import portsim.util.SaveFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the size of the same port's save file and the time to load it from disk, as plain
+ * text, as a single gzip stream and as block gzip decompressed on several threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SaveCompressionBenchmark {
+    /**
+     * number of cargo in the port
+     */
+    @Param({"10000", "1000000"})
+    public int cargo;
+
+    /**
+     * the plain text save
+     */
+    private Path text;
+    /**
+     * the save as a single gzip stream
+     */
+    private Path gzip;
+    /**
+     * the save as block gzip
+     */
+    private Path blocks;
+
+    /**
+     * Writes the save in each format.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String save = InitialisePortBenchmark.generate(cargo);
+        text = Files.createTempFile("port", ".txt");
+        Files.writeString(text, save);
+        gzip = Files.createTempFile("port", ".txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip), 1 << 16)) {
+            out.write(save.getBytes(StandardCharsets.UTF_8));
+        }
+        blocks = Files.createTempFile("port", ".txt.gz");
+        try (Writer writer = SaveFiles.newWriter(blocks)) {
+            writer.write(save);
+        }
+        System.out.printf("%ntext: %.1f MB, gzip: %.1f MB, block gzip: %.1f MB%n",
+                Files.size(text) / 1e6, Files.size(gzip) / 1e6, Files.size(blocks) / 1e6);
+    }
+
+    /**
+     * Deletes the files.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(gzip);
+        Files.deleteIfExists(blocks);
+    }
+
+    /**
+     * Empties the registries filled by the previous load.
+     */
+    @Setup(Level.Invocation)
+    public void resetRegistries() {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /**
+     * Loads a save file, detecting its compression.
+     *
+     * @param file save file
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the save is invalid
+     */
+    private static Port load(Path file) throws IOException, BadEncodingException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Port.initialisePort(in);
+        }
+    }
+
+    /**
+     * Loads the plain text save.
+     *
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the save is invalid
+     */
+    @Benchmark
+    public Port loadText() throws IOException, BadEncodingException {
+        return load(text);
+    }
+
+    /**
+     * Loads the single gzip stream save.
+     *
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the save is invalid
+     */
+    @Benchmark
+    public Port loadGzip() throws IOException, BadEncodingException {
+        return load(gzip);
+    }
+
+    /**
+     * Loads the block gzip save.
+     *
+     * @return loaded port
+     * @throws IOException if the file cannot be read
+     * @throws BadEncodingException if the save is invalid
+     */
+    @Benchmark
+    public Port loadBlockGzip() throws IOException, BadEncodingException {
+        return load(blocks);
+    }
+}
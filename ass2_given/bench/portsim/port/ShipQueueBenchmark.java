@@ -0,0 +1,104 @@
+package portsim.port;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ShipQueue#peek()} and {@link ShipQueue#poll()} on a queue of a constant
+ * size. Polling uses the "hold" model: each operation polls the next ship and adds it back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShipQueueBenchmark {
+    /**
+     * flags that put a ship ahead of the others, used in the mixed queue
+     */
+    private static final NauticalFlag[] PRIORITY_FLAGS = {NauticalFlag.BRAVO,
+        NauticalFlag.WHISKEY, NauticalFlag.HOTEL};
+
+    /**
+     * number of ships in the queue
+     */
+    @Param({"100", "10000", "1000000"})
+    public int ships;
+
+    /**
+     * flags of the ships: all NOVEMBER, or one in ten each of BRAVO, WHISKEY and HOTEL
+     */
+    @Param({"plain", "mixed"})
+    public String flags;
+
+    /**
+     * queue being measured
+     */
+    private ShipQueue queue;
+
+    /**
+     * Fills the queue with bulk carriers and container ships in a random order, in a context
+     * of their own.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("try")
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(2002);
+        queue = new ShipQueue();
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            for (int i = 0; i < ships; i++) {
+                NauticalFlag flag = NauticalFlag.NOVEMBER;
+                int draw = random.nextInt(10);
+                if (flags.equals("mixed") && draw < 3) {
+                    flag = PRIORITY_FLAGS[draw];
+                }
+                long imoNumber = 1000000 + i;
+                Ship ship = random.nextBoolean()
+                        ? new BulkCarrier(imoNumber, "Ship" + i, "Brisbane", flag, 100)
+                        : new ContainerShip(imoNumber, "Ship" + i, "Brisbane", flag, 10);
+                queue.add(ship);
+            }
+        }
+    }
+
+    /**
+     * Returns the next ship without removing it.
+     *
+     * @return next ship to dock
+     */
+    @Benchmark
+    public Ship peek() {
+        return queue.peek();
+    }
+
+    /**
+     * Removes the next ship and adds it back to the end of its lane.
+     *
+     * @return ship removed and added back
+     */
+    @Benchmark
+    public Ship pollAndAdd() {
+        Ship ship = queue.poll();
+        queue.add(ship);
+        return ship;
+    }
+}
@@ -0,0 +1,191 @@
+package portsim.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed {@link HashMap} registries with {@link IntKeyMap} (cargo IDs, which are
+ * dense) and {@link LongKeyMap} (seven digit IMO numbers).
+ * <p>
+ * The lookup benchmarks measure a random lookup in a full registry. The build benchmarks fill
+ * a registry from empty; run them with {@code -prof gc} and read {@code gc.alloc.rate.norm}
+ * for the number of bytes each registry allocates, which is an upper bound on its heap
+ * footprint.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RegistryBenchmark {
+    /**
+     * number of lookups precomputed, a power of two
+     */
+    private static final int LOOKUPS = 1 << 16;
+
+    /**
+     * number of entries in each registry
+     */
+    @Param({"1000000"})
+    public int entries;
+
+    /**
+     * registry implementation to measure
+     */
+    @Param({"boxed", "primitive"})
+    public String registry;
+
+    /**
+     * value stored for every key
+     */
+    private final Object value = new Object();
+
+    /**
+     * boxed cargo registry
+     */
+    private Map<Integer, Object> boxedCargo;
+    /**
+     * boxed ship registry
+     */
+    private Map<Long, Object> boxedShips;
+    /**
+     * primitive cargo registry
+     */
+    private IntKeyMap<Object> cargo;
+    /**
+     * primitive ship registry
+     */
+    private LongKeyMap<Object> ships;
+    /**
+     * cargo IDs to look up
+     */
+    private int[] cargoIds;
+    /**
+     * IMO numbers to look up
+     */
+    private long[] imoNumbers;
+    /**
+     * position of the next key to look up
+     */
+    private int next;
+
+    /**
+     * Fills the registries and picks the keys to look up.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        boxedCargo = new HashMap<>();
+        boxedShips = new HashMap<>();
+        cargo = new IntKeyMap<>();
+        ships = new LongKeyMap<>();
+        for (int i = 0; i < entries; i++) {
+            boxedCargo.put(i, value);
+            boxedShips.put(imoNumber(i), value);
+            cargo.put(i, value);
+            ships.put(imoNumber(i), value);
+        }
+        SplittableRandom random = new SplittableRandom(1000000);
+        cargoIds = new int[LOOKUPS];
+        imoNumbers = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            cargoIds[i] = random.nextInt(entries);
+            imoNumbers[i] = imoNumber(random.nextInt(entries));
+        }
+    }
+
+    /**
+     * Returns a seven digit IMO number for the given ship.
+     *
+     * @param ship number of the ship
+     * @return IMO number
+     */
+    private static long imoNumber(int ship) {
+        return 1000000 + ship * 8L;
+    }
+
+    /**
+     * Looks up a piece of cargo by ID.
+     *
+     * @return cargo found
+     */
+    @Benchmark
+    public Object lookupCargo() {
+        int id = cargoIds[next++ & (LOOKUPS - 1)];
+        return registry.equals("boxed") ? boxedCargo.get(id) : cargo.get(id);
+    }
+
+    /**
+     * Looks up a ship by IMO number.
+     *
+     * @return ship found
+     */
+    @Benchmark
+    public Object lookupShip() {
+        long imoNumber = imoNumbers[next++ & (LOOKUPS - 1)];
+        return registry.equals("boxed") ? boxedShips.get(imoNumber) : ships.get(imoNumber);
+    }
+
+    /**
+     * Builds a cargo registry with every cargo ID.
+     *
+     * @return the registry
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public Map<Integer, Object> buildCargo() {
+        if (registry.equals("boxed")) {
+            Map<Integer, Object> built = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                built.put(i, value);
+            }
+            return built;
+        }
+        IntKeyMap<Object> built = new IntKeyMap<>();
+        for (int i = 0; i < entries; i++) {
+            built.put(i, value);
+        }
+        return built;
+    }
+
+    /**
+     * Builds a ship registry with every IMO number.
+     *
+     * @return the registry
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public Map<Long, Object> buildShips() {
+        if (registry.equals("boxed")) {
+            Map<Long, Object> built = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                built.put(imoNumber(i), value);
+            }
+            return built;
+        }
+        LongKeyMap<Object> built = new LongKeyMap<>();
+        for (int i = 0; i < entries; i++) {
+            built.put(imoNumber(i), value);
+        }
+        return built;
+    }
+}
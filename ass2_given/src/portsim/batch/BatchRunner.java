@@ -0,0 +1,159 @@
+package portsim.batch;
+
+import portsim.evaluators.EvaluatorSummary;
+import portsim.port.Port;
+import portsim.port.PortJournal;
+import portsim.util.BadEncodingException;
+import portsim.util.SaveFiles;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry point for running the Port Simulation without a display.
+ * <p>
+ * Loads a port, runs it for a number of minutes with {@link Port#advanceTo(long)} and reports
+ * the evaluator statistics, the final state of the port and how fast the simulation ran,
+ * optionally followed by the time spent in each phase of a minute. A long run can record a
+ * journal of the port's changes and be resumed from it after the program has died. Nothing
+ * here depends on JavaFX.
+ */
+public final class BatchRunner {
+
+    /**
+     * name of the snapshot file in the journal directory
+     */
+    private static final String SNAPSHOT_FILE = "port.snapshot";
+    /**
+     * name of the journal file in the journal directory
+     */
+    private static final String JOURNAL_FILE = "port.journal";
+    /**
+     * longest time in milliseconds a change to the port waits to be synced to the journal
+     */
+    private static final long JOURNAL_SYNC_INTERVAL = 1000;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs a simulation.
+     * <p>
+     * Usage: {@code [--timings] [--journal directory] port_file minutes [output_file]}
+     * <p>
+     * Where
+     * <ul>
+     * <li>{@code --timings} records the time spent in each phase of every minute
+     * ({@link portsim.port.PortTimings}) and prints it after the throughput</li>
+     * <li>{@code --journal directory} records a snapshot and journal of the port
+     * ({@link PortJournal}) in the given directory while it runs, synced every second. If the
+     * directory already holds a snapshot, the port is recovered from it and its journal
+     * instead of being loaded from {@code port_file}.</li>
+     * <li>{@code port_file} is the path to the file containing the port</li>
+     * <li>{@code minutes} is the number of minutes to simulate</li>
+     * <li>{@code output_file} is the path to save the final port to; if it is not given,
+     * the final port is printed after the evaluator statistics</li>
+     * </ul>
+     * The throughput, in simulated minutes per second of wall-clock time, is printed last.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        boolean timings = false;
+        Path journalDirectory = null;
+        while (args.length > 0 && args[0].startsWith("--")) {
+            if (args[0].equals("--timings")) {
+                timings = true;
+                args = Arrays.copyOfRange(args, 1, args.length);
+            } else if (args[0].equals("--journal") && args.length > 1) {
+                journalDirectory = Paths.get(args[1]);
+                args = Arrays.copyOfRange(args, 2, args.length);
+            } else {
+                break;
+            }
+        }
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: [--timings] [--journal directory] port_file minutes"
+                    + " [output_file]");
+            System.exit(1);
+            return;
+        }
+        long minutes;
+        try {
+            minutes = Long.parseLong(args[1]);
+        } catch (NumberFormatException e) {
+            minutes = -1;
+        }
+        if (minutes < 0) {
+            System.err.println("minutes must be a non-negative integer: " + args[1]);
+            System.exit(1);
+            return;
+        }
+
+        Path snapshot = journalDirectory == null ? null
+                : journalDirectory.resolve(SNAPSHOT_FILE);
+        Path journal = journalDirectory == null ? null : journalDirectory.resolve(JOURNAL_FILE);
+        Port port;
+        try {
+            if (snapshot != null && Files.exists(snapshot)) {
+                port = PortJournal.recover(snapshot, journal);
+                System.out.println("Recovered the port at time " + port.getTime());
+            } else {
+                try (Reader reader = SaveFiles.newReader(Paths.get(args[0]))) {
+                    port = Port.initialisePort(reader, ForkJoinPool.commonPool());
+                }
+            }
+            if (snapshot != null) {
+                Files.createDirectories(journalDirectory);
+                port.startJournal(snapshot, journal, JOURNAL_SYNC_INTERVAL);
+            }
+        } catch (BadEncodingException | IOException e) {
+            System.err.println("Error loading from file. Stack trace below:");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+
+        if (timings) {
+            port.enableTimings();
+        }
+        long start = System.nanoTime();
+        port.advanceTo(port.getTime() + minutes);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(EvaluatorSummary.describe(port.getEvaluators()));
+        try {
+            port.stopJournal();
+            if (args.length == 3) {
+                Path output = Paths.get(args[2]);
+                try (Writer writer = SaveFiles.newWriter(output)) {
+                    port.encodeTo(writer);
+                }
+            } else {
+                Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+                port.encodeTo(writer);
+                writer.write(System.lineSeparator());
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving the port. Stack trace below:");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        System.out.printf("Simulated %d minutes in %.3f s (%.0f minutes/s)%n",
+                minutes, elapsed / 1e9, minutes / Math.max(elapsed / 1e9, 1e-9));
+        if (timings) {
+            System.out.println("Phase timings (ns):");
+            System.out.println(port.getTimings());
+        }
+    }
+}
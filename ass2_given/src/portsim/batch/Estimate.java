@@ -0,0 +1,134 @@
+package portsim.batch;
+
+/**
+ * The mean of a quantity measured over several independent replications of a simulation,
+ * with a 95% confidence interval for it.
+ * <p>
+ * The interval uses the normal approximation {@code mean +/- 1.96 * s / sqrt(n)}, where
+ * {@code s} is the sample standard deviation and {@code n} the number of replications.
+ */
+public final class Estimate {
+    /**
+     * z value of a two-sided 95% interval
+     */
+    private static final double Z_95 = 1.96;
+
+    /**
+     * number of samples
+     */
+    private final int count;
+    /**
+     * sample mean
+     */
+    private final double mean;
+    /**
+     * sample standard deviation
+     */
+    private final double standardDeviation;
+
+    /**
+     * Creates an estimate from a summary of its samples.
+     *
+     * @param count number of samples
+     * @param mean sample mean
+     * @param standardDeviation sample standard deviation
+     */
+    private Estimate(int count, double mean, double standardDeviation) {
+        this.count = count;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+    }
+
+    /**
+     * Returns the estimate of the mean of the given samples.
+     *
+     * @param samples one measurement from each replication
+     * @return estimate of the mean
+     * @throws IllegalArgumentException if there are no samples
+     */
+    public static Estimate of(double[] samples) throws IllegalArgumentException {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("Cannot estimate a mean from no samples");
+        }
+        double sum = 0;
+        for (double sample : samples) {
+            sum += sample;
+        }
+        double mean = sum / samples.length;
+        double squares = 0;
+        for (double sample : samples) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        double deviation = samples.length > 1 ? Math.sqrt(squares / (samples.length - 1)) : 0;
+        return new Estimate(samples.length, mean, deviation);
+    }
+
+    /**
+     * Returns the number of samples the estimate is based on.
+     *
+     * @return number of samples
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sample mean.
+     *
+     * @return mean
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample standard deviation.
+     *
+     * @return standard deviation, 0 if there is only one sample
+     */
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    /**
+     * Returns half the width of the 95% confidence interval of the mean.
+     *
+     * @return distance from the mean to either end of the interval
+     */
+    public double getHalfWidth() {
+        return Z_95 * standardDeviation / Math.sqrt(count);
+    }
+
+    /**
+     * Returns the lower end of the 95% confidence interval of the mean.
+     *
+     * @return lower bound
+     */
+    public double getLower() {
+        return mean - getHalfWidth();
+    }
+
+    /**
+     * Returns the upper end of the 95% confidence interval of the mean.
+     *
+     * @return upper bound
+     */
+    public double getUpper() {
+        return mean + getHalfWidth();
+    }
+
+    /**
+     * Returns the human-readable string representation of this estimate.
+     * <p>
+     * The format of the string to return is
+     * <pre>mean +/- halfWidth [lower, upper]</pre>
+     * with every number rounded to three decimal places.
+     *
+     * @return string representation of this estimate
+     */
+    @Override
+    public String toString() {
+        return String.format("%.3f +/- %.3f [%.3f, %.3f]",
+                mean, getHalfWidth(), getLower(), getUpper());
+    }
+}
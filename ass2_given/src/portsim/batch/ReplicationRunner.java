@@ -0,0 +1,308 @@
+package portsim.batch;
+
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.evaluators.QuayOccupancyEvaluator;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.evaluators.ShipThroughputEvaluator;
+import portsim.evaluators.StatisticsEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementScheduler;
+import portsim.movement.ShipMovement;
+import portsim.port.Port;
+import portsim.util.BadEncodingException;
+import portsim.util.SaveFiles;
+import portsim.util.SimulationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many replications of the same port with randomly perturbed movement times and
+ * estimates the mean of every evaluator statistic over the replications.
+ * <p>
+ * The base port is encoded once. Each replication decodes its own copy of it into a fresh
+ * {@link SimulationContext}, so replications share no mutable state and run in parallel on a
+ * {@link ForkJoinPool}. Replication {@code i} always uses the same random seed, derived from the
+ * runner's seed, so the results do not depend on the number of threads or the order in which
+ * replications finish.
+ */
+public final class ReplicationRunner {
+    /**
+     * encoding of the port every replication starts from
+     */
+    private final String base;
+    /**
+     * time of the base port
+     */
+    private final long baseTime;
+    /**
+     * greatest number of minutes a movement is moved earlier or later
+     */
+    private final long maxShift;
+    /**
+     * seed from which the seed of each replication is drawn
+     */
+    private final long seed;
+
+    /**
+     * Creates a runner that replicates the given port.
+     * <p>
+     * In each replication the time of every pending movement is moved by a whole number of
+     * minutes drawn uniformly from {@code [-maxShift, maxShift]}, but never to or before the
+     * time of the port.
+     *
+     * @param base port to replicate; it is not modified
+     * @param maxShift greatest number of minutes to move a movement by
+     * @param seed seed of the random perturbations
+     * @throws IllegalArgumentException if maxShift &lt; 0
+     */
+    public ReplicationRunner(Port base, long maxShift, long seed)
+            throws IllegalArgumentException {
+        if (maxShift < 0) {
+            throw new IllegalArgumentException("maxShift must not be negative: " + maxShift);
+        }
+        this.base = base.encode();
+        this.baseTime = base.getTime();
+        this.maxShift = maxShift;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the given number of replications for the given number of minutes each, using at
+     * most the given number of threads.
+     * <p>
+     * The statistics are named after the evaluator that reports them:
+     * <ul>
+     *     <li>{@code QuayOccupancyEvaluator: occupied} - quays occupied at the end</li>
+     *     <li>{@code ShipThroughputEvaluator: last hour} - ships that left in the last
+     *     hour</li>
+     *     <li>{@code ShipFlagEvaluator: flag} - inbound ships of each flag</li>
+     *     <li>{@code CargoDecompositionEvaluator: type} - outbound cargo of each bulk cargo
+     *     and container type</li>
+     * </ul>
+     * A statistic missing from some replications, such as a flag that only arrived in some of
+     * them, counts as 0 in the others.
+     *
+     * @param replications number of replications
+     * @param minutes number of minutes to simulate in each replication
+     * @param parallelism greatest number of replications to run at once
+     * @return estimate of each statistic, sorted by name
+     * @throws IllegalArgumentException if replications, minutes or parallelism are out of range
+     * @throws InterruptedException if interrupted while waiting for the replications
+     */
+    public Map<String, Estimate> run(int replications, long minutes, int parallelism)
+            throws IllegalArgumentException, InterruptedException {
+        if (replications < 1 || minutes < 0 || parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Callable<Map<String, Double>>> tasks = new ArrayList<>(replications);
+        for (int i = 0; i < replications; i++) {
+            long replicationSeed = seeds.nextLong();
+            tasks.add(() -> replicate(replicationSeed, minutes));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Map<String, Double>> results = new ArrayList<>(replications);
+        try {
+            for (Future<Map<String, Double>> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replication failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<String, double[]> samples = new TreeMap<>();
+        for (int i = 0; i < replications; i++) {
+            for (Map.Entry<String, Double> entry : results.get(i).entrySet()) {
+                samples.computeIfAbsent(entry.getKey(), k -> new double[replications])[i] =
+                        entry.getValue();
+            }
+        }
+        Map<String, Estimate> estimates = new TreeMap<>();
+        for (Map.Entry<String, double[]> entry : samples.entrySet()) {
+            estimates.put(entry.getKey(), Estimate.of(entry.getValue()));
+        }
+        return estimates;
+    }
+
+    /**
+     * Runs one replication.
+     *
+     * @param replicationSeed seed of the perturbation of this replication
+     * @param minutes number of minutes to simulate
+     * @return final value of each statistic
+     * @throws BadEncodingException if the base port cannot be decoded
+     * @throws IOException never, the base port is read from memory
+     */
+    @SuppressWarnings("try")
+    private Map<String, Double> replicate(long replicationSeed, long minutes)
+            throws BadEncodingException, IOException {
+        Port port;
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            port = Port.initialisePort(new StringReader(base));
+        }
+        perturb(port, new SplittableRandom(replicationSeed));
+        port.advanceTo(baseTime + minutes);
+        return measure(port.getEvaluators());
+    }
+
+    /**
+     * Moves each pending movement of the given port by a random number of minutes.
+     * Movements that end up at the same time keep their original order.
+     *
+     * @param port port whose movements to move
+     * @param random source of the shifts
+     */
+    private void perturb(Port port, SplittableRandom random) {
+        if (maxShift == 0) {
+            return;
+        }
+        MovementScheduler movements = port.getMovements();
+        List<Movement> pending = new ArrayList<>(movements.size());
+        Movement movement;
+        while ((movement = movements.pollDue(Long.MAX_VALUE)) != null) {
+            pending.add(movement);
+        }
+        for (Movement original : pending) {
+            long shifted = original.getTime() + random.nextLong(-maxShift, maxShift + 1);
+            long time = Math.max(shifted, port.getTime() + 1);
+            if (original instanceof ShipMovement) {
+                port.addMovement(new ShipMovement(time, original.getDirection(),
+                        ((ShipMovement) original).getShip()));
+            } else {
+                port.addMovement(new CargoMovement(time, original.getDirection(),
+                        ((CargoMovement) original).getCargo()));
+            }
+        }
+    }
+
+    /**
+     * Reads the statistics of the given evaluators.
+     *
+     * @param evaluators evaluators of a finished replication
+     * @return value of each statistic
+     */
+    private static Map<String, Double> measure(List<StatisticsEvaluator> evaluators) {
+        Map<String, Double> values = new HashMap<>();
+        for (StatisticsEvaluator evaluator : evaluators) {
+            String name = evaluator.getClass().getSimpleName() + ": ";
+            if (evaluator instanceof QuayOccupancyEvaluator) {
+                values.put(name + "occupied",
+                        (double) ((QuayOccupancyEvaluator) evaluator).getQuaysOccupied());
+            } else if (evaluator instanceof ShipThroughputEvaluator) {
+                values.put(name + "last hour",
+                        (double) ((ShipThroughputEvaluator) evaluator).getThroughputPerHour());
+            } else if (evaluator instanceof ShipFlagEvaluator) {
+                addCounts(values, name,
+                        ((ShipFlagEvaluator) evaluator).getFlagDistribution());
+            } else if (evaluator instanceof CargoDecompositionEvaluator) {
+                addCounts(values, name,
+                        ((CargoDecompositionEvaluator) evaluator).getCargoDistribution());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds a statistic for each entry of the given distribution.
+     *
+     * @param values statistics of the replication
+     * @param prefix name of the evaluator the distribution belongs to
+     * @param counts number of times each key has been seen
+     */
+    private static void addCounts(Map<String, Double> values, String prefix,
+                                  Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            values.put(prefix + entry.getKey(), (double) entry.getValue());
+        }
+    }
+
+    /**
+     * Runs replications of a port and prints the estimate of each statistic.
+     * <p>
+     * Usage: {@code port_file minutes replications [max_shift [seed [threads]]]}
+     * <p>
+     * Where
+     * <ul>
+     * <li>{@code port_file} is the path to the file containing the port</li>
+     * <li>{@code minutes} is the number of minutes to simulate in each replication</li>
+     * <li>{@code replications} is the number of replications to run</li>
+     * <li>{@code max_shift} is the greatest number of minutes to move a movement by,
+     * 60 if not given</li>
+     * <li>{@code seed} is the seed of the random perturbations, 0 if not given</li>
+     * <li>{@code threads} is the number of replications to run at once, the number of
+     * available processors if not given</li>
+     * </ul>
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 6) {
+            System.err.println(
+                    "Usage: port_file minutes replications [max_shift [seed [threads]]]");
+            System.exit(1);
+            return;
+        }
+        long minutes;
+        int replications;
+        long maxShift;
+        long seed;
+        int threads;
+        try {
+            minutes = Long.parseLong(args[1]);
+            replications = Integer.parseInt(args[2]);
+            maxShift = args.length > 3 ? Long.parseLong(args[3]) : 60;
+            seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+            threads = args.length > 5 ? Integer.parseInt(args[5])
+                    : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        Port port;
+        try (Reader reader = SaveFiles.newReader(Paths.get(args[0]))) {
+            port = Port.initialisePort(reader, ForkJoinPool.commonPool());
+        } catch (BadEncodingException | IOException e) {
+            System.err.println("Error loading from file. Stack trace below:");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+
+        Map<String, Estimate> estimates;
+        long start = System.nanoTime();
+        try {
+            estimates = new ReplicationRunner(port, maxShift, seed)
+                    .run(replications, minutes, threads);
+        } catch (IllegalArgumentException | InterruptedException e) {
+            System.err.println("Error running replications: " + e);
+            System.exit(1);
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        for (Map.Entry<String, Estimate> entry : estimates.entrySet()) {
+            System.out.println(entry.getKey() + " : " + entry.getValue());
+        }
+        System.out.printf("Ran %d replications of %d minutes in %.3f s on %d thread(s)%n",
+                replications, minutes, elapsed / 1e9, threads);
+    }
+}
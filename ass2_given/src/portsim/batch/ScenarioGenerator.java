@@ -0,0 +1,818 @@
+package portsim.batch;
+
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.ContainerType;
+import portsim.movement.MovementDirection;
+import portsim.ship.NauticalFlag;
+import portsim.util.SaveFiles;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates large, valid port saves in the format written by {@link portsim.port.Port#encode()}.
+ * <p>
+ * A generated port starts at time 0 with every quay empty. Its contents are:
+ * <ul>
+ *     <li>cargo: container ships carry containers and bulk carriers at most one bulk cargo,
+ *     all bound for the ship's origin. The remaining cargo is either stored at the port, or
+ *     arrives later in an inbound cargo movement.</li>
+ *     <li>ships: the first ships wait in the ship queue. Every other ship arrives in an
+ *     inbound ship movement. Ship arrivals follow a Poisson process, and every ship leaves
+ *     two to twelve hours after it arrives.</li>
+ *     <li>quays: bulk and container quays, large enough for every ship to fit in some
+ *     quay.</li>
+ *     <li>cargo movements: consecutive cargo is grouped into movements of up to
+ *     {@value #CARGO_PER_MOVEMENT} pieces. Cargo that arrives is grouped into inbound
+ *     movements, and half of the stored cargo leaves in outbound movements. Both follow
+ *     Poisson processes.</li>
+ *     <li>evaluators: one of each.</li>
+ * </ul>
+ * Flags, origins (which are also the destinations of the cargo), cargo types and arrival
+ * rates follow configurable distributions.
+ * <p>
+ * Every random choice about an item is derived from the seed and the item's number alone.
+ * The output therefore depends only on the seed and the settings. The save is written as
+ * it is generated: memory use grows with the number of ships, but not with the amount of
+ * cargo or the number of movements.
+ */
+public class ScenarioGenerator {
+    /**
+     * largest number of pieces of cargo in one cargo movement
+     */
+    public static final int CARGO_PER_MOVEMENT = 20;
+    /**
+     * shortest time a ship stays, in minutes
+     */
+    private static final int MIN_STAY = 2 * 60;
+    /**
+     * longest time a ship stays, in minutes
+     */
+    private static final int MAX_STAY = 12 * 60;
+    /**
+     * largest tonnage a bulk carrier can carry, and the smallest capacity of a bulk quay
+     */
+    private static final int MAX_TONNAGE = 5000;
+    /**
+     * largest number of containers a container ship can carry, and the smallest capacity of
+     * a container quay
+     */
+    private static final int MAX_CONTAINERS = 100;
+
+    /**
+     * Kinds of random choice. Each kind draws from its own stream of random numbers, so
+     * changing one distribution does not change the choices of any other kind.
+     */
+    private enum Choice {
+        SHIP_KIND, SHIP_ORIGIN, SHIP_FLAG, SHIP_CAPACITY, SHIP_LOAD, SHIP_ARRIVAL, SHIP_STAY,
+        CARGO_TYPE, CARGO_TONNAGE, CARGO_DESTINATION, CARGO_ROLE, CARGO_ARRIVAL,
+        CARGO_DEPARTURE, QUAY_KIND, QUAY_CAPACITY
+    }
+
+    /**
+     * What happens to cargo that is not carried by a ship.
+     */
+    private enum Role {
+        STORED, STORED_LEAVING, ARRIVING
+    }
+
+    /**
+     * seed of every random choice
+     */
+    private final long seed;
+    /**
+     * number of cargo
+     */
+    private int cargo = 1000;
+    /**
+     * number of ships
+     */
+    private int ships = 100;
+    /**
+     * number of quays
+     */
+    private int quays = 10;
+    /**
+     * number of ships in the ship queue at the start
+     */
+    private int queuedShips = 1;
+    /**
+     * fraction of ships that are bulk carriers and of quays that are bulk quays
+     */
+    private double bulkFraction = 0.3;
+    /**
+     * fraction of the cargo not carried by ships that is stored at the port at the start
+     */
+    private double storedFraction = 0.5;
+    /**
+     * mean number of ships arriving per hour
+     */
+    private double shipArrivalsPerHour = 6;
+    /**
+     * mean number of inbound and of outbound cargo movements per hour
+     */
+    private double cargoMovementsPerHour = 30;
+    /**
+     * relative frequency of each origin
+     */
+    private Map<String, Double> origins = new LinkedHashMap<>();
+    /**
+     * relative frequency of each flag
+     */
+    private Map<NauticalFlag, Double> flags = new EnumMap<>(NauticalFlag.class);
+    /**
+     * relative frequency of each container type
+     */
+    private Map<ContainerType, Double> containerTypes = new EnumMap<>(ContainerType.class);
+    /**
+     * relative frequency of each bulk cargo type
+     */
+    private Map<BulkCargoType, Double> bulkCargoTypes = new EnumMap<>(BulkCargoType.class);
+
+    /**
+     * Creates a generator with the given seed and the default settings: 1000 cargo, 100
+     * ships of which one is queued, 10 quays, 30% bulk ships and quays, half of the free
+     * cargo stored, 6 ship arrivals and 30 cargo movements each way per hour. Four origins
+     * are equally likely. Most ships fly NOVEMBER, with the others one in ten each. All
+     * cargo types are equally likely.
+     *
+     * @param seed seed of every random choice
+     */
+    public ScenarioGenerator(long seed) {
+        this.seed = seed;
+        for (String origin : new String[] {"Australia", "China", "Japan", "Singapore"}) {
+            origins.put(origin, 1.0);
+        }
+        flags.put(NauticalFlag.NOVEMBER, 0.7);
+        flags.put(NauticalFlag.HOTEL, 0.1);
+        flags.put(NauticalFlag.BRAVO, 0.1);
+        flags.put(NauticalFlag.WHISKEY, 0.1);
+        for (ContainerType type : ContainerType.values()) {
+            containerTypes.put(type, 1.0);
+        }
+        for (BulkCargoType type : BulkCargoType.values()) {
+            bulkCargoTypes.put(type, 1.0);
+        }
+    }
+
+    /**
+     * Sets the number of cargo. If the ships carry more cargo than this, the last ships are
+     * generated empty.
+     *
+     * @param cargo number of cargo
+     * @throws IllegalArgumentException if cargo &lt; 0
+     */
+    public void setCargo(int cargo) throws IllegalArgumentException {
+        if (cargo < 0) {
+            throw new IllegalArgumentException("Number of cargo must not be negative: " + cargo);
+        }
+        this.cargo = cargo;
+    }
+
+    /**
+     * Sets the number of ships and how many of them start in the ship queue.
+     *
+     * @param ships number of ships
+     * @param queuedShips number of ships in the ship queue at the start
+     * @throws IllegalArgumentException if ships &lt; 0, queuedShips &lt; 0, queuedShips &gt;
+     *         ships or there are more than nine million ships
+     */
+    public void setShips(int ships, int queuedShips) throws IllegalArgumentException {
+        if (ships < 0 || queuedShips < 0 || queuedShips > ships || ships > 9000000) {
+            throw new IllegalArgumentException("Invalid number of ships: " + ships
+                    + " with " + queuedShips + " queued");
+        }
+        this.ships = ships;
+        this.queuedShips = queuedShips;
+    }
+
+    /**
+     * Sets the number of quays.
+     *
+     * @param quays number of quays
+     * @throws IllegalArgumentException if quays &lt; 0
+     */
+    public void setQuays(int quays) throws IllegalArgumentException {
+        if (quays < 0) {
+            throw new IllegalArgumentException("Number of quays must not be negative: " + quays);
+        }
+        this.quays = quays;
+    }
+
+    /**
+     * Sets the fraction of ships that are bulk carriers, which is also the fraction of quays
+     * that are bulk quays.
+     *
+     * @param bulkFraction fraction of bulk ships and quays
+     * @throws IllegalArgumentException if bulkFraction is not between 0 and 1
+     */
+    public void setBulkFraction(double bulkFraction) throws IllegalArgumentException {
+        if (!(bulkFraction >= 0 && bulkFraction <= 1)) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1: "
+                    + bulkFraction);
+        }
+        this.bulkFraction = bulkFraction;
+    }
+
+    /**
+     * Sets the fraction of the cargo not carried by ships that is stored at the port at the
+     * start. The rest arrives in inbound cargo movements.
+     *
+     * @param storedFraction fraction of cargo stored
+     * @throws IllegalArgumentException if storedFraction is not between 0 and 1
+     */
+    public void setStoredFraction(double storedFraction) throws IllegalArgumentException {
+        if (!(storedFraction >= 0 && storedFraction <= 1)) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1: "
+                    + storedFraction);
+        }
+        this.storedFraction = storedFraction;
+    }
+
+    /**
+     * Sets the mean rates of ship arrivals and of cargo movements.
+     *
+     * @param shipArrivalsPerHour mean number of ships arriving per hour
+     * @param cargoMovementsPerHour mean number of inbound, and of outbound, cargo movements
+     *                              per hour
+     * @throws IllegalArgumentException if either rate is not positive
+     */
+    public void setRates(double shipArrivalsPerHour, double cargoMovementsPerHour)
+            throws IllegalArgumentException {
+        if (!(shipArrivalsPerHour > 0 && cargoMovementsPerHour > 0)) {
+            throw new IllegalArgumentException("Rates must be positive");
+        }
+        this.shipArrivalsPerHour = shipArrivalsPerHour;
+        this.cargoMovementsPerHour = cargoMovementsPerHour;
+    }
+
+    /**
+     * Sets the origins of the ships, which are also the destinations of the cargo, and their
+     * relative frequencies.
+     *
+     * @param origins relative frequency of each origin
+     * @throws IllegalArgumentException if the weights are invalid or an origin is empty or
+     *         contains ':', ',' or a line break
+     */
+    public void setOrigins(Map<String, Double> origins) throws IllegalArgumentException {
+        for (String origin : origins.keySet()) {
+            if (origin.isEmpty() || origin.matches(".*[:,\\r\\n].*")) {
+                throw new IllegalArgumentException("Invalid origin: " + origin);
+            }
+        }
+        checkWeights(origins);
+        this.origins = new LinkedHashMap<>(origins);
+    }
+
+    /**
+     * Sets the relative frequency of each ship flag.
+     *
+     * @param flags relative frequency of each flag
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    public void setFlags(Map<NauticalFlag, Double> flags) throws IllegalArgumentException {
+        checkWeights(flags);
+        this.flags = new EnumMap<>(flags);
+    }
+
+    /**
+     * Sets the relative frequency of each container type.
+     *
+     * @param containerTypes relative frequency of each container type
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    public void setContainerTypes(Map<ContainerType, Double> containerTypes)
+            throws IllegalArgumentException {
+        checkWeights(containerTypes);
+        this.containerTypes = new EnumMap<>(containerTypes);
+    }
+
+    /**
+     * Sets the relative frequency of each bulk cargo type.
+     *
+     * @param bulkCargoTypes relative frequency of each bulk cargo type
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    public void setBulkCargoTypes(Map<BulkCargoType, Double> bulkCargoTypes)
+            throws IllegalArgumentException {
+        checkWeights(bulkCargoTypes);
+        this.bulkCargoTypes = new EnumMap<>(bulkCargoTypes);
+    }
+
+    /**
+     * Checks that the given weights are non-negative and not all zero.
+     *
+     * @param weights relative frequency of each value
+     * @throws IllegalArgumentException if the weights are invalid
+     */
+    private static void checkWeights(Map<?, Double> weights) throws IllegalArgumentException {
+        double total = 0;
+        for (Double weight : weights.values()) {
+            if (weight == null || !(weight >= 0) || weight.isInfinite()) {
+                throw new IllegalArgumentException("Invalid weight: " + weight);
+            }
+            total += weight;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+    }
+
+    /**
+     * Writes a generated save to the given writer. The writer is flushed but not closed.
+     *
+     * @param writer writer to write the save to
+     * @throws IOException if an IOException occurs when writing to the writer
+     */
+    public void generate(Writer writer) throws IOException {
+        new Generation(writer).run();
+    }
+
+    /**
+     * The state of writing one save.
+     */
+    private final class Generation {
+        /**
+         * line separator of the save
+         */
+        private final String lineSeparator = System.lineSeparator();
+        /**
+         * writer of the save
+         */
+        private final Writer out;
+        /**
+         * origins to choose from
+         */
+        private final String[] originNames;
+        /**
+         * cumulative weights of the origins
+         */
+        private final double[] originWeights;
+        /**
+         * flags to choose from
+         */
+        private final NauticalFlag[] flagValues;
+        /**
+         * cumulative weights of the flags
+         */
+        private final double[] flagWeights;
+        /**
+         * container types to choose from
+         */
+        private final ContainerType[] containerValues;
+        /**
+         * cumulative weights of the container types
+         */
+        private final double[] containerWeights;
+        /**
+         * bulk cargo types to choose from
+         */
+        private final BulkCargoType[] bulkValues;
+        /**
+         * cumulative weights of the bulk cargo types
+         */
+        private final double[] bulkWeights;
+        /**
+         * whether each ship is a bulk carrier
+         */
+        private final boolean[] bulk;
+        /**
+         * index of each ship's origin
+         */
+        private final int[] origin;
+        /**
+         * ID of the first cargo carried by each ship
+         */
+        private final int[] firstCargo;
+        /**
+         * number of cargo carried by each ship
+         */
+        private final int[] cargoCount;
+        /**
+         * ID of the first cargo not carried by a ship
+         */
+        private int freeCargo;
+
+        /**
+         * Chooses the kind, origin and load of every ship.
+         *
+         * @param writer writer of the save
+         */
+        private Generation(Writer writer) {
+            this.out = writer instanceof BufferedWriter
+                    ? writer : new BufferedWriter(writer, 1 << 16);
+            originNames = origins.keySet().toArray(new String[0]);
+            originWeights = cumulative(origins.values());
+            flagValues = flags.keySet().toArray(new NauticalFlag[0]);
+            flagWeights = cumulative(flags.values());
+            containerValues = containerTypes.keySet().toArray(new ContainerType[0]);
+            containerWeights = cumulative(containerTypes.values());
+            bulkValues = bulkCargoTypes.keySet().toArray(new BulkCargoType[0]);
+            bulkWeights = cumulative(bulkCargoTypes.values());
+
+            bulk = new boolean[ships];
+            origin = new int[ships];
+            firstCargo = new int[ships];
+            cargoCount = new int[ships];
+            int next = 1;
+            for (int i = 0; i < ships; i++) {
+                bulk[i] = uniform(Choice.SHIP_KIND, i) < bulkFraction;
+                origin[i] = choose(originWeights, uniform(Choice.SHIP_ORIGIN, i));
+                int load = bulk[i] ? (uniform(Choice.SHIP_LOAD, i) < 0.9 ? 1 : 0)
+                        : (int) (uniform(Choice.SHIP_LOAD, i) * (capacity(i) + 1));
+                firstCargo[i] = next;
+                cargoCount[i] = Math.min(load, cargo - next + 1);
+                next += cargoCount[i];
+            }
+            freeCargo = next;
+        }
+
+        /**
+         * Writes the save.
+         *
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void run() throws IOException {
+            out.append("Port of Brisbane").append(lineSeparator);
+            out.append('0').append(lineSeparator);
+            writeCargo();
+            writeShips();
+            writeQuays();
+
+            out.append("ShipQueue:").append(Integer.toString(queuedShips)).append(':');
+            for (int i = 0; i < queuedShips; i++) {
+                out.append(i == 0 ? "" : ",").append(Long.toString(imoNumber(i)));
+            }
+            out.append(lineSeparator);
+
+            int stored = 0;
+            int arriving = 0;
+            int leaving = 0;
+            for (int id = freeCargo; id <= cargo; id++) {
+                Role role = role(id);
+                if (role == Role.ARRIVING) {
+                    arriving++;
+                } else {
+                    stored++;
+                    if (role == Role.STORED_LEAVING) {
+                        leaving++;
+                    }
+                }
+            }
+            out.append("StoredCargo:").append(Integer.toString(stored)).append(':');
+            boolean first = true;
+            for (int id = freeCargo; id <= cargo; id++) {
+                if (role(id) != Role.ARRIVING) {
+                    out.append(first ? "" : ",").append(Integer.toString(id));
+                    first = false;
+                }
+            }
+            out.append(lineSeparator);
+
+            int movements = 2 * ships - queuedShips + batches(arriving) + batches(leaving);
+            out.append("Movements:").append(Integer.toString(movements)).append(lineSeparator);
+            writeShipMovements();
+            writeCargoMovements(MovementDirection.INBOUND, Choice.CARGO_ARRIVAL);
+            writeCargoMovements(MovementDirection.OUTBOUND, Choice.CARGO_DEPARTURE);
+
+            out.append("Evaluators:4:QuayOccupancyEvaluator,ShipFlagEvaluator,"
+                    + "ShipThroughputEvaluator,CargoDecompositionEvaluator");
+            out.flush();
+        }
+
+        /**
+         * Writes the number of cargo and every cargo, in order of ID.
+         *
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeCargo() throws IOException {
+            out.append(Integer.toString(cargo)).append(lineSeparator);
+            for (int i = 0; i < ships; i++) {
+                for (int id = firstCargo[i]; id < firstCargo[i] + cargoCount[i]; id++) {
+                    writeCargo(id, bulk[i], originNames[origin[i]],
+                            bulk[i] ? tonnage(id, capacity(i)) : 0);
+                }
+            }
+            for (int id = freeCargo; id <= cargo; id++) {
+                writeCargo(id, id % 3 == 0,
+                        originNames[choose(originWeights, uniform(Choice.CARGO_DESTINATION, id))],
+                        tonnage(id, MAX_TONNAGE));
+            }
+        }
+
+        /**
+         * Writes one cargo.
+         *
+         * @param id ID of the cargo
+         * @param isBulk whether the cargo is bulk cargo rather than a container
+         * @param destination destination of the cargo
+         * @param tonnage tonnage of bulk cargo
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeCargo(int id, boolean isBulk, String destination, int tonnage)
+                throws IOException {
+            double type = uniform(Choice.CARGO_TYPE, id);
+            if (isBulk) {
+                out.append("BulkCargo:").append(Integer.toString(id)).append(':')
+                        .append(destination).append(':')
+                        .append(bulkValues[choose(bulkWeights, type)].name()).append(':')
+                        .append(Integer.toString(tonnage));
+            } else {
+                out.append("Container:").append(Integer.toString(id)).append(':')
+                        .append(destination).append(':')
+                        .append(containerValues[choose(containerWeights, type)].name());
+            }
+            out.append(lineSeparator);
+        }
+
+        /**
+         * Writes the number of ships and every ship.
+         *
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeShips() throws IOException {
+            out.append(Integer.toString(ships)).append(lineSeparator);
+            for (int i = 0; i < ships; i++) {
+                NauticalFlag flag = flagValues[choose(flagWeights, uniform(Choice.SHIP_FLAG, i))];
+                out.append(bulk[i] ? "BulkCarrier:" : "ContainerShip:")
+                        .append(Long.toString(imoNumber(i)))
+                        .append(":Ship").append(Integer.toString(i)).append(':')
+                        .append(originNames[origin[i]]).append(':')
+                        .append(flag.name()).append(':')
+                        .append(Integer.toString(capacity(i))).append(':');
+                if (!bulk[i]) {
+                    out.append(Integer.toString(cargoCount[i])).append(':');
+                }
+                for (int j = 0; j < cargoCount[i]; j++) {
+                    out.append(j == 0 ? "" : ",").append(Integer.toString(firstCargo[i] + j));
+                }
+                out.append(lineSeparator);
+            }
+        }
+
+        /**
+         * Writes the number of quays and every quay, all empty.
+         *
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeQuays() throws IOException {
+            out.append(Integer.toString(quays)).append(lineSeparator);
+            for (int id = 1; id <= quays; id++) {
+                double size = uniform(Choice.QUAY_CAPACITY, id);
+                if (uniform(Choice.QUAY_KIND, id) < bulkFraction) {
+                    out.append("BulkQuay:").append(Integer.toString(id)).append(":None:")
+                            .append(Integer.toString(MAX_TONNAGE + (int) (size * MAX_TONNAGE)));
+                } else {
+                    out.append("ContainerQuay:").append(Integer.toString(id)).append(":None:")
+                            .append(Integer.toString(
+                                    MAX_CONTAINERS + (int) (size * MAX_CONTAINERS)));
+                }
+                out.append(lineSeparator);
+            }
+        }
+
+        /**
+         * Writes the arrival of every ship not in the ship queue and the departure of every
+         * ship.
+         *
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeShipMovements() throws IOException {
+            double time = 0;
+            for (int i = 0; i < ships; i++) {
+                long arrival = 0;
+                if (i >= queuedShips) {
+                    time += exponential(uniform(Choice.SHIP_ARRIVAL, i), shipArrivalsPerHour);
+                    arrival = (long) time;
+                    writeShipMovement(arrival, MovementDirection.INBOUND, i);
+                }
+                long stay = MIN_STAY
+                        + (long) (uniform(Choice.SHIP_STAY, i) * (MAX_STAY - MIN_STAY));
+                writeShipMovement(arrival + stay, MovementDirection.OUTBOUND, i);
+            }
+        }
+
+        /**
+         * Writes one ship movement.
+         *
+         * @param time time of the movement
+         * @param direction direction of the movement
+         * @param ship number of the ship
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeShipMovement(long time, MovementDirection direction, int ship)
+                throws IOException {
+            out.append("ShipMovement:").append(Long.toString(time)).append(':')
+                    .append(direction.name()).append(':')
+                    .append(Long.toString(imoNumber(ship))).append(lineSeparator);
+        }
+
+        /**
+         * Writes the cargo movements of the free cargo that arrives, or of the stored cargo
+         * that leaves.
+         *
+         * @param direction INBOUND for arriving cargo, OUTBOUND for leaving cargo
+         * @param times kind of choice of the times of the movements
+         * @throws IOException if an IOException occurs when writing to the writer
+         */
+        private void writeCargoMovements(MovementDirection direction, Choice times)
+                throws IOException {
+            Role wanted = direction == MovementDirection.INBOUND
+                    ? Role.ARRIVING : Role.STORED_LEAVING;
+            int[] batch = new int[CARGO_PER_MOVEMENT];
+            int size = 0;
+            int movement = 0;
+            double time = 0;
+            for (int id = freeCargo; id <= cargo + 1; id++) {
+                boolean end = id > cargo;
+                if (!end && role(id) == wanted) {
+                    batch[size++] = id;
+                }
+                if (size == CARGO_PER_MOVEMENT || (end && size > 0)) {
+                    time += exponential(uniform(times, movement++), cargoMovementsPerHour);
+                    out.append("CargoMovement:").append(Long.toString((long) time))
+                            .append(':').append(direction.name()).append(':')
+                            .append(Integer.toString(size)).append(':');
+                    for (int j = 0; j < size; j++) {
+                        out.append(j == 0 ? "" : ",").append(Integer.toString(batch[j]));
+                    }
+                    out.append(lineSeparator);
+                    size = 0;
+                }
+            }
+        }
+
+        /**
+         * Returns what happens to the given cargo, which is not carried by a ship.
+         *
+         * @param id ID of the cargo
+         * @return role of the cargo
+         */
+        private Role role(int id) {
+            double draw = uniform(Choice.CARGO_ROLE, id);
+            if (draw >= storedFraction) {
+                return Role.ARRIVING;
+            }
+            return draw < storedFraction / 2 ? Role.STORED_LEAVING : Role.STORED;
+        }
+
+        /**
+         * Returns the capacity of the given ship: tonnage for bulk carriers, number of
+         * containers for container ships.
+         *
+         * @param ship number of the ship
+         * @return capacity of the ship
+         */
+        private int capacity(int ship) {
+            double draw = uniform(Choice.SHIP_CAPACITY, ship);
+            return bulk[ship] ? 100 + (int) (draw * (MAX_TONNAGE - 100))
+                    : 5 + (int) (draw * (MAX_CONTAINERS - 5));
+        }
+
+        /**
+         * Returns the tonnage of the given bulk cargo.
+         *
+         * @param id ID of the cargo
+         * @param max largest tonnage
+         * @return tonnage between 1 and max
+         */
+        private int tonnage(int id, int max) {
+            return 1 + (int) (uniform(Choice.CARGO_TONNAGE, id) * max);
+        }
+    }
+
+    /**
+     * Returns the number of cargo movements needed to move the given number of cargo.
+     *
+     * @param count number of cargo
+     * @return number of movements
+     */
+    private static int batches(int count) {
+        return (count + CARGO_PER_MOVEMENT - 1) / CARGO_PER_MOVEMENT;
+    }
+
+    /**
+     * Returns the IMO number of the given ship.
+     *
+     * @param ship number of the ship
+     * @return seven digit IMO number
+     */
+    private static long imoNumber(int ship) {
+        return 1000000L + ship;
+    }
+
+    /**
+     * Returns the running totals of the given weights.
+     *
+     * @param weights relative frequencies
+     * @return cumulative weights
+     */
+    private static double[] cumulative(Collection<Double> weights) {
+        double[] sums = new double[weights.size()];
+        int count = 0;
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+            sums[count++] = total;
+        }
+        return sums;
+    }
+
+    /**
+     * Chooses a value given the cumulative weights of the values.
+     *
+     * @param cumulative cumulative weights
+     * @param draw uniform random number in [0, 1)
+     * @return index of the chosen value
+     */
+    private static int choose(double[] cumulative, double draw) {
+        double target = draw * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (target < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    /**
+     * Returns the time in minutes until the next event of a Poisson process.
+     *
+     * @param draw uniform random number in [0, 1)
+     * @param perHour mean number of events per hour
+     * @return exponentially distributed time
+     */
+    private static double exponential(double draw, double perHour) {
+        return -Math.log(1 - draw) * 60 / perHour;
+    }
+
+    /**
+     * Returns a uniform random number in [0, 1) determined by the seed, the kind of choice
+     * and the number of the item the choice is about.
+     *
+     * @param choice kind of choice
+     * @param index number of the item
+     * @return random number
+     */
+    private double uniform(Choice choice, long index) {
+        long z = seed + (choice.ordinal() + 1) * 0x9E3779B97F4A7C15L + index * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Writes a generated save to a file.
+     * <p>
+     * Usage: {@code output_file [cargo [ships [quays [seed]]]]}
+     * <p>
+     * Where {@code cargo}, {@code ships} and {@code quays} are the number of each in the
+     * port, 1000, 100 and 10 if not given, and {@code seed} is the seed of the generator,
+     * 0 if not given. One ship in a hundred starts in the ship queue.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 5) {
+            System.err.println("Usage: output_file [cargo [ships [quays [seed]]]]");
+            System.exit(1);
+            return;
+        }
+        ScenarioGenerator generator;
+        try {
+            generator = new ScenarioGenerator(args.length > 4 ? Long.parseLong(args[4]) : 0);
+            if (args.length > 1) {
+                generator.setCargo(Integer.parseInt(args[1]));
+            }
+            if (args.length > 2) {
+                int ships = Integer.parseInt(args[2]);
+                generator.setShips(ships, ships / 100);
+            }
+            if (args.length > 3) {
+                generator.setQuays(Integer.parseInt(args[3]));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try (Writer writer = SaveFiles.newWriter(Paths.get(args[0]))) {
+            generator.generate(writer);
+        } catch (IOException e) {
+            System.err.println("Error writing the save. Stack trace below:");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        System.out.printf("Generated %s in %.3f s%n", args[0], (System.nanoTime() - start) / 1e9);
+    }
+}
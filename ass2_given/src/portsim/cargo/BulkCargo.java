@@ -1,6 +1,6 @@
 package portsim.cargo;
 
-import java.util.StringJoiner;
+import java.io.IOException;
 
 /**
  * Bulk cargo is commodity cargo that is transported unpacked in large quantities.
@@ -91,19 +91,19 @@ public class BulkCargo extends Cargo {
     }
 
     /**
-     * Returns the machine-readable string representation of this BulkCargo.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this BulkCargo to the given
+     * appendable. The format of the string to write is
      *
      * BulkCargo:id:destination:type:tonnage
      *
-     * @return encoded string representation of this Cargo
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(getType().toString());
-        encode.add(Integer.toString(getTonnage()));
-        return encode.toString();
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(getType().toString());
+        out.append(':').append(Integer.toString(getTonnage()));
     }
 
     /**
@@ -2,11 +2,13 @@ package portsim.cargo;
 
 import portsim.util.BadEncodingException;
 import portsim.util.Encodable;
+import portsim.util.FieldTokenizer;
+import portsim.util.IntKeyMap;
 import portsim.util.NoSuchCargoException;
+import portsim.util.SimulationContext;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
-import java.util.StringJoiner;
 
 /**
  * Denotes a cargo whose function is to be transported via a Ship or land
@@ -28,9 +30,14 @@ public abstract class Cargo implements Encodable {
     private String destination;
 
     /**
-     * Database of all cargo currently active in the simulation
+     * All bulk cargo types, for decoding
      */
-    private static Map<Integer, Cargo> cargoRegistry = new HashMap<>();
+    private static final BulkCargoType[] BULK_CARGO_TYPES = BulkCargoType.values();
+
+    /**
+     * All container types, for decoding
+     */
+    private static final ContainerType[] CONTAINER_TYPES = ContainerType.values();
 
     /**
      * Creates a new Cargo with the given ID and destination port.
@@ -43,13 +50,16 @@ public abstract class Cargo implements Encodable {
      * @ass1_partial
      */
     public Cargo(int id, String destination) throws IllegalArgumentException {
-        if (id < 0 || getCargoRegistry().containsKey(id)) {
+        SimulationContext context = SimulationContext.current();
+        IntKeyMap<Cargo> cargoRegistry = context.getCargoRegistry();
+        if (id < 0 || cargoRegistry.containsKey(id)) {
             throw new IllegalArgumentException("Cargo ID must be greater than"
                 + " or equal to 0: " + id);
         }
         this.id = id;
         this.destination = destination;
-        getCargoRegistry().put(id, this);
+        cargoRegistry.put(id, this);
+        context.cargoCreated(this);
     }
 
     /**
@@ -73,14 +83,14 @@ public abstract class Cargo implements Encodable {
     }
 
     /**
-     * Returns the global registry of all pieces of cargo, as a mapping from cargo
-     * IDs to Cargo instances.
+     * Returns the registry of all pieces of cargo in the current simulation (see
+     * {@link SimulationContext#current()}), as a mapping from cargo IDs to Cargo instances.
      * Adding or removing elements from the returned map should not affect the original map.
      *
      * @return cargo registry
      */
     public static Map<Integer, Cargo> getCargoRegistry() {
-        return cargoRegistry;
+        return SimulationContext.current().getCargoRegistry();
     }
 
     /**
@@ -90,7 +100,7 @@ public abstract class Cargo implements Encodable {
      * @return true if there is a cargo stored in the registry with key id; false otherwise
      */
     public static boolean cargoExists(int id) {
-        return cargoRegistry.containsKey(id);
+        return SimulationContext.current().getCargoRegistry().containsKey(id);
     }
 
     /**
@@ -101,11 +111,11 @@ public abstract class Cargo implements Encodable {
      * @throws NoSuchCargoException if the cargo does not exist in the registry
      */
     public static Cargo getCargoById(int id) throws NoSuchCargoException {
-        if (cargoExists(id)) {
-            return cargoRegistry.get(id);
-        } else {
+        Cargo cargo = SimulationContext.current().getCargoRegistry().get(id);
+        if (cargo == null) {
             throw new NoSuchCargoException();
         }
+        return cargo;
     }
 
 
@@ -164,11 +174,21 @@ public abstract class Cargo implements Encodable {
      * @return encoded string representation of this Cargo
      */
     public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(getClass().getSimpleName());
-        encode.add(Integer.toString(getId()));
-        encode.add(getDestination());
-        return encode.toString();
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this cargo to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        out.append(getClass().getSimpleName()).append(':');
+        out.append(Integer.toString(getId())).append(':');
+        out.append(getDestination());
     }
 
     /**
@@ -194,17 +214,33 @@ public abstract class Cargo implements Encodable {
      * to the rules above
      */
     public static Cargo fromString(String string) throws BadEncodingException {
-        String[] cargoString = string.split(":");
-        String cargoClass = cargoString[0];
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
+
+    /**
+     * Reads a piece of cargo from an encoded representation that has already been split
+     * into fields, without copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded cargo, split around colons
+     * @return decoded cargo instance
+     * @throws BadEncodingException if the format of the encoded cargo is invalid according
+     * to the rules in {@link #fromString(String)}
+     */
+    public static Cargo fromFields(FieldTokenizer fields) throws BadEncodingException {
+        boolean bulkCargo = fields.equals(0, "BulkCargo");
+        int tonnes = 0;
+        BulkCargoType bulkCargoType = null;
+        ContainerType containerType = null;
 
-        if (cargoClass.equals("BulkCargo")) {
-            int count = cargoString.length;
+        if (bulkCargo) {
+            int count = fields.count();
             if (count != 5) {
                 throw new BadEncodingException("The number of colons (:) detected"
                         + " was more/fewer than expected.");
             }
             try {
-                int tonnes = Integer.parseInt(cargoString[4]);
+                tonnes = fields.parseInt(4);
                 if (tonnes < 1) {
                     throw new BadEncodingException("The cargo weight in tonnes is less than one");
                 }
@@ -212,19 +248,19 @@ public abstract class Cargo implements Encodable {
                 throw new BadEncodingException(e);
             }
             try {
-                BulkCargoType.valueOf(cargoString[3]);
+                bulkCargoType = fields.parseEnum(3, BULK_CARGO_TYPES);
             } catch (IllegalArgumentException e) {
                 throw new BadEncodingException(e);
             }
 
-        } else if (cargoClass.equals("Container")) {
-            int count = cargoString.length;
+        } else if (fields.equals(0, "Container")) {
+            int count = fields.count();
             if (count != 4) {
                 throw new BadEncodingException("The number of colons (:) detected"
                         + " was more/fewer than expected.");
             }
             try {
-                ContainerType.valueOf(cargoString[3]);
+                containerType = fields.parseEnum(3, CONTAINER_TYPES);
             } catch (IllegalArgumentException e) {
                 throw new BadEncodingException(e);
             }
@@ -233,36 +269,35 @@ public abstract class Cargo implements Encodable {
                     + " one of BulkCargoType or ContainerType");
         }
 
+        int id;
         try {
-            int id = Integer.parseInt(cargoString[1]);
+            id = fields.parseInt(1);
             if (id < 1) {
                 throw new BadEncodingException("The cargo id is less than one");
             }
-            if (getCargoRegistry().containsKey(id)) {
+            if (cargoExists(id)) {
                 throw new BadEncodingException("A piece of cargo with the specified"
                         + " ID already exists");
             }
         } catch (NumberFormatException e) {
             throw new BadEncodingException(e);
         }
-        if (cargoClass.equals("BulkCargo")) {
-            return new BulkCargo(Integer.parseInt(cargoString[1]), cargoString[2],
-                    Integer.parseInt(cargoString[4]), BulkCargoType.valueOf(cargoString[3]));
+        if (bulkCargo) {
+            return new BulkCargo(id, fields.get(2), tonnes, bulkCargoType);
         } else {
-            return new Container(Integer.parseInt(cargoString[1]), cargoString[2],
-                    ContainerType.valueOf(cargoString[3]));
+            return new Container(id, fields.get(2), containerType);
         }
 
     }
 
     /**
-     * Resets the global cargo registry.
+     * Resets the cargo registry of the current simulation.
      * This utility method is for the testing suite.
      *
      * @given
      */
     public static void resetCargoRegistry() {
-        Cargo.cargoRegistry = new HashMap<>();
+        SimulationContext.current().resetCargoRegistry();
     }
 
 
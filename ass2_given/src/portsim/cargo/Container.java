@@ -2,7 +2,8 @@ package portsim.cargo;
 
 import portsim.util.BadEncodingException;
 
-import java.util.StringJoiner;
+import java.io.IOException;
+
 
 /**
  * Represents a shipping container, used for holding or transporting something.
@@ -72,18 +73,18 @@ public class Container extends Cargo {
     }
 
     /**
-     * Returns the machine-readable string representation of this Container.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this Container to the given
+     * appendable. The format of the string to write is
      *
      * Container:id:destination:type
      *
-     * @return encoded string representation of this Cargo
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(getType().toString());
-        return encode.toString();
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(getType().toString());
     }
 
     /**
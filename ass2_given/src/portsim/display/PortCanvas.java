@@ -317,8 +317,9 @@ public class PortCanvas extends Canvas {
         gc.fillRect(x, getHeight() - pad - 5, SHIP_WIDTH * 2 + 10,
             2);
         // draw ships
-        for (int j = 0; j < capacity && j < sq.getShipQueue().size(); j++) {
-            drawShip(sq.getShipQueue().get(j), x + SHIP_WIDTH / 3,
+        List<Ship> queuedShips = sq.getShipQueue();
+        for (int j = 0; j < capacity && j < queuedShips.size(); j++) {
+            drawShip(queuedShips.get(j), x + SHIP_WIDTH / 3,
                 pad + 12 + j * lineLength, true);
         }
     }
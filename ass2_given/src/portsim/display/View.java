@@ -23,8 +23,8 @@ import portsim.ship.ContainerShip;
 import portsim.ship.NauticalFlag;
 import portsim.ship.Ship;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -536,7 +536,7 @@ public class View {
                 return;
             }
             try {
-                viewModel.saveAs(new FileWriter(filename.get()));
+                viewModel.saveAs(Paths.get(filename.get()));
             } catch (IOException e) {
                 viewModel.createErrorDialog("Error saving to file",
                     e.getMessage());
@@ -5,11 +5,11 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.Alert;
 
-import jdk.jshell.EvalException;
 import portsim.cargo.BulkCargoType;
 import portsim.cargo.Cargo;
 import portsim.evaluators.*;
 import portsim.port.Port;
+import portsim.port.PortDeltas;
 import portsim.ship.BulkCarrier;
 import portsim.ship.ContainerShip;
 import portsim.ship.Ship;
@@ -19,11 +19,11 @@ import portsim.cargo.Container;
 
 import java.awt.event.ActionListener;
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
 
 /**
  * View model for the Port Simulation GUI.
@@ -98,19 +98,21 @@ public class ViewModel {
 
     /**
      * Creates a new view model and constructs a port by reading from the given filenames.
+     * Deltas written next to the port file by earlier saves are applied to it
+     * (see {@link PortDeltas#load(java.nio.file.Path)}).
      *
      * @param filename filename specifying the path to: the port file
      * @throws IOException          if loading from the file specified generates an
      *                              IOException
      * @throws BadEncodingException if the file is invalid according to
-     *                              {@link Port#initialisePort(Reader)}
+     *                              {@link Port#initialisePort(Reader)}, or a delta is invalid
      * @requires filename != null &amp;&amp; filenames.size() == 1
      * @given
      */
     public ViewModel(String filename) throws IOException, BadEncodingException {
         this.defaultPortSaveLocation = filename;
 
-        this.port = Port.initialisePort(new FileReader(filename));
+        this.port = PortDeltas.load(Paths.get(filename));
 
         this.numQuays.set(port.getQuays().size());
 
@@ -245,47 +247,15 @@ public class ViewModel {
      * Container : 7
      * BulkCargo : 12
      * </pre>
+     * <p>
+     * The evaluators are read through {@link Port#readEvaluators}, so the text is consistent
+     * even if they run on the port's evaluator thread.
      *
      * @ass2
+     * @see EvaluatorSummary#describe(List)
      */
     public void updateEvaluatorText() {
-        // TODO implement for assignment 2
-        StringJoiner joiner = new StringJoiner("\n");
-        for (StatisticsEvaluator evaluator : port.getEvaluators()) {
-            if (evaluator instanceof QuayOccupancyEvaluator) {
-                QuayOccupancyEvaluator quayOccupancyEvaluator = (QuayOccupancyEvaluator) evaluator;
-                joiner.add("QuayOccupancyEvaluator");
-                joiner.add(quayOccupancyEvaluator.getQuaysOccupied()
-                        + " Quay(s) currently occupied");
-            } else if (evaluator instanceof ShipFlagEvaluator) {
-                ShipFlagEvaluator shipFlagEvaluator = (ShipFlagEvaluator) evaluator;
-                joiner.add("ShipFlagEvaluator");
-                ArrayList<String> ships =
-                        new ArrayList<>(shipFlagEvaluator.getFlagDistribution().keySet());
-                List<String> shipFlag = ships.stream().map(ship -> ship + " : "
-                        + shipFlagEvaluator.getFlagDistribution().get(ship))
-                        .collect(Collectors.toList());
-                shipFlag.forEach(joiner::add);
-            } else if (evaluator instanceof ShipThroughputEvaluator) {
-                ShipThroughputEvaluator shipThroughputEvaluator =
-                        (ShipThroughputEvaluator) evaluator;
-                joiner.add("ShipFlagEvaluator");
-                joiner.add(shipThroughputEvaluator.getThroughputPerHour()
-                        + "  Ships passed in the last hour");
-            } else if (evaluator instanceof CargoDecompositionEvaluator) {
-                CargoDecompositionEvaluator cargoDecompositionEvaluator =
-                        (CargoDecompositionEvaluator) evaluator;
-                joiner.add("CargoDecompositionEvaluator");
-                ArrayList<String> cargos = new ArrayList<>(cargoDecompositionEvaluator
-                        .getCargoDistribution().keySet());
-                List<String> cargoDistribute = cargos.stream().map(cargo -> cargo + " : "
-                        + cargoDecompositionEvaluator.getCargoDistribution()
-                        .get(cargo)).collect(Collectors.toList());
-                cargoDistribute.forEach(joiner::add);
-            }
-        }
-        this.evaluatorsText.set(joiner.toString());
-
+        this.evaluatorsText.set(port.readEvaluators(EvaluatorSummary::describe));
     }
 
     /**
@@ -343,12 +313,25 @@ public class ViewModel {
      * @param portWriter writer to which the port will be written
      * @throws IOException if an IOException occurs when writing to the writer
      * @ass2
-     * @see Port#encode()
+     * @see Port#encodeTo(Writer)
      */
     public void saveAs(Writer portWriter) throws IOException {
         // TODO implement for assignment 2
-        portWriter.write(port.encode());
-        portWriter.close();
+        try (Writer writer = portWriter) {
+            port.encodeTo(writer);
+        }
+    }
+
+    /**
+     * Saves the current state of the port simulation to the given file, as
+     * {@link Port#saveAs(Path)} does. Saving to the file the port was loaded from replaces
+     * it and its deltas, and later saves write their deltas after it.
+     *
+     * @param file path of the file to save to
+     * @throws IOException if an IOException occurs when writing to the file
+     */
+    public void saveAs(Path file) throws IOException {
+        port.saveAs(file);
     }
 
     /**
@@ -415,12 +398,20 @@ public class ViewModel {
     /**
      * Saves the current state of the port simulation to the same file it was loaded
      * from when the application was launched.
+     * <p>
+     * Only what has changed since the last save is written, as a delta next to the file
+     * (see {@link PortDeltas#save()}).
      *
      * @throws IOException if an IOException occurs when writing to the file
      * @given
      */
     public void save() throws IOException {
-        saveAs(new FileWriter(this.defaultPortSaveLocation));
+        PortDeltas deltas = port.getDeltaSaves();
+        if (deltas == null) {
+            port.startDeltaSaves(Paths.get(this.defaultPortSaveLocation));
+        } else {
+            deltas.save();
+        }
     }
 
     /**
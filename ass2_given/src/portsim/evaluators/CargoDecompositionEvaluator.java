@@ -7,179 +7,193 @@ import portsim.movement.MovementDirection;
 import portsim.movement.ShipMovement;
 import portsim.ship.BulkCarrier;
 import portsim.ship.ContainerShip;
-import portsim.ship.NauticalFlag;
 import portsim.ship.Ship;
-import portsim.util.NoSuchShipException;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Collects data on what types of cargo are passing through the port.
  * Gathers data on all derivatives of the cargo class.
+ * <p>
+ * The counts are kept in arrays indexed by the ordinal of each cargo type, so counting cargo
+ * does not allocate. The maps returned by the getters are built from the counts when they are
+ * first asked for after the counts change.
  */
 public class CargoDecompositionEvaluator extends StatisticsEvaluator {
 
     /**
-     * cargo distribution map
+     * number of pieces of bulk cargo seen of each type, indexed by ordinal
+     */
+    private final int[] bulkCargoCounts;
+    /**
+     * number of containers seen of each type, indexed by ordinal
+     */
+    private final int[] containerCounts;
+
+    /**
+     * cargo distribution map, or null if it has not been built since the counts changed
      */
     private Map<String, Integer> cargoDistribution;
     /**
-     * bulk cargo distribution map
+     * bulk cargo distribution map, or null if it has not been built since the counts changed
      */
     private Map<BulkCargoType, Integer> bulkCargoTypeDistribution;
     /**
-     * container distribution map
+     * container distribution map, or null if it has not been built since the counts changed
      */
     private Map<ContainerType, Integer> containerTypeDistribution;
 
-
-
     /**
      * Constructs a new CargoDecompositionEvaluator.
      */
     public CargoDecompositionEvaluator() {
-        this.cargoDistribution = new HashMap<>();
-        this.bulkCargoTypeDistribution = new HashMap<>();
-        this.containerTypeDistribution = new HashMap<>();
+        this.bulkCargoCounts = new int[BulkCargoType.values().length];
+        this.containerCounts = new int[ContainerType.values().length];
     }
 
     /**
      * Returns the distribution of which cargo types that have entered the port.
+     * <p>
+     * The keys are the names of the bulk cargo and container types seen. A bulk cargo type and
+     * a container type with the same name share one count.
      *
-     * @return cargo distribution map
+     * @return unmodifiable cargo distribution map
      */
     public Map<String, Integer> getCargoDistribution() {
+        if (this.cargoDistribution == null) {
+            Map<String, Integer> distribution = new HashMap<>();
+            for (BulkCargoType type : BulkCargoType.values()) {
+                addCount(distribution, type.toString(), this.bulkCargoCounts[type.ordinal()]);
+            }
+            for (ContainerType type : ContainerType.values()) {
+                addCount(distribution, type.toString(), this.containerCounts[type.ordinal()]);
+            }
+            this.cargoDistribution = Collections.unmodifiableMap(distribution);
+        }
         return this.cargoDistribution;
     }
 
     /**
      * Returns the distribution of bulk cargo types that have entered the port.
      *
-     * @return bulk cargo distribution map
+     * @return unmodifiable bulk cargo distribution map
      */
     public Map<BulkCargoType, Integer> getBulkCargoDistribution() {
+        if (this.bulkCargoTypeDistribution == null) {
+            Map<BulkCargoType, Integer> distribution = new EnumMap<>(BulkCargoType.class);
+            for (BulkCargoType type : BulkCargoType.values()) {
+                addCount(distribution, type, this.bulkCargoCounts[type.ordinal()]);
+            }
+            this.bulkCargoTypeDistribution = Collections.unmodifiableMap(distribution);
+        }
         return this.bulkCargoTypeDistribution;
     }
 
     /**
      * Returns the distribution of container cargo types that have entered the port.
      *
-     * @return container distribution map
+     * @return unmodifiable container distribution map
      */
     public Map<ContainerType, Integer> getContainerDistribution() {
+        if (this.containerTypeDistribution == null) {
+            Map<ContainerType, Integer> distribution = new EnumMap<>(ContainerType.class);
+            for (ContainerType type : ContainerType.values()) {
+                addCount(distribution, type, this.containerCounts[type.ordinal()]);
+            }
+            this.containerTypeDistribution = Collections.unmodifiableMap(distribution);
+        }
         return this.containerTypeDistribution;
     }
 
+    /**
+     * Adds the given count to the given key of a distribution, if the count is not zero.
+     *
+     * @param distribution distribution being built
+     * @param key key to add to
+     * @param count number of times the key has been seen
+     * @param <K> type of key
+     */
+    private static <K> void addCount(Map<K, Integer> distribution, K key, int count) {
+        if (count > 0) {
+            distribution.merge(key, count, Integer::sum);
+        }
+    }
+
+    /**
+     * Subscribes to outbound ship and cargo movements, the only movements that change the
+     * cargo distributions.
+     *
+     * @return outbound movements
+     */
+    @Override
+    public Set<PortEvent> getSubscriptions() {
+        return EnumSet.of(PortEvent.SHIP_OUTBOUND, PortEvent.CARGO_OUTBOUND);
+    }
+
     /**
      * Updates the internal distributions of cargo types using the given movement.
-     * If the movement is not an INBOUND movement, this method returns immediately
+     * If the movement is not an OUTBOUND movement, this method returns immediately
      *      without taking any action.
      *
-     * If the movement is an INBOUND movement, do the following:
+     * If the movement is an OUTBOUND movement, the counter of the type (Value of
+     * ContainerType / BulkCargoType) of each piece of cargo moved is incremented:
+     * - If the movement is a ShipMovement, the cargo on board the ship.
+     * - If the movement is a CargoMovement, the cargo being moved.
      *
-     * - If the movement is a ShipMovement, Retrieve the cargo from the ships and
-     *      for each piece of cargo:
-     * 1.   If the cargo class (Container / BulkCargo) has been seen before (simple name exists as
-     *  a key in the cargo map) -> increment that number
-     * 2.   If the cargo class has not been seen before then add its class simple name as a key in
-     *  the map with a corresponding value of 1
-     * 3.   If the cargo type (Value of ContainerType / BulkCargoType) for the given cargo class
-     *  has been seen before (exists as a key in the map) increment that number
-     * 4.   If the cargo type (Value of ContainerType / BulkCargoType) for the given cargo class has
-     *  not been seen before add as a key in the map with a corresponding value of 1
-     * - If the movement is a CargoMovement, Retrieve the cargo from the movement. For the cargo
-     *  retrieved:
-     * 1.   Complete steps 1-4 as given above for ShipMovement
+     * If any cargo was counted, the cached distribution maps are discarded, to be rebuilt
+     * from the counters by the getters when next asked for.
      *
      * @param movement movement to read
      */
     @Override
     public void onProcessMovement(Movement movement) {
-
-        if (movement.getDirection().equals(MovementDirection.OUTBOUND)) {
-            if (movement instanceof ShipMovement) {
-                ShipMovement shipMovement = (ShipMovement) movement;
-                Ship ship = shipMovement.getShip();
-                if (ship instanceof BulkCarrier) {
-                    BulkCarrier bulkCarrier = (BulkCarrier) ship;
-                    BulkCargoType bulkCargoType = bulkCarrier.getCargo().getType();
-                    if (this.bulkCargoTypeDistribution.containsKey(bulkCargoType)) {
-                        int oldValue = this.bulkCargoTypeDistribution.get(bulkCargoType);
-                        this.bulkCargoTypeDistribution.put(bulkCargoType, oldValue + 1);
-                    } else {
-                        this.bulkCargoTypeDistribution.put(bulkCargoType, 1);
-                    }
-
-                    if (this.cargoDistribution.containsKey(bulkCargoType.toString())) {
-                        int oldValue = this.cargoDistribution.get(bulkCargoType.toString());
-                        this.cargoDistribution.put(bulkCargoType.toString(), oldValue + 1);
-                    } else {
-                        this.cargoDistribution.put(bulkCargoType.toString(), 1);
-                    }
-                } else if (ship instanceof ContainerShip) {
-                    ContainerShip containerShip = (ContainerShip) ship;
-                    for (Container container : containerShip.getCargo()) {
-                        ContainerType containerType = container.getType();
-                        if (this.containerTypeDistribution.containsKey(containerType)) {
-                            int oldValue = this.containerTypeDistribution.get(containerType);
-                            this.containerTypeDistribution.put(containerType, oldValue + 1);
-                        } else {
-                            this.containerTypeDistribution.put(containerType, 1);
-                        }
-                        if (this.cargoDistribution.containsKey(containerType.toString())) {
-                            int oldValue = this.cargoDistribution.get(containerType.toString());
-                            this.cargoDistribution.put(containerType.toString(), oldValue + 1);
-                        } else {
-                            this.cargoDistribution.put(containerType.toString(), 1);
-                        }
-                    }
+        if (movement.getDirection() != MovementDirection.OUTBOUND) {
+            return;
+        }
+        if (movement instanceof ShipMovement) {
+            Ship ship = ((ShipMovement) movement).getShip();
+            if (ship instanceof BulkCarrier) {
+                BulkCargo bulkCargo = ((BulkCarrier) ship).getCargo();
+                if (bulkCargo == null) {
+                    return;
                 }
-            } else if (movement instanceof CargoMovement) {
-                CargoMovement cargoMovement = (CargoMovement) movement;
-                List<Cargo> cargos = cargoMovement.getCargo();
-                for (Cargo cargo : cargos) {
-                    if (cargo instanceof BulkCargo) {
-                        BulkCargo bulkCargo = (BulkCargo) cargo;
-                        BulkCargoType bulkCargoType = bulkCargo.getType();
-                        if (this.bulkCargoTypeDistribution.containsKey(bulkCargoType)) {
-                            int oldValue = this.bulkCargoTypeDistribution.get(bulkCargoType);
-                            this.bulkCargoTypeDistribution.put(bulkCargoType, oldValue + 1);
-                        } else {
-                            this.bulkCargoTypeDistribution.put(bulkCargoType, 1);
-                        }
-
-                        if (this.cargoDistribution.containsKey(bulkCargoType.toString())) {
-                            int oldValue = this.cargoDistribution.get(bulkCargoType.toString());
-                            this.cargoDistribution.put(bulkCargoType.toString(), oldValue + 1);
-                        } else {
-                            this.cargoDistribution.put(bulkCargoType.toString(), 1);
-                        }
-
-                    } else if (cargo instanceof Container) {
-                        Container container = (Container) cargo;
-                        ContainerType containerType = container.getType();
-                        if (this.containerTypeDistribution.containsKey(containerType)) {
-                            int oldValue = this.containerTypeDistribution.get(containerType);
-                            this.containerTypeDistribution.put(containerType, oldValue + 1);
-                        } else {
-                            this.containerTypeDistribution.put(containerType, 1);
-                        }
-                        if (this.cargoDistribution.containsKey(containerType.toString())) {
-                            int oldValue = this.cargoDistribution.get(containerType.toString());
-                            this.cargoDistribution.put(containerType.toString(), oldValue + 1);
-                        } else {
-                            this.cargoDistribution.put(containerType.toString(), 1);
-                        }
-                    }
+                this.bulkCargoCounts[bulkCargo.getType().ordinal()]++;
+            } else if (ship instanceof ContainerShip) {
+                ContainerShip containerShip = (ContainerShip) ship;
+                int containers = containerShip.getNumContainers();
+                if (containers == 0) {
+                    return;
+                }
+                for (int i = 0; i < containers; i++) {
+                    this.containerCounts[containerShip.getContainer(i).getType().ordinal()]++;
+                }
+            } else {
+                return;
+            }
+        } else if (movement instanceof CargoMovement) {
+            CargoMovement cargoMovement = (CargoMovement) movement;
+            int pieces = cargoMovement.getNumCargo();
+            if (pieces == 0) {
+                return;
+            }
+            for (int i = 0; i < pieces; i++) {
+                Cargo cargo = cargoMovement.getCargo(i);
+                if (cargo instanceof BulkCargo) {
+                    this.bulkCargoCounts[((BulkCargo) cargo).getType().ordinal()]++;
+                } else if (cargo instanceof Container) {
+                    this.containerCounts[((Container) cargo).getType().ordinal()]++;
                 }
             }
+        } else {
+            return;
         }
+        this.cargoDistribution = null;
+        this.bulkCargoTypeDistribution = null;
+        this.containerTypeDistribution = null;
     }
-
-
-
-
 }
@@ -0,0 +1,448 @@
+package portsim.evaluators;
+
+import portsim.cargo.Cargo;
+import portsim.movement.Movement;
+import portsim.port.Quay;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Runs statistics evaluators on a thread of their own, fed with the events of a port.
+ * <p>
+ * The thread running the simulation publishes movements, the other {@link PortEvent}s and
+ * the minutes passing, which are collected into a batch. At the end of each minute the batch
+ * is handed to the evaluator thread through a bounded queue, if the batch is large or the
+ * evaluator thread has nothing left to do. Publishing never waits for the evaluator thread:
+ * while the queue is full, events keep being added to the batch being collected.
+ * <p>
+ * The evaluator thread applies one batch at a time while holding a lock, then advances the
+ * watermark, the port time the evaluators are up to. Because batches only end at the end of
+ * a minute, a reader holding the same lock (see {@link #read(List, Function)}) always sees every
+ * evaluator as it was at the end of the minute given by the watermark.
+ * <p>
+ * Only the thread running the simulation may publish events, flush, or close the pipeline.
+ */
+public final class EvaluatorPipeline implements AutoCloseable {
+    /**
+     * number of events in a batch after which it is handed over even if the evaluator thread
+     * is busy
+     */
+    private static final int BATCH_SIZE = 1024;
+    /**
+     * batch telling the evaluator thread to stop
+     */
+    private static final Batch END = new Batch();
+
+    /**
+     * evaluators run by the pipeline, in the order they were added
+     */
+    private final List<StatisticsEvaluator> evaluators;
+    /**
+     * evaluators subscribed to each port event, indexed by the event's ordinal
+     */
+    private volatile StatisticsEvaluator[][] subscribers;
+    /**
+     * batches handed over and not yet taken by the evaluator thread
+     */
+    private final BlockingQueue<Batch> handOff;
+    /**
+     * held by the evaluator thread while applying a batch, and by readers
+     */
+    private final ReentrantLock lock;
+    /**
+     * signalled whenever the watermark advances
+     */
+    private final Condition advanced;
+    /**
+     * thread applying the batches
+     */
+    private final Thread thread;
+
+    /**
+     * batch being collected by the publishing thread
+     */
+    private Batch pending;
+    /**
+     * end of the last minute published
+     */
+    private long publishedTime;
+    /**
+     * end of the last minute applied to the evaluators
+     */
+    private volatile long watermark;
+    /**
+     * exception thrown by an evaluator, after which no more events are applied
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Creates a pipeline and starts its evaluator thread, which runs in the given simulation
+     * context.
+     *
+     * @param name name of the evaluator thread
+     * @param capacity maximum number of batches handed over but not yet applied
+     * @param time current time of the port publishing to the pipeline
+     * @param context context of the port publishing to the pipeline
+     * @throws IllegalArgumentException if capacity &lt; 1
+     */
+    @SuppressWarnings("try")
+    public EvaluatorPipeline(String name, int capacity, long time, SimulationContext context) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the pipeline must be at least"
+                    + " one batch: " + capacity);
+        }
+        this.evaluators = new ArrayList<>();
+        this.subscribers = new StatisticsEvaluator[PortEvent.values().length][0];
+        this.handOff = new ArrayBlockingQueue<>(capacity);
+        this.lock = new ReentrantLock();
+        this.advanced = lock.newCondition();
+        this.pending = new Batch();
+        this.publishedTime = time;
+        this.watermark = time;
+        this.thread = new Thread(() -> {
+            try (SimulationContext.Scope scope = context.enter()) {
+                run();
+            }
+        }, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Adds an evaluator to the pipeline. It is given the events applied from now on that it
+     * subscribes to, and every minute that passes.
+     *
+     * @param eval evaluator to add
+     */
+    public void add(StatisticsEvaluator eval) {
+        lock.lock();
+        try {
+            evaluators.add(eval);
+            StatisticsEvaluator[][] updated = subscribers.clone();
+            for (PortEvent event : eval.getSubscriptions()) {
+                StatisticsEvaluator[] current = updated[event.ordinal()];
+                updated[event.ordinal()] = Arrays.copyOf(current, current.length + 1);
+                updated[event.ordinal()][current.length] = eval;
+            }
+            subscribers = updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes a movement the port has processed.
+     *
+     * @param movement processed movement
+     */
+    public void publishMovement(Movement movement) {
+        pending.add(new Event(PortEvent.of(movement), movement, null, null, null, 0));
+    }
+
+    /**
+     * Publishes a ship docking at a quay.
+     *
+     * @param ship ship that docked
+     * @param quay quay the ship docked at
+     */
+    public void publishShipDocked(Ship ship, Quay quay) {
+        pending.add(new Event(PortEvent.SHIP_DOCKED, null, ship, quay, null, 0));
+    }
+
+    /**
+     * Publishes a ship leaving the quay it was docked at.
+     *
+     * @param ship ship that left
+     * @param quay quay the ship left
+     */
+    public void publishShipDeparted(Ship ship, Quay quay) {
+        pending.add(new Event(PortEvent.SHIP_DEPARTED, null, ship, quay, null, 0));
+    }
+
+    /**
+     * Publishes the cargo of a docked ship being unloaded.
+     *
+     * @param ship ship that was unloaded
+     * @param cargo cargo unloaded from the ship
+     */
+    public void publishCargoUnloaded(Ship ship, List<? extends Cargo> cargo) {
+        pending.add(new Event(PortEvent.CARGO_UNLOADED, null, ship, null, cargo, 0));
+    }
+
+    /**
+     * Publishes the given number of minutes passing, the last of which ends at the given port
+     * time. If the minutes are more than one, no events were published during them.
+     * <p>
+     * The batch collected so far is handed to the evaluator thread if it is large or the
+     * evaluator thread is idle, and there is room for it.
+     *
+     * @param minutes number of minutes that have passed
+     * @param time port time at the end of the last minute
+     * @throws IllegalStateException if an evaluator has thrown an exception
+     */
+    public void publishMinutes(long minutes, long time) {
+        checkFailure();
+        pending.add(new Event(null, null, null, null, null, minutes));
+        pending.watermark = time;
+        publishedTime = time;
+        if ((pending.events.size() >= BATCH_SIZE || handOff.isEmpty())
+                && handOff.offer(pending)) {
+            pending = new Batch();
+        }
+    }
+
+    /**
+     * Returns the port time the evaluators are up to, the end of the last minute whose
+     * events have all been applied.
+     *
+     * @return watermark time
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Applies the given function to the given evaluators while no batch is being applied, so
+     * that the evaluators run by this pipeline are all as they were at the watermark.
+     * <p>
+     * This waits for the batch being applied, if any, but not for the batches still queued.
+     *
+     * @param evaluators evaluators to read, which may include evaluators not run by this
+     *                   pipeline
+     * @param reader function reading the evaluators
+     * @param <T> type of value read
+     * @return value returned by the reader
+     */
+    public <T> T read(List<StatisticsEvaluator> evaluators,
+                      Function<List<StatisticsEvaluator>, T> reader) {
+        lock.lock();
+        try {
+            return reader.apply(evaluators);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands over the events published so far and waits until they have all been applied.
+     *
+     * @throws IllegalStateException if an evaluator has thrown an exception
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        checkFailure();
+        if (!pending.events.isEmpty()) {
+            pending.watermark = publishedTime;
+            handOff.put(pending);
+            pending = new Batch();
+        }
+        lock.lock();
+        try {
+            while (watermark < publishedTime && failure == null) {
+                advanced.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Applies the events published so far and stops the evaluator thread.
+     *
+     * @throws IllegalStateException if an evaluator has thrown an exception
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        try {
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        } finally {
+            while (true) {
+                try {
+                    handOff.put(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Throws the exception of an evaluator that has failed, if any.
+     *
+     * @throws IllegalStateException if an evaluator has thrown an exception
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("An evaluator failed on the evaluator thread",
+                    failure);
+        }
+    }
+
+    /**
+     * Applies batches until told to stop.
+     */
+    private void run() {
+        while (true) {
+            Batch batch;
+            try {
+                batch = handOff.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == END) {
+                return;
+            }
+            if (failure != null) {
+                continue;
+            }
+            lock.lock();
+            try {
+                for (Event event : batch.events) {
+                    apply(event);
+                }
+                watermark = batch.watermark;
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                advanced.signalAll();
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Passes the given event to the evaluators subscribed to it.
+     *
+     * @param event event to apply
+     */
+    private void apply(Event event) {
+        if (event.event == null) {
+            for (StatisticsEvaluator eval : evaluators) {
+                if (event.movement != null) {
+                    eval.onProcessMovement(event.movement);
+                } else if (event.minutes == 1) {
+                    eval.elapseOneMinute();
+                } else {
+                    eval.elapseMinutes(event.minutes);
+                }
+            }
+            return;
+        }
+        for (StatisticsEvaluator eval : subscribers[event.event.ordinal()]) {
+            switch (event.event) {
+                case SHIP_DOCKED:
+                    eval.onShipDocked(event.ship, event.quay);
+                    break;
+                case SHIP_DEPARTED:
+                    eval.onShipDeparted(event.ship, event.quay);
+                    break;
+                case CARGO_UNLOADED:
+                    eval.onCargoUnloaded(event.ship, event.cargo);
+                    break;
+                default:
+                    eval.onProcessMovement(event.movement);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Events handed over to the evaluator thread together.
+     */
+    private static final class Batch {
+        /**
+         * events in the order they were published
+         */
+        private final List<Event> events = new ArrayList<>();
+        /**
+         * port time at the end of the last minute in the batch
+         */
+        private long watermark;
+
+        /**
+         * Adds an event to the end of the batch.
+         *
+         * @param event event to add
+         */
+        private void add(Event event) {
+            events.add(event);
+        }
+    }
+
+    /**
+     * An event published to the pipeline: a movement, one of the other port events or some
+     * minutes passing.
+     */
+    private static final class Event {
+        /**
+         * kind of event, or null for minutes passing or a movement of an unknown kind
+         */
+        private final PortEvent event;
+        /**
+         * processed movement, or null
+         */
+        private final Movement movement;
+        /**
+         * ship docking, departing or unloaded, or null
+         */
+        private final Ship ship;
+        /**
+         * quay docked at or departed from, or null
+         */
+        private final Quay quay;
+        /**
+         * cargo unloaded, or null
+         */
+        private final List<? extends Cargo> cargo;
+        /**
+         * number of minutes passing
+         */
+        private final long minutes;
+
+        /**
+         * Creates an event.
+         *
+         * @param event kind of event
+         * @param movement processed movement
+         * @param ship ship docking, departing or unloaded
+         * @param quay quay docked at or departed from
+         * @param cargo cargo unloaded
+         * @param minutes number of minutes passing
+         */
+        private Event(PortEvent event, Movement movement, Ship ship, Quay quay,
+                      List<? extends Cargo> cargo, long minutes) {
+            this.event = event;
+            this.movement = movement;
+            this.ship = ship;
+            this.quay = quay;
+            this.cargo = cargo;
+            this.minutes = minutes;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package portsim.evaluators;
+
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Formats the statistics gathered by a port's evaluators as human-readable text, for the GUI
+ * and for headless runs alike.
+ */
+public final class EvaluatorSummary {
+
+    private EvaluatorSummary() {
+    }
+
+    /**
+     * Returns the statistics of the given evaluators, one per line, separated by
+     * {@link System#lineSeparator()}.
+     * <p>
+     * If there are no evaluators the text is {@code "No Evaluators Present"}. Otherwise each
+     * evaluator, in the order given, contributes its simple class name on one line followed by:
+     * <ul>
+     *     <li>{@link QuayOccupancyEvaluator}: {@code num Quay(s) currently occupied}</li>
+     *     <li>{@link ShipFlagEvaluator}: {@code country : num} for each flag seen</li>
+     *     <li>{@link ShipThroughputEvaluator}: {@code num Ships passed in the last hour}</li>
+     *     <li>{@link CargoDecompositionEvaluator}: {@code cargo : num} for each cargo class
+     *     seen</li>
+     * </ul>
+     *
+     * @param evaluators evaluators to describe
+     * @return statistics text
+     */
+    public static String describe(List<StatisticsEvaluator> evaluators) {
+        if (evaluators.isEmpty()) {
+            return "No Evaluators Present";
+        }
+        StringJoiner joiner = new StringJoiner(System.lineSeparator());
+        for (StatisticsEvaluator evaluator : evaluators) {
+            joiner.add(evaluator.getClass().getSimpleName());
+            if (evaluator instanceof QuayOccupancyEvaluator) {
+                joiner.add(((QuayOccupancyEvaluator) evaluator).getQuaysOccupied()
+                        + " Quay(s) currently occupied");
+            } else if (evaluator instanceof ShipFlagEvaluator) {
+                addCounts(joiner, ((ShipFlagEvaluator) evaluator).getFlagDistribution());
+            } else if (evaluator instanceof ShipThroughputEvaluator) {
+                joiner.add(((ShipThroughputEvaluator) evaluator).getThroughputPerHour()
+                        + " Ships passed in the last hour");
+            } else if (evaluator instanceof CargoDecompositionEvaluator) {
+                addCounts(joiner,
+                        ((CargoDecompositionEvaluator) evaluator).getCargoDistribution());
+            }
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Adds a line {@code key : count} for each entry of the given distribution.
+     *
+     * @param joiner lines of the summary
+     * @param counts number of times each key has been seen
+     */
+    private static void addCounts(StringJoiner joiner, Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            joiner.add(entry.getKey() + " : " + entry.getValue());
+        }
+    }
+}
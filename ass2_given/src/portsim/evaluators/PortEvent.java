@@ -0,0 +1,72 @@
+package portsim.evaluators;
+
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+
+/**
+ * The events at a port that a {@link StatisticsEvaluator} can subscribe to.
+ * <p>
+ * The first four are the kinds of movement a port processes, identified by the class and
+ * direction of the movement, and are delivered to
+ * {@link StatisticsEvaluator#onProcessMovement(Movement)}. The others happen while the port
+ * runs its scheduled docking and unloading.
+ */
+public enum PortEvent {
+    /**
+     * An inbound {@link ShipMovement} is processed.
+     */
+    SHIP_INBOUND,
+
+    /**
+     * An outbound {@link ShipMovement} is processed.
+     */
+    SHIP_OUTBOUND,
+
+    /**
+     * An inbound {@link CargoMovement} is processed.
+     */
+    CARGO_INBOUND,
+
+    /**
+     * An outbound {@link CargoMovement} is processed.
+     */
+    CARGO_OUTBOUND,
+
+    /**
+     * A ship docks at a quay, delivered to
+     * {@link StatisticsEvaluator#onShipDocked(portsim.ship.Ship, portsim.port.Quay)}.
+     */
+    SHIP_DOCKED,
+
+    /**
+     * A ship leaves the quay it was docked at, delivered to
+     * {@link StatisticsEvaluator#onShipDeparted(portsim.ship.Ship, portsim.port.Quay)}.
+     */
+    SHIP_DEPARTED,
+
+    /**
+     * The cargo of a docked ship is unloaded into the port's stored cargo, delivered to
+     * {@link StatisticsEvaluator#onCargoUnloaded(portsim.ship.Ship, java.util.List)}.
+     */
+    CARGO_UNLOADED;
+
+    /**
+     * Returns the event of processing the given movement.
+     *
+     * @param movement movement being processed
+     * @return the kind of movement event, or null if the movement is neither a ship nor a
+     *         cargo movement
+     */
+    public static PortEvent of(Movement movement) {
+        boolean inbound = movement.getDirection() == MovementDirection.INBOUND;
+        if (movement instanceof ShipMovement) {
+            return inbound ? SHIP_INBOUND : SHIP_OUTBOUND;
+        }
+        if (movement instanceof CargoMovement) {
+            return inbound ? CARGO_INBOUND : CARGO_OUTBOUND;
+        }
+        return null;
+    }
+}
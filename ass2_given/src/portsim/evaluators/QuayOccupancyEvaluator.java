@@ -2,16 +2,27 @@ package portsim.evaluators;
 
 import portsim.movement.Movement;
 import portsim.port.Port;
-import portsim.port.Quay;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Evaluator to monitor how many quays are currently occupied at the port.
+ * <p>
+ * The current occupancy is read from the counts the port keeps as ships arrive at and depart
+ * from its quays. The evaluator also adds up the number of occupied quays at the end of each
+ * minute that passes, giving the average occupancy over time without looking back at past
+ * minutes.
  */
 public class QuayOccupancyEvaluator extends StatisticsEvaluator {
     /**
      * port to be evaluate Quay Occupancy of
      */
     private Port port;
+    /**
+     * sum over the minutes elapsed of the number of quays occupied at the end of each minute
+     */
+    private long occupiedQuayMinutes;
 
     /**
      * Constructs a new QuayOccupancyEvaluator.
@@ -28,14 +39,51 @@ public class QuayOccupancyEvaluator extends StatisticsEvaluator {
      * @return number of quays
      */
     public int getQuaysOccupied() {
-        int quaysOccupied = 0;
+        return this.port.getQuaysOccupied();
+    }
+
+    /**
+     * Returns the number of bulk quays that are currently occupied.
+     *
+     * @return number of bulk quays
+     */
+    public int getBulkQuaysOccupied() {
+        return this.port.getBulkQuaysOccupied();
+    }
 
-        for (Quay quay : this.port.getQuays()) {
-            if (!quay.isEmpty()) {
-                ++quaysOccupied;
-            }
+    /**
+     * Returns the number of container quays that are currently occupied.
+     *
+     * @return number of container quays
+     */
+    public int getContainerQuaysOccupied() {
+        return this.port.getContainerQuaysOccupied();
+    }
+
+    /**
+     * Returns the average number of quays occupied over the minutes elapsed since the
+     * evaluator was created, weighting each minute equally.
+     * <p>
+     * Before any time has elapsed this is the number of quays currently occupied.
+     *
+     * @return time-weighted average number of occupied quays
+     */
+    public double getAverageQuaysOccupied() {
+        if (getTime() == 0) {
+            return getQuaysOccupied();
         }
-        return quaysOccupied;
+        return (double) this.occupiedQuayMinutes / getTime();
+    }
+
+    /**
+     * Subscribes to nothing, as the number of occupied quays is read from the port when it is
+     * asked for.
+     *
+     * @return no events
+     */
+    @Override
+    public Set<PortEvent> getSubscriptions() {
+        return EnumSet.noneOf(PortEvent.class);
     }
 
     /**
@@ -46,4 +94,25 @@ public class QuayOccupancyEvaluator extends StatisticsEvaluator {
     @Override
     public void onProcessMovement(Movement movement) {
     }
+
+    /**
+     * Simulate a minute passing, adding the quays occupied at the end of it to the average.
+     */
+    @Override
+    public void elapseOneMinute() {
+        super.elapseOneMinute();
+        this.occupiedQuayMinutes += getQuaysOccupied();
+    }
+
+    /**
+     * Simulate the given number of minutes passing in which no ships arrive or depart, so the
+     * quays occupied now are occupied at the end of each of them.
+     *
+     * @param minutes number of minutes to elapse
+     */
+    @Override
+    public void elapseMinutes(long minutes) {
+        super.elapseMinutes(minutes);
+        this.occupiedQuayMinutes += minutes * getQuaysOccupied();
+    }
 }
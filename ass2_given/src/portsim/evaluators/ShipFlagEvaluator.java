@@ -5,8 +5,10 @@ import portsim.movement.Movement;
 import portsim.movement.MovementDirection;
 import portsim.movement.ShipMovement;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Gathers data on how many ships each country has sent to this port.
@@ -52,6 +54,27 @@ public class ShipFlagEvaluator extends StatisticsEvaluator {
         }
     }
 
+    /**
+     * Subscribes to inbound ship movements, the only movements that change the flag
+     * distribution.
+     *
+     * @return inbound ship movements
+     */
+    @Override
+    public Set<PortEvent> getSubscriptions() {
+        return EnumSet.of(PortEvent.SHIP_INBOUND);
+    }
+
+    /**
+     * Returns true, as this evaluator only records the origin of the ships in inbound movements.
+     *
+     * @return true
+     */
+    @Override
+    public boolean canEvaluateAsynchronously() {
+        return true;
+    }
+
     /**
      * Updates the internal mapping of ship country flags using the given movement.
      * If the movement is not an OUTBOUND movement, this method returns immediately
@@ -1,42 +1,114 @@
 package portsim.evaluators;
 
-import portsim.cargo.Container;
 import portsim.movement.Movement;
 import portsim.movement.MovementDirection;
 import portsim.movement.ShipMovement;
-import portsim.ship.ContainerShip;
-import portsim.ship.NauticalFlag;
-import portsim.ship.Ship;
 
-import java.util.HashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Gathers data on how many ships pass through the port over time.
  * This evaluator only counts ships that have passed through the port in the last hour (60 minutes)
+ * by default, or in a window of another length given when it is constructed.
+ * <p>
+ * Departures are counted per minute in a ring buffer with one slot for each minute of the
+ * window, alongside their running total, so counting a ship, letting a minute pass and reading
+ * the throughput take constant time whatever the length of the window.
  */
 public class ShipThroughputEvaluator extends StatisticsEvaluator {
     /**
-     * data of the time when ship leaves the ports
+     * length of the window in minutes used when none is given
      */
-    private HashMap<Long, Ship> shipThroughputInOneHour;
+    public static final int DEFAULT_WINDOW = 60;
 
     /**
-     * A base class representing an object that gathers and reports data on various
-     * aspects of the port's operation.
+     * number of ships that left the port in each minute of the window, the current minute at
+     * index {@code current}
+     */
+    private final int[] departures;
+    /**
+     * index of the slot counting the current minute
+     */
+    private int current;
+    /**
+     * number of ships that left the port in the window, the sum of {@code departures}
+     */
+    private int throughput;
+
+    /**
+     * Creates an evaluator counting the ships that have left the port in the last hour.
      */
     public ShipThroughputEvaluator() {
-        this.shipThroughputInOneHour = new HashMap<>();
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates an evaluator counting the ships that have left the port in the given number
+     * of minutes, including the current minute.
+     *
+     * @param window length of the window in minutes
+     * @throws IllegalArgumentException if window &lt; 1
+     */
+    public ShipThroughputEvaluator(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("The throughput window must be at least one"
+                    + " minute: " + window);
+        }
+        this.departures = new int[window];
+    }
+
+    /**
+     * Returns the length of the window the throughput is counted over.
+     *
+     * @return window length in minutes
+     */
+    public int getWindow() {
+        return this.departures.length;
+    }
+
+    /**
+     * Returns the number of ships that have passed through the port in the window, the last
+     * {@link #getWindow()} minutes.
+     *
+     * @return ships throughput over the window
+     */
+    public int getThroughput() {
+        return this.throughput;
     }
 
     /**
      * Return the number of ships that have passed through the port in the last 60 minutes.
+     * <p>
+     * This is the same as {@link #getThroughput()}, which for an evaluator with a window other
+     * than {@link #DEFAULT_WINDOW} counts over that window instead.
      *
      * @return ships throughput
      */
     public int getThroughputPerHour() {
-        elapseOneMinute();
-        return this.shipThroughputInOneHour.size();
+        return this.throughput;
+    }
+
+    /**
+     * Subscribes to outbound ship movements, the only movements counted towards the
+     * throughput.
+     *
+     * @return outbound ship movements
+     */
+    @Override
+    public Set<PortEvent> getSubscriptions() {
+        return EnumSet.of(PortEvent.SHIP_OUTBOUND);
+    }
+
+    /**
+     * Returns true, as this evaluator only records the number of outbound ship movements.
+     *
+     * @return true
+     */
+    @Override
+    public boolean canEvaluateAsynchronously() {
+        return true;
     }
 
     /**
@@ -49,11 +121,10 @@ public class ShipThroughputEvaluator extends StatisticsEvaluator {
      */
     @Override
     public void onProcessMovement(Movement movement) {
-        if (movement.getDirection().equals(MovementDirection.OUTBOUND)
-                && (movement instanceof ShipMovement)) {
-            ShipMovement shipMovement = (ShipMovement) movement;
-            Ship ship = shipMovement.getShip();
-            this.shipThroughputInOneHour.put(this.getTime(), ship);
+        if (movement.getDirection() == MovementDirection.OUTBOUND
+                && movement instanceof ShipMovement) {
+            this.departures[this.current]++;
+            this.throughput++;
         }
     }
 
@@ -61,17 +132,40 @@ public class ShipThroughputEvaluator extends StatisticsEvaluator {
      * Simulate a minute passing. The time since the evaluator was created should be
      *      incremented by one.
      *
-     * If a ship has been more than 60 minutes since a ship exited the port, it should no longer be
-     * counted towards the count returned by getThroughputPerHour().
+     * If a ship exited the port 60 or more minutes ago (the length of the window), it should no
+     * longer be counted towards the count returned by getThroughputPerHour().
      */
+    @Override
     public void elapseOneMinute() {
         super.elapseOneMinute();
-        for (long leaveTime : this.shipThroughputInOneHour.keySet()) {
-            long  timeSinceCreate = this.getTime() - leaveTime;
-            if (timeSinceCreate >= 60) {
-                this.shipThroughputInOneHour.remove(leaveTime);
-            }
+        nextMinute();
+    }
+
+    /**
+     * Simulate the given number of minutes passing in which no ships leave the port.
+     *
+     * @param minutes number of minutes to elapse
+     */
+    @Override
+    public void elapseMinutes(long minutes) {
+        super.elapseMinutes(minutes);
+        if (minutes >= this.departures.length) {
+            Arrays.fill(this.departures, 0);
+            this.throughput = 0;
+            return;
+        }
+        for (long i = 0; i < minutes; i++) {
+            nextMinute();
         }
     }
 
+    /**
+     * Moves the current minute to the next slot, no longer counting the ships that left in the
+     * minute that falls out of the window.
+     */
+    private void nextMinute() {
+        this.current = this.current + 1 == this.departures.length ? 0 : this.current + 1;
+        this.throughput -= this.departures[this.current];
+        this.departures[this.current] = 0;
+    }
 }
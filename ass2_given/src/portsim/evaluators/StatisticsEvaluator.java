@@ -1,8 +1,14 @@
 package portsim.evaluators;
 
+import portsim.cargo.Cargo;
 import portsim.movement.Movement;
+import portsim.port.Quay;
+import portsim.ship.Ship;
 import portsim.util.Tickable;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
@@ -10,6 +16,10 @@ import java.util.concurrent.TimeUnit;
 /**
  * A base class representing an object that gathers and
  * reports data on various aspects of the port's operation.
+ * <p>
+ * An evaluator only hears about the {@link PortEvent}s it subscribes to (see
+ * {@link #getSubscriptions()}), so a port does not call evaluators that have no interest in
+ * what just happened.
  */
 public abstract class StatisticsEvaluator implements Tickable {
     /**
@@ -35,13 +45,78 @@ public abstract class StatisticsEvaluator implements Tickable {
         return timeElapse;
     }
 
+    /**
+     * Returns the events this evaluator wants to hear about. A port reads the subscriptions
+     * once, when the evaluator is added to it.
+     * <p>
+     * By default an evaluator subscribes to every kind of movement and to no other event,
+     * so it is given every movement the port processes.
+     *
+     * @return events to deliver to this evaluator
+     */
+    public Set<PortEvent> getSubscriptions() {
+        return EnumSet.of(PortEvent.SHIP_INBOUND, PortEvent.SHIP_OUTBOUND,
+                PortEvent.CARGO_INBOUND, PortEvent.CARGO_OUTBOUND);
+    }
+
+    /**
+     * Returns whether this evaluator may be run on a port's evaluator thread (see
+     * {@link portsim.port.Port#startEvaluatorThread(int)}) rather than the thread running the
+     * simulation.
+     * <p>
+     * This is only safe if what the evaluator records depends on nothing but the events it is
+     * given and the parts of them that never change, such as a ship's origin. An evaluator
+     * that reads the port, or the cargo on a ship, would see them as they are when the
+     * evaluator thread gets to the event rather than when it happened. By default an
+     * evaluator is always run on the simulation thread.
+     *
+     * @return true if the evaluator can be run on another thread
+     */
+    public boolean canEvaluateAsynchronously() {
+        return false;
+    }
+
     /**
      * Read a movement to update the relevant evaluator data.
+     * <p>
+     * A port only calls this method with movements whose kind, {@link PortEvent#of(Movement)},
+     * is one of the evaluator's subscriptions.
      *
      * @param movement movement to read
      */
     public abstract void onProcessMovement(Movement movement);
 
+    /**
+     * Called when a ship docks at a quay, if the evaluator subscribes to
+     * {@link PortEvent#SHIP_DOCKED}. Does nothing unless overridden.
+     *
+     * @param ship ship that docked
+     * @param quay quay the ship docked at
+     */
+    public void onShipDocked(Ship ship, Quay quay) {
+    }
+
+    /**
+     * Called when a ship leaves the quay it was docked at, if the evaluator subscribes to
+     * {@link PortEvent#SHIP_DEPARTED}. Does nothing unless overridden.
+     *
+     * @param ship ship that left
+     * @param quay quay the ship left
+     */
+    public void onShipDeparted(Ship ship, Quay quay) {
+    }
+
+    /**
+     * Called when the cargo of a docked ship is unloaded into the port's stored cargo, if the
+     * evaluator subscribes to {@link PortEvent#CARGO_UNLOADED}. Does nothing unless
+     * overridden.
+     *
+     * @param ship ship that was unloaded
+     * @param cargo cargo unloaded from the ship
+     */
+    public void onCargoUnloaded(Ship ship, List<? extends Cargo> cargo) {
+    }
+
     /**
      * Simulate a minute passing. The time since the evaluator was created should
      * be incremented by one.
@@ -49,4 +124,16 @@ public abstract class StatisticsEvaluator implements Tickable {
     public void elapseOneMinute() {
         timeElapse += 1;
     }
+
+    /**
+     * Simulate the given number of minutes passing in which no movements are processed.
+     * The result should be the same as calling {@link #elapseOneMinute()} that many times.
+     * <p>
+     * Subclasses that override {@link #elapseOneMinute()} should also override this method.
+     *
+     * @param minutes number of minutes to elapse
+     */
+    public void elapseMinutes(long minutes) {
+        timeElapse += minutes;
+    }
 }
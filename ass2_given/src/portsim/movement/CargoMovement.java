@@ -2,12 +2,13 @@ package portsim.movement;
 
 import portsim.cargo.*;
 import portsim.util.BadEncodingException;
+import portsim.util.FieldTokenizer;
 import portsim.util.NoSuchCargoException;
 
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringJoiner;
 
 /**
  * The movement of cargo coming into or out of the port.
@@ -49,6 +50,27 @@ public class CargoMovement extends Movement {
         return new ArrayList<>(cargo);
     }
 
+    /**
+     * Returns the number of pieces of cargo that will be moved.
+     *
+     * @return number of pieces of cargo in the movement
+     */
+    public int getNumCargo() {
+        return cargo.size();
+    }
+
+    /**
+     * Returns the cargo at the given position in the movement, without copying the cargo as
+     * {@link #getCargo()} does.
+     *
+     * @param index position of the cargo, from 0 to {@link #getNumCargo()} - 1
+     * @return cargo at that position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Cargo getCargo(int index) {
+        return cargo.get(index);
+    }
+
     /**
      * Returns the human-readable string representation of this CargoMovement.
      * <p>
@@ -76,22 +98,26 @@ public class CargoMovement extends Movement {
     }
 
     /**
-     * Returns the machine-readable string representation of this movement.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this movement to the given
+     * appendable. The format of the string to write is
      * CargoMovement:time:direction:numCargo:ID1,ID2,...
      *
-     * @return encoded string representation of this movement
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(Integer.toString(cargo.size()));
-        StringJoiner cargoIds = new StringJoiner(",");
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(Integer.toString(cargo.size()));
+        out.append(':');
+        boolean first = true;
         for (Cargo cargo : cargo) {
-            cargoIds.add(Integer.toString(cargo.getId()));
+            if (!first) {
+                out.append(',');
+            }
+            out.append(Integer.toString(cargo.getId()));
+            first = false;
         }
-        encode.add(cargoIds.toString());
-        return encode.toString();
     }
 
     /**
@@ -120,32 +146,35 @@ public class CargoMovement extends Movement {
      */
 
     public static CargoMovement fromString(String string) throws BadEncodingException {
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
+
+    /**
+     * Creates a cargo movement from an encoding that has already been split into fields,
+     * without copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded CargoMovement, split around colons
+     * @return CargoMovement instance
+     * @throws BadEncodingException  if the format of the encoded CargoMovement is invalid
+     *          according to the rules in {@link #fromString(String)}
+     */
+    public static CargoMovement fromFields(FieldTokenizer fields) throws BadEncodingException {
         long time;
         MovementDirection movementDirection;
         int idCounts;
-        List<Integer> cargoIds = new ArrayList<>();
-        List<Cargo> cargoList = new ArrayList<>();
-
-        char temp;
-        int colonsCount = 0;
+        int numIds = 0;
 
-        String[] cargoMovementInfo = string.split(":");
-        for (int i = 0; i < string.length(); i++) {
-            temp = string.charAt(i);
-            if (temp == ':') {
-                colonsCount++;
-            }
-        }
-        if (colonsCount != 4) {
+        if (fields.separators() != 4) {
             throw new BadEncodingException("The number of colons (:)"
                     + " detected was more/fewer than expected.");
         }
-        if (!cargoMovementInfo[0].equals("CargoMovement")) {
+        if (!fields.equals(0, "CargoMovement")) {
             throw new BadEncodingException("The given string is not a"
                     + " CargoMovement encoding");
         }
         try {
-            time = Long.parseLong(cargoMovementInfo[1]);
+            time = fields.parseLong(1);
             if (time < 0) {
                 throw new BadEncodingException("The time is less than zero (0)");
             }
@@ -154,44 +183,46 @@ public class CargoMovement extends Movement {
         }
 
         try {
-            movementDirection = MovementDirection.valueOf(cargoMovementInfo[2]);
+            movementDirection = fields.parseEnum(2, DIRECTIONS);
         } catch (IllegalArgumentException e) {
             throw new BadEncodingException("The movementDirection is not one"
                     + " of the valid directions", e);
         }
 
+        FieldTokenizer ids = fields.list(4);
         try {
-            idCounts = Integer.parseInt(cargoMovementInfo[3]);
+            idCounts = fields.parseInt(3);
             if (idCounts < 0) {
                 throw new BadEncodingException("The number of ids is less than one (1)");
             } else if (idCounts > 0) {
-                String[] ids = cargoMovementInfo[4].split(",");
-                for (String idString : ids) {
+                for (int i = 0; i < ids.count(); i++) {
                     int id;
                     try {
-                        id = Integer.parseInt(idString);
+                        id = ids.parseInt(i);
                         if (id < 0) {
                             throw new BadEncodingException("An id is less than zero (0)");
                         }
-                        cargoIds.add(id);
                     } catch (NumberFormatException e) {
                         throw new BadEncodingException("The cargo id is not a int", e);
                     }
                 }
+                numIds = ids.count();
             }
         } catch (NumberFormatException e) {
             throw new BadEncodingException("The number of ids is not a int", e);
         }
-        
-        for (int id : cargoIds) {
+
+        // every id has been checked above, so look the cargo up in a second pass
+        List<Cargo> cargoList = new ArrayList<>(numIds);
+        for (int i = 0; i < numIds; i++) {
             try {
-                cargoList.add(Cargo.getCargoById(id));
+                cargoList.add(Cargo.getCargoById(ids.parseInt(i)));
             } catch (NoSuchCargoException e) {
                 throw new BadEncodingException("There is no cargo that exists with"
                         + " a specified id", e);
             }
         }
-        if (cargoIds.size() != idCounts) {
+        if (numIds != idCounts) {
             throw new BadEncodingException("The number of id's does not match"
                     + " the number specified.");
         }
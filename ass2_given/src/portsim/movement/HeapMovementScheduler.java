@@ -0,0 +1,91 @@
+package portsim.movement;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Movement scheduler backed by a binary heap.
+ * <p>
+ * Adding and polling a movement take O(log n) time.
+ */
+public class HeapMovementScheduler implements MovementScheduler {
+    /**
+     * pending movements ordered by time, then by the order they were added
+     */
+    private PriorityQueue<Entry> heap;
+
+    /**
+     * number of movements added so far, used to keep movements with the same time in order
+     */
+    private long added;
+
+    /**
+     * Constructs a new, empty HeapMovementScheduler.
+     */
+    public HeapMovementScheduler() {
+        this.heap = new PriorityQueue<>(Comparator.comparingLong((Entry e) -> e.time)
+                .thenComparingLong(e -> e.sequence));
+        this.added = 0;
+    }
+
+    @Override
+    public void add(Movement movement) {
+        this.heap.add(new Entry(movement, added++));
+    }
+
+    @Override
+    public Movement pollDue(long time) {
+        Entry head = this.heap.peek();
+        if (head == null || head.time > time) {
+            return null;
+        }
+        return this.heap.poll().movement;
+    }
+
+    @Override
+    public long nextTime() {
+        Entry head = this.heap.peek();
+        return head == null ? Long.MAX_VALUE : head.time;
+    }
+
+    @Override
+    public int size() {
+        return this.heap.size();
+    }
+
+    @Override
+    public Iterator<Movement> iterator() {
+        return this.heap.stream().map(entry -> entry.movement).iterator();
+    }
+
+    /**
+     * A movement in the heap together with the order in which it was added.
+     */
+    private static class Entry {
+        /**
+         * time of the movement
+         */
+        private final long time;
+        /**
+         * the scheduled movement
+         */
+        private final Movement movement;
+        /**
+         * position of the movement in the order movements were added
+         */
+        private final long sequence;
+
+        /**
+         * Creates a new heap entry.
+         *
+         * @param movement the scheduled movement
+         * @param sequence position in the order movements were added
+         */
+        private Entry(Movement movement, long sequence) {
+            this.time = movement.getTime();
+            this.movement = movement;
+            this.sequence = sequence;
+        }
+    }
+}
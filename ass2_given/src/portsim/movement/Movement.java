@@ -2,7 +2,7 @@ package portsim.movement;
 
 import portsim.util.Encodable;
 
-import java.util.StringJoiner;
+import java.io.IOException;
 
 /**
  * The movement of ships or cargo coming into or out of the port from land or
@@ -12,6 +12,11 @@ import java.util.StringJoiner;
  */
 public abstract class Movement implements Encodable {
 
+    /**
+     * All movement directions, for decoding
+     */
+    static final MovementDirection[] DIRECTIONS = MovementDirection.values();
+
     /**
      * The time in minutes that the movement should be completed
      */
@@ -92,11 +97,21 @@ public abstract class Movement implements Encodable {
      * @return encoded string representation of this movement
      */
     public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(getClass().getSimpleName());
-        encode.add(Long.toString(getTime()));
-        encode.add(getDirection().toString());
-        return encode.toString();
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this movement to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        out.append(getClass().getSimpleName()).append(':');
+        out.append(Long.toString(getTime())).append(':');
+        out.append(getDirection().toString());
     }
 
 }
\ No newline at end of file
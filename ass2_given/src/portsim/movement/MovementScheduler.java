@@ -0,0 +1,48 @@
+package portsim.movement;
+
+/**
+ * Stores movements waiting to be processed, ordered by the time of the movement.
+ * <p>
+ * Movements with the same action time are returned in the order in which they were added.
+ * Iterating over a scheduler visits every pending movement in no particular order.
+ */
+public interface MovementScheduler extends Iterable<Movement> {
+    /**
+     * Adds a movement to the scheduler.
+     *
+     * @param movement movement to add
+     */
+    void add(Movement movement);
+
+    /**
+     * Removes and returns the earliest movement whose action time is less than or equal to
+     * the given time.
+     *
+     * @param time current time in minutes
+     * @return earliest due movement or null if no movement is due
+     */
+    Movement pollDue(long time);
+
+    /**
+     * Returns the action time of the earliest movement in the scheduler.
+     *
+     * @return earliest action time or {@link Long#MAX_VALUE} if the scheduler is empty
+     */
+    long nextTime();
+
+    /**
+     * Returns the number of movements in the scheduler.
+     *
+     * @return number of pending movements
+     */
+    int size();
+
+    /**
+     * Returns whether there are no movements in the scheduler.
+     *
+     * @return true if the scheduler is empty else false
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
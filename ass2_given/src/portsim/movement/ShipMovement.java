@@ -2,9 +2,10 @@ package portsim.movement;
 
 import portsim.ship.Ship;
 import portsim.util.BadEncodingException;
+import portsim.util.FieldTokenizer;
 import portsim.util.NoSuchShipException;
 
-import java.util.StringJoiner;
+import java.io.IOException;
 
 /**
  * The movement of a ship coming into or out of the port.
@@ -71,18 +72,18 @@ public class ShipMovement extends Movement {
     }
 
     /**
-     * Returns the machine-readable string representation of this ship movement.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this ship movement to the given
+     * appendable. The format of the string to write is
      *
      * ShipMovement:time:direction:imoNumber
      *
-     * @return encoded string representation of this movement
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner joiner = new StringJoiner(":");
-        joiner.add(super.encode());
-        joiner.add(Long.toString(getShip().getImoNumber()));
-        return joiner.toString();
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(Long.toString(getShip().getImoNumber()));
     }
 
     /**
@@ -106,27 +107,32 @@ public class ShipMovement extends Movement {
      *              according to the rules above
      */
     public static ShipMovement fromString(String string) throws BadEncodingException {
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
+
+    /**
+     * Creates a ship movement from an encoding that has already been split into fields,
+     * without copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded ShipMovement, split around colons
+     * @return decoded ShipMovement instance
+     * @throws BadEncodingException if the format of the encoded ShipMovement is invalid
+     *              according to the rules in {@link #fromString(String)}
+     */
+    public static ShipMovement fromFields(FieldTokenizer fields) throws BadEncodingException {
         long time = 0;
         MovementDirection movementDirection = null;
         Ship ship = null;
-        String[] movementInfo = string.split(":");
-        char temp;
-        int colonsCount = 0;
-        for (int i = 0; i < string.length(); i++) {
-            temp = string.charAt(i);
-            if (temp == ':') {
-                colonsCount++;
-            }
-        }
-        if (colonsCount != 3) {
+        if (fields.separators() != 3) {
             throw new BadEncodingException("The number of colons (:) detected"
                     + " was more/fewer than expected.");
         }
-        if (!movementInfo[0].equals("ShipMovement")) {
+        if (!fields.equals(0, "ShipMovement")) {
             throw new BadEncodingException("The given string is not a ShipMovement encoding");
         }
         try {
-            time = Long.parseLong(movementInfo[1]);
+            time = fields.parseLong(1);
             if (time < 0) {
                 throw new BadEncodingException("The time is less than zero (0)");
             }
@@ -134,13 +140,13 @@ public class ShipMovement extends Movement {
             throw new BadEncodingException("The time is not a long ", e);
         }
         try {
-            movementDirection = MovementDirection.valueOf(movementInfo[2]);
+            movementDirection = fields.parseEnum(2, DIRECTIONS);
         } catch (IllegalArgumentException e) {
             throw new BadEncodingException(" The movementDirection is not one "
                     + "of the valid directions");
         }
         try {
-            long shipImo = Long.parseLong(movementInfo[3]);
+            long shipImo = fields.parseLong(3);
             ship = Ship.getShipByImoNumber(shipImo);
         } catch (NumberFormatException | NoSuchShipException e) {
             throw new BadEncodingException("The imoNumber is not a long or \nThere is no ship that"
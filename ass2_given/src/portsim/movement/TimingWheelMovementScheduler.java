@@ -0,0 +1,252 @@
+package portsim.movement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Movement scheduler backed by a hierarchical timing wheel with one minute resolution.
+ * <p>
+ * The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots. A slot on level 0 holds the
+ * movements for a single minute, a slot on level 1 covers 64 minutes, a slot on level 2 covers
+ * 4096 minutes and so on. Movements are placed on the lowest level whose slot range still
+ * contains them, and are moved down a level when time reaches the start of their slot.
+ * Movements further in the future than the wheel covers (about 130 000 years) are kept in a
+ * sorted overflow map.
+ * <p>
+ * Adding a movement takes O(1) time. Each movement is moved down at most once per level before
+ * it is returned, so polling takes amortised O(1) time as well.
+ */
+public class TimingWheelMovementScheduler implements MovementScheduler {
+    /**
+     * number of bits of the time used to index the slots of one level
+     */
+    private static final int SLOT_BITS = 6;
+    /**
+     * number of slots in each level of the wheel
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+    /**
+     * number of levels in the wheel
+     */
+    private static final int LEVELS = 6;
+
+    /**
+     * slots of each level, created when first used
+     */
+    private final ArrayDeque<Movement>[][] wheel;
+    /**
+     * bit mask of the non-empty slots of each level
+     */
+    private final long[] occupied;
+    /**
+     * movements whose time has been reached, in the order they should be returned
+     */
+    private final ArrayDeque<Movement> due;
+    /**
+     * movements too far in the future for the wheel, grouped by time
+     */
+    private final TreeMap<Long, ArrayDeque<Movement>> overflow;
+    /**
+     * earliest time that has not been moved into the due movements yet
+     */
+    private long cursor;
+    /**
+     * number of pending movements
+     */
+    private int size;
+
+    /**
+     * Constructs a new, empty TimingWheelMovementScheduler.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheelMovementScheduler() {
+        this.wheel = new ArrayDeque[LEVELS][SLOTS];
+        this.occupied = new long[LEVELS];
+        this.due = new ArrayDeque<>();
+        this.overflow = new TreeMap<>();
+        this.cursor = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(Movement movement) {
+        if (movement.getTime() < cursor) {
+            due.add(movement);
+        } else {
+            place(movement);
+        }
+        size++;
+    }
+
+    @Override
+    public Movement pollDue(long time) {
+        if (due.isEmpty()) {
+            advance(time);
+        }
+        Movement movement = due.poll();
+        if (movement != null) {
+            size--;
+        }
+        return movement;
+    }
+
+    @Override
+    public long nextTime() {
+        if (!due.isEmpty()) {
+            long earliest = Long.MAX_VALUE;
+            for (Movement movement : due) {
+                earliest = Math.min(earliest, movement.getTime());
+            }
+            return earliest;
+        }
+        if (occupied[0] != 0) {
+            return (cursor & ~(SLOTS - 1)) | Long.numberOfTrailingZeros(occupied[0]);
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                long earliest = Long.MAX_VALUE;
+                for (Movement movement
+                        : wheel[level][Long.numberOfTrailingZeros(occupied[level])]) {
+                    earliest = Math.min(earliest, movement.getTime());
+                }
+                return earliest;
+            }
+        }
+        return overflow.isEmpty() ? Long.MAX_VALUE : overflow.firstKey();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Movement> iterator() {
+        List<Collection<Movement>> parts = new ArrayList<>();
+        parts.add(due);
+        for (ArrayDeque<Movement>[] level : wheel) {
+            for (ArrayDeque<Movement> slot : level) {
+                if (slot != null && !slot.isEmpty()) {
+                    parts.add(slot);
+                }
+            }
+        }
+        parts.addAll(overflow.values());
+        return parts.stream().flatMap(Collection::stream).iterator();
+    }
+
+    /**
+     * Moves every movement with a time less than or equal to the given time into the due
+     * movements, in time order.
+     *
+     * @param time time to advance the wheel to
+     */
+    private void advance(long time) {
+        if (time < cursor) {
+            return;
+        }
+        while (true) {
+            if (occupied[0] != 0) {
+                int slot = Long.numberOfTrailingZeros(occupied[0]);
+                long slotTime = (cursor & ~(SLOTS - 1)) | slot;
+                if (slotTime > time) {
+                    break;
+                }
+                ArrayDeque<Movement> movements = wheel[0][slot];
+                due.addAll(movements);
+                movements.clear();
+                occupied[0] &= ~(1L << slot);
+                moveCursor(slotTime + 1);
+                continue;
+            }
+            int level = 1;
+            while (level < LEVELS && occupied[level] == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                if (overflow.isEmpty() || overflow.firstKey() > time) {
+                    break;
+                }
+                moveCursor(overflow.firstKey());
+                continue;
+            }
+            int slot = Long.numberOfTrailingZeros(occupied[level]);
+            int shift = level * SLOT_BITS;
+            long slotStart = (cursor & -(1L << (shift + SLOT_BITS))) | ((long) slot << shift);
+            if (slotStart > time) {
+                break;
+            }
+            moveCursor(slotStart);
+        }
+        moveCursor(time + 1);
+    }
+
+    /**
+     * Moves the cursor forward. Overflow movements that now fit into the wheel are placed in
+     * it, and slots whose range the cursor has entered are moved down to lower levels.
+     *
+     * @param time new cursor time, no later than the earliest movement in the wheel
+     */
+    private void moveCursor(long time) {
+        if (time <= cursor) {
+            return;
+        }
+        cursor = time;
+        while (!overflow.isEmpty() && levelOf(overflow.firstKey()) < LEVELS) {
+            Map.Entry<Long, ArrayDeque<Movement>> entry = overflow.pollFirstEntry();
+            for (Movement movement : entry.getValue()) {
+                place(movement);
+            }
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            int slot = (int) (cursor >>> (level * SLOT_BITS)) & (SLOTS - 1);
+            if ((occupied[level] & (1L << slot)) != 0) {
+                ArrayDeque<Movement> movements = wheel[level][slot];
+                occupied[level] &= ~(1L << slot);
+                for (int i = movements.size(); i > 0; i--) {
+                    place(movements.poll());
+                }
+            }
+        }
+    }
+
+    /**
+     * Places a movement with a time of at least the cursor time in the wheel.
+     *
+     * @param movement movement to place
+     */
+    private void place(Movement movement) {
+        long time = movement.getTime();
+        int level = levelOf(time);
+        if (level >= LEVELS) {
+            overflow.computeIfAbsent(time, t -> new ArrayDeque<>()).add(movement);
+            return;
+        }
+        int slot = (int) (time >>> (level * SLOT_BITS)) & (SLOTS - 1);
+        if (wheel[level][slot] == null) {
+            wheel[level][slot] = new ArrayDeque<>();
+        }
+        wheel[level][slot].add(movement);
+        occupied[level] |= 1L << slot;
+    }
+
+    /**
+     * Returns the level of the wheel a movement at the given time belongs on: the level of
+     * the highest bit in which the time differs from the cursor.
+     *
+     * @param time time of a movement
+     * @return wheel level, or a level of at least {@value #LEVELS} for the overflow
+     */
+    private int levelOf(long time) {
+        long difference = time ^ cursor;
+        if (difference == 0) {
+            return 0;
+        }
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(difference)) / SLOT_BITS;
+    }
+}
@@ -0,0 +1,42 @@
+package portsim.port;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the docked ships being unloaded into the port's stored cargo,
+ * every 5 minutes in {@link Port#elapseOneMinute()}.
+ */
+@Name("portsim.CargoUnloaded")
+@Label("Cargo Unloaded")
+@Category("Port Simulation")
+@Description("The docked ships unloaded into the port's stored cargo")
+@Enabled(false)
+@StackTrace(false)
+final class CargoUnloadedEvent extends Event {
+    /**
+     * simulated time in minutes
+     */
+    @Label("Simulated Time")
+    long time;
+    /**
+     * number of ships unloaded
+     */
+    @Label("Ships")
+    int ships;
+    /**
+     * number of pieces of cargo unloaded
+     */
+    @Label("Cargo")
+    int cargo;
+    /**
+     * number of pieces of cargo stored at the port afterwards
+     */
+    @Label("Stored Cargo")
+    int storedCargo;
+}
@@ -1,6 +1,6 @@
 package portsim.port;
 
-import java.util.StringJoiner;
+import java.io.IOException;
 
 /**
  * A Container Quay is a type of quay specifically designed for the unloading of
@@ -94,18 +94,18 @@ public class ContainerQuay extends Quay {
     }
 
     /**
-     * Returns the machine-readable string representation of this ContainerQuay.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this ContainerQuay to the given
+     * appendable. The format of the string to write is
      *
      * ContainerQuay:id:imoNumber:maxContainers
      *
-     * @return encoded string representation of this quay
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(Integer.toString(getMaxContainers()));
-        return encode.toString();
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(Integer.toString(getMaxContainers()));
     }
 
 }
@@ -0,0 +1,42 @@
+package portsim.port;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the port passing a movement, or minutes passing, to the
+ * evaluators run on the simulation thread and publishing it to the evaluator thread.
+ */
+@Name("portsim.EvaluatorDispatch")
+@Label("Evaluator Dispatch")
+@Category("Port Simulation")
+@Description("A movement or minutes passing delivered to the evaluators")
+@Enabled(false)
+@StackTrace(false)
+final class EvaluatorDispatchEvent extends Event {
+    /**
+     * simulated time in minutes
+     */
+    @Label("Simulated Time")
+    long time;
+    /**
+     * the port event dispatched, or MINUTES for minutes passing
+     */
+    @Label("Event")
+    String event;
+    /**
+     * number of minutes passing, or 0 for a movement
+     */
+    @Label("Minutes")
+    long minutes;
+    /**
+     * number of evaluators called on the simulation thread
+     */
+    @Label("Evaluators")
+    int evaluators;
+}
@@ -0,0 +1,47 @@
+package portsim.port;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a movement processed by {@link Port#processMovement}, including
+ * passing it to the evaluators.
+ */
+@Name("portsim.MovementProcessed")
+@Label("Movement Processed")
+@Category("Port Simulation")
+@Description("A movement processed by the port")
+@Enabled(false)
+@StackTrace(false)
+final class MovementProcessedEvent extends Event {
+    /**
+     * simulated time in minutes
+     */
+    @Label("Simulated Time")
+    long time;
+    /**
+     * simple class name of the movement
+     */
+    @Label("Kind")
+    String kind;
+    /**
+     * direction of the movement
+     */
+    @Label("Direction")
+    String direction;
+    /**
+     * IMO number of the ship moved, or 0 if the movement is not a ship movement
+     */
+    @Label("IMO Number")
+    long imoNumber;
+    /**
+     * number of pieces of cargo moved, or on the ship moved
+     */
+    @Label("Cargo")
+    int cargo;
+}
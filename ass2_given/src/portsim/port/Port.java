@@ -1,31 +1,40 @@
 package portsim.port;
 
-import javafx.util.Pair;
-import jdk.jshell.EvalException;
 import portsim.cargo.*;
 import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.evaluators.EvaluatorPipeline;
+import portsim.evaluators.PortEvent;
 import portsim.evaluators.QuayOccupancyEvaluator;
 import portsim.evaluators.ShipFlagEvaluator;
 import portsim.evaluators.StatisticsEvaluator;
 import portsim.movement.CargoMovement;
 import portsim.movement.Movement;
 import portsim.movement.MovementDirection;
+import portsim.movement.MovementScheduler;
 import portsim.movement.ShipMovement;
+import portsim.movement.TimingWheelMovementScheduler;
 import portsim.ship.BulkCarrier;
 import portsim.ship.ContainerShip;
 import portsim.ship.NauticalFlag;
 import portsim.ship.Ship;
 import portsim.util.BadEncodingException;
 import portsim.util.Encodable;
+import portsim.util.FieldTokenizer;
+import portsim.util.LineReader;
 import portsim.util.NoSuchCargoException;
+import portsim.util.SaveFiles;
+import portsim.util.SimulationContext;
 import portsim.util.Tickable;
 
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
 
 /**
  * A place where ships can come and dock with Quays to load / unload their
@@ -36,6 +45,14 @@ import java.util.stream.IntStream;
  * @ass1_partial
  */
 public class Port implements Tickable, Encodable {
+    /**
+     * number of cargo or ship lines parsed together when loading a save in parallel
+     */
+    private static final int CHUNK_LINES = 4096;
+    /**
+     * number of chunks in flight for each thread when loading a save in parallel
+     */
+    private static final int CHUNKS_PER_THREAD = 2;
 
     /**
      * The name of this port used for identification
@@ -53,21 +70,66 @@ public class Port implements Tickable, Encodable {
     /**
      * to store movements ordered by the time of the movement.
      */
-    private PriorityQueue<Movement> priorityQueue;
+    private MovementScheduler movementScheduler;
 
     /**
      * The quays associated with this port
      */
     private List<Quay> quays;
+    /**
+     * The port's free and occupied quays
+     */
+    private QuayIndex quayIndex;
     /**
      * The cargo currently stored at the port at warehouses. Cargo unloaded from trucks / ships
      */
-    private List<Cargo> storedCargo;
+    private Warehouse warehouse;
 
     /**
      * list of statistics evaluator
      */
     private List<StatisticsEvaluator> statisticsEvaluatorList;
+    /**
+     * evaluators run on the simulation thread, in the order they were added
+     */
+    private List<StatisticsEvaluator> synchronousEvaluators;
+    /**
+     * evaluators run on the simulation thread subscribed to each port event, indexed by the
+     * event's ordinal
+     */
+    private StatisticsEvaluator[][] subscribers;
+    /**
+     * pipeline running evaluators on a thread of their own, or null if all evaluators are run
+     * on the simulation thread
+     */
+    private EvaluatorPipeline evaluatorPipeline;
+    /**
+     * timings of the phases of each minute, or null if they are not being recorded
+     */
+    private PortTimings timings;
+    /**
+     * journal the port's changes are recorded in, or null if they are not being recorded
+     */
+    private PortJournal journal;
+    /**
+     * saver writing the port's changes to delta files, or null if the port is not saved that
+     * way
+     */
+    private PortDeltas deltas;
+    /**
+     * whether movements have been added to or taken from the scheduler since the changes were
+     * last cleared
+     */
+    private boolean movementsChanged;
+    /**
+     * whether evaluators have been added since the changes were last cleared
+     */
+    private boolean evaluatorsChanged;
+
+    /**
+     * registries of the simulation this port belongs to
+     */
+    private final SimulationContext context;
 
 
 
@@ -79,39 +141,31 @@ public class Port implements Tickable, Encodable {
      * The list of quays in the port, stored cargo (warehouses) and statistics evaluators should be
      * initialised as empty lists.
      * <p>
-     * An empty ShipQueue should be initialised, and a PriorityQueue should be initialised
-     * to store movements ordered by the time of the movement (see {@link Movement#getTime()}).
+     * An empty ShipQueue should be initialised, and a {@link TimingWheelMovementScheduler}
+     * should be initialised to store movements ordered by the time of the movement
+     * (see {@link Movement#getTime()}).
      *
      * @param name name of the port
      * @ass1_partial
      */
     public Port(String name) {
-        final Comparator<Movement> movementComparator = new Comparator<Movement>() {
-            /**
-             * A custom comparator that compares two Movements by the time
-             *
-             * @param o1 Movement 1 to compares
-             * @param o2 Movement 2 to compares
-             * @return the time differ
-             */
-            @Override
-            public int compare(Movement o1, Movement o2) {
-                return (int) (o1.getTime() - o2.getTime());
-            }
-        };
         this.name = name;
         this.time = 0;
         this.shipQueue = new ShipQueue();
-        this.priorityQueue = new PriorityQueue<>(movementComparator);
+        this.movementScheduler = new TimingWheelMovementScheduler();
         this.quays = new ArrayList<Quay>();
-        this.storedCargo = new ArrayList<Cargo>();
+        this.quayIndex = new QuayIndex(this::getTime);
+        this.warehouse = new Warehouse();
         this.statisticsEvaluatorList = new ArrayList<StatisticsEvaluator>();
-
+        this.synchronousEvaluators = new ArrayList<>();
+        this.subscribers = new StatisticsEvaluator[PortEvent.values().length][0];
+        this.context = SimulationContext.current();
     }
 
     /**
      * Creates a new port with the given name, time elapsed, ship queue, quays and stored cargo.
      * The list of statistics evaluators should be initialised as an empty list.
+     * Movements are stored in a {@link TimingWheelMovementScheduler}.
      *
      * @param name name of the port
      * @param time number of minutes since simulation started
@@ -126,34 +180,51 @@ public class Port implements Tickable, Encodable {
                  List<Quay> quays,
                  List<Cargo> storedCargo)
             throws IllegalArgumentException {
+        this(name, time, shipQueue, quays, storedCargo, new TimingWheelMovementScheduler());
+    }
+
+    /**
+     * Creates a new port with the given name, time elapsed, ship queue, quays, stored cargo
+     * and scheduler used to store movements.
+     * The list of statistics evaluators should be initialised as an empty list.
+     *
+     * @param name name of the port
+     * @param time number of minutes since simulation started
+     * @param shipQueue ships waiting to enter the port
+     * @param quays the port's quays
+     * @param storedCargo the cargo stored at the port
+     * @param movementScheduler empty scheduler to store the port's movements
+     * @throws IllegalArgumentException if time < 0
+     */
+    public Port(String name,
+                long time,
+                ShipQueue shipQueue,
+                List<Quay> quays,
+                List<Cargo> storedCargo,
+                MovementScheduler movementScheduler)
+            throws IllegalArgumentException {
         if (time < 0) {
             throw new IllegalArgumentException();
         }
-        final Comparator<Movement> movementComparator = new Comparator<>() {
-            /**
-             * A custom comparator that compares two Movements by the time
-             *
-             * @param o1 Movement 1 to compares
-             * @param o2 Movement 2 to compares
-             * @return the time differ
-             */
-            @Override
-            public int compare(Movement o1, Movement o2) {
-                return (int) (o1.getTime() - o2.getTime());
-            }
-        };
         this.name = name;
         this.time = time;
         this.shipQueue = shipQueue;
-        this.priorityQueue = new PriorityQueue<>(movementComparator);
+        this.movementScheduler = movementScheduler;
         this.quays = quays;
-        this.storedCargo = storedCargo;
+        this.quayIndex = new QuayIndex(this::getTime);
+        for (Quay quay : quays) {
+            this.quayIndex.add(quay);
+        }
+        this.warehouse = new Warehouse();
+        this.warehouse.addAll(storedCargo);
         this.statisticsEvaluatorList = new ArrayList<StatisticsEvaluator>();
-
+        this.synchronousEvaluators = new ArrayList<>();
+        this.subscribers = new StatisticsEvaluator[PortEvent.values().length][0];
+        this.context = SimulationContext.current();
     }
 
     /**
-     * Adds a movement to the PriorityQueue of movements.
+     * Adds a movement to the scheduler of movements.
      *
      * @param movement movement to add
      * @throws IllegalArgumentException  movement's action time is less than the
@@ -161,7 +232,11 @@ public class Port implements Tickable, Encodable {
      */
     public void addMovement(Movement movement) throws IllegalArgumentException {
         if (movement.getTime() >= this.time) {
-            this.priorityQueue.add(movement);
+            this.movementScheduler.add(movement);
+            this.movementsChanged = true;
+            if (this.journal != null) {
+                this.journal.movementAdded(movement);
+            }
         } else {
             throw new IllegalArgumentException();
         }
@@ -176,7 +251,8 @@ public class Port implements Tickable, Encodable {
      *      If the movement direction is OUTBOUND then any cargo stored in the port whose
      *      destination
      *          is the ship's origin port should be added to the ship according to
-     *          Ship.canLoad(Cargo).
+     *          Ship.canLoad(Cargo), in the order it was stored, and removed from the port's
+     *          stored cargo.
      *          Next, the ship should be removed from the quay it is currently docked in (if any).
      *
      * If the movement is a CargoMovement:
@@ -185,26 +261,39 @@ public class Port implements Tickable, Encodable {
      *      If the movement direction is OUTBOUND then all cargo with the given IDs should
      *      be removed from the port's stored cargo.
      *
+     * Finally, the movement is passed to the evaluators subscribed to its kind
+     * ({@link PortEvent#of(Movement)}).
+     *
      * @param movement movement to execute
      */
     public void processMovement(Movement movement) {
         if (movement.getTime() < this.time) {
             return;
         }
+        if (this.journal != null) {
+            this.journal.movementProcessed(movement);
+        }
+        if (this.timings != null) {
+            this.timings.movementDispatched();
+        }
+        MovementProcessedEvent processed = new MovementProcessedEvent();
+        processed.begin();
         if (movement instanceof ShipMovement) {
             ShipMovement shipMovement = (ShipMovement) movement;
             if (movement.getDirection().equals(MovementDirection.INBOUND)) {
                 this.shipQueue.add(shipMovement.getShip());
             } else if (movement.getDirection().equals(MovementDirection.OUTBOUND)) {
                 Ship ship = shipMovement.getShip();
-                for (Cargo cargo : this.storedCargo) {
-                    if (ship.canLoad(cargo)) {
-                        ship.loadCargo(cargo);
-                    }
-                }
-                for (Quay quay : this.quays) {
-                    if (quay.getShip().equals(ship)) {
+                loadStoredCargo(ship);
+                for (Quay quay : this.quayIndex.getOccupiedQuays()) {
+                    if (ship.equals(quay.getShip())) {
                         quay.shipDeparts();
+                        for (StatisticsEvaluator eval : subscribers(PortEvent.SHIP_DEPARTED)) {
+                            eval.onShipDeparted(ship, quay);
+                        }
+                        if (this.evaluatorPipeline != null) {
+                            this.evaluatorPipeline.publishShipDeparted(ship, quay);
+                        }
                         break;
                     }
                 }
@@ -212,20 +301,109 @@ public class Port implements Tickable, Encodable {
         } else if (movement instanceof CargoMovement) {
             CargoMovement cargoMovement = (CargoMovement) movement;
             if (movement.getDirection().equals(MovementDirection.INBOUND)) {
-                this.storedCargo.addAll(cargoMovement.getCargo());
+                this.warehouse.addAll(cargoMovement.getCargo());
             } else {
-                this.storedCargo.removeIf(cargo ->
-                        cargoMovement.encode().contains(Integer.toString(cargo.getId())));
+                for (Cargo cargo : cargoMovement.getCargo()) {
+                    this.warehouse.remove(cargo.getId());
+                }
             }
         }
-        for (StatisticsEvaluator eval : statisticsEvaluatorList) {
+        EvaluatorDispatchEvent dispatch = new EvaluatorDispatchEvent();
+        dispatch.begin();
+        PortEvent event = PortEvent.of(movement);
+        StatisticsEvaluator[] evaluators = event == null
+                // a kind of movement no evaluator can have subscribed to
+                ? this.synchronousEvaluators.toArray(new StatisticsEvaluator[0])
+                : subscribers(event);
+        for (StatisticsEvaluator eval : evaluators) {
             eval.onProcessMovement(movement);
         }
+        if (this.evaluatorPipeline != null) {
+            this.evaluatorPipeline.publishMovement(movement);
+        }
+        if (dispatch.shouldCommit()) {
+            dispatch.time = this.time;
+            dispatch.event = String.valueOf(event);
+            dispatch.evaluators = evaluators.length;
+            dispatch.commit();
+        }
+        if (processed.shouldCommit()) {
+            processed.time = this.time;
+            processed.kind = movement.getClass().getSimpleName();
+            processed.direction = movement.getDirection().name();
+            if (movement instanceof ShipMovement) {
+                Ship ship = ((ShipMovement) movement).getShip();
+                processed.imoNumber = ship.getImoNumber();
+                if (ship instanceof ContainerShip) {
+                    processed.cargo = ((ContainerShip) ship).getNumContainers();
+                } else if (ship instanceof BulkCarrier) {
+                    processed.cargo = ((BulkCarrier) ship).getCargo() == null ? 0 : 1;
+                }
+            } else if (movement instanceof CargoMovement) {
+                processed.cargo = ((CargoMovement) movement).getNumCargo();
+            }
+            processed.commit();
+        }
+    }
+
+    /**
+     * Returns the evaluators subscribed to the given event, in the order they were added.
+     *
+     * @param event port event
+     * @return subscribed evaluators, not to be modified
+     */
+    private StatisticsEvaluator[] subscribers(PortEvent event) {
+        return this.subscribers[event.ordinal()];
+    }
+
+    /**
+     * Loads the stored cargo whose destination is the given ship's origin onto the ship,
+     * and removes the loaded cargo from the warehouse.
+     * Only cargo of the kind the ship carries is considered, and loading stops once the ship
+     * cannot take any more cargo.
+     *
+     * @param ship ship leaving the port
+     */
+    private void loadStoredCargo(Ship ship) {
+        List<Cargo> loaded = new ArrayList<>();
+        if (ship instanceof ContainerShip) {
+            for (Container container : this.warehouse.getContainers(ship.getOriginFlag())) {
+                if (!ship.canLoad(container)) {
+                    // the ship is full
+                    break;
+                }
+                ship.loadCargo(container);
+                loaded.add(container);
+            }
+        } else if (ship instanceof BulkCarrier) {
+            if (((BulkCarrier) ship).getCargo() == null) {
+                for (BulkCargo bulkCargo : this.warehouse.getBulkCargo(ship.getOriginFlag())) {
+                    if (ship.canLoad(bulkCargo)) {
+                        ship.loadCargo(bulkCargo);
+                        loaded.add(bulkCargo);
+                        break;
+                    }
+                }
+            }
+        } else {
+            for (Cargo cargo : this.warehouse) {
+                if (ship.canLoad(cargo)) {
+                    ship.loadCargo(cargo);
+                    loaded.add(cargo);
+                }
+            }
+        }
+        for (Cargo cargo : loaded) {
+            this.warehouse.remove(cargo.getId());
+        }
     }
 
     /**
      * Adds the given statistics evaluator to the port's list of evaluators.
      * If the port already has an evaluator of that type, no action should be taken.
+     * <p>
+     * The evaluator is subscribed to the events returned by its
+     * {@link StatisticsEvaluator#getSubscriptions()}.
      *
      * @param eval statistics evaluator to add to the port
      */
@@ -233,6 +411,342 @@ public class Port implements Tickable, Encodable {
         if (!this.statisticsEvaluatorList.stream().anyMatch(
                 e -> e.getClass() == eval.getClass())) {
             this.statisticsEvaluatorList.add(eval);
+            subscribe(eval);
+            this.evaluatorsChanged = true;
+            if (this.journal != null) {
+                this.journal.evaluatorAdded(eval);
+            }
+        }
+    }
+
+    /**
+     * Subscribes the given evaluator to its events, on the evaluator thread if there is one
+     * and the evaluator can be run on it, otherwise on the simulation thread.
+     *
+     * @param eval evaluator to subscribe
+     */
+    private void subscribe(StatisticsEvaluator eval) {
+        if (this.evaluatorPipeline != null && eval.canEvaluateAsynchronously()) {
+            this.evaluatorPipeline.add(eval);
+            return;
+        }
+        this.synchronousEvaluators.add(eval);
+        for (PortEvent event : eval.getSubscriptions()) {
+            StatisticsEvaluator[] current = this.subscribers[event.ordinal()];
+            StatisticsEvaluator[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = eval;
+            this.subscribers[event.ordinal()] = updated;
+        }
+    }
+
+    /**
+     * Subscribes all of the port's evaluators again, after the evaluator thread has been
+     * started or stopped.
+     */
+    private void resubscribeEvaluators() {
+        this.synchronousEvaluators = new ArrayList<>();
+        this.subscribers = new StatisticsEvaluator[PortEvent.values().length][0];
+        for (StatisticsEvaluator eval : this.statisticsEvaluatorList) {
+            subscribe(eval);
+        }
+    }
+
+    /**
+     * Starts running the port's evaluators on a thread of their own, so that the time they
+     * take is not spent by the thread running the simulation.
+     * <p>
+     * Only evaluators that report {@link StatisticsEvaluator#canEvaluateAsynchronously()}
+     * are moved to the evaluator thread, including evaluators added later; the others are
+     * still run on the simulation thread. The port publishes the events of the evaluators on
+     * the evaluator thread to an {@link EvaluatorPipeline}, which the simulation thread never
+     * waits for. Their state should then only be read through
+     * {@link #readEvaluators(Function)}, and lags behind the port by however long the
+     * evaluator thread takes to catch up (see {@link #getEvaluatedTime()}).
+     *
+     * @param capacity maximum number of batches of events waiting for the evaluator thread
+     * @throws IllegalStateException if the evaluator thread is already running
+     * @throws IllegalArgumentException if capacity &lt; 1
+     */
+    public void startEvaluatorThread(int capacity) {
+        if (this.evaluatorPipeline != null) {
+            throw new IllegalStateException("The evaluator thread is already running");
+        }
+        this.evaluatorPipeline = new EvaluatorPipeline("evaluators-" + this.name, capacity,
+                this.time, this.context);
+        resubscribeEvaluators();
+    }
+
+    /**
+     * Waits for the evaluator thread to catch up with the port, then stops it and runs all
+     * evaluators on the simulation thread again. Does nothing if the evaluator thread is not
+     * running.
+     *
+     * @throws IllegalStateException if an evaluator failed on the evaluator thread
+     */
+    public void stopEvaluatorThread() {
+        if (this.evaluatorPipeline == null) {
+            return;
+        }
+        EvaluatorPipeline pipeline = this.evaluatorPipeline;
+        this.evaluatorPipeline = null;
+        resubscribeEvaluators();
+        pipeline.close();
+    }
+
+    /**
+     * Waits until the evaluator thread, if running, has caught up with the port.
+     *
+     * @throws IllegalStateException if an evaluator failed on the evaluator thread
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitEvaluators() throws InterruptedException {
+        if (this.evaluatorPipeline != null) {
+            this.evaluatorPipeline.flush();
+        }
+    }
+
+    /**
+     * Returns the time the port's evaluators are up to. This is the port's time unless the
+     * evaluator thread is running and has not caught up.
+     *
+     * @return time up to which the evaluators have been given the port's events
+     */
+    public long getEvaluatedTime() {
+        return this.evaluatorPipeline == null
+                ? this.time : this.evaluatorPipeline.getWatermark();
+    }
+
+    /**
+     * Applies the given function to the port's evaluators, as returned by
+     * {@link #getEvaluators()}.
+     * <p>
+     * If the evaluator thread is running, the evaluators on it are read between two batches of
+     * events, so they are all as they were at {@link #getEvaluatedTime()}. This may wait for
+     * the evaluator thread to finish the batch it is applying, but never for the events still
+     * queued.
+     *
+     * @param reader function reading the evaluators
+     * @param <T> type of value read
+     * @return value returned by the reader
+     */
+    public <T> T readEvaluators(Function<List<StatisticsEvaluator>, T> reader) {
+        if (this.evaluatorPipeline == null) {
+            return reader.apply(getEvaluators());
+        }
+        return this.evaluatorPipeline.read(getEvaluators(), reader);
+    }
+
+    /**
+     * Starts recording the timings of the phases of each minute, if they are not already
+     * being recorded. While they are not, the port does not read the clock at all.
+     *
+     * @return timings being recorded
+     */
+    public PortTimings enableTimings() {
+        if (this.timings == null) {
+            this.timings = new PortTimings();
+        }
+        return this.timings;
+    }
+
+    /**
+     * Stops recording the timings of the phases of each minute. The timings recorded so far
+     * can still be read from the object returned by {@link #enableTimings()}.
+     */
+    public void disableTimings() {
+        this.timings = null;
+    }
+
+    /**
+     * Returns the timings of the phases of each minute being recorded.
+     *
+     * @return timings, or null if they are not being recorded
+     */
+    public PortTimings getTimings() {
+        return this.timings;
+    }
+
+    /**
+     * Writes a snapshot of the port to one file and starts recording every change made through
+     * the port's methods in a journal in another, replacing both files. If a journal is
+     * already being recorded, it is closed first, so calling this again is a checkpoint:
+     * the journal restarts from a fresh snapshot.
+     * <p>
+     * The port can be rebuilt from the two files with
+     * {@link PortJournal#recover(Path, Path)}, for example after the program running the
+     * simulation has died. Changes made directly to the quays, ship queue or warehouse of
+     * the port, rather than through its methods, are not recorded.
+     *
+     * @param snapshot path of the snapshot file
+     * @param journal path of the journal file
+     * @param syncInterval longest time in milliseconds a recorded change may wait before it
+     *                     is forced to the storage device
+     * @return journal being recorded
+     * @throws IOException if an IOException occurs when writing either file
+     * @throws IllegalArgumentException if syncInterval &lt; 0
+     */
+    public PortJournal startJournal(Path snapshot, Path journal, long syncInterval)
+            throws IOException {
+        if (syncInterval < 0) {
+            throw new IllegalArgumentException("The sync interval cannot be negative: "
+                    + syncInterval);
+        }
+        stopJournal();
+        this.journal = PortJournal.create(this, snapshot, journal, syncInterval);
+        return this.journal;
+    }
+
+    /**
+     * Writes the changes recorded so far to the journal, forces them to the storage device
+     * and stops recording changes. Does nothing if no journal is being recorded.
+     *
+     * @throws IOException if an IOException occurs when writing the journal
+     */
+    public void stopJournal() throws IOException {
+        if (this.journal == null) {
+            return;
+        }
+        PortJournal journal = this.journal;
+        this.journal = null;
+        journal.close();
+    }
+
+    /**
+     * Returns the journal the port's changes are being recorded in.
+     *
+     * @return journal, or null if no journal is being recorded
+     */
+    public PortJournal getJournal() {
+        return this.journal;
+    }
+
+    /**
+     * Writes the whole port to the given base file and starts recording what changes, so that
+     * each {@link PortDeltas#save()} writes only the changes since the last save to a delta
+     * file next to the base. If delta saves have already been started, they are stopped
+     * first.
+     * <p>
+     * The port can be loaded from the base and its deltas with {@link PortDeltas#load(Path)}.
+     * Changes are recorded in the port's {@link SimulationContext}, so only one port in each
+     * context may be saved this way at a time.
+     *
+     * @param base path of the base file
+     * @return saver writing the delta files
+     * @throws IOException if an IOException occurs when writing the base file
+     */
+    public PortDeltas startDeltaSaves(Path base) throws IOException {
+        stopDeltaSaves();
+        this.deltas = PortDeltas.start(this, base);
+        return this.deltas;
+    }
+
+    /**
+     * Writes the whole port to the given file, compressed if its name says it should be
+     * (see {@link SaveFiles#isCompressed(Path)}), and deletes any delta files left next to it,
+     * so that {@link PortDeltas#load(Path)} loads the port as it is now.
+     * <p>
+     * If the file is the base of this port's delta saves, they are restarted on it as by
+     * {@link #startDeltaSaves(Path)}, so that later deltas follow the new base. Otherwise delta
+     * saves carry on writing to their own base.
+     *
+     * @param file path of the file to write
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    public void saveAs(Path file) throws IOException {
+        if (this.deltas != null && this.deltas.getBase().toAbsolutePath().normalize()
+                .equals(file.toAbsolutePath().normalize())) {
+            startDeltaSaves(file);
+        } else {
+            PortDeltas.writeBase(this, file);
+        }
+    }
+
+    /**
+     * Waits for any compaction of the delta files to finish and stops recording changes.
+     * The changes since the last save are not written. Does nothing if delta saves have not
+     * been started.
+     *
+     * @throws IOException if an IOException occurred when compacting the delta files
+     */
+    public void stopDeltaSaves() throws IOException {
+        if (this.deltas == null) {
+            return;
+        }
+        PortDeltas deltas = this.deltas;
+        this.deltas = null;
+        deltas.close();
+    }
+
+    /**
+     * Returns the saver writing the port's changes to delta files.
+     *
+     * @return saver, or null if delta saves have not been started
+     */
+    public PortDeltas getDeltaSaves() {
+        return this.deltas;
+    }
+
+    /**
+     * Attaches a saver that continues writing delta files after the port has been loaded from
+     * them.
+     *
+     * @param deltas saver to attach
+     */
+    void setDeltaSaves(PortDeltas deltas) {
+        this.deltas = deltas;
+    }
+
+    /**
+     * Starts recording what changes in the port and its simulation, from now on.
+     */
+    void trackChanges() {
+        this.context.trackChanges();
+        this.warehouse.trackChanges();
+        clearChanges();
+    }
+
+    /**
+     * Stops recording what changes in the port and its simulation.
+     */
+    void stopTrackingChanges() {
+        this.context.stopTrackingChanges();
+        this.warehouse.stopTrackingChanges();
+    }
+
+    /**
+     * Forgets the changes recorded so far, once they have been saved.
+     */
+    void clearChanges() {
+        this.context.clearChanges();
+        this.warehouse.clearChanges();
+        this.quayIndex.clearChanged();
+        this.shipQueue.clearChanged();
+        this.movementsChanged = false;
+        this.evaluatorsChanged = false;
+    }
+
+    /**
+     * Sets the time of the port, when replaying a journal.
+     *
+     * @param time number of minutes since simulation started
+     */
+    void setTime(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Tells the evaluators run on the simulation thread that the given number of minutes has
+     * passed, when replaying a journal.
+     *
+     * @param minutes number of minutes
+     */
+    void elapseEvaluators(long minutes) {
+        for (StatisticsEvaluator statisticsEvaluator : this.synchronousEvaluators) {
+            if (minutes == 1) {
+                statisticsEvaluator.elapseOneMinute();
+            } else {
+                statisticsEvaluator.elapseMinutes(minutes);
+            }
         }
     }
 
@@ -270,6 +784,36 @@ public class Port implements Tickable, Encodable {
         return new ArrayList<>(this.quays);
     }
 
+    /**
+     * Returns the number of this port's quays that currently have a ship docked.
+     * <p>
+     * The count is kept up to date as ships arrive at and depart from the quays, so it is
+     * read without visiting them.
+     *
+     * @return number of occupied quays
+     */
+    public int getQuaysOccupied() {
+        return this.quayIndex.getOccupiedCount();
+    }
+
+    /**
+     * Returns the number of this port's bulk quays that currently have a ship docked.
+     *
+     * @return number of occupied bulk quays
+     */
+    public int getBulkQuaysOccupied() {
+        return this.quayIndex.getOccupiedBulkCount();
+    }
+
+    /**
+     * Returns the number of this port's container quays that currently have a ship docked.
+     *
+     * @return number of occupied container quays
+     */
+    public int getContainerQuaysOccupied() {
+        return this.quayIndex.getOccupiedContainerCount();
+    }
+
     /**
      * Returns the cargo stored in warehouses at this port.
      * <p>
@@ -279,7 +823,16 @@ public class Port implements Tickable, Encodable {
      * @ass1
      */
     public List<Cargo> getCargo() {
-        return new ArrayList<>(this.storedCargo);
+        return this.warehouse.getCargo();
+    }
+
+    /**
+     * Returns the warehouse storing the port's cargo.
+     *
+     * @return port warehouse
+     */
+    public Warehouse getWarehouse() {
+        return this.warehouse;
     }
 
     /**
@@ -292,12 +845,23 @@ public class Port implements Tickable, Encodable {
     }
 
     /**
-     * Returns the queue of movements waiting to be processed.
+     * Returns the scheduler of movements waiting to be processed.
+     *
+     * @return movements scheduler
+     */
+    public MovementScheduler getMovements() {
+        return this.movementScheduler;
+    }
+
+    /**
+     * Returns the context holding the cargo and ship registries of this port's simulation.
+     * This is the context that was current when the port was created, and its registries
+     * are the ones written by {@link #encode()}.
      *
-     * @return movements queue
+     * @return simulation context of the port
      */
-    public PriorityQueue<Movement> getMovements() {
-        return this.priorityQueue;
+    public SimulationContext getContext() {
+        return this.context;
     }
 
     /**
@@ -318,6 +882,10 @@ public class Port implements Tickable, Encodable {
      */
     public void addQuay(Quay quay) {
         this.quays.add(quay);
+        this.quayIndex.add(quay);
+        if (this.journal != null) {
+            this.journal.quayAdded(quay);
+        }
     }
 
     /**
@@ -329,54 +897,253 @@ public class Port implements Tickable, Encodable {
      * Advance the simulation time by 1
      * 1. If the time is a multiple of 10, attempt to bring a ship from the ship queue to any empty
      *      quay that matches the requirements from Ship.canDock(Quay). The ship should
-     *      only be docked to one quay.
+     *      only be docked to one quay, the smallest empty quay it fits in.
      * 2. If the time is a multiple of 5, all quays must unload the cargo from ships docked
      *      (if any) and add it to warehouses at the port (the Port's list of stored cargo)
      * 3. All movements stored in the queue whose action time is equal to the current time should
-     *      be processed by processMovement(Movement)
+     *      be removed from the queue and processed by processMovement(Movement)
      * 4. Call StatisticsEvaluator.elapseOneMinute() on all statistics evaluators
      */
     public void elapseOneMinute() {
         time += 1;
-        if (getTime() % 10 == 0) {
-            Ship ship = this.shipQueue.peek();
-            for (Quay quay : this.quays) {
-                if (ship.canDock(quay) && quay.isEmpty()) {
-                    quay.shipArrives(ship);
-                    this.shipQueue.poll();
+        runScheduledActions();
+        tickEvaluators();
+    }
+
+    /**
+     * Advances the simulation to the given time.
+     * <p>
+     * The resulting state of the port and its evaluators is the same as calling
+     * {@link #elapseOneMinute()} once for every minute between the current time and the given
+     * time. Rather than stepping through every minute, the port jumps straight to the next
+     * minute at which something can happen: a multiple of 5 (docking and unloading) or the
+     * action time of the next movement. The minutes skipped over are passed to the
+     * evaluators in one call to {@link StatisticsEvaluator#elapseMinutes(long)}.
+     *
+     * @param targetTime time to advance the simulation to
+     * @throws IllegalArgumentException if targetTime &lt; the current time
+     */
+    public void advanceTo(long targetTime) throws IllegalArgumentException {
+        if (targetTime < this.time) {
+            throw new IllegalArgumentException("Cannot advance the port back in time: "
+                    + targetTime);
+        }
+        while (this.time < targetTime) {
+            long next = nextActionTime(targetTime);
+            long skipped = next - this.time - 1;
+            if (skipped > 0) {
+                long start = this.timings == null ? 0 : System.nanoTime();
+                EvaluatorDispatchEvent dispatch = new EvaluatorDispatchEvent();
+                dispatch.begin();
+                for (StatisticsEvaluator statisticsEvaluator : this.synchronousEvaluators) {
+                    statisticsEvaluator.elapseMinutes(skipped);
+                }
+                if (this.evaluatorPipeline != null) {
+                    this.evaluatorPipeline.publishMinutes(skipped, next - 1);
+                }
+                if (this.journal != null) {
+                    this.journal.minutesPassed(skipped);
+                }
+                commitMinutesDispatched(dispatch, skipped);
+                if (this.timings != null) {
+                    this.timings.record(PortTimings.Phase.EVALUATORS, start);
                 }
             }
+            this.time = next;
+            runScheduledActions();
+            tickEvaluators();
         }
-        if (getTime() % 5 == 0) {
-            for (Quay quay : this.quays) {
-                if (!quay.isEmpty()) {
-                    Ship ship = quay.getShip();
-                    if (ship instanceof ContainerShip) {
-                        ContainerShip containerShip = (ContainerShip) ship;
-                        try {
-                            this.storedCargo.addAll(containerShip.unloadCargo());
-                        } catch (NoSuchCargoException ignored) {
-                            continue;
-                        }
-                    } else if (ship instanceof BulkCarrier) {
-                        BulkCarrier bulkCarrier = (BulkCarrier) ship;
-                        try {
-                            this.storedCargo.add(bulkCarrier.unloadCargo());
-                        } catch (NoSuchCargoException ignored) {
-                            continue;
-                        }
-                    }
-                }
+    }
+
+    /**
+     * Returns the next minute after the current time at which the port has something to do,
+     * capped at the given limit.
+     *
+     * @param limit latest time to return
+     * @return next minute with a docking / unloading step or a movement to process
+     */
+    private long nextActionTime(long limit) {
+        long next = Math.min(limit, (this.time / 5 + 1) * 5);
+        return Math.min(next, Math.max(this.movementScheduler.nextTime(), this.time + 1));
+    }
+
+    /**
+     * Carries out the actions scheduled for the current minute, steps 1 - 3 of
+     * {@link #elapseOneMinute()}.
+     */
+    private void runScheduledActions() {
+        PortTimings timings = this.timings;
+        long start = timings == null ? 0 : System.nanoTime();
+        if (getTime() % 10 == 0) {
+            dockNextShip();
+            if (timings != null) {
+                start = timings.record(PortTimings.Phase.DOCKING, start);
             }
         }
-        for (Movement movement : this.priorityQueue) {
-            if (movement.getTime() == this.getTime()) {
-                this.processMovement(movement);
+        if (getTime() % 5 == 0) {
+            unloadDockedShips();
+            if (timings != null) {
+                start = timings.record(PortTimings.Phase.UNLOADING, start);
             }
         }
-        for (StatisticsEvaluator statisticsEvaluator : this.statisticsEvaluatorList) {
+        Movement movement;
+        while ((movement = this.movementScheduler.pollDue(this.getTime())) != null) {
+            this.movementsChanged = true;
+            this.processMovement(movement);
+        }
+        if (timings != null) {
+            timings.record(PortTimings.Phase.MOVEMENTS, start);
+        }
+    }
+
+    /**
+     * Tells the evaluators that the current minute has passed, step 4 of
+     * {@link #elapseOneMinute()}.
+     */
+    private void tickEvaluators() {
+        long start = this.timings == null ? 0 : System.nanoTime();
+        EvaluatorDispatchEvent dispatch = new EvaluatorDispatchEvent();
+        dispatch.begin();
+        for (StatisticsEvaluator statisticsEvaluator : this.synchronousEvaluators) {
             statisticsEvaluator.elapseOneMinute();
         }
+        if (this.evaluatorPipeline != null) {
+            this.evaluatorPipeline.publishMinutes(1, this.time);
+        }
+        if (this.journal != null) {
+            this.journal.minutesPassed(1);
+        }
+        commitMinutesDispatched(dispatch, 1);
+        if (this.timings != null) {
+            this.timings.record(PortTimings.Phase.EVALUATORS, start);
+        }
+    }
+
+    /**
+     * Commits a Flight Recorder event for minutes passing being delivered to the evaluators,
+     * if it is being recorded.
+     *
+     * @param dispatch event begun before the evaluators were called
+     * @param minutes number of minutes passing
+     */
+    private void commitMinutesDispatched(EvaluatorDispatchEvent dispatch, long minutes) {
+        if (dispatch.shouldCommit()) {
+            dispatch.time = this.time;
+            dispatch.event = "MINUTES";
+            dispatch.minutes = minutes;
+            dispatch.evaluators = this.synchronousEvaluators.size();
+            dispatch.commit();
+        }
+    }
+
+    /**
+     * Brings the next ship in the ship queue (if any) to the smallest empty quay it can dock at.
+     */
+    private void dockNextShip() {
+        Ship ship = this.shipQueue.peek();
+        if (ship == null) {
+            return;
+        }
+        Quay quay = this.quayIndex.findFreeQuay(ship);
+        if (quay != null) {
+            dock(quay);
+        }
+    }
+
+    /**
+     * Brings the next ship in the ship queue to the given quay, which it must be able to dock
+     * at.
+     *
+     * @param quay empty quay of this port
+     */
+    void dock(Quay quay) {
+        Ship ship = this.shipQueue.poll();
+        quay.shipArrives(ship);
+        if (this.journal != null) {
+            this.journal.shipDocked(ship, this.quayIndex.positionOf(quay));
+        }
+        if (this.timings != null) {
+            this.timings.shipDocked();
+        }
+        for (StatisticsEvaluator eval : subscribers(PortEvent.SHIP_DOCKED)) {
+            eval.onShipDocked(ship, quay);
+        }
+        if (this.evaluatorPipeline != null) {
+            this.evaluatorPipeline.publishShipDocked(ship, quay);
+        }
+    }
+
+    /**
+     * Unloads the cargo of every docked ship into the port's stored cargo.
+     */
+    private void unloadDockedShips() {
+        CargoUnloadedEvent event = new CargoUnloadedEvent();
+        event.begin();
+        int ships = 0;
+        int pieces = 0;
+        for (Quay quay : this.quayIndex.getOccupiedQuays()) {
+            int unloaded = unload(quay);
+            if (unloaded > 0) {
+                ships++;
+                pieces += unloaded;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.time = this.time;
+            event.ships = ships;
+            event.cargo = pieces;
+            event.storedCargo = this.warehouse.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Unloads the cargo of the ship docked at the given quay into the port's stored cargo.
+     *
+     * @param quay quay of this port
+     * @return number of pieces of cargo unloaded, or 0 if the quay is empty or its ship has
+     * no cargo
+     */
+    int unload(Quay quay) {
+        if (quay.isEmpty()) {
+            return 0;
+        }
+        Ship ship = quay.getShip();
+        List<? extends Cargo> unloaded;
+        if (ship instanceof ContainerShip) {
+            ContainerShip containerShip = (ContainerShip) ship;
+            try {
+                unloaded = containerShip.unloadCargo();
+            } catch (NoSuchCargoException ignored) {
+                return 0;
+            }
+            this.warehouse.addAll(unloaded);
+        } else if (ship instanceof BulkCarrier) {
+            BulkCarrier bulkCarrier = (BulkCarrier) ship;
+            BulkCargo bulkCargo;
+            try {
+                bulkCargo = bulkCarrier.unloadCargo();
+            } catch (NoSuchCargoException ignored) {
+                return 0;
+            }
+            this.warehouse.add(bulkCargo);
+            unloaded = List.of(bulkCargo);
+        } else {
+            return 0;
+        }
+        if (this.journal != null) {
+            this.journal.cargoUnloaded(this.quayIndex.positionOf(quay));
+        }
+        if (this.timings != null) {
+            this.timings.cargoUnloaded(unloaded.size());
+        }
+        for (StatisticsEvaluator eval : subscribers(PortEvent.CARGO_UNLOADED)) {
+            eval.onCargoUnloaded(ship, unloaded);
+        }
+        if (this.evaluatorPipeline != null) {
+            this.evaluatorPipeline.publishCargoUnloaded(ship, unloaded);
+        }
+        return unloaded.size();
     }
 
     /**
@@ -404,50 +1171,217 @@ public class Port implements Tickable, Encodable {
      * @return encoded string representation of this port
      */
     public String encode() {
-        StringJoiner joiner = new StringJoiner(System.lineSeparator());
-        joiner.add(getName());
-        joiner.add(Long.toString(getTime()));
-        joiner.add(Integer.toString(Cargo.getCargoRegistry().size()));
-        for (Cargo cargo : Cargo.getCargoRegistry().values()) {
-            joiner.add(cargo.encode());
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this Port to the given writer,
+     * in the format described in {@link #encode()}.
+     * <p>
+     * Each cargo, ship, quay and movement is written as it is encoded, through a buffer
+     * if the writer is not already buffered, so the memory used does not grow with the size
+     * of the port. The writer is flushed but not closed.
+     *
+     * @param writer writer to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the writer
+     */
+    public void encodeTo(Writer writer) throws IOException {
+        Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        encodeTo((Appendable) out);
+        out.flush();
+    }
+
+    /**
+     * Writes the machine-readable string representation of this Port to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        PortSavedEvent event = new PortSavedEvent();
+        event.begin();
+        String lineSeparator = System.lineSeparator();
+        out.append(getName()).append(lineSeparator);
+        out.append(Long.toString(getTime())).append(lineSeparator);
+
+        Map<Integer, Cargo> cargoRegistry = this.context.getCargoRegistry();
+        out.append(Integer.toString(cargoRegistry.size())).append(lineSeparator);
+        for (Cargo cargo : cargoRegistry.values()) {
+            cargo.encodeTo(out);
+            out.append(lineSeparator);
+        }
+        Map<Long, Ship> shipRegistry = this.context.getShipRegistry();
+        out.append(Integer.toString(shipRegistry.size())).append(lineSeparator);
+        for (Ship ship : shipRegistry.values()) {
+            ship.encodeTo(out);
+            out.append(lineSeparator);
+        }
+        out.append(Integer.toString(this.quays.size())).append(lineSeparator);
+        for (Quay quay : this.quays) {
+            quay.encodeTo(out);
+            out.append(lineSeparator);
         }
-        joiner.add(Integer.toString(Ship.getShipRegistry().size()));
-        for (Ship ship : Ship.getShipRegistry().values()) {
-            joiner.add(ship.encode());
+        this.shipQueue.encodeTo(out);
+        out.append(lineSeparator);
+
+        encodeIdsTo(out, "StoredCargo", this.warehouse.size(), this.warehouse);
+        out.append(lineSeparator);
+
+        out.append("Movements:").append(Integer.toString(this.movementScheduler.size()))
+                .append(lineSeparator);
+        for (Movement movement : this.movementScheduler) {
+            movement.encodeTo(out);
+            out.append(lineSeparator);
         }
-        joiner.add(Integer.toString(getQuays().size()));
-        for (Quay quay : getQuays()) {
-            joiner.add(quay.encode());
+
+        encodeEvaluatorsTo(out);
+        if (event.shouldCommit()) {
+            event.time = this.time;
+            event.port = this.name;
+            event.cargo = cargoRegistry.size();
+            event.ships = shipRegistry.size();
+            event.quays = this.quays.size();
+            event.movements = this.movementScheduler.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes a line of cargo IDs, in the format
+     * <pre>Label:numCargo:ID,ID,...</pre>
+     *
+     * @param out appendable to write the line to, without a line separator
+     * @param label label starting the line
+     * @param size number of pieces of cargo
+     * @param cargo cargo whose IDs to write
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    private static void encodeIdsTo(Appendable out, String label, int size,
+                                    Iterable<? extends Cargo> cargo) throws IOException {
+        out.append(label).append(':').append(Integer.toString(size)).append(':');
+        boolean first = true;
+        for (Cargo piece : cargo) {
+            if (!first) {
+                out.append(',');
+            }
+            out.append(Integer.toString(piece.getId()));
+            first = false;
+        }
+    }
+
+    /**
+     * Writes the line of evaluator names, in the format
+     * <pre>Evaluators:numEvaluators:EvaluatorSimpleName,EvaluatorSimpleName,...</pre>
+     *
+     * @param out appendable to write the line to, without a line separator
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    private void encodeEvaluatorsTo(Appendable out) throws IOException {
+        out.append("Evaluators:").append(Integer.toString(statisticsEvaluatorList.size()))
+                .append(':');
+        boolean first = true;
+        for (StatisticsEvaluator evaluator : statisticsEvaluatorList) {
+            if (!first) {
+                out.append(',');
+            }
+            out.append(evaluator.getClass().getSimpleName());
+            first = false;
         }
-        joiner.add(getShipQueue().encode());
+    }
+
+    /**
+     * Writes what has changed in the port since the changes were last cleared, as a delta to
+     * be applied to the port's previous save with {@link #applyDelta(LineReader, long)}.
+     * <p>
+     * The format of the delta is
+     * <pre>
+     * Delta:sequence
+     * Time
+     * numCargo
+     * EncodedCargo
+     * ...
+     * numShips
+     * EncodedShip
+     * ...
+     * numQuays
+     * position:EncodedQuay
+     * ...
+     * ShipQueue:numShipsInQueue:shipID,shipID,...
+     * RemovedCargo:numCargo:ID,ID,...
+     * StoredCargo:numCargo:ID,ID,...
+     * Movements:numMovements
+     * EncodedMovement
+     * ...
+     * Evaluators:numEvaluators:EvaluatorSimpleName,EvaluatorSimpleName,...
+     * </pre>
+     * where the cargo are those created since the last save, the ships those created or
+     * whose cargo has changed, and the quays those added or whose ship has changed, each with
+     * its position among the port's quays. The removed cargo is the stored cargo that has been
+     * taken out of the warehouse, and the stored cargo that which has been put in, in the
+     * order it was stored. The ship queue, movements and evaluators are written in full if
+     * they have changed, otherwise their line is {@code ShipQueue:unchanged},
+     * {@code Movements:unchanged} or {@code Evaluators:unchanged}.
+     *
+     * @param out appendable to write the delta to
+     * @param sequence sequence number of the delta
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    void encodeDeltaTo(Appendable out, long sequence) throws IOException {
+        String lineSeparator = System.lineSeparator();
+        out.append("Delta:").append(Long.toString(sequence)).append(lineSeparator);
+        out.append(Long.toString(getTime())).append(lineSeparator);
 
-        StringJoiner storedCargoJoiner = new StringJoiner(":");
-        storedCargoJoiner.add("StoredCargo");
-        storedCargoJoiner.add(Integer.toString(getCargo().size()));
-        StringJoiner cargoIds = new StringJoiner(",");
-        for (Cargo cargo : getCargo()) {
-            cargoIds.add(Integer.toString(cargo.getId()));
+        Collection<Cargo> createdCargo = this.context.getCreatedCargo();
+        out.append(Integer.toString(createdCargo.size())).append(lineSeparator);
+        for (Cargo cargo : createdCargo) {
+            cargo.encodeTo(out);
+            out.append(lineSeparator);
+        }
+        Collection<Ship> changedShips = this.context.getChangedShips();
+        out.append(Integer.toString(changedShips.size())).append(lineSeparator);
+        for (Ship ship : changedShips) {
+            ship.encodeTo(out);
+            out.append(lineSeparator);
         }
-        storedCargoJoiner.add(cargoIds.toString());
-        joiner.add(storedCargoJoiner.toString());
+        BitSet changedQuays = this.quayIndex.getChanged();
+        out.append(Integer.toString(changedQuays.cardinality())).append(lineSeparator);
+        for (int i = changedQuays.nextSetBit(0); i >= 0; i = changedQuays.nextSetBit(i + 1)) {
+            out.append(Integer.toString(i)).append(':');
+            this.quays.get(i).encodeTo(out);
+            out.append(lineSeparator);
+        }
+        if (this.shipQueue.isChanged()) {
+            this.shipQueue.encodeTo(out);
+        } else {
+            out.append("ShipQueue:unchanged");
+        }
+        out.append(lineSeparator);
 
-        StringJoiner movementJoiner = new StringJoiner(":");
-        movementJoiner.add("Movements");
-        movementJoiner.add(Integer.toString(getMovements().size()));
-        joiner.add(movementJoiner.toString());
-        for (Movement movement : getMovements()) {
-            joiner.add(movement.encode());
+        Collection<Cargo> removed = this.warehouse.getRemovedCargo();
+        encodeIdsTo(out, "RemovedCargo", removed.size(), removed);
+        out.append(lineSeparator);
+        Collection<Cargo> added = this.warehouse.getAddedCargo();
+        encodeIdsTo(out, "StoredCargo", added.size(), added);
+        out.append(lineSeparator);
+
+        if (this.movementsChanged) {
+            out.append("Movements:").append(Integer.toString(this.movementScheduler.size()))
+                    .append(lineSeparator);
+            for (Movement movement : this.movementScheduler) {
+                movement.encodeTo(out);
+                out.append(lineSeparator);
+            }
+        } else {
+            out.append("Movements:unchanged").append(lineSeparator);
         }
-        StringJoiner evaluatorJoiner = new StringJoiner(":");
-        evaluatorJoiner.add("Evaluators");
-        evaluatorJoiner.add(Integer.toString(getEvaluators().size()));
-        StringJoiner evaluatorNames = new StringJoiner(",");
-        for (StatisticsEvaluator evaluator : getEvaluators()) {
-            evaluatorNames.add(evaluator.getClass().getSimpleName());
+        if (this.evaluatorsChanged) {
+            encodeEvaluatorsTo(out);
+        } else {
+            out.append("Evaluators:unchanged");
         }
-        evaluatorJoiner.add(evaluatorNames.toString());
-        joiner.add(evaluatorJoiner.toString());
-        return joiner.toString();
+        out.append(lineSeparator);
     }
 
     /**
@@ -511,130 +1445,602 @@ public class Port implements Tickable, Encodable {
      */
     public static Port initialisePort(Reader reader)
             throws IOException, BadEncodingException {
-        BufferedReader portInfo = new BufferedReader(reader);
+        return initialisePort(reader, null);
+    }
+
+    /**
+     * Creates a port by reading from the given reader, parsing the cargo and ship sections on
+     * the given pool.
+     * <p>
+     * The lines of each section are read in chunks, which are parsed on the pool's threads
+     * into batches of the current simulation (see {@link SimulationContext#newBatch}) and
+     * merged into its registries in the order of the file. All the cargo is merged before
+     * any ship is parsed, so ships find the cargo on board them in the registry. The port
+     * loaded and the exceptions thrown are the same as for {@link #initialisePort(Reader)},
+     * though when the save has several errors, a different one may be reported.
+     *
+     * @param reader reader from which to load all info
+     * @param pool pool to parse the cargo and ships on, or null to parse them on this thread
+     * @return port created by reading from given reader
+     * @throws IOException if an IOException is encountered when reading from the reader
+     * @throws BadEncodingException if the save is invalid according to
+     *              {@link #initialisePort(Reader)}
+     */
+    public static Port initialisePort(Reader reader, ForkJoinPool pool)
+            throws IOException, BadEncodingException {
+        PortLoadedEvent event = new PortLoadedEvent();
+        event.begin();
+        LineReader portInfo = new LineReader(reader);
+        FieldTokenizer fields = new FieldTokenizer(':');
         List<Quay> quays = new ArrayList<>();
         List<Cargo> storedCargos = new ArrayList<>();
         List<Movement> movements = new ArrayList<>();
         List<StatisticsEvaluator> evaluatorList = new ArrayList<>();
         long portTime;
-        final String portName = portInfo.readLine();
+        final String portName = nextLine(portInfo).toString();
+        try {
+            portTime = parseLong(nextLine(portInfo));
+        } catch (NumberFormatException e) {
+            throw new BadEncodingException(e);
+        }
+        try {
+            int numCargo = parseInt(nextLine(portInfo));
+            if (pool != null) {
+                parseSection(portInfo, numCargo, pool, false, Cargo::fromFields);
+            } else {
+                for (int i = 0; i < numCargo; i++) {
+                    Cargo.fromFields(fields.reset(nextLine(portInfo)));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new BadEncodingException(e);
+        }
         try {
-            portTime = Long.parseLong(portInfo.readLine());
+            int numShips = parseInt(nextLine(portInfo));
+            if (pool != null) {
+                parseSection(portInfo, numShips, pool, true, Ship::fromFields);
+            } else {
+                for (int i = 0; i < numShips; i++) {
+                    Ship.fromFields(fields.reset(nextLine(portInfo)));
+                }
+            }
         } catch (NumberFormatException e) {
             throw new BadEncodingException(e);
         }
-        portListInitialise(portInfo, 1);
-        portListInitialise(portInfo, 2);
 
         try {
-            int numQuays = Integer.parseInt(portInfo.readLine());
+            int numQuays = parseInt(nextLine(portInfo));
             for (int i = 0; i < numQuays; i++) {
-                quays.add(Quay.fromString(portInfo.readLine()));
+                quays.add(Quay.fromFields(fields.reset(nextLine(portInfo))));
             }
         } catch (NumberFormatException e) {
             throw new BadEncodingException(e);
         }
-        final ShipQueue portShipQueue = ShipQueue.fromString(portInfo.readLine());
-        String[] storedCargoInfo = portInfo.readLine().split(":");
-        if (!storedCargoInfo[0].equals("StoredCargo")) {
+        final ShipQueue portShipQueue = ShipQueue.fromFields(fields.reset(nextLine(portInfo)));
+        fields.reset(nextLine(portInfo));
+        if (!fields.equals(0, "StoredCargo")) {
             throw new BadEncodingException();
         }
         try {
-            int numCargoStored = Integer.parseInt(storedCargoInfo[1]);
+            int numCargoStored = fields.parseInt(1);
             if (numCargoStored > 0) {
-                String[] idStings = storedCargoInfo[2].split(",");
-                if (idStings.length != numCargoStored) {
+                FieldTokenizer ids = fields.list(2);
+                if (ids.count() != numCargoStored) {
                     throw new BadEncodingException();
                 }
-                for (String idSting : idStings) {
-                    int id = Integer.parseInt(idSting);
+                for (int i = 0; i < ids.count(); i++) {
+                    int id = ids.parseInt(i);
                     storedCargos.add(Cargo.getCargoById(id));
                 }
             }
         } catch (NumberFormatException | NoSuchCargoException e) {
             throw new BadEncodingException(e);
         }
-        String[] movementInfo = portInfo.readLine().split(":");
-        if (!movementInfo[0].equals("Movements")) {
+        fields.reset(nextLine(portInfo));
+        if (!fields.equals(0, "Movements")) {
             throw new BadEncodingException();
         }
         try {
-            int numMovement = Integer.parseInt(movementInfo[1]);
+            int numMovement = fields.parseInt(1);
             for (int i = 0; i < numMovement; i++) {
-                String movementDetail = portInfo.readLine();
-                if (movementDetail.split(":")[0].equals("ShipMovement")) {
-                    movements.add(ShipMovement.fromString(movementDetail));
-                } else if (movementDetail.split(":")[0].equals("CargoMovement")) {
-                    movements.add(CargoMovement.fromString(movementDetail));
-                } else {
-                    throw new BadEncodingException();
-                }
+                movements.add(parseMovement(fields.reset(nextLine(portInfo))));
             }
         } catch (NumberFormatException e) {
             throw new BadEncodingException(e);
         }
-        String[] evaluatorInfo = portInfo.readLine().split(":");
-        if (!evaluatorInfo[0].equals("Evaluators")) {
+        fields.reset(nextLine(portInfo));
+        if (!fields.equals(0, "Evaluators")) {
             throw new BadEncodingException();
         }
         Port port = new Port(portName, portTime, portShipQueue, quays, storedCargos);
         try {
-            int numEval = Integer.parseInt(evaluatorInfo[1]);
+            int numEval = fields.parseInt(1);
             if (numEval > 0) {
-                String[] evalNameList = evaluatorInfo[2].split(",");
-                if (evalNameList.length != numEval) {
+                FieldTokenizer evalNames = fields.list(2);
+                if (evalNames.count() != numEval) {
                     throw new BadEncodingException();
                 }
-                for (String evalName : evalNameList) {
-                    Class<?> clazz = Class.forName("portsim.evaluators." + evalName);
-                    if (evalName.equals("QuayOccupancyEvaluator")) {
-                        Constructor<?> constructor = clazz.getConstructor(Port.class);
-                        evaluatorList.add((StatisticsEvaluator) constructor.newInstance(port));
-                    } else {
-                        evaluatorList.add((StatisticsEvaluator) clazz.newInstance());
-                    }
+                for (int i = 0; i < evalNames.count(); i++) {
+                    evaluatorList.add(createEvaluator(evalNames.get(i), port));
                 }
             }
-        } catch (NumberFormatException | ClassNotFoundException | InstantiationException
-                | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+        } catch (NumberFormatException e) {
             throw new BadEncodingException(e);
         }
         movements.forEach(port::addMovement);
         evaluatorList.forEach(port::addStatisticsEvaluator);
+        if (event.shouldCommit()) {
+            event.time = port.time;
+            event.port = port.name;
+            event.cargo = port.context.getCargoRegistry().size();
+            event.ships = port.context.getShipRegistry().size();
+            event.quays = port.quays.size();
+            event.movements = port.movementScheduler.size();
+            event.commit();
+        }
         return port;
     }
 
     /**
-     * initialise ship and cargo for the port simulations
+     * Creates a port by reading a save from the given stream, which may be plain text or
+     * compressed with gzip, as detected by {@link SaveFiles#newReader(InputStream)}.
+     * The stream is read to the end but not closed.
      *
-     * @param portInfo BufferedReader contains port information
-     * @param select selector to initialise ship or cargo
-     * @throws BadEncodingException if the reader reads a line that does not adhere to the
-     *              rules above indicating that the contents of the reader are invalid
+     * @param in stream from which to load all info
+     * @return port created by reading from the stream
+     * @throws IOException if an IOException is encountered when reading from the stream, or
+     *              the stream is compressed but not valid
+     * @throws BadEncodingException if the save is invalid according to
+     *              {@link #initialisePort(Reader)}
      */
-    private static void portListInitialise(
-            BufferedReader portInfo, Integer select) throws BadEncodingException {
-        if (select == 1) {
-            try {
-                int numCargo = Integer.parseInt(portInfo.readLine());
-                for (int i = 0; i < numCargo; i++) {
-                    Cargo.fromString(portInfo.readLine());
+    public static Port initialisePort(InputStream in) throws IOException, BadEncodingException {
+        return initialisePort(SaveFiles.newReader(in));
+    }
 
+    /**
+     * Parses an encoded object from the fields of a line.
+     */
+    @FunctionalInterface
+    private interface LineParser {
+        /**
+         * Parses the object, adding it to the current simulation.
+         *
+         * @param fields fields of the line
+         * @throws BadEncodingException if the line is not a valid encoding
+         */
+        void parse(FieldTokenizer fields) throws BadEncodingException;
+    }
+
+    /**
+     * Reads the lines of a cargo or ship section and parses them on the given pool, merging
+     * what they create into the current simulation in the order of the lines.
+     *
+     * @param portInfo reader of the encoded port, positioned at the first line of the section
+     * @param lines number of lines in the section
+     * @param pool pool to parse the lines on
+     * @param shareCargo whether the lines are parsed against the simulation's cargo registry
+     *                   rather than creating cargo (see {@link SimulationContext#newBatch})
+     * @param parser parser of a line
+     * @throws IOException if an IOException is encountered when reading from the reader
+     * @throws BadEncodingException if a line is missing or invalid, or creates cargo with the
+     *              ID of existing cargo
+     */
+    private static void parseSection(LineReader portInfo, int lines, ForkJoinPool pool,
+                                     boolean shareCargo, LineParser parser)
+            throws IOException, BadEncodingException {
+        SimulationContext context = SimulationContext.current();
+        int window = pool.getParallelism() * CHUNKS_PER_THREAD;
+        ArrayDeque<ForkJoinTask<SimulationContext>> pending = new ArrayDeque<>(window);
+        StringBuilder chunk = new StringBuilder();
+        try {
+            int read = 0;
+            while (read < lines) {
+                chunk.setLength(0);
+                int end = Math.min(lines, read + CHUNK_LINES);
+                for (; read < end; read++) {
+                    chunk.append(nextLine(portInfo)).append('\n');
+                }
+                String text = chunk.toString();
+                SimulationContext batch = context.newBatch(shareCargo);
+                pending.add(pool.submit(() -> parseChunk(text, batch, parser)));
+                while (pending.size() >= window
+                        || (!pending.isEmpty() && pending.peek().isDone())) {
+                    mergeChunk(context, pending.poll());
                 }
-            } catch (NumberFormatException | IOException e) {
-                throw new BadEncodingException(e);
             }
-        } else if (select == 2) {
-            try {
-                int numShips = Integer.parseInt(portInfo.readLine());
-                for (int i = 0; i < numShips; i++) {
-                    Ship.fromString(portInfo.readLine());
+            while (!pending.isEmpty()) {
+                mergeChunk(context, pending.poll());
+            }
+        } finally {
+            // let the chunks being parsed finish, so none reads the registries after an error
+            for (ForkJoinTask<SimulationContext> task : pending) {
+                task.quietlyJoin();
+            }
+        }
+    }
+
+    /**
+     * Parses a chunk of lines into a batch of the simulation.
+     *
+     * @param text lines of the chunk, each ending in a line feed
+     * @param batch batch to create the objects in
+     * @param parser parser of a line
+     * @return the batch
+     * @throws BadEncodingException if a line is invalid
+     */
+    @SuppressWarnings("try")
+    private static SimulationContext parseChunk(String text, SimulationContext batch,
+                                                LineParser parser)
+            throws BadEncodingException {
+        FieldTokenizer fields = new FieldTokenizer(':');
+        try (SimulationContext.Scope scope = batch.enter()) {
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf('\n', start);
+                parser.parse(fields.reset(text, start, end));
+                start = end + 1;
+            }
+        } catch (NumberFormatException e) {
+            throw new BadEncodingException(e);
+        }
+        return batch;
+    }
+
+    /**
+     * Waits for a chunk to be parsed and merges its batch into the simulation.
+     *
+     * @param context simulation the batch belongs to
+     * @param task task parsing the chunk
+     * @throws IOException if interrupted while waiting
+     * @throws BadEncodingException if a line of the chunk is invalid, or the chunk creates
+     *              cargo with the ID of existing cargo
+     */
+    private static void mergeChunk(SimulationContext context,
+                                   ForkJoinTask<SimulationContext> task)
+            throws IOException, BadEncodingException {
+        SimulationContext batch;
+        try {
+            batch = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted parsing a save");
+        } catch (ExecutionException e) {
+            // fork/join pools wrap the checked exceptions of tasks in runtime exceptions
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof BadEncodingException) {
+                    throw (BadEncodingException) cause;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new BadEncodingException(e.getCause());
+        }
+        try {
+            context.mergeBatch(batch);
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException("A piece of cargo with the specified ID already "
+                    + "exists", e);
+        }
+    }
+
+    /**
+     * Creates a statistics evaluator from the simple name of its class.
+     *
+     * @param evalName simple name of a class in the {@code portsim.evaluators} package
+     * @param port port the evaluator will be added to
+     * @return new evaluator
+     * @throws BadEncodingException if the name does not match any of the possible evaluator
+     *              classes
+     */
+    static StatisticsEvaluator createEvaluator(String evalName, Port port)
+            throws BadEncodingException {
+        try {
+            Class<?> clazz = Class.forName("portsim.evaluators." + evalName);
+            if (!StatisticsEvaluator.class.isAssignableFrom(clazz)) {
+                throw new BadEncodingException(evalName + " is not an evaluator");
+            }
+            if (evalName.equals("QuayOccupancyEvaluator")) {
+                Constructor<?> constructor = clazz.getConstructor(Port.class);
+                return (StatisticsEvaluator) constructor.newInstance(port);
+            } else {
+                return (StatisticsEvaluator) clazz.newInstance();
+            }
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+                | NoSuchMethodException | InvocationTargetException e) {
+            throw new BadEncodingException(e);
+        }
+    }
+
+    /**
+     * Applies a delta written by {@link #encodeDeltaTo(Appendable, long)} to this port,
+     * bringing it to the state it was in when the delta was written.
+     * <p>
+     * The port must be in the state of a save made no later than the one before the delta.
+     * Everything a delta holds is written as its value at the time, not as a change to an
+     * earlier value, so applying a delta to a port that already includes it, followed by
+     * the deltas after it, gives the same state as applying only the later deltas.
+     *
+     * @param deltaInfo reader of the delta
+     * @param sequence sequence number the delta should have
+     * @throws IOException if an IOException is encountered when reading from the reader
+     * @throws BadEncodingException if the delta does not follow the format described in
+     *              {@link #encodeDeltaTo(Appendable, long)}, has another sequence number or
+     *              refers to cargo, ships or quays that do not exist
+     */
+    @SuppressWarnings("try")
+    void applyDelta(LineReader deltaInfo, long sequence)
+            throws IOException, BadEncodingException {
+        FieldTokenizer fields = new FieldTokenizer(':');
+        try (SimulationContext.Scope scope = this.context.enter()) {
+            fields.reset(nextLine(deltaInfo));
+            if (fields.count() != 2 || !fields.equals(0, "Delta")
+                    || fields.parseLong(1) != sequence) {
+                throw new BadEncodingException("The delta is not delta " + sequence);
+            }
+            long deltaTime = parseLong(nextLine(deltaInfo));
+            if (deltaTime < 0) {
+                throw new BadEncodingException("The time is negative: " + deltaTime);
+            }
+            this.time = deltaTime;
+
+            int numCargo = parseInt(nextLine(deltaInfo));
+            for (int i = 0; i < numCargo; i++) {
+                fields.reset(nextLine(deltaInfo));
+                if (fields.count() < 2
+                        || !this.context.getCargoRegistry().containsKey(fields.parseInt(1))) {
+                    Cargo.fromFields(fields);
+                }
+            }
+            int numShips = parseInt(nextLine(deltaInfo));
+            for (int i = 0; i < numShips; i++) {
+                fields.reset(nextLine(deltaInfo));
+                Ship ship = fields.count() < 2 ? null
+                        : this.context.getShipRegistry().get(fields.parseLong(1));
+                if (ship == null) {
+                    Ship.fromFields(fields);
+                } else {
+                    reloadCargo(ship, fields);
+                }
+            }
+            int numQuays = parseInt(nextLine(deltaInfo));
+            for (int i = 0; i < numQuays; i++) {
+                CharSequence line = nextLine(deltaInfo);
+                int colon = 0;
+                while (colon < line.length() && line.charAt(colon) != ':') {
+                    colon++;
+                }
+                int position = Integer.parseInt(line, 0, colon, 10);
+                Quay quay = Quay.fromFields(fields.reset(line, colon + 1, line.length()));
+                if (position == this.quays.size()) {
+                    addQuay(quay);
+                } else if (position >= 0 && position < this.quays.size()) {
+                    updateQuay(this.quays.get(position), quay);
+                } else {
+                    throw new BadEncodingException("There is no quay at position " + position);
+                }
+            }
+
+            fields.reset(nextLine(deltaInfo));
+            if (!isUnchanged(fields, "ShipQueue")) {
+                this.shipQueue = ShipQueue.fromFields(fields);
+            }
+            for (Cargo cargo : parseIds(fields.reset(nextLine(deltaInfo)), "RemovedCargo")) {
+                this.warehouse.remove(cargo.getId());
+            }
+            for (Cargo cargo : parseIds(fields.reset(nextLine(deltaInfo)), "StoredCargo")) {
+                this.warehouse.remove(cargo.getId());
+                this.warehouse.add(cargo);
+            }
+
+            fields.reset(nextLine(deltaInfo));
+            if (!fields.equals(0, "Movements")) {
+                throw new BadEncodingException();
+            }
+            if (!isUnchanged(fields, "Movements")) {
+                int numMovement = fields.parseInt(1);
+                MovementScheduler movements = new TimingWheelMovementScheduler();
+                for (int i = 0; i < numMovement; i++) {
+                    movements.add(parseMovement(fields.reset(nextLine(deltaInfo))));
+                }
+                this.movementScheduler = movements;
+            }
 
+            fields.reset(nextLine(deltaInfo));
+            if (!fields.equals(0, "Evaluators")) {
+                throw new BadEncodingException();
+            }
+            if (!isUnchanged(fields, "Evaluators") && fields.parseInt(1) > 0) {
+                FieldTokenizer evalNames = fields.list(2);
+                if (evalNames.count() != fields.parseInt(1)) {
+                    throw new BadEncodingException();
+                }
+                for (int i = 0; i < evalNames.count(); i++) {
+                    addStatisticsEvaluator(createEvaluator(evalNames.get(i), this));
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new BadEncodingException(e);
+        }
+    }
+
+    /**
+     * Returns whether the given line of a delta says that what it labels has not changed.
+     *
+     * @param fields fields of the line
+     * @param label label starting the line
+     * @return true if the line is {@code label:unchanged} else false
+     */
+    private static boolean isUnchanged(FieldTokenizer fields, String label) {
+        return fields.count() == 2 && fields.equals(0, label) && fields.equals(1, "unchanged");
+    }
+
+    /**
+     * Parses a line of cargo IDs written by
+     * {@link #encodeIdsTo(Appendable, String, int, Iterable)}.
+     *
+     * @param fields fields of the line
+     * @param label label the line should start with
+     * @return cargo with the IDs, in order
+     * @throws BadEncodingException if the line does not start with the label, the number of
+     *              IDs does not match or any ID does not correspond to a valid cargo
+     */
+    private static List<Cargo> parseIds(FieldTokenizer fields, String label)
+            throws BadEncodingException {
+        if (!fields.equals(0, label)) {
+            throw new BadEncodingException();
+        }
+        List<Cargo> cargo = new ArrayList<>();
+        try {
+            int numCargo = fields.parseInt(1);
+            if (numCargo > 0) {
+                FieldTokenizer ids = fields.list(2);
+                if (ids.count() != numCargo) {
+                    throw new BadEncodingException();
+                }
+                for (int i = 0; i < ids.count(); i++) {
+                    cargo.add(Cargo.getCargoById(ids.parseInt(i)));
+                }
+            }
+        } catch (NumberFormatException | NoSuchCargoException e) {
+            throw new BadEncodingException(e);
+        }
+        return cargo;
+    }
+
+    /**
+     * Replaces the cargo on board an existing ship with the cargo in its encoding.
+     *
+     * @param ship ship in the simulation
+     * @param fields fields of the ship's encoding, as read by {@link Ship#fromFields}
+     * @throws BadEncodingException if the encoding is not of a ship of the same type, or any
+     *              of its cargo does not exist or cannot be loaded according to
+     *              {@link Ship#canLoad(Cargo)}
+     */
+    private static void reloadCargo(Ship ship, FieldTokenizer fields)
+            throws BadEncodingException {
+        if (!fields.equals(0, ship.getClass().getSimpleName())) {
+            throw new BadEncodingException("The ship " + ship.getImoNumber()
+                    + " is not a " + fields.get(0));
+        }
+        try {
+            List<Integer> ids = new ArrayList<>();
+            if (ship instanceof ContainerShip && fields.separators() == 7) {
+                ContainerShip containerShip = (ContainerShip) ship;
+                if (containerShip.getNumContainers() > 0) {
+                    containerShip.unloadCargo();
+                }
+                if (fields.parseInt(6) > 0) {
+                    FieldTokenizer cargoIds = fields.list(7);
+                    for (int i = 0; i < cargoIds.count(); i++) {
+                        ids.add(cargoIds.parseInt(i));
+                    }
+                }
+            } else if (ship instanceof BulkCarrier && fields.separators() == 6) {
+                BulkCarrier bulkCarrier = (BulkCarrier) ship;
+                if (bulkCarrier.getCargo() != null) {
+                    bulkCarrier.unloadCargo();
+                }
+                if (fields.end(6) != fields.start(6)) {
+                    ids.add(fields.parseInt(6));
                 }
-            } catch (NumberFormatException | IOException e) {
-                throw new BadEncodingException(e);
+            } else {
+                throw new BadEncodingException(" The number of colons (:)"
+                        + " detected was more/fewer than expected");
+            }
+            for (int id : ids) {
+                Cargo cargo = Cargo.getCargoById(id);
+                if (!ship.canLoad(cargo)) {
+                    throw new BadEncodingException("The encoded cargo can"
+                            + " not be added to the ship according to canLoad(Cargo)");
+                }
+                ship.loadCargo(cargo);
             }
+        } catch (NoSuchCargoException e) {
+            throw new BadEncodingException(e);
+        }
+    }
+
+    /**
+     * Brings a quay of the port to the state of its decoded copy.
+     *
+     * @param quay quay of the port
+     * @param decoded quay decoded from a delta
+     * @throws BadEncodingException if the decoded quay is of another type or has another ID
+     */
+    private static void updateQuay(Quay quay, Quay decoded) throws BadEncodingException {
+        if (quay.getClass() != decoded.getClass() || quay.getId() != decoded.getId()) {
+            throw new BadEncodingException("The quay " + decoded.getId()
+                    + " does not match the port's quay " + quay.getId());
+        }
+        if (decoded.isEmpty()) {
+            if (!quay.isEmpty()) {
+                quay.shipDeparts();
+            }
+        } else if (quay.getShip() != decoded.getShip()) {
+            quay.shipArrives(decoded.getShip());
+        }
+    }
+
+    /**
+     * Parses an encoded movement.
+     *
+     * @param fields fields of the encoded movement
+     * @return movement
+     * @throws BadEncodingException if the movement is neither a ShipMovement nor a
+     *              CargoMovement, or is invalid
+     */
+    private static Movement parseMovement(FieldTokenizer fields) throws BadEncodingException {
+        if (fields.equals(0, "ShipMovement")) {
+            return ShipMovement.fromFields(fields);
+        } else if (fields.equals(0, "CargoMovement")) {
+            return CargoMovement.fromFields(fields);
+        } else {
+            throw new BadEncodingException();
+        }
+    }
+
+    /**
+     * Reads the next line of an encoded port.
+     *
+     * @param portInfo reader of the encoded port
+     * @return the line, valid until the next line is read
+     * @throws IOException if an IOException is encountered when reading from the reader
+     * @throws BadEncodingException if there are no lines left
+     */
+    private static CharSequence nextLine(LineReader portInfo)
+            throws IOException, BadEncodingException {
+        CharSequence line = portInfo.readLine();
+        if (line == null) {
+            throw new BadEncodingException("Line " + (portInfo.getLineNumber() + 1)
+                    + " is missing");
         }
+        return line;
+    }
+
+    /**
+     * Parses a whole line as a decimal int, exactly like {@link Integer#parseInt(String)}.
+     *
+     * @param line line to parse
+     * @return parsed value
+     * @throws NumberFormatException if the line is not a parsable int
+     */
+    private static int parseInt(CharSequence line) throws NumberFormatException {
+        return Integer.parseInt(line, 0, line.length(), 10);
+    }
+
+    /**
+     * Parses a whole line as a decimal long, exactly like {@link Long#parseLong(String)}.
+     *
+     * @param line line to parse
+     * @return parsed value
+     * @throws NumberFormatException if the line is not a parsable long
+     */
+    private static long parseLong(CharSequence line) throws NumberFormatException {
+        return Long.parseLong(line, 0, line.length(), 10);
     }
 
 }
@@ -0,0 +1,408 @@
+package portsim.port;
+
+import portsim.util.BadEncodingException;
+import portsim.util.LineReader;
+import portsim.util.SaveFiles;
+import portsim.util.SimulationContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Saves a port as a base file holding the whole port, followed by small delta files holding
+ * only what has changed since the save before.
+ * <p>
+ * Started with {@link Port#startDeltaSaves(Path)}, which writes the base. Each call to
+ * {@link #save()} then writes the next delta next to the base, named after it with
+ * {@code .delta.} and the delta's sequence number appended. The format of a delta is described
+ * in {@link Port#encodeDeltaTo(Appendable, long)}. Every file is written to a temporary file
+ * first and moved into place, so a save that is interrupted leaves the files as they were.
+ * <p>
+ * Once {@link #COMPACTION_THRESHOLD} deltas have been written, they are compacted into a new
+ * base on a background thread: the base and deltas are loaded into a simulation of their own,
+ * written as the new base, and the deltas deleted. Because applying a delta again does not
+ * change the port it produces (see {@link Port#applyDelta(LineReader, long)}), deltas left
+ * behind by a compaction that was interrupted do no harm.
+ */
+public final class PortDeltas implements Closeable {
+    /**
+     * number of deltas written after which they are compacted into a new base
+     */
+    public static final int COMPACTION_THRESHOLD = 16;
+    /**
+     * text between the name of the base file and the sequence number of a delta
+     */
+    private static final String DELTA_INFIX = ".delta.";
+    /**
+     * suffix of a file being written, before it is moved into place
+     */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * port being saved
+     */
+    private final Port port;
+    /**
+     * path of the base file
+     */
+    private final Path base;
+    /**
+     * sequence number of the last delta written
+     */
+    private long sequence;
+    /**
+     * sequence number of the last delta compacted into the base
+     */
+    private long compacted;
+    /**
+     * compaction running in the background, returning the sequence number of the last delta
+     * it compacted, or null if none is running
+     */
+    private FutureTask<Long> compaction;
+
+    /**
+     * Creates a saver for the given port, continuing from the given delta.
+     *
+     * @param port port being saved
+     * @param base path of the base file
+     * @param sequence sequence number of the last delta written
+     * @param compacted sequence number of the last delta compacted into the base
+     */
+    private PortDeltas(Port port, Path base, long sequence, long compacted) {
+        this.port = port;
+        this.base = base;
+        this.sequence = sequence;
+        this.compacted = compacted;
+    }
+
+    /**
+     * Writes the whole port to the given base file, deleting any deltas left from an earlier
+     * base, and starts recording what changes in the port.
+     *
+     * @param port port to save
+     * @param base path of the base file
+     * @return saver writing the deltas
+     * @throws IOException if an IOException occurs when writing the base
+     */
+    static PortDeltas start(Port port, Path base) throws IOException {
+        writeBase(port, base);
+        port.trackChanges();
+        return new PortDeltas(port, base, 0, 0);
+    }
+
+    /**
+     * Writes the whole port to the given base file, deleting any deltas left from an earlier
+     * base, without recording what changes in the port.
+     *
+     * @param port port to save
+     * @param base path of the base file
+     * @throws IOException if an IOException occurs when writing the base
+     */
+    static void writeBase(Port port, Path base) throws IOException {
+        Path temporary = temporary(base);
+        try (Writer writer = newBaseWriter(base, temporary)) {
+            port.encodeTo(writer);
+        }
+        // stale deltas go first: if interrupted, the old base is left without its deltas,
+        // which is an earlier save rather than a mix of two
+        for (long delta : deltas(base)) {
+            Files.delete(delta(base, delta));
+        }
+        Files.move(temporary, base, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a port from the given base file and the deltas next to it, in the current
+     * simulation context. The port produced is the same as that saved by the last delta, or
+     * by the base if there are none, and a saver is attached to it
+     * (see {@link Port#getDeltaSaves()}) that continues writing deltas after the last.
+     * <p>
+     * A base with no deltas is a file written by {@link Port#encodeTo(Writer)}, so any saved
+     * port may be loaded this way.
+     *
+     * @param base path of the base file
+     * @return port loaded from the files
+     * @throws IOException if an IOException occurs when reading the files
+     * @throws BadEncodingException if the base is invalid according to
+     *              {@link Port#initialisePort(Reader)}, or a delta is invalid
+     */
+    public static Port load(Path base) throws IOException, BadEncodingException {
+        List<Long> deltas = deltas(base);
+        Port port = read(base, deltas);
+        long last = deltas.isEmpty() ? 0 : deltas.get(deltas.size() - 1);
+        port.trackChanges();
+        port.setDeltaSaves(new PortDeltas(port, base, last, last - deltas.size()));
+        return port;
+    }
+
+    /**
+     * Writes what has changed in the port since the last save as the next delta, and starts
+     * compacting the deltas into a new base in the background if there are enough of them.
+     *
+     * @return path of the delta written
+     * @throws IOException if an IOException occurs when writing the delta, or occurred when
+     *              compacting earlier deltas
+     */
+    public Path save() throws IOException {
+        finishCompaction(false);
+        long next = sequence + 1;
+        Path delta = delta(base, next);
+        Path temporary = temporary(delta);
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            port.encodeDeltaTo(writer, next);
+        }
+        Files.move(temporary, delta, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        sequence = next;
+        port.clearChanges();
+        if (compaction == null && sequence - compacted >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+        return delta;
+    }
+
+    /**
+     * Starts compacting every delta written so far into a new base in the background, unless
+     * a compaction is already running or there are no deltas.
+     */
+    public void compact() {
+        if (compaction != null || sequence == compacted) {
+            return;
+        }
+        final long through = sequence;
+        compaction = new FutureTask<>(() -> {
+            compact(base, through);
+            return through;
+        });
+        Thread thread = new Thread(compaction, "delta-compaction " + base.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for the compaction running in the background, if any, to finish.
+     *
+     * @throws IOException if an IOException occurred when compacting the deltas
+     */
+    public void awaitCompaction() throws IOException {
+        finishCompaction(true);
+    }
+
+    /**
+     * Returns the path of the base file.
+     *
+     * @return base file
+     */
+    public Path getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the sequence number of the last delta written, which is the number of deltas
+     * written since the base was started.
+     *
+     * @return sequence number, or 0 if no delta has been written
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Waits for any compaction to finish and stops recording what changes in the port.
+     * The changes since the last save are not written.
+     *
+     * @throws IOException if an IOException occurred when compacting the deltas
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finishCompaction(true);
+        } finally {
+            port.stopTrackingChanges();
+        }
+    }
+
+    /**
+     * Collects the result of the compaction running in the background, if it has finished.
+     * If the compaction failed, its deltas will be compacted again by a later one.
+     *
+     * @param wait whether to wait for the compaction to finish
+     * @throws IOException if an IOException occurred when compacting the deltas
+     */
+    private void finishCompaction(boolean wait) throws IOException {
+        Future<Long> finished = compaction;
+        if (finished == null || !(wait || finished.isDone())) {
+            return;
+        }
+        try {
+            compacted = finished.get();
+            compaction = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for compaction");
+        } catch (ExecutionException e) {
+            compaction = null;
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Compaction of " + base + " failed", cause);
+        }
+    }
+
+    /**
+     * Compacts the base and the deltas up to the given one into a new base, loading them into
+     * a simulation of their own, and deletes those deltas.
+     *
+     * @param base path of the base file
+     * @param through sequence number of the last delta to compact
+     * @throws IOException if an IOException occurs when reading or writing the files
+     * @throws BadEncodingException if the base or a delta is invalid
+     */
+    @SuppressWarnings("try")
+    private static void compact(Path base, long through)
+            throws IOException, BadEncodingException {
+        List<Long> deltas = new ArrayList<>();
+        for (long delta : deltas(base)) {
+            if (delta <= through) {
+                deltas.add(delta);
+            }
+        }
+        Path temporary = temporary(base);
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            Port port = read(base, deltas);
+            try (Writer writer = newBaseWriter(base, temporary)) {
+                port.encodeTo(writer);
+            }
+        }
+        Files.move(temporary, base, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (long delta : deltas) {
+            Files.delete(delta(base, delta));
+        }
+    }
+
+    /**
+     * Loads a port from the given base file and applies the given deltas to it, in order.
+     *
+     * @param base path of the base file
+     * @param deltas sequence numbers of the deltas, in increasing order
+     * @return port loaded from the files
+     * @throws IOException if an IOException occurs when reading the files
+     * @throws BadEncodingException if the base or a delta is invalid
+     */
+    private static Port read(Path base, List<Long> deltas)
+            throws IOException, BadEncodingException {
+        Port port;
+        try (Reader reader = SaveFiles.newReader(base)) {
+            port = Port.initialisePort(reader);
+        }
+        for (long delta : deltas) {
+            try (Reader reader = Files.newBufferedReader(delta(base, delta),
+                    StandardCharsets.UTF_8)) {
+                port.applyDelta(new LineReader(reader), delta);
+            }
+        }
+        return port;
+    }
+
+    /**
+     * Opens the temporary file a base is written to, compressed if the base's name says it
+     * should be (see {@link SaveFiles#isCompressed(Path)}).
+     *
+     * @param base path of the base file
+     * @param temporary path of the temporary file
+     * @return writer of the temporary file
+     * @throws IOException if the file cannot be created
+     */
+    private static Writer newBaseWriter(Path base, Path temporary) throws IOException {
+        return SaveFiles.newWriter(Files.newOutputStream(temporary), SaveFiles.isCompressed(base));
+    }
+
+    /**
+     * Returns the sequence numbers of the deltas next to the given base, in increasing order.
+     * Temporary files and files whose names do not end in a sequence number are ignored.
+     *
+     * @param base path of the base file
+     * @return sequence numbers of the deltas
+     * @throws IOException if an IOException occurs when listing the directory
+     */
+    private static List<Long> deltas(Path base) throws IOException {
+        Path directory = base.toAbsolutePath().getParent();
+        String prefix = base.getFileName() + DELTA_INFIX;
+        List<Long> deltas = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                glob(prefix) + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                try {
+                    long delta = Long.parseLong(suffix);
+                    if (delta > 0) {
+                        deltas.add(delta);
+                    }
+                } catch (NumberFormatException e) {
+                    // a temporary file or some other file named like a delta
+                }
+            }
+        }
+        Collections.sort(deltas);
+        return deltas;
+    }
+
+    /**
+     * Returns the path of the delta with the given sequence number.
+     *
+     * @param base path of the base file
+     * @param sequence sequence number of the delta
+     * @return path of the delta
+     */
+    private static Path delta(Path base, long sequence) {
+        return base.resolveSibling(base.getFileName() + DELTA_INFIX + sequence);
+    }
+
+    /**
+     * Returns the path a file is written to before it is moved into place.
+     *
+     * @param file path of the file
+     * @return path of the temporary file
+     */
+    private static Path temporary(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+    }
+
+    /**
+     * Escapes the characters of a file name that have a meaning in a glob pattern.
+     *
+     * @param name file name
+     * @return glob matching only the name
+     */
+    private static String glob(String name) {
+        StringBuilder glob = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ("*?[]{}\\".indexOf(c) >= 0) {
+                glob.append('\\');
+            }
+            glob.append(c);
+        }
+        return glob.toString();
+    }
+}
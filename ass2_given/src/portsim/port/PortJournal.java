@@ -0,0 +1,1098 @@
+package portsim.port;
+
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.StatisticsEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+import portsim.util.NoSuchCargoException;
+import portsim.util.NoSuchShipException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of the changes made to a port since a snapshot of it was written,
+ * from which the port can be rebuilt after the program running it has died.
+ * <p>
+ * While a port records a journal (see {@link Port#startJournal(Path, Path, long)}), each
+ * change is appended to it as a record: a movement being added or processed, a ship docking,
+ * the cargo of a docked ship being unloaded, a quay or evaluator being added, the port's time
+ * advancing and minutes being passed to the evaluators. Records are collected in memory and
+ * written together as a group at the end of a minute, once the group is large or the sync
+ * interval has passed, and the file is forced to the storage device at most once per sync
+ * interval. A run therefore costs one write per group and one sync per interval rather than
+ * one per change, and a crash loses at most the changes of the last sync interval.
+ * <p>
+ * The journal starts with the int {@value #MAGIC}, the int format version, and the long
+ * length and int CRC-32C checksum of the snapshot it follows. Each group is the int length
+ * and CRC-32C checksum of its records, followed by the records:
+ * <pre>
+ * ADVANCE            minutes
+ * MINUTES            minutes
+ * MOVEMENT_ADDED     kind time directionOrdinal (shipRef | numCargo cargoRef...)
+ * MOVEMENT_PROCESSED kind time directionOrdinal (shipRef | numCargo cargoRef...)
+ * SHIP_DOCKED        imoNumber quayPosition
+ * CARGO_UNLOADED     quayPosition
+ * QUAY_ADDED         kind id capacity (0 | 1 shipRef)
+ * EVALUATOR_ADDED    classNameString
+ * </pre>
+ * Each record starts with a byte holding its type, and kinds and enum ordinals are single
+ * bytes. All other numbers are unsigned variable-length integers of seven bits per byte,
+ * so most take one or two bytes. A string is its index among the strings of the journal in
+ * the order they first appeared; the first time, the index is followed by the length and
+ * UTF-8 bytes of the string. A reference to a ship or piece of cargo is its IMO number or
+ * ID times two, plus one if it was not in the snapshot and has not appeared in the journal
+ * before, in which case it is followed by what is needed to create it:
+ * <pre>
+ * ship   kind nameString originString flagOrdinal capacity numCargo cargoRef...
+ * cargo  kind destinationString typeOrdinal [tonnage]
+ * </pre>
+ * A quay position is the position of the quay in {@link Port#getQuays()}.
+ * <p>
+ * Recovery reads the snapshot, then applies the records of each complete group in turn,
+ * docking, unloading and processing movements directly rather than simulating every minute.
+ * It stops at the first group that is cut short or whose checksum does not match, which is
+ * where the program died. A journal that does not follow the snapshot, left behind by a
+ * crash while a checkpoint was being written, is ignored.
+ */
+public final class PortJournal implements Closeable {
+    /**
+     * first int of every journal, "PJNL" in ASCII
+     */
+    public static final int MAGIC = 0x504A4E4C;
+    /**
+     * version of the journal format written
+     */
+    private static final int VERSION = 1;
+    /**
+     * number of bytes in the journal header
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    /**
+     * number of bytes in the header of a group
+     */
+    private static final int GROUP_HEADER_SIZE = 2 * Integer.BYTES;
+    /**
+     * number of bytes of records after which a group is written at the end of a minute
+     */
+    private static final int GROUP_SIZE = 1 << 16;
+    /**
+     * number of bytes of the snapshot mapped at a time when computing its checksum
+     */
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * type of the record of the port's time advancing
+     */
+    private static final int ADVANCE = 1;
+    /**
+     * type of the record of minutes being passed to the evaluators
+     */
+    private static final int MINUTES = 2;
+    /**
+     * type of the record of a movement being added
+     */
+    private static final int MOVEMENT_ADDED = 3;
+    /**
+     * type of the record of a movement being processed
+     */
+    private static final int MOVEMENT_PROCESSED = 4;
+    /**
+     * type of the record of a ship docking
+     */
+    private static final int SHIP_DOCKED = 5;
+    /**
+     * type of the record of the cargo of a docked ship being unloaded
+     */
+    private static final int CARGO_UNLOADED = 6;
+    /**
+     * type of the record of a quay being added
+     */
+    private static final int QUAY_ADDED = 7;
+    /**
+     * type of the record of an evaluator being added
+     */
+    private static final int EVALUATOR_ADDED = 8;
+
+    /**
+     * kind of containers, container ships and container quays
+     */
+    private static final int KIND_CONTAINER = 0;
+    /**
+     * kind of bulk cargo, bulk carriers and bulk quays
+     */
+    private static final int KIND_BULK = 1;
+    /**
+     * kind of ship movements
+     */
+    private static final int KIND_SHIP_MOVEMENT = 0;
+    /**
+     * kind of cargo movements
+     */
+    private static final int KIND_CARGO_MOVEMENT = 1;
+
+    /**
+     * port whose changes are recorded
+     */
+    private final Port port;
+    /**
+     * journal file
+     */
+    private final FileChannel channel;
+    /**
+     * longest time in nanoseconds between syncs
+     */
+    private final long syncInterval;
+    /**
+     * checksum of the records of a group
+     */
+    private final CRC32C checksum;
+    /**
+     * index of each string that has appeared in the journal
+     */
+    private final Map<String, Integer> strings;
+    /**
+     * IDs of the cargo in the snapshot or created by the journal
+     */
+    private final BitSet knownCargo;
+    /**
+     * IMO numbers of the ships in the snapshot or created by the journal
+     */
+    private final Set<Long> knownShips;
+
+    /**
+     * the group being collected, starting with room for its header
+     */
+    private ByteBuffer buffer;
+    /**
+     * port time of the last record
+     */
+    private long time;
+    /**
+     * {@link System#nanoTime()} of the last sync
+     */
+    private long lastSync;
+    /**
+     * number of records written
+     */
+    private long records;
+    /**
+     * number of bytes written to the file
+     */
+    private long bytesWritten;
+
+    /**
+     * Creates a journal of the given port, written to the given file.
+     *
+     * @param port port whose changes are recorded
+     * @param channel journal file, positioned after the header
+     * @param syncInterval longest time in milliseconds between syncs
+     */
+    private PortJournal(Port port, FileChannel channel, long syncInterval) {
+        this.port = port;
+        this.channel = channel;
+        this.syncInterval = syncInterval * 1_000_000;
+        this.checksum = new CRC32C();
+        this.strings = new HashMap<>();
+        this.knownCargo = new BitSet();
+        for (Integer id : port.getContext().getCargoRegistry().keySet()) {
+            this.knownCargo.set(id);
+        }
+        this.knownShips = new HashSet<>(port.getContext().getShipRegistry().keySet());
+        this.buffer = ByteBuffer.allocate(2 * GROUP_SIZE);
+        this.buffer.position(GROUP_HEADER_SIZE);
+        this.time = port.getTime();
+        this.lastSync = System.nanoTime();
+        this.bytesWritten = HEADER_SIZE;
+    }
+
+    /**
+     * Writes a snapshot of the given port and starts a new journal following it.
+     * <p>
+     * The snapshot is written to a temporary file and forced to the storage device before it
+     * replaces the old one, and the journal is replaced after that. A crash part way through
+     * leaves either the old snapshot and journal, or the new snapshot and a journal that does
+     * not follow it and so is ignored by recovery.
+     *
+     * @param port port to record
+     * @param snapshot path of the snapshot file
+     * @param journal path of the journal file
+     * @param syncInterval longest time in milliseconds between syncs
+     * @return new journal
+     * @throws IOException if an IOException occurs when writing either file
+     */
+    static PortJournal create(Port port, Path snapshot, Path journal, long syncInterval)
+            throws IOException {
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        PortSnapshot.write(port, temporary);
+        long length;
+        int snapshotChecksum;
+        try (FileChannel written = FileChannel.open(temporary, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            written.force(true);
+            length = written.size();
+            snapshotChecksum = checksum(written);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(length).putInt(snapshotChecksum);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new PortJournal(port, channel, syncInterval);
+    }
+
+    /**
+     * Rebuilds a port from a snapshot and the journal following it, adding its cargo and
+     * ships to the cargo and ship registries of the current context.
+     * <p>
+     * If the journal does not exist, was cut short before its header was complete or does not
+     * follow the snapshot, the port is read from the snapshot alone.
+     *
+     * @param snapshot path of the snapshot file
+     * @param journal path of the journal file
+     * @return port as it was when the last complete group of the journal was written
+     * @throws IOException if an IOException occurs when reading either file
+     * @throws BadEncodingException if either file is invalid, or the journal's records cannot
+     * be applied to the port
+     */
+    public static Port recover(Path snapshot, Path journal)
+            throws IOException, BadEncodingException {
+        Port port = PortSnapshot.read(snapshot);
+        if (!Files.exists(journal)) {
+            return port;
+        }
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!readFully(channel, header)) {
+                return port;
+            }
+            if (header.getInt() != MAGIC) {
+                throw new BadEncodingException("Not a port journal");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new BadEncodingException("Unsupported journal version " + version);
+            }
+            long length = header.getLong();
+            int snapshotChecksum = header.getInt();
+            try (FileChannel read = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                if (read.size() != length || checksum(read) != snapshotChecksum) {
+                    return port;
+                }
+            }
+            new Replay(port).run(channel);
+        }
+        return port;
+    }
+
+    /**
+     * Returns the number of records written to the journal, including those not yet written
+     * to the file.
+     *
+     * @return number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the number of bytes written to the journal file.
+     *
+     * @return size of the journal file
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes the records collected so far to the journal and forces them to the storage
+     * device.
+     *
+     * @throws IOException if an IOException occurs when writing the journal
+     */
+    public void sync() throws IOException {
+        writeGroup();
+        channel.force(false);
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Writes the records collected so far to the journal, forces them to the storage device
+     * and closes the journal file.
+     *
+     * @throws IOException if an IOException occurs when writing the journal
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Records a movement being added to the port.
+     *
+     * @param movement movement added
+     */
+    void movementAdded(Movement movement) {
+        beginRecord(MOVEMENT_ADDED);
+        putMovement(movement);
+    }
+
+    /**
+     * Records a movement being processed by the port. Movements older than the port's time,
+     * which the port ignores, are not recorded.
+     *
+     * @param movement movement processed
+     */
+    void movementProcessed(Movement movement) {
+        beginRecord(MOVEMENT_PROCESSED);
+        putMovement(movement);
+    }
+
+    /**
+     * Records the next ship in the queue docking at a quay.
+     *
+     * @param ship ship that docked
+     * @param position position of the quay in the port's quays
+     */
+    void shipDocked(Ship ship, int position) {
+        beginRecord(SHIP_DOCKED);
+        putNumber(ship.getImoNumber());
+        putNumber(position);
+    }
+
+    /**
+     * Records the cargo of the ship docked at a quay being unloaded.
+     *
+     * @param position position of the quay in the port's quays
+     */
+    void cargoUnloaded(int position) {
+        beginRecord(CARGO_UNLOADED);
+        putNumber(position);
+    }
+
+    /**
+     * Records a quay being added to the port.
+     *
+     * @param quay quay added
+     */
+    void quayAdded(Quay quay) {
+        beginRecord(QUAY_ADDED);
+        if (quay instanceof BulkQuay) {
+            putByte(KIND_BULK);
+            putNumber(quay.getId());
+            putNumber(((BulkQuay) quay).getMaxTonnage());
+        } else {
+            putByte(KIND_CONTAINER);
+            putNumber(quay.getId());
+            putNumber(((ContainerQuay) quay).getMaxContainers());
+        }
+        if (quay.isEmpty()) {
+            putByte(0);
+        } else {
+            putByte(1);
+            putShip(quay.getShip());
+        }
+    }
+
+    /**
+     * Records an evaluator being added to the port.
+     *
+     * @param eval evaluator added
+     */
+    void evaluatorAdded(StatisticsEvaluator eval) {
+        beginRecord(EVALUATOR_ADDED);
+        putString(eval.getClass().getSimpleName());
+    }
+
+    /**
+     * Records minutes being passed to the port's evaluators, which ends a minute or the
+     * minutes skipped over by {@link Port#advanceTo(long)}. The records collected so far are
+     * written to the file if there are enough of them or the sync interval has passed, and
+     * forced to the storage device in the latter case.
+     *
+     * @param minutes number of minutes passed
+     * @throws UncheckedIOException if an IOException occurs when writing the journal
+     */
+    void minutesPassed(long minutes) {
+        beginRecord(MINUTES);
+        putNumber(minutes);
+        try {
+            if (System.nanoTime() - lastSync >= syncInterval) {
+                sync();
+            } else if (buffer.position() - GROUP_HEADER_SIZE >= GROUP_SIZE) {
+                writeGroup();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a record, preceded by a record of the port's time advancing if it has changed
+     * since the last record.
+     *
+     * @param type type of the record
+     */
+    private void beginRecord(int type) {
+        long now = port.getTime();
+        if (now != time) {
+            putByte(ADVANCE);
+            putNumber(now - time);
+            time = now;
+            records++;
+        }
+        putByte(type);
+        records++;
+    }
+
+    /**
+     * Writes the records collected so far to the file as a group, if there are any.
+     *
+     * @throws IOException if an IOException occurs when writing the journal
+     */
+    private void writeGroup() throws IOException {
+        int length = buffer.position() - GROUP_HEADER_SIZE;
+        if (length == 0) {
+            return;
+        }
+        checksum.reset();
+        checksum.update(buffer.array(), GROUP_HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) checksum.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+        buffer.position(GROUP_HEADER_SIZE);
+    }
+
+    /**
+     * Writes a movement.
+     *
+     * @param movement movement to write
+     */
+    private void putMovement(Movement movement) {
+        boolean shipMovement = movement instanceof ShipMovement;
+        putByte(shipMovement ? KIND_SHIP_MOVEMENT : KIND_CARGO_MOVEMENT);
+        putNumber(movement.getTime());
+        putByte(movement.getDirection().ordinal());
+        if (shipMovement) {
+            putShip(((ShipMovement) movement).getShip());
+        } else {
+            CargoMovement cargoMovement = (CargoMovement) movement;
+            int numCargo = cargoMovement.getNumCargo();
+            putNumber(numCargo);
+            for (int i = 0; i < numCargo; i++) {
+                putCargo(cargoMovement.getCargo(i));
+            }
+        }
+    }
+
+    /**
+     * Writes a reference to a ship, followed by the ship if it has not been written before.
+     *
+     * @param ship ship to write
+     */
+    private void putShip(Ship ship) {
+        long imoNumber = ship.getImoNumber();
+        if (knownShips.contains(imoNumber)) {
+            putNumber(imoNumber * 2);
+            return;
+        }
+        knownShips.add(imoNumber);
+        putNumber(imoNumber * 2 + 1);
+        putByte(ship instanceof BulkCarrier ? KIND_BULK : KIND_CONTAINER);
+        putString(ship.getName());
+        putString(ship.getOriginFlag());
+        putByte(ship.getFlag().ordinal());
+        if (ship instanceof BulkCarrier) {
+            BulkCarrier bulkCarrier = (BulkCarrier) ship;
+            putNumber(bulkCarrier.getTonnageCapacity());
+            BulkCargo cargo = bulkCarrier.getCargo();
+            if (cargo == null) {
+                putNumber(0);
+            } else {
+                putNumber(1);
+                putCargo(cargo);
+            }
+        } else {
+            ContainerShip containerShip = (ContainerShip) ship;
+            putNumber(containerShip.getContainerCapacity());
+            int numContainers = containerShip.getNumContainers();
+            putNumber(numContainers);
+            for (int i = 0; i < numContainers; i++) {
+                putCargo(containerShip.getContainer(i));
+            }
+        }
+    }
+
+    /**
+     * Writes a reference to a piece of cargo, followed by the cargo if it has not been
+     * written before.
+     *
+     * @param cargo cargo to write
+     */
+    private void putCargo(Cargo cargo) {
+        int id = cargo.getId();
+        if (knownCargo.get(id)) {
+            putNumber(id * 2L);
+            return;
+        }
+        knownCargo.set(id);
+        putNumber(id * 2L + 1);
+        if (cargo instanceof BulkCargo) {
+            BulkCargo bulkCargo = (BulkCargo) cargo;
+            putByte(KIND_BULK);
+            putString(cargo.getDestination());
+            putByte(bulkCargo.getType().ordinal());
+            putNumber(bulkCargo.getTonnage());
+        } else {
+            putByte(KIND_CONTAINER);
+            putString(cargo.getDestination());
+            putByte(((Container) cargo).getType().ordinal());
+        }
+    }
+
+    /**
+     * Writes a string, in full only the first time it appears in the journal.
+     *
+     * @param string string to write
+     */
+    private void putString(String string) {
+        Integer index = strings.get(string);
+        if (index != null) {
+            putNumber(index);
+            return;
+        }
+        putNumber(strings.size());
+        strings.put(string, strings.size());
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        putNumber(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value byte to write
+     */
+    private void putByte(int value) {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a non-negative number in as many bytes as it needs, seven bits at a time.
+     *
+     * @param value number to write
+     */
+    private void putNumber(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Makes sure the group being collected has room for the given number of bytes.
+     *
+     * @param bytes number of bytes about to be written
+     */
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(
+                    Math.max(2 * buffer.capacity(), buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    /**
+     * Computes the CRC-32C checksum of the whole of the given file.
+     *
+     * @param channel file to read
+     * @return checksum of the file's contents
+     * @throws IOException if an IOException occurs when reading the file
+     */
+    private static int checksum(FileChannel channel) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = channel.size();
+        for (long position = 0; position < size; position += WINDOW_SIZE) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(WINDOW_SIZE, size - position));
+            crc.update(window);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads from the file until the given buffer is full, then flips it.
+     *
+     * @param channel file to read
+     * @param buffer buffer to fill
+     * @return true if the buffer was filled, false if the end of the file came first
+     * @throws IOException if an IOException occurs when reading the file
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Applies the records of a journal to the port read from its snapshot.
+     */
+    private static final class Replay {
+        /**
+         * port being rebuilt
+         */
+        private final Port port;
+        /**
+         * strings that have appeared in the journal, in order
+         */
+        private final List<String> strings;
+        /**
+         * movements taken from the scheduler at the current time and not yet processed
+         */
+        private final List<Movement> due;
+        /**
+         * time the due movements were taken from the scheduler, or -1 if none have been
+         */
+        private long dueTime;
+
+        /**
+         * Creates a replay onto the given port.
+         *
+         * @param port port read from the snapshot
+         */
+        private Replay(Port port) {
+            this.port = port;
+            this.strings = new ArrayList<>();
+            this.due = new ArrayList<>();
+            this.dueTime = -1;
+        }
+
+        /**
+         * Applies every complete group of the journal, stopping at the first group that is cut
+         * short or damaged.
+         *
+         * @param channel journal file, positioned after the header
+         * @throws IOException if an IOException occurs when reading the file
+         * @throws BadEncodingException if the records cannot be applied to the port
+         */
+        private void run(FileChannel channel) throws IOException, BadEncodingException {
+            CRC32C crc = new CRC32C();
+            ByteBuffer header = ByteBuffer.allocate(GROUP_HEADER_SIZE);
+            ByteBuffer group = ByteBuffer.allocate(2 * GROUP_SIZE);
+            while (true) {
+                header.clear();
+                if (!readFully(channel, header)) {
+                    break;
+                }
+                int length = header.getInt();
+                int expected = header.getInt();
+                if (length <= 0 || length > channel.size() - channel.position()) {
+                    break;
+                }
+                if (group.capacity() < length) {
+                    group = ByteBuffer.allocate(length);
+                }
+                group.clear().limit(length);
+                if (!readFully(channel, group)) {
+                    break;
+                }
+                crc.reset();
+                crc.update(group.array(), 0, length);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                try {
+                    while (group.hasRemaining()) {
+                        apply(group);
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    throw new BadEncodingException(e);
+                }
+            }
+            returnDueMovements();
+        }
+
+        /**
+         * Applies the next record of a group.
+         *
+         * @param in records of the group
+         * @throws BadEncodingException if the record cannot be applied to the port
+         */
+        private void apply(ByteBuffer in) throws BadEncodingException {
+            int type = in.get();
+            switch (type) {
+                case ADVANCE:
+                    returnDueMovements();
+                    port.setTime(port.getTime() + getNumber(in));
+                    dropStaleMovements();
+                    break;
+                case MINUTES:
+                    port.elapseEvaluators(getNumber(in));
+                    break;
+                case MOVEMENT_ADDED:
+                    port.addMovement(getMovement(in));
+                    break;
+                case MOVEMENT_PROCESSED:
+                    port.processMovement(takeDue(getMovement(in)));
+                    break;
+                case SHIP_DOCKED:
+                    long imoNumber = getNumber(in);
+                    Quay quay = getQuay(in);
+                    Ship next = port.getShipQueue().peek();
+                    if (next == null || next.getImoNumber() != imoNumber || !quay.isEmpty()) {
+                        throw new BadEncodingException("Ship " + imoNumber
+                                + " cannot dock at " + quay);
+                    }
+                    port.dock(quay);
+                    break;
+                case CARGO_UNLOADED:
+                    Quay unloaded = getQuay(in);
+                    if (port.unload(unloaded) == 0) {
+                        throw new BadEncodingException("No cargo to unload at " + unloaded);
+                    }
+                    break;
+                case QUAY_ADDED:
+                    port.addQuay(getNewQuay(in));
+                    break;
+                case EVALUATOR_ADDED:
+                    port.addStatisticsEvaluator(Port.createEvaluator(getString(in), port));
+                    break;
+                default:
+                    throw new BadEncodingException("Unknown journal record " + type);
+            }
+        }
+
+        /**
+         * Returns the movement due in the scheduler that the given movement read from the
+         * journal stands for, removing it from the scheduler, or the given movement if no such
+         * movement is due.
+         *
+         * @param read movement read from the journal
+         * @return movement to process
+         */
+        private Movement takeDue(Movement read) {
+            long now = port.getTime();
+            if (dueTime != now) {
+                returnDueMovements();
+                Movement movement;
+                while ((movement = port.getMovements().pollDue(now)) != null) {
+                    due.add(movement);
+                }
+                dueTime = now;
+            }
+            for (Iterator<Movement> it = due.iterator(); it.hasNext(); ) {
+                Movement movement = it.next();
+                if (sameMovement(movement, read)) {
+                    it.remove();
+                    return movement;
+                }
+            }
+            return read;
+        }
+
+        /**
+         * Removes the movements older than the port's time from the scheduler. The port
+         * ignores them, without a record, in the minute the journal has just advanced to.
+         */
+        private void dropStaleMovements() {
+            long stale = port.getTime() - 1;
+            while (port.getMovements().pollDue(stale) != null) {
+                // dropped, as the port did
+            }
+        }
+
+        /**
+         * Puts back into the scheduler the movements taken from it that were not processed.
+         */
+        private void returnDueMovements() {
+            for (Movement movement : due) {
+                port.getMovements().add(movement);
+            }
+            due.clear();
+        }
+
+        /**
+         * Returns whether two movements have the same kind, time, direction and ship or
+         * cargo.
+         *
+         * @param a a movement
+         * @param b another movement
+         * @return true if the movements are the same
+         */
+        private static boolean sameMovement(Movement a, Movement b) {
+            if (a.getClass() != b.getClass() || a.getTime() != b.getTime()
+                    || a.getDirection() != b.getDirection()) {
+                return false;
+            }
+            if (a instanceof ShipMovement) {
+                return ((ShipMovement) a).getShip() == ((ShipMovement) b).getShip();
+            }
+            CargoMovement cargoA = (CargoMovement) a;
+            CargoMovement cargoB = (CargoMovement) b;
+            if (cargoA.getNumCargo() != cargoB.getNumCargo()) {
+                return false;
+            }
+            for (int i = 0; i < cargoA.getNumCargo(); i++) {
+                if (cargoA.getCargo(i) != cargoB.getCargo(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads a movement.
+         *
+         * @param in records of the group
+         * @return movement read
+         * @throws BadEncodingException if the movement is invalid
+         */
+        private Movement getMovement(ByteBuffer in) throws BadEncodingException {
+            int kind = in.get();
+            long time = getNumber(in);
+            MovementDirection direction = constant(MovementDirection.values(), in.get());
+            if (kind == KIND_SHIP_MOVEMENT) {
+                return new ShipMovement(time, direction, getShip(in));
+            } else if (kind == KIND_CARGO_MOVEMENT) {
+                List<Cargo> cargo = new ArrayList<>();
+                for (long i = getNumber(in); i > 0; i--) {
+                    cargo.add(getCargo(in));
+                }
+                return new CargoMovement(time, direction, cargo);
+            }
+            throw new BadEncodingException("Unknown movement kind " + kind);
+        }
+
+        /**
+         * Reads a quay being added, and docks its ship.
+         *
+         * @param in records of the group
+         * @return quay read
+         * @throws BadEncodingException if the quay is invalid
+         */
+        private Quay getNewQuay(ByteBuffer in) throws BadEncodingException {
+            int kind = in.get();
+            int id = (int) getNumber(in);
+            int capacity = (int) getNumber(in);
+            Quay quay;
+            if (kind == KIND_BULK) {
+                quay = new BulkQuay(id, capacity);
+            } else if (kind == KIND_CONTAINER) {
+                quay = new ContainerQuay(id, capacity);
+            } else {
+                throw new BadEncodingException("Unknown quay kind " + kind);
+            }
+            if (in.get() != 0) {
+                quay.shipArrives(getShip(in));
+            }
+            return quay;
+        }
+
+        /**
+         * Reads the position of one of the port's quays.
+         *
+         * @param in records of the group
+         * @return quay at the position read
+         * @throws BadEncodingException if the port has no quay at that position
+         */
+        private Quay getQuay(ByteBuffer in) throws BadEncodingException {
+            long position = getNumber(in);
+            List<Quay> quays = port.getQuays();
+            if (position >= quays.size()) {
+                throw new BadEncodingException("No quay at position " + position);
+            }
+            return quays.get((int) position);
+        }
+
+        /**
+         * Reads a reference to a ship, creating the ship if it is defined here.
+         *
+         * @param in records of the group
+         * @return ship referred to
+         * @throws BadEncodingException if the ship is invalid or does not exist
+         */
+        private Ship getShip(ByteBuffer in) throws BadEncodingException {
+            long reference = getNumber(in);
+            long imoNumber = reference >>> 1;
+            if ((reference & 1) == 0) {
+                try {
+                    return Ship.getShipByImoNumber(imoNumber);
+                } catch (NoSuchShipException e) {
+                    throw new BadEncodingException(e);
+                }
+            }
+            int kind = in.get();
+            String name = getString(in);
+            String origin = getString(in);
+            NauticalFlag flag = constant(NauticalFlag.values(), in.get());
+            int capacity = (int) getNumber(in);
+            if (Ship.shipExists(imoNumber)) {
+                throw new BadEncodingException("Duplicate ship " + imoNumber);
+            }
+            Ship ship;
+            if (kind == KIND_BULK) {
+                ship = new BulkCarrier(imoNumber, name, origin, flag, capacity);
+            } else if (kind == KIND_CONTAINER) {
+                ship = new ContainerShip(imoNumber, name, origin, flag, capacity);
+            } else {
+                throw new BadEncodingException("Unknown ship kind " + kind);
+            }
+            for (long i = getNumber(in); i > 0; i--) {
+                Cargo cargo = getCargo(in);
+                if (!ship.canLoad(cargo)) {
+                    throw new BadEncodingException(ship + " cannot load " + cargo);
+                }
+                ship.loadCargo(cargo);
+            }
+            return ship;
+        }
+
+        /**
+         * Reads a reference to a piece of cargo, creating the cargo if it is defined here.
+         *
+         * @param in records of the group
+         * @return cargo referred to
+         * @throws BadEncodingException if the cargo is invalid or does not exist
+         */
+        private Cargo getCargo(ByteBuffer in) throws BadEncodingException {
+            long reference = getNumber(in);
+            int id = (int) (reference >>> 1);
+            if ((reference & 1) == 0) {
+                try {
+                    return Cargo.getCargoById(id);
+                } catch (NoSuchCargoException e) {
+                    throw new BadEncodingException(e);
+                }
+            }
+            int kind = in.get();
+            String destination = getString(in);
+            if (kind == KIND_BULK) {
+                BulkCargoType type = constant(BulkCargoType.values(), in.get());
+                return new BulkCargo(id, destination, (int) getNumber(in), type);
+            } else if (kind == KIND_CONTAINER) {
+                return new Container(id, destination, constant(ContainerType.values(), in.get()));
+            }
+            throw new BadEncodingException("Unknown cargo kind " + kind);
+        }
+
+        /**
+         * Reads a string, which is new to the journal if its index is the number of strings
+         * read so far.
+         *
+         * @param in records of the group
+         * @return string read
+         * @throws BadEncodingException if the index is not that of a string read so far or
+         * the next one
+         */
+        private String getString(ByteBuffer in) throws BadEncodingException {
+            long index = getNumber(in);
+            if (index < strings.size()) {
+                return strings.get((int) index);
+            }
+            if (index > strings.size()) {
+                throw new BadEncodingException("Invalid string reference " + index);
+            }
+            byte[] bytes = new byte[(int) getNumber(in)];
+            in.get(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+
+        /**
+         * Reads a non-negative number written seven bits at a time.
+         *
+         * @param in records of the group
+         * @return number read
+         * @throws BadEncodingException if the number is longer than a long
+         */
+        private static long getNumber(ByteBuffer in) throws BadEncodingException {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new BadEncodingException("Number too long");
+        }
+
+        /**
+         * Returns the enum constant with the given ordinal.
+         *
+         * @param constants all constants of the enum type
+         * @param ordinal ordinal read from the journal
+         * @param <T> enum type
+         * @return constant with the ordinal
+         * @throws BadEncodingException if there is no constant with the ordinal
+         */
+        private static <T> T constant(T[] constants, int ordinal) throws BadEncodingException {
+            if (ordinal < 0 || ordinal >= constants.length) {
+                throw new BadEncodingException("Invalid ordinal " + ordinal);
+            }
+            return constants[ordinal];
+        }
+    }
+}
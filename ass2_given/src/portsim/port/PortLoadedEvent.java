@@ -0,0 +1,52 @@
+package portsim.port;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a port being read by
+ * {@link Port#initialisePort(java.io.Reader)}.
+ */
+@Name("portsim.PortLoaded")
+@Label("Port Loaded")
+@Category("Port Simulation")
+@Description("A port read from its text save format")
+@Enabled(false)
+@StackTrace(false)
+final class PortLoadedEvent extends Event {
+    /**
+     * simulated time in minutes
+     */
+    @Label("Simulated Time")
+    long time;
+    /**
+     * name of the port
+     */
+    @Label("Port")
+    String port;
+    /**
+     * number of cargo in the simulation
+     */
+    @Label("Cargo")
+    int cargo;
+    /**
+     * number of ships in the simulation
+     */
+    @Label("Ships")
+    int ships;
+    /**
+     * number of quays at the port
+     */
+    @Label("Quays")
+    int quays;
+    /**
+     * number of movements waiting to be processed
+     */
+    @Label("Movements")
+    int movements;
+}
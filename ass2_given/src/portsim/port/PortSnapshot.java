@@ -0,0 +1,642 @@
+package portsim.port;
+
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.StatisticsEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+import portsim.util.SnapshotReader;
+import portsim.util.SnapshotWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and loads a port, together with the cargo and ship registries, as a compact binary
+ * snapshot.
+ * <p>
+ * A snapshot holds the same state as the text encoding of {@link Port#encode()}, and loading
+ * either gives the same port. The snapshot starts with the int {@value #MAGIC} and the int
+ * format version, followed by these sections in order:
+ * <pre>
+ * STRINGS      numStrings (length UTF-8Bytes)...
+ * PORT         nameRef time
+ * CARGO        numCargo (kind id destinationRef typeOrdinal [tonnage])...
+ * SHIPS        numShips (kind imoNumber nameRef originRef flagOrdinal capacity
+ *                  numCargo cargoId...)...
+ * QUAYS        numQuays (kind id imoNumber capacity)...
+ * SHIP_QUEUE   numShips imoNumber...
+ * STORED_CARGO numCargo cargoId...
+ * MOVEMENTS    numMovements (kind time directionOrdinal (imoNumber | numCargo cargoId...))...
+ * EVALUATORS   numEvaluators classNameRef...
+ * </pre>
+ * Each section is an int tag and a long byte length followed by the fields above. Counts,
+ * IDs, capacities and string references are ints, times and IMO numbers are longs, and kinds
+ * and enum ordinals are single bytes. Names, origins, destinations and evaluator class names
+ * are written once in the string table and referred to by their index in it. A quay without
+ * a ship has IMO number 0.
+ * <p>
+ * Loading maps the file into memory and creates objects straight from the fields, checking
+ * only what the constructors check and that every reference resolves. Any inconsistency
+ * causes a {@link BadEncodingException}.
+ */
+public final class PortSnapshot {
+    /**
+     * first int of every snapshot, "PSNP" in ASCII
+     */
+    public static final int MAGIC = 0x50534E50;
+    /**
+     * version of the snapshot format written
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * tag of the string table section
+     */
+    private static final int STRINGS = 1;
+    /**
+     * tag of the port name and time section
+     */
+    private static final int PORT = 2;
+    /**
+     * tag of the cargo registry section
+     */
+    private static final int CARGO = 3;
+    /**
+     * tag of the ship registry section
+     */
+    private static final int SHIPS = 4;
+    /**
+     * tag of the quay section
+     */
+    private static final int QUAYS = 5;
+    /**
+     * tag of the ship queue section
+     */
+    private static final int SHIP_QUEUE = 6;
+    /**
+     * tag of the stored cargo section
+     */
+    private static final int STORED_CARGO = 7;
+    /**
+     * tag of the movement section
+     */
+    private static final int MOVEMENTS = 8;
+    /**
+     * tag of the evaluator section
+     */
+    private static final int EVALUATORS = 9;
+
+    /**
+     * kind of containers, container ships and container quays
+     */
+    private static final int KIND_CONTAINER = 0;
+    /**
+     * kind of bulk cargo, bulk carriers and bulk quays
+     */
+    private static final int KIND_BULK = 1;
+    /**
+     * kind of ship movements
+     */
+    private static final int KIND_SHIP_MOVEMENT = 0;
+    /**
+     * kind of cargo movements
+     */
+    private static final int KIND_CARGO_MOVEMENT = 1;
+    /**
+     * IMO number written for a quay without a ship
+     */
+    private static final long NO_SHIP = 0;
+
+    private PortSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given port and of the cargo and ship registries of its
+     * context to the file at the given path, replacing any existing file.
+     *
+     * @param port port to save
+     * @param path path of the snapshot file
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    public static void write(Port port, Path path) throws IOException {
+        Map<Integer, Cargo> cargoRegistry = port.getContext().getCargoRegistry();
+        Map<Long, Ship> shipRegistry = port.getContext().getShipRegistry();
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        addString(strings, table, port.getName());
+        for (Cargo cargo : cargoRegistry.values()) {
+            addString(strings, table, cargo.getDestination());
+        }
+        for (Ship ship : shipRegistry.values()) {
+            addString(strings, table, ship.getName());
+            addString(strings, table, ship.getOriginFlag());
+        }
+        for (StatisticsEvaluator evaluator : port.getEvaluators()) {
+            addString(strings, table, evaluator.getClass().getSimpleName());
+        }
+
+        try (SnapshotWriter out = new SnapshotWriter(path)) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            out.beginSection(STRINGS);
+            out.putInt(table.size());
+            for (String string : table) {
+                out.putString(string);
+            }
+            out.endSection();
+
+            out.beginSection(PORT);
+            out.putInt(strings.get(port.getName()));
+            out.putLong(port.getTime());
+            out.endSection();
+
+            out.beginSection(CARGO);
+            out.putInt(cargoRegistry.size());
+            for (Cargo cargo : cargoRegistry.values()) {
+                writeCargo(out, strings, cargo);
+            }
+            out.endSection();
+
+            out.beginSection(SHIPS);
+            out.putInt(shipRegistry.size());
+            for (Ship ship : shipRegistry.values()) {
+                writeShip(out, strings, ship);
+            }
+            out.endSection();
+
+            List<Quay> quays = port.getQuays();
+            out.beginSection(QUAYS);
+            out.putInt(quays.size());
+            for (Quay quay : quays) {
+                writeQuay(out, quay);
+            }
+            out.endSection();
+
+            List<Ship> queue = port.getShipQueue().getShipQueue();
+            out.beginSection(SHIP_QUEUE);
+            out.putInt(queue.size());
+            for (Ship ship : queue) {
+                out.putLong(ship.getImoNumber());
+            }
+            out.endSection();
+
+            out.beginSection(STORED_CARGO);
+            out.putInt(port.getWarehouse().size());
+            for (Cargo cargo : port.getWarehouse()) {
+                out.putInt(cargo.getId());
+            }
+            out.endSection();
+
+            out.beginSection(MOVEMENTS);
+            out.putInt(port.getMovements().size());
+            for (Movement movement : port.getMovements()) {
+                writeMovement(out, movement);
+            }
+            out.endSection();
+
+            List<StatisticsEvaluator> evaluators = port.getEvaluators();
+            out.beginSection(EVALUATORS);
+            out.putInt(evaluators.size());
+            for (StatisticsEvaluator evaluator : evaluators) {
+                out.putInt(strings.get(evaluator.getClass().getSimpleName()));
+            }
+            out.endSection();
+        }
+    }
+
+    /**
+     * Reads a port from the snapshot file at the given path, adding its cargo and ships to
+     * the cargo and ship registries of the current context.
+     *
+     * @param path path of the snapshot file
+     * @return port read from the snapshot
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the file is not a valid snapshot
+     */
+    public static Port read(Path path) throws IOException, BadEncodingException {
+        try (SnapshotReader in = new SnapshotReader(path)) {
+            if (in.getInt() != MAGIC) {
+                throw new BadEncodingException("Not a port snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new BadEncodingException("Unsupported snapshot version " + version);
+            }
+
+            long end = in.beginSection(STRINGS);
+            String[] strings = new String[count(in)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.getString();
+            }
+            in.endSection(end);
+
+            end = in.beginSection(PORT);
+            String name = string(in, strings);
+            long time = in.getLong();
+            in.endSection(end);
+
+            end = in.beginSection(CARGO);
+            for (int i = count(in); i > 0; i--) {
+                readCargo(in, strings);
+            }
+            in.endSection(end);
+
+            end = in.beginSection(SHIPS);
+            for (int i = count(in); i > 0; i--) {
+                readShip(in, strings);
+            }
+            in.endSection(end);
+
+            end = in.beginSection(QUAYS);
+            List<Quay> quays = new ArrayList<>();
+            for (int i = count(in); i > 0; i--) {
+                quays.add(readQuay(in));
+            }
+            in.endSection(end);
+
+            end = in.beginSection(SHIP_QUEUE);
+            ShipQueue shipQueue = new ShipQueue();
+            for (int i = count(in); i > 0; i--) {
+                shipQueue.add(ship(in.getLong()));
+            }
+            in.endSection(end);
+
+            end = in.beginSection(STORED_CARGO);
+            List<Cargo> storedCargo = new ArrayList<>();
+            for (int i = count(in); i > 0; i--) {
+                storedCargo.add(cargo(in.getInt()));
+            }
+            in.endSection(end);
+
+            Port port;
+            try {
+                port = new Port(name, time, shipQueue, quays, storedCargo);
+            } catch (IllegalArgumentException e) {
+                throw new BadEncodingException(e);
+            }
+
+            end = in.beginSection(MOVEMENTS);
+            for (int i = count(in); i > 0; i--) {
+                try {
+                    port.addMovement(readMovement(in));
+                } catch (IllegalArgumentException e) {
+                    throw new BadEncodingException(e);
+                }
+            }
+            in.endSection(end);
+
+            end = in.beginSection(EVALUATORS);
+            for (int i = count(in); i > 0; i--) {
+                port.addStatisticsEvaluator(Port.createEvaluator(string(in, strings), port));
+            }
+            in.endSection(end);
+
+            if (!in.atEnd()) {
+                throw new BadEncodingException("Unexpected data after the last section");
+            }
+            return port;
+        }
+    }
+
+    /**
+     * Adds a string to the string table if it is not already in it.
+     *
+     * @param strings index of each string in the table
+     * @param table strings in the table
+     * @param string string to add
+     */
+    private static void addString(Map<String, Integer> strings, List<String> table,
+                                  String string) {
+        if (!strings.containsKey(string)) {
+            strings.put(string, table.size());
+            table.add(string);
+        }
+    }
+
+    /**
+     * Writes a piece of cargo.
+     *
+     * @param out snapshot being written
+     * @param strings index of each string in the string table
+     * @param cargo cargo to write
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    private static void writeCargo(SnapshotWriter out, Map<String, Integer> strings,
+                                   Cargo cargo) throws IOException {
+        if (cargo instanceof BulkCargo) {
+            BulkCargo bulkCargo = (BulkCargo) cargo;
+            out.putByte(KIND_BULK);
+            out.putInt(cargo.getId());
+            out.putInt(strings.get(cargo.getDestination()));
+            out.putByte(bulkCargo.getType().ordinal());
+            out.putInt(bulkCargo.getTonnage());
+        } else {
+            out.putByte(KIND_CONTAINER);
+            out.putInt(cargo.getId());
+            out.putInt(strings.get(cargo.getDestination()));
+            out.putByte(((Container) cargo).getType().ordinal());
+        }
+    }
+
+    /**
+     * Reads a piece of cargo, adding it to the cargo registry.
+     *
+     * @param in snapshot being read
+     * @param strings string table
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the cargo is invalid
+     */
+    private static void readCargo(SnapshotReader in, String[] strings)
+            throws IOException, BadEncodingException {
+        int kind = in.getByte();
+        int id = in.getInt();
+        String destination = string(in, strings);
+        try {
+            if (kind == KIND_BULK) {
+                BulkCargoType type = constant(BulkCargoType.values(), in.getByte());
+                new BulkCargo(id, destination, in.getInt(), type);
+            } else if (kind == KIND_CONTAINER) {
+                new Container(id, destination, constant(ContainerType.values(), in.getByte()));
+            } else {
+                throw new BadEncodingException("Unknown cargo kind " + kind);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException(e);
+        }
+    }
+
+    /**
+     * Writes a ship and the IDs of its cargo.
+     *
+     * @param out snapshot being written
+     * @param strings index of each string in the string table
+     * @param ship ship to write
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    private static void writeShip(SnapshotWriter out, Map<String, Integer> strings,
+                                  Ship ship) throws IOException {
+        out.putByte(ship instanceof BulkCarrier ? KIND_BULK : KIND_CONTAINER);
+        out.putLong(ship.getImoNumber());
+        out.putInt(strings.get(ship.getName()));
+        out.putInt(strings.get(ship.getOriginFlag()));
+        out.putByte(ship.getFlag().ordinal());
+        if (ship instanceof BulkCarrier) {
+            BulkCarrier bulkCarrier = (BulkCarrier) ship;
+            out.putInt(bulkCarrier.getTonnageCapacity());
+            BulkCargo cargo = bulkCarrier.getCargo();
+            if (cargo == null) {
+                out.putInt(0);
+            } else {
+                out.putInt(1);
+                out.putInt(cargo.getId());
+            }
+        } else {
+            ContainerShip containerShip = (ContainerShip) ship;
+            out.putInt(containerShip.getContainerCapacity());
+            List<Container> containers = containerShip.getCargo();
+            out.putInt(containers.size());
+            for (Container container : containers) {
+                out.putInt(container.getId());
+            }
+        }
+    }
+
+    /**
+     * Reads a ship and loads its cargo, adding it to the ship registry.
+     *
+     * @param in snapshot being read
+     * @param strings string table
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the ship is invalid or cannot load its cargo
+     */
+    private static void readShip(SnapshotReader in, String[] strings)
+            throws IOException, BadEncodingException {
+        int kind = in.getByte();
+        long imoNumber = in.getLong();
+        String name = string(in, strings);
+        String origin = string(in, strings);
+        NauticalFlag flag = constant(NauticalFlag.values(), in.getByte());
+        int capacity = in.getInt();
+        if (Ship.shipExists(imoNumber)) {
+            throw new BadEncodingException("Duplicate ship " + imoNumber);
+        }
+        Ship ship;
+        try {
+            if (kind == KIND_BULK) {
+                ship = new BulkCarrier(imoNumber, name, origin, flag, capacity);
+            } else if (kind == KIND_CONTAINER) {
+                ship = new ContainerShip(imoNumber, name, origin, flag, capacity);
+            } else {
+                throw new BadEncodingException("Unknown ship kind " + kind);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException(e);
+        }
+        for (int i = count(in); i > 0; i--) {
+            Cargo cargo = cargo(in.getInt());
+            if (!ship.canLoad(cargo)) {
+                throw new BadEncodingException(ship + " cannot load " + cargo);
+            }
+            ship.loadCargo(cargo);
+        }
+    }
+
+    /**
+     * Writes a quay.
+     *
+     * @param out snapshot being written
+     * @param quay quay to write
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    private static void writeQuay(SnapshotWriter out, Quay quay) throws IOException {
+        out.putByte(quay instanceof BulkQuay ? KIND_BULK : KIND_CONTAINER);
+        out.putInt(quay.getId());
+        out.putLong(quay.isEmpty() ? NO_SHIP : quay.getShip().getImoNumber());
+        if (quay instanceof BulkQuay) {
+            out.putInt(((BulkQuay) quay).getMaxTonnage());
+        } else {
+            out.putInt(((ContainerQuay) quay).getMaxContainers());
+        }
+    }
+
+    /**
+     * Reads a quay and docks its ship.
+     *
+     * @param in snapshot being read
+     * @return quay read
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the quay is invalid
+     */
+    private static Quay readQuay(SnapshotReader in) throws IOException, BadEncodingException {
+        int kind = in.getByte();
+        int id = in.getInt();
+        long imoNumber = in.getLong();
+        int capacity = in.getInt();
+        Quay quay;
+        try {
+            if (kind == KIND_BULK) {
+                quay = new BulkQuay(id, capacity);
+            } else if (kind == KIND_CONTAINER) {
+                quay = new ContainerQuay(id, capacity);
+            } else {
+                throw new BadEncodingException("Unknown quay kind " + kind);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException(e);
+        }
+        if (imoNumber != NO_SHIP) {
+            quay.shipArrives(ship(imoNumber));
+        }
+        return quay;
+    }
+
+    /**
+     * Writes a movement.
+     *
+     * @param out snapshot being written
+     * @param movement movement to write
+     * @throws IOException if an IOException occurs when writing the file
+     */
+    private static void writeMovement(SnapshotWriter out, Movement movement)
+            throws IOException {
+        boolean shipMovement = movement instanceof ShipMovement;
+        out.putByte(shipMovement ? KIND_SHIP_MOVEMENT : KIND_CARGO_MOVEMENT);
+        out.putLong(movement.getTime());
+        out.putByte(movement.getDirection().ordinal());
+        if (shipMovement) {
+            out.putLong(((ShipMovement) movement).getShip().getImoNumber());
+        } else {
+            List<Cargo> cargo = ((CargoMovement) movement).getCargo();
+            out.putInt(cargo.size());
+            for (Cargo piece : cargo) {
+                out.putInt(piece.getId());
+            }
+        }
+    }
+
+    /**
+     * Reads a movement.
+     *
+     * @param in snapshot being read
+     * @return movement read
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the movement is invalid
+     */
+    private static Movement readMovement(SnapshotReader in)
+            throws IOException, BadEncodingException {
+        int kind = in.getByte();
+        long time = in.getLong();
+        MovementDirection direction = constant(MovementDirection.values(), in.getByte());
+        try {
+            if (kind == KIND_SHIP_MOVEMENT) {
+                return new ShipMovement(time, direction, ship(in.getLong()));
+            } else if (kind == KIND_CARGO_MOVEMENT) {
+                List<Cargo> cargo = new ArrayList<>();
+                for (int i = count(in); i > 0; i--) {
+                    cargo.add(cargo(in.getInt()));
+                }
+                return new CargoMovement(time, direction, cargo);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException(e);
+        }
+        throw new BadEncodingException("Unknown movement kind " + kind);
+    }
+
+    /**
+     * Reads a count, which must not be negative.
+     *
+     * @param in snapshot being read
+     * @return count read
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the count is negative
+     */
+    private static int count(SnapshotReader in) throws IOException, BadEncodingException {
+        int count = in.getInt();
+        if (count < 0) {
+            throw new BadEncodingException("Negative count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Reads a reference to the string table.
+     *
+     * @param in snapshot being read
+     * @param strings string table
+     * @return string referred to
+     * @throws IOException if an IOException occurs when reading the file
+     * @throws BadEncodingException if the reference is not in the table
+     */
+    private static String string(SnapshotReader in, String[] strings)
+            throws IOException, BadEncodingException {
+        int index = in.getInt();
+        if (index < 0 || index >= strings.length) {
+            throw new BadEncodingException("Invalid string reference " + index);
+        }
+        return strings[index];
+    }
+
+    /**
+     * Returns the enum constant with the given ordinal.
+     *
+     * @param constants all constants of the enum type
+     * @param ordinal ordinal read from the snapshot
+     * @param <E> enum type
+     * @return constant with the ordinal
+     * @throws BadEncodingException if no constant has the ordinal
+     */
+    private static <E extends Enum<E>> E constant(E[] constants, int ordinal)
+            throws BadEncodingException {
+        if (ordinal >= constants.length) {
+            throw new BadEncodingException("Invalid ordinal " + ordinal);
+        }
+        return constants[ordinal];
+    }
+
+    /**
+     * Returns the ship with the given IMO number.
+     *
+     * @param imoNumber IMO number read from the snapshot
+     * @return ship from the ship registry
+     * @throws BadEncodingException if the ship does not exist
+     */
+    private static Ship ship(long imoNumber) throws BadEncodingException {
+        Ship ship = Ship.getShipRegistry().get(imoNumber);
+        if (ship == null) {
+            throw new BadEncodingException("No ship " + imoNumber);
+        }
+        return ship;
+    }
+
+    /**
+     * Returns the cargo with the given ID.
+     *
+     * @param id cargo ID read from the snapshot
+     * @return cargo from the cargo registry
+     * @throws BadEncodingException if the cargo does not exist
+     */
+    private static Cargo cargo(int id) throws BadEncodingException {
+        Cargo cargo = Cargo.getCargoRegistry().get(id);
+        if (cargo == null) {
+            throw new BadEncodingException("No cargo " + id);
+        }
+        return cargo;
+    }
+}
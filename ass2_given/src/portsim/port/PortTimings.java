@@ -0,0 +1,185 @@
+package portsim.port;
+
+import portsim.util.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings of the phases of a port's minutes, and counts of what was done in them.
+ * <p>
+ * Recorded by a port while enabled with {@link Port#enableTimings()}. Each time a phase runs,
+ * its duration in nanoseconds is recorded in the phase's {@link Histogram}. Recording
+ * allocates nothing, and the timings may be read from another thread while the port runs.
+ */
+public final class PortTimings {
+
+    /**
+     * The phases of a minute at the port, in the order they run.
+     */
+    public enum Phase {
+        /**
+         * bringing the next ship in the queue to a quay, every 10 minutes
+         */
+        DOCKING,
+        /**
+         * unloading the docked ships, every 5 minutes
+         */
+        UNLOADING,
+        /**
+         * processing the movements due, and passing them to the evaluators
+         */
+        MOVEMENTS,
+        /**
+         * telling the evaluators that minutes have passed
+         */
+        EVALUATORS
+    }
+
+    /**
+     * duration in nanoseconds of each run of each phase
+     */
+    private final Map<Phase, Histogram> histograms;
+    /**
+     * histograms indexed by phase ordinal, for recording
+     */
+    private final Histogram[] byOrdinal;
+    /**
+     * number of movements processed
+     */
+    private final AtomicLong movementsDispatched;
+    /**
+     * number of ships docked
+     */
+    private final AtomicLong shipsDocked;
+    /**
+     * number of pieces of cargo unloaded from docked ships
+     */
+    private final AtomicLong cargoUnloaded;
+
+    /**
+     * Creates empty timings.
+     */
+    PortTimings() {
+        this.histograms = new EnumMap<>(Phase.class);
+        this.byOrdinal = new Histogram[Phase.values().length];
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = new Histogram();
+            this.histograms.put(phase, histogram);
+            this.byOrdinal[phase.ordinal()] = histogram;
+        }
+        this.movementsDispatched = new AtomicLong();
+        this.shipsDocked = new AtomicLong();
+        this.cargoUnloaded = new AtomicLong();
+    }
+
+    /**
+     * Records that the given phase, started at the given {@link System#nanoTime()}, has
+     * finished now.
+     *
+     * @param phase phase that finished
+     * @param start time the phase started
+     * @return the time it finished, for timing the next phase
+     */
+    long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        byOrdinal[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    /**
+     * Counts a movement being processed.
+     */
+    void movementDispatched() {
+        movementsDispatched.incrementAndGet();
+    }
+
+    /**
+     * Counts a ship docking.
+     */
+    void shipDocked() {
+        shipsDocked.incrementAndGet();
+    }
+
+    /**
+     * Counts cargo being unloaded from a docked ship.
+     *
+     * @param pieces number of pieces of cargo unloaded
+     */
+    void cargoUnloaded(int pieces) {
+        cargoUnloaded.addAndGet(pieces);
+    }
+
+    /**
+     * Returns the durations in nanoseconds of the runs of the given phase.
+     *
+     * @param phase phase of a minute
+     * @return histogram of the phase's durations
+     */
+    public Histogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Returns the number of movements the port has processed.
+     *
+     * @return number of movements
+     */
+    public long getMovementsDispatched() {
+        return movementsDispatched.get();
+    }
+
+    /**
+     * Returns the number of ships the port has docked.
+     *
+     * @return number of ships
+     */
+    public long getShipsDocked() {
+        return shipsDocked.get();
+    }
+
+    /**
+     * Returns the number of pieces of cargo the port has unloaded from docked ships.
+     *
+     * @return number of pieces of cargo
+     */
+    public long getCargoUnloaded() {
+        return cargoUnloaded.get();
+    }
+
+    /**
+     * Clears every timing and count.
+     */
+    public void reset() {
+        for (Histogram histogram : byOrdinal) {
+            histogram.reset();
+        }
+        movementsDispatched.set(0);
+        shipsDocked.set(0);
+        cargoUnloaded.set(0);
+    }
+
+    /**
+     * Returns the human-readable string representation of these timings.
+     * <p>
+     * The format of the string to return is one line per phase
+     * <pre>PHASE: histogram</pre>
+     * where histogram is the {@link Histogram#toString()} of the phase's durations in
+     * nanoseconds, followed by the line
+     * <pre>movements=m docked=d unloaded=u</pre>
+     *
+     * @return string representation of these timings
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(System.lineSeparator());
+        for (Phase phase : Phase.values()) {
+            joiner.add(phase + ": " + getHistogram(phase));
+        }
+        joiner.add("movements=" + getMovementsDispatched() + " docked=" + getShipsDocked()
+                + " unloaded=" + getCargoUnloaded());
+        return joiner.toString();
+    }
+}
@@ -2,9 +2,11 @@ package portsim.port;
 
 import portsim.ship.Ship;
 import portsim.util.BadEncodingException;
+import portsim.util.Encodable;
+import portsim.util.FieldTokenizer;
 import portsim.util.NoSuchShipException;
 
-import java.util.StringJoiner;
+import java.io.IOException;
 
 
 /**
@@ -13,7 +15,7 @@ import java.util.StringJoiner;
  *
  * @ass1_partial
  */
-public abstract class Quay {
+public abstract class Quay implements Encodable {
     /**
      * The ID of the quay
      */
@@ -24,6 +26,11 @@ public abstract class Quay {
      */
     private Ship ship;
 
+    /**
+     * The index of the port this quay belongs to, if any
+     */
+    private QuayIndex index;
+
     /**
      * Creates a new Quay with the given ID, with no ship docked at the quay.
      *
@@ -57,7 +64,23 @@ public abstract class Quay {
      * @ass1
      */
     public void shipArrives(Ship ship) {
+        ShipDockedEvent event = new ShipDockedEvent();
+        event.begin();
         this.ship = ship;
+        if (index != null) {
+            if (ship == null) {
+                index.shipDeparted(this);
+            } else {
+                index.shipArrived(this);
+            }
+        }
+        if (ship != null && event.shouldCommit()) {
+            event.time = index == null ? -1 : index.getTime();
+            event.quayId = this.id;
+            event.quayType = getClass().getSimpleName();
+            event.imoNumber = ship.getImoNumber();
+            event.commit();
+        }
     }
 
     /**
@@ -68,11 +91,33 @@ public abstract class Quay {
      * @ass1
      */
     public Ship shipDeparts() {
+        ShipDepartedEvent event = new ShipDepartedEvent();
+        event.begin();
         Ship current = this.ship;
         this.ship = null;
+        if (index != null) {
+            index.shipDeparted(this);
+        }
+        if (current != null && event.shouldCommit()) {
+            event.time = index == null ? -1 : index.getTime();
+            event.quayId = this.id;
+            event.quayType = getClass().getSimpleName();
+            event.imoNumber = current.getImoNumber();
+            event.commit();
+        }
         return current;
     }
 
+    /**
+     * Sets the index of the port this quay was added to, which is told whenever a ship
+     * arrives at or departs from the quay.
+     *
+     * @param index index of the port's quays
+     */
+    void setIndex(QuayIndex index) {
+        this.index = index;
+    }
+
     /**
      * Returns whether a ship is currently docked at this quay.
      *
@@ -149,15 +194,25 @@ public abstract class Quay {
      * @return encoded string representation of this quay
      */
     public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(getClass().getSimpleName());
-        encode.add(Integer.toString(getId()));
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this Quay to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        out.append(getClass().getSimpleName()).append(':');
+        out.append(Integer.toString(getId())).append(':');
         if (getShip() == null) {
-            encode.add("None");
+            out.append("None");
         } else {
-            encode.add(Long.toString(getShip().getImoNumber()));
+            out.append(Long.toString(getShip().getImoNumber()));
         }
-        return encode.toString();
     }
 
     /**
@@ -180,32 +235,30 @@ public abstract class Quay {
      *              according to the rules above
      */
     public static Quay fromString(String string) throws BadEncodingException {
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
 
-        boolean rule4 = false;
-        boolean rule5 = false;
-        boolean rule6 = false;
-
-        String[] quayInfo = string.split(":");
-        final String quayType = quayInfo[0];
-        String shipString = quayInfo[2];
+    /**
+     * Reads a Quay from an encoding that has already been split into fields, without
+     * copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded Quay, split around colons
+     * @return decoded Quay instance
+     * @throws BadEncodingException if the format of the encoded Quay is invalid according
+     * to the rules in {@link #fromString(String)}
+     */
+    public static Quay fromFields(FieldTokenizer fields) throws BadEncodingException {
         int quayId;
         int quayCapacity;
-        int colonsCount = 0;
-        char temp;
-        Quay quay = null;
-        for (int i = 0; i < string.length(); i++) {
-            temp = string.charAt(i);
-            if (temp == ':') {
-                colonsCount++;
-            }
-        }
-        if (colonsCount != 3) {
+        Quay quay;
+        if (fields.separators() != 3) {
             throw new BadEncodingException("The number of colons (:) detected"
                     + " was more/fewer than expected.");
         }
 
         try {
-            quayId = Integer.parseInt(quayInfo[1]);
+            quayId = fields.parseInt(1);
             if (quayId < 1) {
                 throw new BadEncodingException("The quay id is less than one (1).");
             }
@@ -214,36 +267,31 @@ public abstract class Quay {
         }
 
         try {
-            quayCapacity =  Integer.parseInt(quayInfo[3]);
+            quayCapacity = fields.parseInt(3);
         } catch (NumberFormatException e) {
             throw new BadEncodingException("The quay capacity is not an integer", e);
         }
 
-        if (quayType.equals("BulkQuay")) {
-            quay = new BulkQuay(quayId, quayCapacity);
-            if (!shipString.equals("None")) {
-                try {
-                    long imoNumber = Long.parseLong(shipString);
-                    Ship ship = Ship.getShipByImoNumber(imoNumber);
-                    quay.shipArrives(ship);
-                } catch (NumberFormatException | NoSuchShipException e) {
-                    throw new BadEncodingException(e);
-                }
+        try {
+            if (fields.equals(0, "BulkQuay")) {
+                quay = new BulkQuay(quayId, quayCapacity);
+            } else if (fields.equals(0, "ContainerQuay")) {
+                quay = new ContainerQuay(quayId, quayCapacity);
+            } else {
+                throw new BadEncodingException("The quay type specified is"
+                        + " not one of BulkQuay or ContainerQuay");
             }
-        } else if (quayType.equals("ContainerQuay")) {
-            quay = new ContainerQuay(quayId, quayCapacity);
-            if (!shipString.equals("None")) {
-                try {
-                    long imoNumber = Long.parseLong(shipString);
-                    Ship ship = Ship.getShipByImoNumber(imoNumber);
-                    quay.shipArrives(ship);
-                } catch (NumberFormatException | NoSuchShipException e) {
-                    throw new BadEncodingException(e);
-                }
+        } catch (IllegalArgumentException e) {
+            throw new BadEncodingException(e);
+        }
+        if (!fields.equals(2, "None")) {
+            try {
+                long imoNumber = fields.parseLong(2);
+                Ship ship = Ship.getShipByImoNumber(imoNumber);
+                quay.shipArrives(ship);
+            } catch (NumberFormatException | NoSuchShipException e) {
+                throw new BadEncodingException(e);
             }
-        } else {
-            throw new BadEncodingException("The quay type specified is"
-                    + " not one of BulkQuay or ContainerQuay");
         }
         return quay;
     }
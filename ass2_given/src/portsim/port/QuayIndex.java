@@ -0,0 +1,282 @@
+package portsim.port;
+
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.Ship;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of which of a port's quays are free and which are occupied.
+ * <p>
+ * Free bulk quays are kept sorted by maximum tonnage and free container quays by maximum
+ * number of containers, so the smallest free quay a ship fits in is found with a single
+ * ceiling lookup. Quays with the same capacity are ordered by the order they were added.
+ * Occupied quays are kept as a set of positions so that docked ships can be visited without
+ * looking at empty quays.
+ * <p>
+ * Quays report their ships arriving and departing to the index they were added to, so the
+ * index stays up to date however the quays are changed. The number of occupied quays of each
+ * kind is counted as they are reported, so it can be read without visiting the quays.
+ */
+class QuayIndex {
+    /**
+     * indexed quays in the order they were added
+     */
+    private final List<Quay> quays;
+    /**
+     * position of each indexed quay in the order they were added
+     */
+    private final Map<Quay, Integer> positions;
+    /**
+     * free bulk quays by maximum tonnage, then position
+     */
+    private final TreeMap<Long, BulkQuay> freeBulkQuays;
+    /**
+     * free container quays by maximum number of containers, then position
+     */
+    private final TreeMap<Long, ContainerQuay> freeContainerQuays;
+    /**
+     * positions of the quays with a ship docked
+     */
+    private final BitSet occupied;
+    /**
+     * positions of the quays added or whose ship has arrived or departed since the changes were
+     * last cleared
+     */
+    private final BitSet changed;
+    /**
+     * current simulated time of the port
+     */
+    private final LongSupplier clock;
+    /**
+     * number of quays with a ship docked
+     */
+    private int occupiedCount;
+    /**
+     * number of bulk quays with a ship docked
+     */
+    private int occupiedBulkCount;
+    /**
+     * number of container quays with a ship docked
+     */
+    private int occupiedContainerCount;
+
+    /**
+     * Creates a new, empty quay index for a port whose time is given by the clock.
+     *
+     * @param clock current simulated time of the port
+     */
+    QuayIndex(LongSupplier clock) {
+        this.clock = clock;
+        this.quays = new ArrayList<>();
+        this.positions = new IdentityHashMap<>();
+        this.freeBulkQuays = new TreeMap<>();
+        this.freeContainerQuays = new TreeMap<>();
+        this.occupied = new BitSet();
+        this.changed = new BitSet();
+    }
+
+    /**
+     * Adds a quay to the index. The quay will report its ships arriving and departing to
+     * this index from now on.
+     *
+     * @param quay quay to add
+     */
+    void add(Quay quay) {
+        positions.put(quay, quays.size());
+        quays.add(quay);
+        quay.setIndex(this);
+        if (quay.isEmpty()) {
+            shipDeparted(quay);
+        } else {
+            shipArrived(quay);
+        }
+    }
+
+    /**
+     * Records that a ship has docked at the given quay.
+     *
+     * @param quay quay the ship has docked at
+     */
+    void shipArrived(Quay quay) {
+        Integer position = positions.get(quay);
+        if (position == null) {
+            return;
+        }
+        changed.set(position);
+        if (!occupied.get(position)) {
+            occupied.set(position);
+            count(quay, 1);
+        }
+        if (quay instanceof BulkQuay) {
+            freeBulkQuays.remove(key(((BulkQuay) quay).getMaxTonnage(), position));
+        } else if (quay instanceof ContainerQuay) {
+            freeContainerQuays.remove(key(((ContainerQuay) quay).getMaxContainers(), position));
+        }
+    }
+
+    /**
+     * Records that the ship docked at the given quay has left.
+     *
+     * @param quay quay the ship has left
+     */
+    void shipDeparted(Quay quay) {
+        Integer position = positions.get(quay);
+        if (position == null) {
+            return;
+        }
+        changed.set(position);
+        if (occupied.get(position)) {
+            occupied.clear(position);
+            count(quay, -1);
+        }
+        if (quay instanceof BulkQuay) {
+            BulkQuay bulkQuay = (BulkQuay) quay;
+            freeBulkQuays.put(key(bulkQuay.getMaxTonnage(), position), bulkQuay);
+        } else if (quay instanceof ContainerQuay) {
+            ContainerQuay containerQuay = (ContainerQuay) quay;
+            freeContainerQuays.put(key(containerQuay.getMaxContainers(), position),
+                    containerQuay);
+        }
+    }
+
+    /**
+     * Adds the given change to the number of occupied quays of the kind of the given quay.
+     *
+     * @param quay quay that has become occupied or empty
+     * @param change 1 if the quay has become occupied, -1 if it has become empty
+     */
+    private void count(Quay quay, int change) {
+        occupiedCount += change;
+        if (quay instanceof BulkQuay) {
+            occupiedBulkCount += change;
+        } else if (quay instanceof ContainerQuay) {
+            occupiedContainerCount += change;
+        }
+    }
+
+    /**
+     * Returns the current simulated time of the port the quays belong to.
+     *
+     * @return time in minutes
+     */
+    long getTime() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Returns the position of the given quay, the order in which it was added to the index.
+     *
+     * @param quay quay in the index
+     * @return position of the quay, or -1 if it is not in the index
+     */
+    int positionOf(Quay quay) {
+        Integer position = positions.get(quay);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Returns the positions of the quays added or whose ship has arrived or departed since
+     * {@link #clearChanged()} was last called.
+     *
+     * @return positions of the changed quays, which must not be modified
+     */
+    BitSet getChanged() {
+        return changed;
+    }
+
+    /**
+     * Marks every quay as unchanged.
+     */
+    void clearChanged() {
+        changed.clear();
+    }
+
+    /**
+     * Returns the number of quays with a ship docked.
+     *
+     * @return number of occupied quays
+     */
+    int getOccupiedCount() {
+        return occupiedCount;
+    }
+
+    /**
+     * Returns the number of bulk quays with a ship docked.
+     *
+     * @return number of occupied bulk quays
+     */
+    int getOccupiedBulkCount() {
+        return occupiedBulkCount;
+    }
+
+    /**
+     * Returns the number of container quays with a ship docked.
+     *
+     * @return number of occupied container quays
+     */
+    int getOccupiedContainerCount() {
+        return occupiedContainerCount;
+    }
+
+    /**
+     * Returns the smallest empty quay the given ship can dock at, according to
+     * {@link Ship#canDock(Quay)}. Of quays with the same capacity, the one added first is
+     * returned.
+     *
+     * @param ship ship to find a quay for
+     * @return empty quay for the ship or null if there is none
+     */
+    Quay findFreeQuay(Ship ship) {
+        Map.Entry<Long, ? extends Quay> entry;
+        if (ship instanceof BulkCarrier) {
+            BulkCarrier bulkCarrier = (BulkCarrier) ship;
+            int tonnage = bulkCarrier.getCargo() == null ? 0 : bulkCarrier.getCargo().getTonnage();
+            entry = freeBulkQuays.ceilingEntry(key(tonnage, 0));
+        } else if (ship instanceof ContainerShip) {
+            int containers = ((ContainerShip) ship).getNumContainers();
+            entry = freeContainerQuays.ceilingEntry(key(containers, 0));
+        } else {
+            for (int i = occupied.nextClearBit(0); i < quays.size();
+                 i = occupied.nextClearBit(i + 1)) {
+                if (ship.canDock(quays.get(i))) {
+                    return quays.get(i);
+                }
+            }
+            return null;
+        }
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * Returns the quays with a ship docked, in the order they were added.
+     *
+     * @return occupied quays
+     */
+    List<Quay> getOccupiedQuays() {
+        List<Quay> occupiedQuays = new ArrayList<>(occupied.cardinality());
+        for (int i = occupied.nextSetBit(0); i >= 0; i = occupied.nextSetBit(i + 1)) {
+            occupiedQuays.add(quays.get(i));
+        }
+        return occupiedQuays;
+    }
+
+    /**
+     * Returns the sort key of a free quay: its capacity in the high bits and its position in
+     * the low bits.
+     *
+     * @param capacity capacity of the quay, at least 0
+     * @param position position of the quay
+     * @return sort key
+     */
+    private static long key(int capacity, int position) {
+        return ((long) capacity << Integer.SIZE) | position;
+    }
+}
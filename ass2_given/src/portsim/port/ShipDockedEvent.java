@@ -0,0 +1,41 @@
+package portsim.port;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a ship docking at a quay, through {@link Quay#shipArrives}.
+ */
+@Name("portsim.ShipDocked")
+@Label("Ship Docked")
+@Category("Port Simulation")
+@Description("A ship docked at a quay")
+@Enabled(false)
+@StackTrace(false)
+final class ShipDockedEvent extends Event {
+    /**
+     * simulated time in minutes, or -1 if the quay does not belong to a port
+     */
+    @Label("Simulated Time")
+    long time;
+    /**
+     * id of the quay
+     */
+    @Label("Quay")
+    int quayId;
+    /**
+     * simple class name of the quay
+     */
+    @Label("Quay Type")
+    String quayType;
+    /**
+     * IMO number of the ship
+     */
+    @Label("IMO Number")
+    long imoNumber;
+}
@@ -5,27 +5,70 @@ import portsim.ship.NauticalFlag;
 import portsim.ship.Ship;
 import portsim.util.BadEncodingException;
 import portsim.util.Encodable;
+import portsim.util.FieldTokenizer;
 import portsim.util.NoSuchShipException;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.StringJoiner;
 
 /**
  * Queue of ships waiting to enter a Quay at the port.
  * Ships are chosen based on their priority.
+ * <p>
+ * Ships are kept in one first-in-first-out lane per priority class (see {@link #peek()}), so
+ * adding, peeking and polling take constant time. Each ship also records its position in the
+ * overall arrival order, which is used to rebuild the queue in the order ships were added.
  */
 public class ShipQueue implements Encodable {
     /**
-     * queue of ships.
+     * lane of ships carrying dangerous cargo (BRAVO)
      */
-    private ArrayList<Ship> shipQueue;
+    private static final int DANGEROUS_LANE = 0;
+    /**
+     * lane of ships requiring medical assistance (WHISKEY)
+     */
+    private static final int MEDICAL_LANE = 1;
+    /**
+     * lane of ships ready to be docked (HOTEL)
+     */
+    private static final int READY_LANE = 2;
+    /**
+     * lane of other container ships
+     */
+    private static final int CONTAINER_LANE = 3;
+    /**
+     * lane of all other ships
+     */
+    private static final int OTHER_LANE = 4;
+
+    /**
+     * ships waiting in each priority lane, in the order they were added
+     */
+    private final ArrayDeque<QueuedShip>[] lanes;
+
+    /**
+     * number of ships added so far, used to record the arrival order
+     */
+    private long added;
+
+    /**
+     * whether ships have been added or removed since the queue was last marked unchanged
+     */
+    private boolean changed;
 
     /**
      * Constructs a new ShipQueue with an initially empty queue of ships.
      */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public ShipQueue() {
-        shipQueue = new ArrayList<>();
+        lanes = new ArrayDeque[OTHER_LANE + 1];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        added = 0;
     }
 
     /**
@@ -36,9 +79,13 @@ public class ShipQueue implements Encodable {
      * @return next ship to dock
      */
     public Ship poll() {
-        Ship shipToDock = peek();
-        shipQueue.remove(shipToDock);
-        return shipToDock;
+        for (ArrayDeque<QueuedShip> lane : lanes) {
+            if (!lane.isEmpty()) {
+                changed = true;
+                return lane.poll().ship;
+            }
+        }
+        return null;
     }
 
     /**
@@ -59,45 +106,12 @@ public class ShipQueue implements Encodable {
      * @return next ship in queue
      */
     public Ship peek() {
-        Ship shipToEnter = null;
-        for (Ship ship : shipQueue) {
-            if (ship.getFlag() == NauticalFlag.BRAVO) {
-                shipToEnter = ship;
-                break;
+        for (ArrayDeque<QueuedShip> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return lane.peek().ship;
             }
         }
-        if (shipToEnter == null) {
-            for (Ship ship : shipQueue) {
-                if (ship.getFlag() == NauticalFlag.WHISKEY) {
-                    shipToEnter = ship;
-                    break;
-                }
-            }
-        }
-        if (shipToEnter == null) {
-            for (Ship ship : shipQueue) {
-                if (ship.getFlag() == NauticalFlag.HOTEL) {
-                    shipToEnter = ship;
-                    break;
-                }
-            }
-        }
-        if (shipToEnter == null) {
-            for (Ship ship : shipQueue) {
-                if (ship instanceof ContainerShip) {
-                    shipToEnter = ship;
-                    break;
-                }
-            }
-        }
-        if (shipToEnter == null) {
-            try {
-                shipToEnter = shipQueue.get(0);
-            } catch (IndexOutOfBoundsException ignored) {
-                return null;
-            }
-        }
-        return shipToEnter;
+        return null;
     }
 
     /**
@@ -106,18 +120,91 @@ public class ShipQueue implements Encodable {
      * @param ship to be added to queue
      */
     public void add(Ship ship) {
-        shipQueue.add(ship);
+        lanes[laneOf(ship)].add(new QueuedShip(ship, added++));
+        changed = true;
+    }
+
+    /**
+     * Returns whether ships have been added to or removed from the queue since
+     * {@link #clearChanged()} was last called.
+     *
+     * @return true if the queue has changed else false
+     */
+    boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Marks the queue as unchanged.
+     */
+    void clearChanged() {
+        changed = false;
+    }
+
+    /**
+     * Returns the number of ships currently stored in this ShipQueue.
+     *
+     * @return number of ships in queue
+     */
+    public int size() {
+        int size = 0;
+        for (ArrayDeque<QueuedShip> lane : lanes) {
+            size += lane.size();
+        }
+        return size;
     }
 
     /**
      * Returns a list containing all the ships currently stored in this ShipQueue.
      * The order of the ships in the returned list should be the order in which the ships were
      * added to the queue.
+     * <p>
+     * Adding or removing elements from the returned list does not affect the queue.
      *
      * @return ships in queue
      */
     public List<Ship> getShipQueue() {
-        return shipQueue;
+        List<Ship> ships = new ArrayList<>(size());
+        List<Iterator<QueuedShip>> iterators = new ArrayList<>(lanes.length);
+        QueuedShip[] heads = new QueuedShip[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            iterators.add(lanes[i].iterator());
+            heads[i] = iterators.get(i).hasNext() ? iterators.get(i).next() : null;
+        }
+        while (true) {
+            int earliest = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null
+                        && (earliest < 0 || heads[i].sequence < heads[earliest].sequence)) {
+                    earliest = i;
+                }
+            }
+            if (earliest < 0) {
+                return ships;
+            }
+            ships.add(heads[earliest].ship);
+            heads[earliest] = iterators.get(earliest).hasNext()
+                    ? iterators.get(earliest).next() : null;
+        }
+    }
+
+    /**
+     * Returns the priority lane the given ship waits in.
+     *
+     * @param ship ship to find the lane of
+     * @return index of the ship's lane
+     */
+    private static int laneOf(Ship ship) {
+        if (ship.getFlag() == NauticalFlag.BRAVO) {
+            return DANGEROUS_LANE;
+        } else if (ship.getFlag() == NauticalFlag.WHISKEY) {
+            return MEDICAL_LANE;
+        } else if (ship.getFlag() == NauticalFlag.HOTEL) {
+            return READY_LANE;
+        } else if (ship instanceof ContainerShip) {
+            return CONTAINER_LANE;
+        }
+        return OTHER_LANE;
     }
 
     /**
@@ -156,21 +243,33 @@ public class ShipQueue implements Encodable {
      *
      * ShipQueue:numShipsInQueue:shipID,shipID,...
      *
+     * The list of IDs is empty if no ships are waiting.
+     *
      * @return string representation of this ShipQueue
      */
     public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        StringJoiner ships = new StringJoiner(",");
-        int numShipsInQueue = getShipQueue().size();
-        encode.add(getClass().getSimpleName());
-        encode.add(Integer.toString(numShipsInQueue));
-        if (numShipsInQueue > 0) {
-            for (Ship ship : getShipQueue()) {
-                ships.add(Long.toString(ship.getImoNumber()));
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this ShipQueue to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        out.append(getClass().getSimpleName()).append(':');
+        out.append(Integer.toString(size())).append(':');
+        boolean first = true;
+        for (Ship ship : getShipQueue()) {
+            if (!first) {
+                out.append(',');
             }
-            encode.add(ships.toString());
+            out.append(Long.toString(ship.getImoNumber()));
+            first = false;
         }
-        return encode.toString();
     }
 
     /**
@@ -194,40 +293,45 @@ public class ShipQueue implements Encodable {
      * to the rules above
      */
     public static ShipQueue fromString(String string) throws BadEncodingException {
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
+
+    /**
+     * Creates a ship queue from an encoding that has already been split into fields,
+     * without copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded ShipQueue, split around colons
+     * @return decoded ship queue instance
+     * @throws BadEncodingException if the format of the encoded ShipQueue is invalid according
+     * to the rules in {@link #fromString(String)}
+     */
+    public static ShipQueue fromFields(FieldTokenizer fields) throws BadEncodingException {
 
         int numShipsInQueue;
-        String[] queueInfo = string.split(":");
-        int colonsCount = 0;
-        char temp;
         ShipQueue shipQueue = new ShipQueue();
-        for (int i = 0; i < string.length(); i++) {
-            temp = string.charAt(i);
-            if (temp == ':') {
-                colonsCount++;
-            }
-        }
-        if (colonsCount != 2) {
+        if (fields.separators() != 2) {
             throw new BadEncodingException("The number of colons (:)"
                     + " detected was more/fewer than expected.");
         }
-        if (!queueInfo[0].equals("ShipQueue")) {
+        if (!fields.equals(0, "ShipQueue")) {
             throw new BadEncodingException("The string does not start with the"
                     + " literal string \"ShipQueue\"");
         }
         try {
-            numShipsInQueue = Integer.parseInt(queueInfo[1]);
+            numShipsInQueue = fields.parseInt(1);
         } catch (NumberFormatException e) {
             throw new BadEncodingException("The number of ships in "
                     + "the shipQueue is not an integer" + e);
         }
         if (numShipsInQueue > 0) {
-            String[] shipIds = queueInfo[2].split(",");
-            if (shipIds.length != numShipsInQueue) {
+            FieldTokenizer shipIds = fields.list(2);
+            if (shipIds.count() != numShipsInQueue) {
                 throw new BadEncodingException();
             }
-            for (String id : shipIds) {
+            for (int i = 0; i < shipIds.count(); i++) {
                 try {
-                    long imoNumber = Long.parseLong(id);
+                    long imoNumber = shipIds.parseLong(i);
                     try {
                         Ship ship = Ship.getShipByImoNumber(imoNumber);
                         shipQueue.add(ship);
@@ -242,4 +346,29 @@ public class ShipQueue implements Encodable {
         }
         return shipQueue;
     }
+
+    /**
+     * A ship waiting in the queue together with its position in the arrival order.
+     */
+    private static class QueuedShip {
+        /**
+         * the waiting ship
+         */
+        private final Ship ship;
+        /**
+         * position of the ship in the order ships were added
+         */
+        private final long sequence;
+
+        /**
+         * Creates a new queue entry.
+         *
+         * @param ship the waiting ship
+         * @param sequence position of the ship in the order ships were added
+         */
+        private QueuedShip(Ship ship, long sequence) {
+            this.ship = ship;
+            this.sequence = sequence;
+        }
+    }
 }
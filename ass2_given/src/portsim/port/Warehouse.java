@@ -0,0 +1,307 @@
+package portsim.port;
+
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.util.IntKeyMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The warehouses of a port, storing cargo unloaded from trucks and ships.
+ * <p>
+ * Stored cargo is indexed by its ID, by its destination and by its type, so that looking up
+ * or removing a piece of cargo does not depend on how much cargo is stored.
+ * A piece of cargo can only be stored once. Cargo is kept in the order it was stored.
+ */
+public class Warehouse implements Iterable<Cargo> {
+    /**
+     * all stored cargo by ID, in the order it was stored
+     */
+    private final IntKeyMap<Cargo> cargoById;
+    /**
+     * stored containers by destination, then ID
+     */
+    private final Map<String, IntKeyMap<Container>> containersByDestination;
+    /**
+     * stored bulk cargo by destination, then ID
+     */
+    private final Map<String, IntKeyMap<BulkCargo>> bulkCargoByDestination;
+    /**
+     * stored containers by container type, then ID
+     */
+    private final EnumMap<ContainerType, IntKeyMap<Container>> containersByType;
+    /**
+     * stored bulk cargo by bulk cargo type, then ID
+     */
+    private final EnumMap<BulkCargoType, IntKeyMap<BulkCargo>> bulkCargoByType;
+    /**
+     * cargo stored since the changes were last cleared, in the order it was stored, or null if
+     * changes are not being tracked
+     */
+    private IntKeyMap<Cargo> added;
+    /**
+     * cargo stored when the changes were last cleared that has been removed since, or null if
+     * changes are not being tracked
+     */
+    private IntKeyMap<Cargo> removed;
+
+    /**
+     * Constructs a new, empty Warehouse.
+     */
+    public Warehouse() {
+        this.cargoById = new IntKeyMap<>();
+        this.containersByDestination = new HashMap<>();
+        this.bulkCargoByDestination = new HashMap<>();
+        this.containersByType = new EnumMap<>(ContainerType.class);
+        this.bulkCargoByType = new EnumMap<>(BulkCargoType.class);
+    }
+
+    /**
+     * Stores the given cargo in the warehouse.
+     *
+     * @param cargo cargo to store
+     * @return true if the cargo was stored, false if it was already stored
+     */
+    public boolean add(Cargo cargo) {
+        int id = cargo.getId();
+        if (cargoById.containsKey(id)) {
+            return false;
+        }
+        cargoById.put(id, cargo);
+        if (added != null) {
+            added.put(id, cargo);
+        }
+        if (cargo instanceof Container) {
+            Container container = (Container) cargo;
+            containersByDestination.computeIfAbsent(container.getDestination(),
+                    destination -> new IntKeyMap<>()).put(id, container);
+            containersByType.computeIfAbsent(container.getType(),
+                    type -> new IntKeyMap<>()).put(id, container);
+        } else if (cargo instanceof BulkCargo) {
+            BulkCargo bulkCargo = (BulkCargo) cargo;
+            bulkCargoByDestination.computeIfAbsent(bulkCargo.getDestination(),
+                    destination -> new IntKeyMap<>()).put(id, bulkCargo);
+            bulkCargoByType.computeIfAbsent(bulkCargo.getType(),
+                    type -> new IntKeyMap<>()).put(id, bulkCargo);
+        }
+        return true;
+    }
+
+    /**
+     * Stores all of the given cargo in the warehouse, in order.
+     *
+     * @param cargo cargo to store
+     */
+    public void addAll(Collection<? extends Cargo> cargo) {
+        for (Cargo piece : cargo) {
+            add(piece);
+        }
+    }
+
+    /**
+     * Removes the cargo with the given ID from the warehouse.
+     *
+     * @param id ID of the cargo to remove
+     * @return the removed cargo or null if no cargo with the ID is stored
+     */
+    public Cargo remove(int id) {
+        Cargo cargo = cargoById.remove(id);
+        if (cargo != null && added != null && added.remove(id) == null) {
+            removed.put(id, cargo);
+        }
+        if (cargo instanceof Container) {
+            Container container = (Container) cargo;
+            removeFrom(containersByDestination, container.getDestination(), id);
+            removeFrom(containersByType, container.getType(), id);
+        } else if (cargo instanceof BulkCargo) {
+            BulkCargo bulkCargo = (BulkCargo) cargo;
+            removeFrom(bulkCargoByDestination, bulkCargo.getDestination(), id);
+            removeFrom(bulkCargoByType, bulkCargo.getType(), id);
+        }
+        return cargo;
+    }
+
+    /**
+     * Returns whether cargo with the given ID is stored in the warehouse.
+     *
+     * @param id ID of the cargo
+     * @return true if the cargo is stored else false
+     */
+    public boolean contains(int id) {
+        return cargoById.containsKey(id);
+    }
+
+    /**
+     * Returns the stored cargo with the given ID.
+     *
+     * @param id ID of the cargo
+     * @return stored cargo or null if no cargo with the ID is stored
+     */
+    public Cargo get(int id) {
+        return cargoById.get(id);
+    }
+
+    /**
+     * Returns the number of pieces of cargo stored in the warehouse.
+     *
+     * @return number of stored cargo
+     */
+    public int size() {
+        return cargoById.size();
+    }
+
+    /**
+     * Returns all stored cargo in the order it was stored.
+     * <p>
+     * Adding or removing elements from the returned list does not affect the warehouse.
+     *
+     * @return stored cargo
+     */
+    public List<Cargo> getCargo() {
+        return new ArrayList<>(cargoById.values());
+    }
+
+    /**
+     * Returns the stored containers with the given destination, in the order they were stored.
+     * The returned collection is a read-only view of the warehouse.
+     *
+     * @param destination destination port
+     * @return containers for the destination
+     */
+    public Collection<Container> getContainers(String destination) {
+        return view(containersByDestination.get(destination));
+    }
+
+    /**
+     * Returns the stored bulk cargo with the given destination, in the order it was stored.
+     * The returned collection is a read-only view of the warehouse.
+     *
+     * @param destination destination port
+     * @return bulk cargo for the destination
+     */
+    public Collection<BulkCargo> getBulkCargo(String destination) {
+        return view(bulkCargoByDestination.get(destination));
+    }
+
+    /**
+     * Returns the stored containers of the given type, in the order they were stored.
+     * The returned collection is a read-only view of the warehouse.
+     *
+     * @param type container type
+     * @return containers of the type
+     */
+    public Collection<Container> getContainers(ContainerType type) {
+        return view(containersByType.get(type));
+    }
+
+    /**
+     * Returns the stored bulk cargo of the given type, in the order it was stored.
+     * The returned collection is a read-only view of the warehouse.
+     *
+     * @param type bulk cargo type
+     * @return bulk cargo of the type
+     */
+    public Collection<BulkCargo> getBulkCargo(BulkCargoType type) {
+        return view(bulkCargoByType.get(type));
+    }
+
+    /**
+     * Returns an iterator over the stored cargo in the order it was stored.
+     * The iterator does not support removal.
+     *
+     * @return iterator over stored cargo
+     */
+    @Override
+    public Iterator<Cargo> iterator() {
+        return Collections.unmodifiableCollection(cargoById.values()).iterator();
+    }
+
+    /**
+     * Starts recording the cargo stored and removed, until {@link #stopTrackingChanges()} is
+     * called. Does nothing if changes are already being tracked.
+     */
+    void trackChanges() {
+        if (added == null) {
+            added = new IntKeyMap<>();
+            removed = new IntKeyMap<>();
+        }
+    }
+
+    /**
+     * Stops recording changes and forgets those recorded.
+     */
+    void stopTrackingChanges() {
+        added = null;
+        removed = null;
+    }
+
+    /**
+     * Forgets the changes recorded so far, while continuing to track new ones.
+     */
+    void clearChanges() {
+        if (added != null) {
+            added.clear();
+            removed.clear();
+        }
+    }
+
+    /**
+     * Returns the cargo stored since the changes were last cleared and still stored, in the
+     * order it was stored. Cargo removed and stored again is stored after the rest.
+     *
+     * @return read-only view of the added cargo, empty if changes are not being tracked
+     */
+    Collection<Cargo> getAddedCargo() {
+        return view(added);
+    }
+
+    /**
+     * Returns the cargo that was stored when the changes were last cleared and has been
+     * removed since, including cargo that has been stored again.
+     *
+     * @return read-only view of the removed cargo, empty if changes are not being tracked
+     */
+    Collection<Cargo> getRemovedCargo() {
+        return view(removed);
+    }
+
+    /**
+     * Returns a read-only view of an index entry, which may not exist.
+     *
+     * @param cargo cargo in the index entry or null
+     * @param <T> type of cargo
+     * @return read-only view of the cargo
+     */
+    private static <T extends Cargo> Collection<T> view(IntKeyMap<T> cargo) {
+        return cargo == null ? Collections.emptySet()
+                : Collections.unmodifiableCollection(cargo.values());
+    }
+
+    /**
+     * Removes cargo from an index entry, dropping the entry once it is empty.
+     *
+     * @param index index to remove from
+     * @param key key of the entry
+     * @param id ID of the cargo to remove
+     * @param <K> type of key
+     * @param <T> type of cargo
+     */
+    private static <K, T extends Cargo> void removeFrom(Map<K, IntKeyMap<T>> index,
+                                                        K key, int id) {
+        IntKeyMap<T> entry = index.get(key);
+        entry.remove(id);
+        if (entry.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
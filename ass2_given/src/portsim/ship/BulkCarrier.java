@@ -8,7 +8,7 @@ import portsim.util.NoSuchCargoException;
 import portsim.util.NoSuchShipException;
 
 import java.io.File;
-import java.util.StringJoiner;
+import java.io.IOException;
 
 /**
  * Represents a ship capable of carrying bulk cargo.
@@ -114,6 +114,7 @@ public class BulkCarrier extends Ship {
      */
     public void loadCargo(Cargo cargo) {
         this.cargo = (BulkCargo) cargo;
+        cargoChanged();
     }
 
     /**
@@ -131,6 +132,7 @@ public class BulkCarrier extends Ship {
         }
         BulkCargo unload = cargo;
         cargo = null;
+        cargoChanged();
         return unload;
     }
 
@@ -144,6 +146,15 @@ public class BulkCarrier extends Ship {
         return cargo;
     }
 
+    /**
+     * Returns the maximum tonnage of bulk cargo this vessel can carry.
+     *
+     * @return tonnage capacity of the vessel
+     */
+    public int getTonnageCapacity() {
+        return tonnageCapacity;
+    }
+
     /**
      * Returns true if and only if this BulkCarrier is equal to the other given BulkCarrier.
      * For two BulkCarriers to be equal, they must have the same name, flag,
@@ -201,20 +212,23 @@ public class BulkCarrier extends Ship {
     }
 
     /**
-     * Returns the machine-readable string representation of this BulkCarrier.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this BulkCarrier to the given
+     * appendable. The format of the string to write is
      * <p>
      * BulkCarrier:imoNumber:name:origin:flag:capacity:id
+     * <p>
+     * The id is empty if the ship carries no cargo.
      *
-     * @return encoded string representation of this Ship
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(Integer.toString(this.tonnageCapacity));
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(Integer.toString(this.tonnageCapacity));
+        out.append(':');
         if (cargo != null) {
-            encode.add(Integer.toString(cargo.getId()));
+            out.append(Integer.toString(cargo.getId()));
         }
-        return encode.toString();
     }
 }
@@ -7,9 +7,9 @@ import portsim.port.ContainerQuay;
 import portsim.port.Quay;
 import portsim.util.NoSuchCargoException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringJoiner;
 
 /**
  * Represents a ship capable of carrying shipping containers.
@@ -112,6 +112,7 @@ public class ContainerShip extends Ship {
      */
     public void loadCargo(Cargo cargo) {
         this.containers.add((Container) cargo);
+        cargoChanged();
     }
 
     /**
@@ -130,6 +131,7 @@ public class ContainerShip extends Ship {
         }
         List<Container> unload = new ArrayList<>(containers);
         containers = new ArrayList<>();
+        cargoChanged();
         return unload;
     }
 
@@ -145,6 +147,36 @@ public class ContainerShip extends Ship {
         return new ArrayList<>(containers);
     }
 
+    /**
+     * Returns the container at the given position in the cargo onboard this vessel, without
+     * copying the cargo as {@link #getCargo()} does.
+     *
+     * @param index position of the container, from 0 to {@link #getNumContainers()} - 1
+     * @return container at that position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Container getContainer(int index) {
+        return containers.get(index);
+    }
+
+    /**
+     * Returns the number of containers currently onboard this vessel.
+     *
+     * @return number of containers on the vessel
+     */
+    public int getNumContainers() {
+        return containers.size();
+    }
+
+    /**
+     * Returns the maximum number of containers this vessel can carry.
+     *
+     * @return container capacity of the vessel
+     */
+    public int getContainerCapacity() {
+        return containerCapacity;
+    }
+
     /**
      * Returns true if and only if this ContainerShip is equal to the other given ContainerShip.
      * For two ContainerShips to be equal, they must have the same name, flag,
@@ -200,26 +232,29 @@ public class ContainerShip extends Ship {
     }
 
     /**
-     * Returns the machine-readable string representation of this ContainerShip.
-     * The format of the string to return is
+     * Writes the machine-readable string representation of this ContainerShip to the given
+     * appendable. The format of the string to write is
      *
      *  ContainerShip:imoNumber:name:origin:flag:capacity:cargoNum:[ID1,ID2,...]
      *
-     * @return encoded string representation of this Ship
+     * The list of IDs is empty if the ship carries no containers.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
      */
-    public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(super.encode());
-        encode.add(Integer.toString(this.containerCapacity));
-        int cargoNum = containers.size();
-        encode.add(Integer.toString(cargoNum));
-        if (cargoNum > 0) {
-            StringJoiner cargoIds = new StringJoiner(",");
-            for (Container container : containers) {
-                cargoIds.add(Integer.toString(container.getId()));
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        super.encodeTo(out);
+        out.append(':').append(Integer.toString(this.containerCapacity));
+        out.append(':').append(Integer.toString(containers.size()));
+        out.append(':');
+        boolean first = true;
+        for (Container container : containers) {
+            if (!first) {
+                out.append(',');
             }
-            encode.add(cargoIds.toString());
+            out.append(Integer.toString(container.getId()));
+            first = false;
         }
-        return encode.toString();
     }
 }
@@ -4,13 +4,14 @@ import portsim.cargo.Cargo;
 import portsim.port.Quay;
 import portsim.util.BadEncodingException;
 import portsim.util.Encodable;
+import portsim.util.FieldTokenizer;
 import portsim.util.NoSuchCargoException;
 import portsim.util.NoSuchShipException;
+import portsim.util.SimulationContext;
 
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
-import java.util.StringJoiner;
 
 /**
  * Represents a ship whose movement is managed by the system.
@@ -41,9 +42,14 @@ public abstract class Ship implements Encodable {
     private NauticalFlag flag;
 
     /**
-     * Database of all ships currently active in the simulation
+     * Simulation the ship was created in
      */
-    private static Map<Long, Ship> shipRegistry = new HashMap<>();
+    private final SimulationContext context;
+
+    /**
+     * All nautical flags, for decoding
+     */
+    private static final NauticalFlag[] FLAGS = NauticalFlag.values();
 
     /**
      * Creates a new ship with the given
@@ -76,7 +82,18 @@ public abstract class Ship implements Encodable {
         this.name = name;
         this.originFlag = originFlag;
         this.flag = flag;
-        getShipRegistry().put(imoNumber, this);
+        this.context = SimulationContext.current();
+        this.context.getShipRegistry().put(imoNumber, this);
+        this.context.shipChanged(this);
+    }
+
+    /**
+     * Records that the cargo on board this ship has changed, for saving only what has changed
+     * (see {@link SimulationContext#trackChanges()}). Subclasses should call this whenever
+     * they load or unload cargo.
+     */
+    protected void cargoChanged() {
+        context.shipChanged(this);
     }
 
     /**
@@ -86,7 +103,7 @@ public abstract class Ship implements Encodable {
      * @return true if there is a ship with key imoNumber else false
      */
     public static boolean shipExists(long imoNumber) {
-        return shipRegistry.containsKey(imoNumber);
+        return SimulationContext.current().getShipRegistry().containsKey(imoNumber);
     }
 
     /**
@@ -97,14 +114,11 @@ public abstract class Ship implements Encodable {
      * @throws NoSuchShipException if the ship does not exist
      */
     public static Ship getShipByImoNumber(long imoNumber) throws NoSuchShipException {
-        if (shipExists(imoNumber)) {
-            try {
-                return shipRegistry.get(imoNumber);
-            } catch (NullPointerException e) {
-                throw new NoSuchShipException(e);
-            }
+        Ship ship = SimulationContext.current().getShipRegistry().get(imoNumber);
+        if (ship == null) {
+            throw new NoSuchShipException("the ship does not exist");
         }
-        throw new NoSuchShipException("the ship does not exist");
+        return ship;
     }
 
 
@@ -179,14 +193,15 @@ public abstract class Ship implements Encodable {
     }
 
     /**
-     * Returns the database of ships currently active in the simulation as a mapping from
-     * the ship's IMO number to its Ship instance.
+     * Returns the database of ships currently active in the current simulation (see
+     * {@link SimulationContext#current()}) as a mapping from the ship's IMO number to its
+     * Ship instance.
      * Adding or removing elements from the returned map should not affect the original map.
      *
      * @return ship registry database
      */
     public static Map<Long, Ship> getShipRegistry() {
-        return shipRegistry;
+        return SimulationContext.current().getShipRegistry();
     }
 
     /**
@@ -255,13 +270,23 @@ public abstract class Ship implements Encodable {
      * @return encoded string representation of this Ship
      */
     public String encode() {
-        StringJoiner encode = new StringJoiner(":");
-        encode.add(getClass().getSimpleName());
-        encode.add(Long.toString(getImoNumber()));
-        encode.add(getName());
-        encode.add(getOriginFlag());
-        encode.add(getFlag().toString());
-        return encode.toString();
+        return Encodable.encodeToString(this);
+    }
+
+    /**
+     * Writes the machine-readable string representation of this Ship to the given
+     * appendable, in the format described in {@link #encode()}.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    @Override
+    public void encodeTo(Appendable out) throws IOException {
+        out.append(getClass().getSimpleName()).append(':');
+        out.append(Long.toString(getImoNumber())).append(':');
+        out.append(getName()).append(':');
+        out.append(getOriginFlag()).append(':');
+        out.append(getFlag().toString());
     }
 
     /**
@@ -284,21 +309,35 @@ public abstract class Ship implements Encodable {
      * 8. Any of the parsed values given to a subclass constructor causes
      *          an IllegalArgumentException.
      *
+     * A BulkCarrier whose cargo ID is empty is read as carrying no cargo.
+     *
      * @param string string containing the encoded Ship
      * @return decoded ship instance
      * @throws BadEncodingException if the format of the given string is invalid
      *          according to the rules above
      */
     public static Ship fromString(String string) throws BadEncodingException {
-        String[] shipInfo = string.split(":");
+        return fromFields(new FieldTokenizer(':').reset(string));
+    }
 
+    /**
+     * Reads a Ship from an encoded representation that has already been split into fields,
+     * without copying the fields.
+     * The encoding is invalid under the same rules as for {@link #fromString(String)}.
+     *
+     * @param fields the encoded Ship, split around colons
+     * @return decoded ship instance
+     * @throws BadEncodingException if the format of the encoded Ship is invalid
+     *          according to the rules in {@link #fromString(String)}
+     */
+    public static Ship fromFields(FieldTokenizer fields) throws BadEncodingException {
         Ship ship;
         long imoNumber;
         NauticalFlag flag;
         int capacity;
-        if (shipInfo.length > 6) {
+        if (fields.count() > 5) {
             try {
-                imoNumber = Long.parseLong(shipInfo[1]);
+                imoNumber = fields.parseLong(1);
                 if (imoNumber < 1) {
                     throw new BadEncodingException("The ship's IMO number is less than one (1)");
                 }
@@ -307,13 +346,13 @@ public abstract class Ship implements Encodable {
             }
 
             try {
-                flag = NauticalFlag.valueOf(shipInfo[4]);
+                flag = fields.parseEnum(4, FLAGS);
             } catch (IllegalArgumentException e) {
                 throw new BadEncodingException(e);
             }
 
             try {
-                capacity = Integer.parseInt(shipInfo[5]);
+                capacity = fields.parseInt(5);
             } catch (IllegalArgumentException e) {
                 throw new BadEncodingException(e);
             }
@@ -322,29 +361,21 @@ public abstract class Ship implements Encodable {
             throw new BadEncodingException(" The number of colons (:)"
                     + " detected was more/fewer than expected");
         }
-        int colonsCount = 0;
-        char temp;
-        for (int i = 0; i < string.length(); i++) {
-            temp = string.charAt(i);
-            if (temp == ':') {
-                colonsCount++;
-            }
-        }
-
+        int colonsCount = fields.separators();
 
-        if (shipInfo[0].equals("ContainerShip")) {
+        if (fields.equals(0, "ContainerShip")) {
             if (colonsCount != 7) {
                 throw new BadEncodingException(" The number of colons (:)"
                         + " detected was more/fewer than expected");
             }
             try {
-                int cargoNum = Integer.parseInt(shipInfo[6]);
-                ship = new ContainerShip(imoNumber, shipInfo[2], shipInfo[3], flag, capacity);
+                int cargoNum = fields.parseInt(6);
+                ship = new ContainerShip(imoNumber, fields.get(2), fields.get(3), flag, capacity);
                 if (cargoNum > 0) {
-                    String[] cargos = shipInfo[7].split(",");
-                    for (String cargoIdStr : cargos) {
+                    FieldTokenizer cargoIds = fields.list(7);
+                    for (int i = 0; i < cargoIds.count(); i++) {
                         try {
-                            int cargoId = Integer.parseInt(cargoIdStr);
+                            int cargoId = cargoIds.parseInt(i);
                             if (Cargo.cargoExists(cargoId)) {
                                 Cargo cargo = Cargo.getCargoById(cargoId);
                                 if (ship.canLoad(cargo)) {
@@ -366,17 +397,20 @@ public abstract class Ship implements Encodable {
             }
 
 
-        } else if (shipInfo[0].equals("BulkCarrier")) {
+        } else if (fields.equals(0, "BulkCarrier")) {
 
             if (colonsCount != 6) {
                 throw new BadEncodingException(" The number of colons (:)"
                         + " detected was more/fewer than expected");
             }
             try {
-                ship = new BulkCarrier(imoNumber, shipInfo[2], shipInfo[3], flag, capacity);
+                ship = new BulkCarrier(imoNumber, fields.get(2), fields.get(3), flag, capacity);
                 int cargoId;
                 try {
-                    cargoId = Integer.parseInt(shipInfo[6]);
+                    if (fields.end(6) == fields.start(6)) {
+                        return ship;
+                    }
+                    cargoId = fields.parseInt(6);
                     if (Cargo.cargoExists(cargoId)) {
                         Cargo cargo = Cargo.getCargoById(cargoId);
                         if (ship.canLoad(cargo)) {
@@ -401,13 +435,13 @@ public abstract class Ship implements Encodable {
     }
 
     /**
-     * Resets the global ship registry.
+     * Resets the ship registry of the current simulation.
      * This utility method is for the testing suite.
      *
      * @given
      */
     public static void resetShipRegistry() {
-        Ship.shipRegistry = new HashMap<>();
+        SimulationContext.current().resetShipRegistry();
     }
 
 }
@@ -0,0 +1,285 @@
+package portsim.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip file written by {@link BlockGzipOutputStream}, several blocks at a time.
+ * <p>
+ * The blocks are read in order and handed to a pool of threads to decompress, keeping a few
+ * blocks per thread in flight, and their bytes are returned in order. The memory used depends
+ * on the number of threads, not on the size of the file. The checksum and size of every block
+ * are checked.
+ *
+ * @see BlockGzipOutputStream
+ */
+public class BlockGzipInputStream extends InputStream {
+    /**
+     * number of blocks in flight for each thread of the pool
+     */
+    private static final int BLOCKS_PER_THREAD = 2;
+
+    /**
+     * stream the members are read from
+     */
+    private final InputStream in;
+    /**
+     * pool decompressing the blocks
+     */
+    private final ExecutorService pool;
+    /**
+     * largest number of blocks being decompressed at once
+     */
+    private final int window;
+    /**
+     * blocks being decompressed, in file order
+     */
+    private final ArrayDeque<Future<byte[]>> pending;
+    /**
+     * header of the member being read
+     */
+    private final byte[] header;
+    /**
+     * uncompressed bytes of the block being returned
+     */
+    private byte[] block;
+    /**
+     * position of the next byte to return in the block
+     */
+    private int position;
+    /**
+     * whether every member has been read from the underlying stream
+     */
+    private boolean end;
+
+    /**
+     * Creates a stream decompressing on the common fork/join pool.
+     *
+     * @param in stream to read the compressed file from
+     */
+    public BlockGzipInputStream(InputStream in) {
+        this(in, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Creates a stream decompressing on the given pool.
+     *
+     * @param in stream to read the compressed file from
+     * @param pool pool to decompress the blocks on
+     * @param parallelism number of threads of the pool to use
+     * @throws IllegalArgumentException if parallelism &lt; 1
+     */
+    public BlockGzipInputStream(InputStream in, ExecutorService pool, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: "
+                    + parallelism);
+        }
+        this.in = in;
+        this.pool = pool;
+        this.window = parallelism * BLOCKS_PER_THREAD;
+        this.pending = new ArrayDeque<>(window);
+        this.header = new byte[BlockGzipOutputStream.HEADER_SIZE];
+        this.block = new byte[0];
+    }
+
+    /**
+     * Returns whether the given bytes start a member written by
+     * {@link BlockGzipOutputStream}.
+     *
+     * @param bytes first bytes of a file
+     * @param length number of bytes, which may be fewer than a header
+     * @return true if the bytes are the header of a block else false
+     */
+    public static boolean isBlockHeader(byte[] bytes, int length) {
+        return length >= BlockGzipOutputStream.HEADER_SIZE
+                && bytes[0] == 0x1f && bytes[1] == (byte) 0x8b
+                && bytes[2] == 8 && (bytes[3] & 4) != 0
+                && getShort(bytes, 10) >= 8
+                && bytes[12] == 'P' && bytes[13] == 'B' && getShort(bytes, 14) == 4;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return block.length - position;
+    }
+
+    /**
+     * Stops decompressing and closes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        end = true;
+        in.close();
+    }
+
+    /**
+     * Makes sure there are bytes left in the current block, moving to the next block that
+     * has any if needed.
+     *
+     * @return true if there are bytes to return, false at the end of the file
+     * @throws IOException if an I/O error occurs or the file is not valid
+     */
+    private boolean fill() throws IOException {
+        while (position == block.length) {
+            while (!end && pending.size() < window) {
+                submitNext();
+            }
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            try {
+                block = next.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted decompressing a block");
+            } catch (ExecutionException e) {
+                // fork/join pools wrap the checked exceptions of tasks in runtime exceptions
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                throw new IOException(e.getCause());
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next member and hands its block to the pool to decompress.
+     *
+     * @throws IOException if an I/O error occurs or the member is not valid
+     */
+    private void submitNext() throws IOException {
+        int read = in.readNBytes(header, 0, header.length);
+        if (read == 0) {
+            end = true;
+            return;
+        }
+        if (read < header.length) {
+            throw new EOFException("Unexpected end of block gzip file");
+        }
+        if (!isBlockHeader(header, read)) {
+            throw new ZipException("Not a block of a block gzip file");
+        }
+        int extra = getShort(header, 10) - 8;
+        int size = getInt(header, 16);
+        int dataSize = size - header.length - extra - BlockGzipOutputStream.TRAILER_SIZE;
+        if (dataSize < 0 || extra < 0) {
+            throw new ZipException("Invalid block size: " + size);
+        }
+        if (in.readNBytes(extra).length != extra) {
+            throw new EOFException("Unexpected end of block gzip file");
+        }
+        byte[] member = in.readNBytes(dataSize + BlockGzipOutputStream.TRAILER_SIZE);
+        if (member.length != dataSize + BlockGzipOutputStream.TRAILER_SIZE) {
+            throw new EOFException("Unexpected end of block gzip file");
+        }
+        pending.add(pool.submit(() -> inflate(member, dataSize)));
+    }
+
+    /**
+     * Decompresses a block and checks it against the member's trailer.
+     *
+     * @param member compressed block followed by the trailer
+     * @param dataSize size of the compressed block
+     * @return uncompressed block
+     * @throws ZipException if the block is not valid
+     */
+    private static byte[] inflate(byte[] member, int dataSize) throws ZipException {
+        int expectedCrc = getInt(member, dataSize);
+        int uncompressedSize = getInt(member, dataSize + Integer.BYTES);
+        if (uncompressedSize < 0 || uncompressedSize > BlockGzipOutputStream.BLOCK_SIZE) {
+            throw new ZipException("Invalid uncompressed block size: " + uncompressedSize);
+        }
+        byte[] block = new byte[uncompressedSize];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, 0, dataSize);
+            int n = 0;
+            while (n < block.length && !inflater.finished()) {
+                int inflated = inflater.inflate(block, n, block.length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != block.length) {
+                throw new ZipException("Block is shorter than its recorded size");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(block);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new ZipException("Corrupt block: checksum does not match");
+        }
+        return block;
+    }
+
+    /**
+     * Gets a little-endian unsigned short from an array.
+     *
+     * @param bytes array to get it from
+     * @param offset offset of the first byte
+     * @return value
+     */
+    private static int getShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    /**
+     * Gets a little-endian int from an array.
+     *
+     * @param bytes array to get it from
+     * @param offset offset of the first byte
+     * @return value
+     */
+    private static int getInt(byte[] bytes, int offset) {
+        return getShort(bytes, offset) | getShort(bytes, offset + 2) << 16;
+    }
+}
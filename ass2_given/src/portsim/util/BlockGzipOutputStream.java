@@ -0,0 +1,212 @@
+package portsim.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses data into a gzip file made of independently compressed blocks.
+ * <p>
+ * Each block of up to {@link #BLOCK_SIZE} bytes is written as a complete gzip member, so the
+ * file is an ordinary multi-member gzip file that any gzip tool or
+ * {@link java.util.zip.GZIPInputStream} can read. The header of every member has an extra
+ * field with subfield ID {@code PB} holding the size of the whole member in bytes (a
+ * little-endian int), which lets {@link BlockGzipInputStream} find the blocks without
+ * decompressing them and decompress several at once.
+ *
+ * @see BlockGzipInputStream
+ */
+public class BlockGzipOutputStream extends OutputStream {
+    /**
+     * largest number of uncompressed bytes in a block
+     */
+    public static final int BLOCK_SIZE = 1 << 20;
+    /**
+     * size of a member's header, including the extra field
+     */
+    static final int HEADER_SIZE = 20;
+    /**
+     * size of a member's trailer, the CRC-32 and size of the uncompressed block
+     */
+    static final int TRAILER_SIZE = 8;
+
+    /**
+     * stream the members are written to
+     */
+    private final OutputStream out;
+    /**
+     * compressor of the blocks, producing raw deflate data
+     */
+    private final Deflater deflater;
+    /**
+     * checksum of the block being written
+     */
+    private final CRC32 crc;
+    /**
+     * uncompressed bytes of the block being written
+     */
+    private final byte[] block;
+    /**
+     * the member being written: header, compressed block and trailer
+     */
+    private byte[] member;
+    /**
+     * number of bytes in the block being written
+     */
+    private int count;
+    /**
+     * whether any member has been written
+     */
+    private boolean written;
+    /**
+     * whether the stream has been closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates a stream compressing at the default compression level.
+     *
+     * @param out stream to write the compressed file to
+     */
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a stream compressing at the given level.
+     *
+     * @param out stream to write the compressed file to
+     * @param level compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IllegalArgumentException if the compression level is invalid
+     */
+    public BlockGzipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.deflater = new Deflater(level, true);
+        this.crc = new CRC32();
+        this.block = new byte[BLOCK_SIZE];
+        this.member = new byte[HEADER_SIZE + BLOCK_SIZE + BLOCK_SIZE / 8 + TRAILER_SIZE];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(len, block.length - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the complete blocks and flushes the underlying stream. The bytes of a partly
+     * filled block are kept, so that flushing does not make the blocks smaller.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count == block.length) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the last block and closes the underlying stream. An empty stream is written as
+     * a single empty member, so the file is still valid gzip.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (count > 0 || !written) {
+                writeBlock();
+            }
+            out.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses the block being written and writes it as a gzip member.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block, 0, count);
+        deflater.finish();
+        int size = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (size == member.length - TRAILER_SIZE) {
+                member = Arrays.copyOf(member, member.length * 2);
+            }
+            size += deflater.deflate(member, size, member.length - TRAILER_SIZE - size);
+        }
+        crc.reset();
+        crc.update(block, 0, count);
+        size += TRAILER_SIZE;
+
+        member[0] = 0x1f;
+        member[1] = (byte) 0x8b;
+        member[2] = Deflater.DEFLATED;
+        member[3] = 4; // FEXTRA
+        putInt(member, 4, 0); // no modification time
+        member[8] = 0;
+        member[9] = (byte) 255; // unknown operating system
+        putShort(member, 10, 8);
+        member[12] = 'P';
+        member[13] = 'B';
+        putShort(member, 14, 4);
+        putInt(member, 16, size);
+        putInt(member, size - TRAILER_SIZE, (int) crc.getValue());
+        putInt(member, size - Integer.BYTES, count);
+        out.write(member, 0, size);
+        count = 0;
+        written = true;
+    }
+
+    /**
+     * Puts a little-endian short into an array.
+     *
+     * @param bytes array to put it in
+     * @param offset offset of the first byte
+     * @param value value to put
+     */
+    private static void putShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    /**
+     * Puts a little-endian int into an array.
+     *
+     * @param bytes array to put it in
+     * @param offset offset of the first byte
+     * @param value value to put
+     */
+    private static void putInt(byte[] bytes, int offset, int value) {
+        putShort(bytes, offset, value);
+        putShort(bytes, offset + 2, value >>> 16);
+    }
+}
@@ -1,5 +1,8 @@
 package portsim.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * A type that can be encoded to a machine-readable string
  * representation, useful for saving objects to files.
@@ -12,4 +15,35 @@ public interface Encodable {
      */
     String encode();
 
+    /**
+     * Writes the String representation of the current state of this object to the given
+     * appendable, in the same format as {@link #encode()}.
+     * <p>
+     * Types that write their encoding piece by piece should override this method, so that
+     * large objects can be saved without building their whole encoding in memory first.
+     *
+     * @param out appendable to write the encoding to
+     * @throws IOException if an IOException occurs when writing to the appendable
+     */
+    default void encodeTo(Appendable out) throws IOException {
+        out.append(encode());
+    }
+
+    /**
+     * Returns the encoding written by {@link #encodeTo(Appendable)} as a string.
+     * Useful for implementing {@link #encode()} in terms of {@link #encodeTo(Appendable)}.
+     *
+     * @param encodable object to encode
+     * @return encoded String representation
+     */
+    static String encodeToString(Encodable encodable) {
+        StringBuilder encode = new StringBuilder();
+        try {
+            encodable.encodeTo(encode);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return encode.toString();
+    }
 }
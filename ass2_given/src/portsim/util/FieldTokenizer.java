@@ -0,0 +1,257 @@
+package portsim.util;
+
+import java.util.Arrays;
+
+/**
+ * Splits a line of an encoded save into fields around a separator character, without copying
+ * the line or creating a string per field.
+ * <p>
+ * A tokenizer is reset to a new piece of text with {@link #reset(CharSequence)}, which finds
+ * every field in a single pass. Fields are then read in place with the {@code parse} methods,
+ * which behave exactly like {@link Integer#parseInt(String)}, {@link Long#parseLong(String)}
+ * and {@link Enum#valueOf(Class, String)} on the field's text. Only {@link #get(int)} creates
+ * a string.
+ * <p>
+ * Fields are numbered the same way as the elements of the array returned by
+ * {@link String#split(String)} for the separator: trailing empty fields are not counted,
+ * and a field past the last counted field reads as the empty string.
+ * <p>
+ * A tokenizer keeps referring to the text it was reset to, which must not change while the
+ * tokenizer is in use. Tokenizers are reusable but not thread safe.
+ */
+public class FieldTokenizer {
+    /**
+     * character fields are separated by
+     */
+    private final char separator;
+    /**
+     * text being tokenized
+     */
+    private CharSequence text;
+    /**
+     * start of each field in the text, inclusive
+     */
+    private int[] starts;
+    /**
+     * end of each field in the text, exclusive
+     */
+    private int[] ends;
+    /**
+     * number of fields, not counting trailing empty fields
+     */
+    private int count;
+    /**
+     * number of separators in the text
+     */
+    private int separators;
+    /**
+     * tokenizer for the comma separated lists inside fields, created when first needed
+     */
+    private FieldTokenizer list;
+
+    /**
+     * Creates a tokenizer splitting around the given separator.
+     *
+     * @param separator character fields are separated by
+     */
+    public FieldTokenizer(char separator) {
+        this.separator = separator;
+        this.text = "";
+        this.starts = new int[8];
+        this.ends = new int[8];
+    }
+
+    /**
+     * Splits the given text into fields.
+     *
+     * @param text text to tokenize
+     * @return this tokenizer
+     */
+    public FieldTokenizer reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    /**
+     * Splits the given part of the text into fields.
+     *
+     * @param text text to tokenize
+     * @param start start of the part to tokenize, inclusive
+     * @param end end of the part to tokenize, exclusive
+     * @return this tokenizer
+     */
+    public FieldTokenizer reset(CharSequence text, int start, int end) {
+        this.text = text;
+        int fields = 0;
+        int fieldStart = start;
+        int lastNonEmpty = 0;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == separator) {
+                fields = addField(fields, fieldStart, i);
+                if (i > fieldStart) {
+                    lastNonEmpty = fields;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        fields = addField(fields, fieldStart, end);
+        if (end > fieldStart) {
+            lastNonEmpty = fields;
+        }
+        this.separators = fields - 1;
+        // like String.split, text without separators is a single field even if it is empty
+        this.count = separators == 0 ? 1 : lastNonEmpty;
+        return this;
+    }
+
+    /**
+     * Records the bounds of a field.
+     *
+     * @param fields number of fields recorded so far
+     * @param start start of the field
+     * @param end end of the field
+     * @return number of fields recorded
+     */
+    private int addField(int fields, int start, int end) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = end;
+        return fields + 1;
+    }
+
+    /**
+     * Returns the number of fields, not counting trailing empty fields.
+     *
+     * @return number of fields
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of separator characters in the text.
+     *
+     * @return number of separators
+     */
+    public int separators() {
+        return separators;
+    }
+
+    /**
+     * Returns the text being tokenized.
+     *
+     * @return tokenized text
+     */
+    public CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Returns the start of the given field in the text.
+     *
+     * @param field number of the field
+     * @return start of the field, inclusive
+     */
+    public int start(int field) {
+        return field < count ? starts[field] : 0;
+    }
+
+    /**
+     * Returns the end of the given field in the text.
+     *
+     * @param field number of the field
+     * @return end of the field, exclusive
+     */
+    public int end(int field) {
+        return field < count ? ends[field] : 0;
+    }
+
+    /**
+     * Splits the given field into a comma separated list. The returned tokenizer belongs to
+     * this tokenizer and is reset by the next call to this method.
+     *
+     * @param field number of the field
+     * @return tokenizer over the elements of the list
+     */
+    public FieldTokenizer list(int field) {
+        if (list == null) {
+            list = new FieldTokenizer(',');
+        }
+        return list.reset(text, start(field), end(field));
+    }
+
+    /**
+     * Returns whether the given field is exactly the given string.
+     *
+     * @param field number of the field
+     * @param string string to compare to
+     * @return true if the field equals the string else false
+     */
+    public boolean equals(int field, String string) {
+        int start = start(field);
+        int length = end(field) - start;
+        if (length != string.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the given field as a string.
+     *
+     * @param field number of the field
+     * @return text of the field
+     */
+    public String get(int field) {
+        return text.subSequence(start(field), end(field)).toString();
+    }
+
+    /**
+     * Parses the given field as a decimal int, exactly like {@link Integer#parseInt(String)}.
+     *
+     * @param field number of the field
+     * @return parsed value
+     * @throws NumberFormatException if the field is not a parsable int
+     */
+    public int parseInt(int field) throws NumberFormatException {
+        return Integer.parseInt(text, start(field), end(field), 10);
+    }
+
+    /**
+     * Parses the given field as a decimal long, exactly like {@link Long#parseLong(String)}.
+     *
+     * @param field number of the field
+     * @return parsed value
+     * @throws NumberFormatException if the field is not a parsable long
+     */
+    public long parseLong(int field) throws NumberFormatException {
+        return Long.parseLong(text, start(field), end(field), 10);
+    }
+
+    /**
+     * Returns the enum constant named by the given field, exactly like
+     * {@link Enum#valueOf(Class, String)}.
+     *
+     * @param field number of the field
+     * @param constants all constants of the enum type
+     * @param <E> enum type
+     * @return constant with the name of the field
+     * @throws IllegalArgumentException if no constant has the name of the field
+     */
+    public <E extends Enum<E>> E parseEnum(int field, E[] constants)
+            throws IllegalArgumentException {
+        for (E constant : constants) {
+            if (equals(field, constant.name())) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + get(field));
+    }
+}
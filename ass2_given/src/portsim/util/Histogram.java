@@ -0,0 +1,190 @@
+package portsim.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values, such as durations in nanoseconds, with fixed
+ * power-of-two buckets.
+ * <p>
+ * Bucket 0 counts the value 0 and bucket {@code b} &gt; 0 counts the values from
+ * {@code 2^(b-1)} to {@code 2^b - 1}, so 64 buckets cover every non-negative long. Recording
+ * a value updates a few atomic counters and allocates nothing, and values may be recorded
+ * from several threads at once without locking. Values read while others are being recorded
+ * may not include all of them.
+ */
+public final class Histogram {
+    /**
+     * number of buckets
+     */
+    public static final int BUCKETS = Long.SIZE;
+
+    /**
+     * number of values recorded in each bucket
+     */
+    private final AtomicLongArray buckets;
+    /**
+     * number of values recorded
+     */
+    private final AtomicLong count;
+    /**
+     * sum of the values recorded
+     */
+    private final AtomicLong sum;
+    /**
+     * largest value recorded
+     */
+    private final AtomicLong max;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public Histogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        buckets.incrementAndGet(bucketOf(recorded));
+        count.incrementAndGet();
+        sum.addAndGet(recorded);
+        long current = max.get();
+        while (recorded > current && !max.compareAndSet(current, recorded)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the bucket counting the given value.
+     *
+     * @param value non-negative value
+     * @return bucket index from 0 to {@link #BUCKETS} - 1
+     */
+    public static int bucketOf(long value) {
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+    }
+
+    /**
+     * Returns the largest value counted by the given bucket.
+     *
+     * @param bucket bucket index
+     * @return upper bound of the bucket
+     * @throws IndexOutOfBoundsException if the bucket index is out of range
+     */
+    public static long upperBound(int bucket) {
+        if (bucket < 0 || bucket >= BUCKETS) {
+            throw new IndexOutOfBoundsException("No such bucket: " + bucket);
+        }
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * Returns the number of values recorded in the given bucket.
+     *
+     * @param bucket bucket index
+     * @return number of values in the bucket
+     * @throws IndexOutOfBoundsException if the bucket index is out of range
+     */
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return number of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     *
+     * @return sum of values
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return largest value, or 0 if none have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return mean value, or 0 if none have been recorded
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the values recorded: the upper bound
+     * of the bucket holding that percentile, or the largest value if it is smaller.
+     *
+     * @param percentile percentile from 0 to 100
+     * @return upper bound on the percentile, or 0 if no values have been recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: "
+                    + percentile);
+        }
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every value recorded.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets.set(bucket, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the human-readable string representation of this histogram.
+     * <p>
+     * The format of the string to return is
+     * <pre>count=n mean=m p50=a p99=b max=c</pre>
+     *
+     * @return string representation of this histogram
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d", getCount(), getMean(),
+                getPercentile(50), getPercentile(99), getMax());
+    }
+}
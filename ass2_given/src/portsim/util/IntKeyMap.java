@@ -0,0 +1,434 @@
+package portsim.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Map from {@code int} keys to non-null values that does not box its keys.
+ * <p>
+ * Entries are stored in insertion order in parallel arrays. While every key is a small
+ * non-negative number the map is in <em>dense</em> mode and finds an entry by indexing an array
+ * with the key directly. As soon as a key is added that is negative or much larger than the
+ * number of entries, the map switches to an open-addressing hash table with linear probing
+ * for the rest of its life (or until it is cleared).
+ * <p>
+ * The primitive methods {@link #get(int)}, {@link #containsKey(int)}, {@link #put(int, Object)}
+ * and {@link #remove(int)} do not allocate. The {@link Map} methods box keys as usual.
+ * Iteration visits entries in the order they were first added.
+ *
+ * @param <V> type of values
+ */
+public class IntKeyMap<V> extends AbstractMap<Integer, V> {
+    /**
+     * smallest capacity of the entry arrays and the lookup table
+     */
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * a key fits the dense lookup table while it is less than this many times the number
+     * of entries (or {@link #MIN_CAPACITY})
+     */
+    private static final int DENSE_FACTOR = 4;
+    /**
+     * marker in the lookup table for a free slot
+     */
+    private static final int FREE = -1;
+
+    /**
+     * keys of the entries in insertion order
+     */
+    private int[] keys;
+    /**
+     * values of the entries in insertion order, null for removed entries
+     */
+    private Object[] values;
+    /**
+     * number of used places in the entry arrays, including removed entries
+     */
+    private int used;
+    /**
+     * number of entries in the map
+     */
+    private int size;
+    /**
+     * lookup table from key to position in the entry arrays, indexed by the key itself in
+     * dense mode or by the hash of the key otherwise
+     */
+    private int[] table;
+    /**
+     * whether the lookup table is indexed by key
+     */
+    private boolean dense;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public IntKeyMap() {
+        clear();
+    }
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key key to look up
+     * @return value for the key or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Returns whether the map contains the given key.
+     *
+     * @param key key to look up
+     * @return true if the key is in the map else false
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any previous value.
+     *
+     * @param key key to store the value under
+     * @param value value to store, not null
+     * @return previous value for the key or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            growEntries();
+        }
+        keys[used] = key;
+        values[used] = value;
+        size++;
+        link(key, used++);
+        return null;
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key key to remove
+     * @return removed value or null if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        unlink(key);
+        values[index] = null;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey((int) (Integer) key);
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get((int) (Integer) key) : null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put((int) key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove((int) (Integer) key) : null;
+    }
+
+    @Override
+    public void clear() {
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        used = 0;
+        size = 0;
+        table = new int[MIN_CAPACITY];
+        Arrays.fill(table, FREE);
+        dense = true;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns a view of the values in insertion order. Iterating over the view does not
+     * create an entry per value.
+     *
+     * @return values of the map
+     */
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the position of the entry for the given key in the entry arrays.
+     *
+     * @param key key to look up
+     * @return position of the entry or -1 if the key is not in the map
+     */
+    private int indexOf(int key) {
+        if (dense) {
+            return key >= 0 && key < table.length ? table[key] : FREE;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; table[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[table[slot]] == key) {
+                return table[slot];
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * Adds a new entry to the lookup table.
+     *
+     * @param key key of the entry
+     * @param index position of the entry in the entry arrays
+     */
+    private void link(int key, int index) {
+        if (dense) {
+            if (key >= 0 && key < table.length) {
+                table[key] = index;
+                return;
+            }
+            if (key >= 0 && key < DENSE_FACTOR * Math.max(size, MIN_CAPACITY)) {
+                int length = Math.max(key + 1, table.length * 2);
+                int oldLength = table.length;
+                table = Arrays.copyOf(table, length);
+                Arrays.fill(table, oldLength, length, FREE);
+                table[key] = index;
+                return;
+            }
+            dense = false;
+            rebuildTable();
+            return;
+        }
+        if (2 * size > table.length) {
+            rebuildTable();
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index;
+    }
+
+    /**
+     * Removes the entry for the given key, which is in the map, from the lookup table.
+     *
+     * @param key key of the entry
+     */
+    private void unlink(int key) {
+        if (dense) {
+            table[key] = FREE;
+            return;
+        }
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[table[slot]] != key) {
+            slot = (slot + 1) & mask;
+        }
+        // shift later entries of the probe sequence back so that no lookup stops early
+        int free = slot;
+        for (slot = (slot + 1) & mask; table[slot] != FREE; slot = (slot + 1) & mask) {
+            int home = hash(keys[table[slot]]) & mask;
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                table[free] = table[slot];
+                free = slot;
+            }
+        }
+        table[free] = FREE;
+    }
+
+    /**
+     * Makes room in the entry arrays, dropping removed entries if there are enough of them.
+     */
+    private void growEntries() {
+        if (size < used / 2) {
+            int next = 0;
+            for (int i = 0; i < used; i++) {
+                if (values[i] != null) {
+                    keys[next] = keys[i];
+                    values[next++] = values[i];
+                }
+            }
+            Arrays.fill(values, next, used, null);
+            used = next;
+        } else {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        rebuildTable();
+    }
+
+    /**
+     * Builds the lookup table again from the entry arrays.
+     */
+    private void rebuildTable() {
+        int length;
+        if (dense) {
+            length = table.length;
+        } else {
+            length = MIN_CAPACITY;
+            while (length < 4 * size) {
+                length *= 2;
+            }
+        }
+        table = new int[length];
+        Arrays.fill(table, FREE);
+        int mask = length - 1;
+        for (int i = 0; i < used; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            if (dense) {
+                table[keys[i]] = i;
+                continue;
+            }
+            int slot = hash(keys[i]) & mask;
+            while (table[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+        }
+    }
+
+    /**
+     * Spreads the bits of a key so that consecutive keys do not form long probe sequences.
+     *
+     * @param key key to hash
+     * @return hash of the key
+     */
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Iterator over the positions of the entries in insertion order.
+     */
+    private abstract class PositionIterator {
+        /**
+         * position of the next entry to return
+         */
+        private int next = 0;
+        /**
+         * position of the entry last returned, if it may still be removed
+         */
+        private int last = FREE;
+
+        /**
+         * Returns whether there are more entries.
+         *
+         * @return true if there is another entry else false
+         */
+        public boolean hasNext() {
+            while (next < used && values[next] == null) {
+                next++;
+            }
+            return next < used;
+        }
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return position of the entry
+         */
+        int nextPosition() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return last;
+        }
+
+        /**
+         * Removes the entry last returned from the map.
+         */
+        public void remove() {
+            if (last == FREE || values[last] == null) {
+                throw new IllegalStateException();
+            }
+            IntKeyMap.this.remove(keys[last]);
+            last = FREE;
+        }
+    }
+
+    /**
+     * Iterator over the entries in insertion order.
+     */
+    private class EntryIterator extends PositionIterator implements Iterator<Entry<Integer, V>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<Integer, V> next() {
+            int index = nextPosition();
+            return new SimpleImmutableEntry<>(keys[index], (V) values[index]);
+        }
+    }
+
+    /**
+     * Iterator over the values in insertion order.
+     */
+    private class ValueIterator extends PositionIterator implements Iterator<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V) values[nextPosition()];
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package portsim.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reads lines from a reader into a reusable buffer, without creating a string per line.
+ * <p>
+ * Lines are terminated the same way as for {@link java.io.BufferedReader#readLine()}: by a line
+ * feed, a carriage return, or a carriage return followed by a line feed. The line returned by
+ * {@link #readLine()} is a view of the buffer that is only valid until the next call.
+ */
+public class LineReader {
+    /**
+     * initial size of the buffer, in characters
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * reader lines are read from
+     */
+    private final Reader reader;
+    /**
+     * characters read from the reader
+     */
+    private char[] buffer;
+    /**
+     * view of the current line in the buffer
+     */
+    private CharBuffer line;
+    /**
+     * position of the next unread character in the buffer
+     */
+    private int position;
+    /**
+     * number of characters in the buffer
+     */
+    private int limit;
+    /**
+     * whether the last line ended with a carriage return, so a line feed after it is skipped
+     */
+    private boolean skipLineFeed;
+    /**
+     * number of lines read so far
+     */
+    private long lineNumber;
+
+    /**
+     * Creates a line reader reading from the given reader.
+     *
+     * @param reader reader to read lines from
+     */
+    public LineReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.line = CharBuffer.wrap(buffer);
+        this.position = 0;
+        this.limit = 0;
+        this.skipLineFeed = false;
+        this.lineNumber = 0;
+    }
+
+    /**
+     * Reads the next line, without its line terminator.
+     *
+     * @return the line, valid until the next call, or null if the end of the reader has
+     * been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public CharBuffer readLine() throws IOException {
+        int start = position;
+        int scan = position;
+        while (true) {
+            while (scan < limit) {
+                char c = buffer[scan];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        start = ++scan;
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    skipLineFeed = c == '\r';
+                    position = scan + 1;
+                    return line(start, scan);
+                }
+                scan++;
+            }
+            // no terminator in the buffer, move the partial line to the front and read more
+            int length = scan - start;
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, length);
+            } else if (length == buffer.length) {
+                char[] larger = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
+                line = CharBuffer.wrap(buffer);
+            }
+            start = 0;
+            scan = length;
+            limit = length;
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                position = limit;
+                return length == 0 ? null : line(0, length);
+            }
+            limit += read;
+        }
+    }
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return number of lines returned by {@link #readLine()}
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Points the line view at part of the buffer.
+     *
+     * @param start start of the line, inclusive
+     * @param end end of the line, exclusive
+     * @return view of the line
+     */
+    private CharBuffer line(int start, int end) {
+        lineNumber++;
+        line.limit(end);
+        line.position(start);
+        return line;
+    }
+}
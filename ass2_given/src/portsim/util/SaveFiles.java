@@ -0,0 +1,117 @@
+package portsim.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens save files for reading and writing, compressed or not.
+ * <p>
+ * Readers detect compression from the first bytes of the file, so plain text saves, gzip
+ * files from any tool and the block gzip files written by {@link BlockGzipOutputStream} are
+ * all read the same way. Block gzip files are decompressed on several threads at once.
+ * Writers compress into block gzip files when asked to, which is done for files whose names
+ * end in {@value #COMPRESSED_SUFFIX}.
+ */
+public final class SaveFiles {
+    /**
+     * ending of the names of files that are written compressed
+     */
+    public static final String COMPRESSED_SUFFIX = ".gz";
+    /**
+     * size of the buffers between the file, the codec and the characters, in bytes or chars
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * first byte of every gzip file
+     */
+    private static final int GZIP_MAGIC = 0x1f;
+
+    /**
+     * Not instantiable.
+     */
+    private SaveFiles() {
+    }
+
+    /**
+     * Opens a save file for reading, decompressing it if it is compressed.
+     *
+     * @param file path of the file
+     * @return reader of the file's characters
+     * @throws IOException if the file cannot be opened
+     */
+    public static Reader newReader(Path file) throws IOException {
+        return newReader(Files.newInputStream(file));
+    }
+
+    /**
+     * Returns a reader of the characters of a save, decompressing it if it is compressed.
+     * Closing the reader closes the stream.
+     *
+     * @param in stream of the save, compressed or not
+     * @return reader of the save's characters
+     * @throws IOException if the start of the stream cannot be read
+     */
+    public static Reader newReader(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        byte[] start = new byte[BlockGzipOutputStream.HEADER_SIZE];
+        buffered.mark(start.length);
+        int read = buffered.readNBytes(start, 0, start.length);
+        buffered.reset();
+        InputStream decompressed;
+        if (BlockGzipInputStream.isBlockHeader(start, read)) {
+            decompressed = new BlockGzipInputStream(buffered);
+        } else if (read >= 2 && start[0] == GZIP_MAGIC && start[1] == (byte) 0x8b) {
+            decompressed = new GZIPInputStream(buffered, BUFFER_SIZE);
+        } else {
+            decompressed = buffered;
+        }
+        return new InputStreamReader(decompressed, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a save file for writing, replacing any existing file. The file is compressed if
+     * its name ends in {@value #COMPRESSED_SUFFIX}.
+     *
+     * @param file path of the file
+     * @return buffered writer of the file
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer newWriter(Path file) throws IOException {
+        return newWriter(Files.newOutputStream(file), isCompressed(file));
+    }
+
+    /**
+     * Returns a buffered writer of a save to the given stream. Closing the writer closes the
+     * stream.
+     *
+     * @param out stream to write the save to
+     * @param compressed whether to compress the save into a block gzip file
+     * @return buffered writer of the save
+     */
+    public static Writer newWriter(OutputStream out, boolean compressed) {
+        OutputStream stream = compressed ? new BlockGzipOutputStream(out) : out;
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    /**
+     * Returns whether a save file of the given name is written compressed.
+     *
+     * @param file path of the file
+     * @return true if the name ends in {@value #COMPRESSED_SUFFIX} else false
+     */
+    public static boolean isCompressed(Path file) {
+        return file.getFileName().toString().endsWith(COMPRESSED_SUFFIX);
+    }
+}
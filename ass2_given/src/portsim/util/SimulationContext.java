@@ -0,0 +1,323 @@
+package portsim.util;
+
+import portsim.cargo.Cargo;
+import portsim.ship.Ship;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The cargo and ship registries of one simulation.
+ * <p>
+ * Every thread has a current context, which the static registry methods of {@link Cargo} and
+ * {@link Ship}, their constructors and the {@code fromString} factories resolve through.
+ * Unless a thread enters another context, its current context is the shared
+ * {@linkplain #getDefault() default context}, so code that never mentions contexts behaves as
+ * if the registries were global.
+ * <p>
+ * To run independent simulations side by side, give each its own context and enter it on the
+ * thread that loads or builds the simulation:
+ * <pre>
+ * &#64;SuppressWarnings("try") // the scope is only closed, never used
+ * Port load(Reader reader) throws IOException, BadEncodingException {
+ *     try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+ *         return Port.initialisePort(reader);
+ *     }
+ * }
+ * </pre>
+ * A port remembers the context it was created in, so it can be run and saved on any thread
+ * afterwards. A context must not be used by two threads at the same time.
+ */
+public final class SimulationContext {
+    /**
+     * context used by threads that have not entered another one
+     */
+    private static final SimulationContext DEFAULT = new SimulationContext();
+    /**
+     * current context of each thread
+     */
+    private static final ThreadLocal<SimulationContext> CURRENT =
+            ThreadLocal.withInitial(() -> DEFAULT);
+
+    /**
+     * cargo in this simulation by ID
+     */
+    private IntKeyMap<Cargo> cargoRegistry;
+    /**
+     * ships in this simulation by IMO number
+     */
+    private LongKeyMap<Ship> shipRegistry;
+    /**
+     * cargo created since changes were last cleared, or null if changes are not being tracked
+     */
+    private IntKeyMap<Cargo> createdCargo;
+    /**
+     * ships created or whose cargo has changed since changes were last cleared, or null if
+     * changes are not being tracked
+     */
+    private LongKeyMap<Ship> changedShips;
+    /**
+     * context this is a batch of, or null if this is not a batch
+     */
+    private final SimulationContext owner;
+    /**
+     * whether this batch has been merged into its owner
+     */
+    private boolean merged;
+
+    /**
+     * Creates a context with empty registries.
+     */
+    public SimulationContext() {
+        this(null, new IntKeyMap<>());
+    }
+
+    /**
+     * Creates a context with the given cargo registry and an empty ship registry.
+     *
+     * @param owner context this is a batch of, or null if this is not a batch
+     * @param cargoRegistry cargo registry of the context
+     */
+    private SimulationContext(SimulationContext owner, IntKeyMap<Cargo> cargoRegistry) {
+        this.owner = owner;
+        this.cargoRegistry = cargoRegistry;
+        this.shipRegistry = new LongKeyMap<>();
+    }
+
+    /**
+     * Returns the context of the calling thread.
+     *
+     * @return current context
+     */
+    public static SimulationContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the context shared by all threads that have not entered another context.
+     *
+     * @return default context
+     */
+    public static SimulationContext getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Makes this the current context of the calling thread until the returned scope is
+     * closed, when the previous context is restored.
+     *
+     * @return scope to close when leaving this context
+     */
+    public Scope enter() {
+        SimulationContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return new Scope(previous);
+    }
+
+    /**
+     * Creates a batch of this simulation, for creating cargo or ships on another thread while
+     * this context is in use on its own.
+     * <p>
+     * Cargo and ships created while the batch is current are put in the batch's registries.
+     * {@link #mergeBatch(SimulationContext)} then moves them into this context's registries in
+     * the order they were created, as if they had been created in this context then. If the
+     * cargo registry is shared, the batch looks cargo up in this context's registry, which
+     * must not change while the batch is in use, and no cargo may be created in the batch.
+     *
+     * @param shareCargo whether the batch shares this context's cargo registry rather than
+     *                   having an empty one of its own
+     * @return new batch
+     */
+    public SimulationContext newBatch(boolean shareCargo) {
+        return new SimulationContext(this, shareCargo ? cargoRegistry : new IntKeyMap<>());
+    }
+
+    /**
+     * Moves the cargo and ships created in the given batch into this context's registries, in
+     * the order they were created, recording them as changes if changes are being tracked.
+     * From then on, changes to the ships created in the batch are recorded in this context.
+     * <p>
+     * A ship with the IMO number of one already in the registry replaces it, as it does when a
+     * ship is created. If the batch has cargo with the ID of cargo already in the registry,
+     * the cargo before it is moved and an exception thrown.
+     *
+     * @param batch batch of this context that has not been merged
+     * @throws IllegalArgumentException if the batch is not an unmerged batch of this context
+     *                                  or has cargo with the ID of cargo in this context
+     */
+    public void mergeBatch(SimulationContext batch) throws IllegalArgumentException {
+        if (batch.owner != this || batch.merged) {
+            throw new IllegalArgumentException("Not an unmerged batch of this context");
+        }
+        batch.merged = true;
+        if (batch.cargoRegistry != cargoRegistry) {
+            for (Cargo cargo : batch.cargoRegistry.values()) {
+                if (cargoRegistry.containsKey(cargo.getId())) {
+                    throw new IllegalArgumentException("A piece of cargo with the ID "
+                            + cargo.getId() + " already exists");
+                }
+                cargoRegistry.put(cargo.getId(), cargo);
+                cargoCreated(cargo);
+            }
+        }
+        for (Ship ship : batch.shipRegistry.values()) {
+            shipRegistry.put(ship.getImoNumber(), ship);
+            shipChanged(ship);
+        }
+        batch.cargoRegistry = new IntKeyMap<>();
+        batch.shipRegistry = new LongKeyMap<>();
+    }
+
+    /**
+     * Returns the cargo registry of this simulation.
+     *
+     * @return cargo by ID
+     */
+    public IntKeyMap<Cargo> getCargoRegistry() {
+        return cargoRegistry;
+    }
+
+    /**
+     * Returns the ship registry of this simulation.
+     *
+     * @return ships by IMO number
+     */
+    public LongKeyMap<Ship> getShipRegistry() {
+        return shipRegistry;
+    }
+
+    /**
+     * Replaces the cargo registry with an empty one.
+     */
+    public void resetCargoRegistry() {
+        this.cargoRegistry = new IntKeyMap<>();
+        if (createdCargo != null) {
+            createdCargo.clear();
+        }
+    }
+
+    /**
+     * Replaces the ship registry with an empty one.
+     */
+    public void resetShipRegistry() {
+        this.shipRegistry = new LongKeyMap<>();
+        if (changedShips != null) {
+            changedShips.clear();
+        }
+    }
+
+    /**
+     * Starts recording the cargo created and the ships created or changed in this simulation,
+     * until {@link #stopTrackingChanges()} is called. Does nothing if changes are already
+     * being tracked.
+     */
+    public void trackChanges() {
+        if (createdCargo == null) {
+            createdCargo = new IntKeyMap<>();
+            changedShips = new LongKeyMap<>();
+        }
+    }
+
+    /**
+     * Stops recording changes and forgets those recorded.
+     */
+    public void stopTrackingChanges() {
+        createdCargo = null;
+        changedShips = null;
+    }
+
+    /**
+     * Returns whether changes to this simulation are being recorded.
+     *
+     * @return true if changes are being tracked else false
+     */
+    public boolean isTrackingChanges() {
+        return createdCargo != null;
+    }
+
+    /**
+     * Records that the given cargo has been created. Called by the cargo's constructor.
+     * In a batch, this is done when it is merged.
+     *
+     * @param cargo newly created cargo
+     */
+    public void cargoCreated(Cargo cargo) {
+        if (merged) {
+            owner.cargoCreated(cargo);
+        } else if (createdCargo != null) {
+            createdCargo.put(cargo.getId(), cargo);
+        }
+    }
+
+    /**
+     * Records that the given ship has been created or that the cargo on board has changed.
+     * In a batch, this is done when it is merged, and passed on to its owner afterwards.
+     *
+     * @param ship created or changed ship
+     */
+    public void shipChanged(Ship ship) {
+        if (merged) {
+            owner.shipChanged(ship);
+        } else if (changedShips != null) {
+            changedShips.put(ship.getImoNumber(), ship);
+        }
+    }
+
+    /**
+     * Returns the cargo created since changes were last cleared, in the order it was created.
+     *
+     * @return read-only view of the created cargo, empty if changes are not being tracked
+     */
+    public Collection<Cargo> getCreatedCargo() {
+        return createdCargo == null ? Collections.emptyList()
+                : Collections.unmodifiableCollection(createdCargo.values());
+    }
+
+    /**
+     * Returns the ships created or changed since changes were last cleared, in the order they
+     * first changed.
+     *
+     * @return read-only view of the changed ships, empty if changes are not being tracked
+     */
+    public Collection<Ship> getChangedShips() {
+        return changedShips == null ? Collections.emptyList()
+                : Collections.unmodifiableCollection(changedShips.values());
+    }
+
+    /**
+     * Forgets the changes recorded so far, while continuing to track new ones.
+     */
+    public void clearChanges() {
+        if (createdCargo != null) {
+            createdCargo.clear();
+            changedShips.clear();
+        }
+    }
+
+    /**
+     * The time a thread spends in a context entered with {@link #enter()}.
+     */
+    public static final class Scope implements AutoCloseable {
+        /**
+         * context to restore on close
+         */
+        private final SimulationContext previous;
+
+        /**
+         * Creates a scope that restores the given context.
+         *
+         * @param previous context current before the scope was entered
+         */
+        private Scope(SimulationContext previous) {
+            this.previous = previous;
+        }
+
+        /**
+         * Restores the context that was current before this scope was entered.
+         */
+        @Override
+        public void close() {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package portsim.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a binary snapshot file written by {@link SnapshotWriter} through memory mapping.
+ * <p>
+ * The file is mapped in windows of up to {@value #WINDOW_SIZE} bytes, so snapshots larger than
+ * a single {@link MappedByteBuffer} can hold are read the same way. Reading past the end of
+ * the file or a section, or finding an unexpected section, throws a
+ * {@link BadEncodingException}.
+ */
+public class SnapshotReader implements Closeable {
+    /**
+     * largest number of bytes mapped at once
+     */
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * file being read
+     */
+    private final FileChannel channel;
+    /**
+     * size of the file, in bytes
+     */
+    private final long size;
+    /**
+     * mapped part of the file
+     */
+    private MappedByteBuffer window;
+    /**
+     * position in the file of the start of the window
+     */
+    private long windowStart;
+
+    /**
+     * Opens the snapshot file at the given path.
+     *
+     * @param path path of the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public SnapshotReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            map(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the header of a section.
+     *
+     * @param tag tag the section is expected to have
+     * @return position in the file of the end of the section
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the next section does not have the given tag or does
+     *              not fit in the file
+     */
+    public long beginSection(int tag) throws IOException, BadEncodingException {
+        int found = getInt();
+        if (found != tag) {
+            throw new BadEncodingException("Expected section " + tag + " but found " + found);
+        }
+        long length = getLong();
+        if (length < 0 || length > size - position()) {
+            throw new BadEncodingException("Section " + tag + " does not fit in the snapshot");
+        }
+        return position() + length;
+    }
+
+    /**
+     * Checks that a section has been read completely.
+     *
+     * @param end position of the end of the section, as returned by {@link #beginSection(int)}
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the position is not the end of the section
+     */
+    public void endSection(long end) throws IOException, BadEncodingException {
+        if (position() != end) {
+            throw new BadEncodingException("Section length does not match its contents");
+        }
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return value read, between 0 and 255
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the end of the file has been reached
+     */
+    public int getByte() throws IOException, BadEncodingException {
+        require(Byte.BYTES);
+        return window.get() & 0xFF;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return value read
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the end of the file has been reached
+     */
+    public int getInt() throws IOException, BadEncodingException {
+        require(Integer.BYTES);
+        return window.getInt();
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return value read
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the end of the file has been reached
+     */
+    public long getLong() throws IOException, BadEncodingException {
+        require(Long.BYTES);
+        return window.getLong();
+    }
+
+    /**
+     * Reads a string written by {@link SnapshotWriter#putString(String)}.
+     *
+     * @return value read
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if the length is negative or the end of the file has
+     *              been reached
+     */
+    public String getString() throws IOException, BadEncodingException {
+        int length = getInt();
+        if (length < 0 || length > size - position()) {
+            throw new BadEncodingException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            int read = Math.min(window.remaining(), length - offset);
+            window.get(bytes, offset, read);
+            offset += read;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return position in the file of the next byte read
+     */
+    public long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Returns whether every byte of the file has been read.
+     *
+     * @return true if the end of the file has been reached else false
+     */
+    public boolean atEnd() {
+        return position() == size;
+    }
+
+    /**
+     * Closes the file. The mapped memory is released once it is no longer reachable.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Makes sure the given number of bytes can be read from the window, mapping the next
+     * part of the file if needed.
+     *
+     * @param bytes number of bytes about to be read, at most the size of a window
+     * @throws IOException if an I/O error occurs
+     * @throws BadEncodingException if fewer bytes are left in the file
+     */
+    private void require(int bytes) throws IOException, BadEncodingException {
+        if (window.remaining() >= bytes) {
+            return;
+        }
+        long position = position();
+        if (size - position < bytes) {
+            throw new BadEncodingException("Snapshot ends unexpectedly at byte " + position);
+        }
+        map(position);
+    }
+
+    /**
+     * Maps the window starting at the given position in the file.
+     *
+     * @param position position of the start of the window
+     * @throws IOException if an I/O error occurs
+     */
+    private void map(long position) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(WINDOW_SIZE, size - position));
+        windowStart = position;
+    }
+}
@@ -0,0 +1,191 @@
+package portsim.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a binary snapshot file made of length-prefixed sections of big-endian primitives.
+ * <p>
+ * Data is written through a fixed-size buffer, so the memory used does not depend on the size
+ * of the snapshot. A section starts with an int tag and a long holding the number of bytes in
+ * the rest of the section, which is filled in when the section ends.
+ *
+ * @see SnapshotReader
+ */
+public class SnapshotWriter implements Closeable {
+    /**
+     * size of the write buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * file being written
+     */
+    private final FileChannel channel;
+    /**
+     * bytes not yet written to the file
+     */
+    private final ByteBuffer buffer;
+    /**
+     * position in the file of the length of the open section, or -1 if no section is open
+     */
+    private long sectionStart;
+
+    /**
+     * Creates a snapshot file at the given path, replacing any existing file.
+     *
+     * @param path path of the file
+     * @throws IOException if the file cannot be created
+     */
+    public SnapshotWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.sectionStart = -1;
+    }
+
+    /**
+     * Starts a new section.
+     *
+     * @param tag tag identifying the section
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if a section is already open
+     */
+    public void beginSection(int tag) throws IOException {
+        if (sectionStart >= 0) {
+            throw new IllegalStateException("Section already open");
+        }
+        putInt(tag);
+        sectionStart = position();
+        putLong(0);
+    }
+
+    /**
+     * Ends the open section, recording its length.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if no section is open
+     */
+    public void endSection() throws IOException {
+        if (sectionStart < 0) {
+            throw new IllegalStateException("No section open");
+        }
+        long length = position() - sectionStart - Long.BYTES;
+        flush();
+        ByteBuffer lengthBytes = ByteBuffer.allocate(Long.BYTES).putLong(0, length);
+        long at = sectionStart;
+        while (lengthBytes.hasRemaining()) {
+            at += channel.write(lengthBytes, at);
+        }
+        sectionStart = -1;
+    }
+
+    /**
+     * Writes a byte.
+     *
+     * @param value value to write, of which only the lowest eight bits are kept
+     * @throws IOException if an I/O error occurs
+     */
+    public void putByte(int value) throws IOException {
+        ensure(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes an int.
+     *
+     * @param value value to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void putInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long.
+     *
+     * @param value value to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void putLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 encoding.
+     *
+     * @param value value to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return position in the file of the next byte written
+     * @throws IOException if an I/O error occurs
+     */
+    public long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    /**
+     * Writes any buffered bytes and closes the file.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if a section is still open
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sectionStart >= 0) {
+                throw new IllegalStateException("Section not ended");
+            }
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes room for the given number of bytes in the buffer.
+     *
+     * @param bytes number of bytes about to be written, at most the size of the buffer
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
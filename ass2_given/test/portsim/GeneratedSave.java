@@ -0,0 +1,95 @@
+package portsim;
+
+import portsim.batch.ScenarioGenerator;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.port.BulkQuay;
+import portsim.port.Port;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Save of a port made by {@link ScenarioGenerator}, shared by the tests that need a realistic
+ * port to run.
+ */
+public class GeneratedSave {
+
+    private final String text;
+
+    /* Generates a save with the given seed and numbers of cargo, ships and quays */
+    public GeneratedSave(long seed, int cargo, int ships, int queuedShips, int quays) {
+        ScenarioGenerator generator = new ScenarioGenerator(seed);
+        generator.setCargo(cargo);
+        generator.setShips(ships, queuedShips);
+        generator.setQuays(quays);
+        StringWriter writer = new StringWriter();
+        try {
+            generator.generate(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        text = writer.toString();
+    }
+
+    /* The encoded save */
+    public String getText() {
+        return text;
+    }
+
+    /* Loads the save into a context of its own */
+    @SuppressWarnings("try")
+    public Port load() throws Exception {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            return Port.initialisePort(new StringReader(text));
+        }
+    }
+
+    /*
+     * Makes changes of every kind to a port through its public methods, using IDs from the
+     * given number up so that several sets of changes can be made to the same port
+     */
+    @SuppressWarnings("try")
+    public static void change(Port port, int n) {
+        try (SimulationContext.Scope scope = port.getContext().enter()) {
+            long time = port.getTime();
+            Ship ship = new ContainerShip(9000000 + n, "Changed", "Peru", NauticalFlag.BRAVO,
+                    10);
+            ship.loadCargo(new Container(900000 + n, "Peru", ContainerType.REEFER));
+            port.addMovement(new ShipMovement(time + 7, MovementDirection.INBOUND, ship));
+            port.addMovement(new ShipMovement(time + 400, MovementDirection.OUTBOUND, ship));
+            Ship carrier = new BulkCarrier(8000000 + n, "Bulk", "Chile", NauticalFlag.HOTEL,
+                    500);
+            carrier.loadCargo(new BulkCargo(910000 + n, "Chile", 100, BulkCargoType.GRAIN));
+            port.addMovement(new ShipMovement(time + 12, MovementDirection.INBOUND, carrier));
+            port.addMovement(new CargoMovement(time + 3, MovementDirection.INBOUND,
+                    List.of(new Container(920000 + n, "Peru", ContainerType.STANDARD))));
+            port.addQuay(new BulkQuay(900 + n, 1000));
+            port.addStatisticsEvaluator(new CargoDecompositionEvaluator());
+        }
+    }
+
+    /* Deletes a temporary directory of files made by a test */
+    public static void deleteDirectory(Path directory) throws IOException {
+        for (Path file : Files.list(directory).toArray(Path[]::new)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,79 @@
+package portsim.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.evaluators.QuayOccupancyEvaluator;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.port.BulkQuay;
+import portsim.port.Port;
+import portsim.ship.BulkCarrier;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReplicationRunnerTest {
+
+    private Port port;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        port = new Port("Port of Brisbane");
+        port.addQuay(new BulkQuay(1, 200));
+        Ship china = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        Ship japan = new BulkCarrier(1000002, "Freedom", "Japan", NauticalFlag.NOVEMBER, 150);
+        port.addMovement(new ShipMovement(30, MovementDirection.INBOUND, china));
+        port.addMovement(new ShipMovement(50, MovementDirection.INBOUND, japan));
+        List<Cargo> coal = List.of(new BulkCargo(1, "China", 100, BulkCargoType.COAL));
+        port.addMovement(new CargoMovement(40, MovementDirection.INBOUND, coal));
+        port.addMovement(new CargoMovement(45, MovementDirection.OUTBOUND, coal));
+        port.addStatisticsEvaluator(new ShipFlagEvaluator());
+        port.addStatisticsEvaluator(new CargoDecompositionEvaluator());
+        port.addStatisticsEvaluator(new QuayOccupancyEvaluator(port));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testWithoutShiftEveryReplicationIsTheSame() throws Exception {
+        Map<String, Estimate> estimates = new ReplicationRunner(port, 0, 1).run(5, 100, 2);
+        Estimate japan = estimates.get("ShipFlagEvaluator: Japan");
+        assertEquals(5, japan.getCount());
+        assertEquals(1.0, japan.getMean(), 0);
+        assertEquals(0.0, japan.getHalfWidth(), 0);
+        assertEquals(1.0, estimates.get("CargoDecompositionEvaluator: COAL").getMean(), 0);
+        assertEquals(1.0, estimates.get("QuayOccupancyEvaluator: occupied").getMean(), 0);
+        // the base port is left untouched
+        assertEquals(0, port.getTime());
+        assertEquals(4, port.getMovements().size());
+    }
+
+    @Test
+    public void testResultsDoNotDependOnThreads() throws Exception {
+        ReplicationRunner runner = new ReplicationRunner(port, 40, 42);
+        Map<String, Estimate> serial = runner.run(50, 60, 1);
+        Map<String, Estimate> parallel = runner.run(50, 60, 4);
+        assertEquals(serial.toString(), parallel.toString());
+        // only some replications see the second ship arrive within the hour
+        Estimate japan = serial.get("ShipFlagEvaluator: Japan");
+        assertTrue(japan.getMean() > 0 && japan.getMean() < 1);
+        assertTrue(japan.getLower() < japan.getMean() && japan.getMean() < japan.getUpper());
+    }
+}
@@ -0,0 +1,84 @@
+package portsim.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.Cargo;
+import portsim.port.Port;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScenarioGeneratorTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    private static String generate(ScenarioGenerator generator) throws Exception {
+        StringWriter writer = new StringWriter();
+        generator.generate(writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testGeneratedSaveLoads() throws Exception {
+        ScenarioGenerator generator = new ScenarioGenerator(7);
+        generator.setCargo(5000);
+        generator.setShips(50, 5);
+        generator.setQuays(12);
+        String save = generate(generator);
+
+        Port port = Port.initialisePort(new StringReader(save));
+        assertEquals(5000, Cargo.getCargoRegistry().size());
+        assertEquals(50, Ship.getShipRegistry().size());
+        assertEquals(12, port.getQuays().size());
+        assertEquals(5, port.getShipQueue().size());
+        assertEquals(4, port.getEvaluators().size());
+        assertFalse(port.getCargo().isEmpty());
+        // every ship arrives and leaves, except queued ships which only leave
+        assertTrue(port.getMovements().size() > 2 * 50 - 5);
+        // the save is in the layout written by Port.encode, apart from the order of movements
+        String[] expected = save.split(System.lineSeparator());
+        String[] actual = port.encode().split(System.lineSeparator());
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testSameSeedSameSave() throws Exception {
+        assertEquals(generate(new ScenarioGenerator(3)), generate(new ScenarioGenerator(3)));
+        assertFalse(generate(new ScenarioGenerator(3)).equals(
+                generate(new ScenarioGenerator(4))));
+    }
+
+    @Test
+    public void testFlagDistribution() throws Exception {
+        ScenarioGenerator generator = new ScenarioGenerator(1);
+        generator.setFlags(Map.of(NauticalFlag.BRAVO, 1.0));
+        Port.initialisePort(new StringReader(generate(generator)));
+        for (Ship ship : Ship.getShipRegistry().values()) {
+            assertEquals(NauticalFlag.BRAVO, ship.getFlag());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOrigin() {
+        new ScenarioGenerator(1).setOrigins(Map.of("Port:of:Call", 1.0));
+    }
+}
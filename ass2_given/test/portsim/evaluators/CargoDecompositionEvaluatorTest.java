@@ -0,0 +1,100 @@
+package portsim.evaluators;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.movement.CargoMovement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CargoDecompositionEvaluatorTest {
+
+    private CargoDecompositionEvaluator evaluator;
+    private ShipMovement bulkOutbound;
+    private ShipMovement containersOutbound;
+    private CargoMovement cargoOutbound;
+    private CargoMovement cargoInbound;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        evaluator = new CargoDecompositionEvaluator();
+
+        Ship bulk = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        bulk.loadCargo(new BulkCargo(1, "China", 100, BulkCargoType.OTHER));
+        Ship containers = new ContainerShip(1000002, "Voyager", "Chile", NauticalFlag.BRAVO, 5);
+        containers.loadCargo(new Container(2, "Chile", ContainerType.REEFER));
+        containers.loadCargo(new Container(3, "Chile", ContainerType.REEFER));
+        containers.loadCargo(new Container(4, "Chile", ContainerType.OTHER));
+        bulkOutbound = new ShipMovement(1, MovementDirection.OUTBOUND, bulk);
+        containersOutbound = new ShipMovement(2, MovementDirection.OUTBOUND, containers);
+
+        List<Cargo> cargo = List.of(new BulkCargo(5, "Peru", 20, BulkCargoType.COAL),
+                new Container(6, "Peru", ContainerType.STANDARD));
+        cargoOutbound = new CargoMovement(3, MovementDirection.OUTBOUND, cargo);
+        cargoInbound = new CargoMovement(4, MovementDirection.INBOUND, cargo);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testEmptyDistributions() {
+        assertTrue(evaluator.getCargoDistribution().isEmpty());
+        assertTrue(evaluator.getBulkCargoDistribution().isEmpty());
+        assertTrue(evaluator.getContainerDistribution().isEmpty());
+    }
+
+    @Test
+    public void testCountsOutboundCargo() {
+        evaluator.onProcessMovement(bulkOutbound);
+        evaluator.onProcessMovement(containersOutbound);
+        evaluator.onProcessMovement(cargoOutbound);
+        evaluator.onProcessMovement(cargoInbound);
+
+        assertEquals(Map.of(BulkCargoType.OTHER, 1, BulkCargoType.COAL, 1),
+                evaluator.getBulkCargoDistribution());
+        assertEquals(Map.of(ContainerType.REEFER, 2, ContainerType.OTHER, 1,
+                ContainerType.STANDARD, 1), evaluator.getContainerDistribution());
+        // bulk cargo and containers of type OTHER share a key
+        assertEquals(Map.of("OTHER", 2, "REEFER", 2, "COAL", 1, "STANDARD", 1),
+                evaluator.getCargoDistribution());
+    }
+
+    @Test
+    public void testDistributionsFollowCounts() {
+        evaluator.onProcessMovement(cargoOutbound);
+        Map<String, Integer> before = evaluator.getCargoDistribution();
+        assertSame(before, evaluator.getCargoDistribution());
+
+        evaluator.onProcessMovement(cargoInbound);
+        assertSame(before, evaluator.getCargoDistribution());
+
+        evaluator.onProcessMovement(cargoOutbound);
+        assertEquals(Map.of("COAL", 1, "STANDARD", 1), before);
+        assertEquals(Map.of("COAL", 2, "STANDARD", 2), evaluator.getCargoDistribution());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDistributionUnmodifiable() {
+        evaluator.getContainerDistribution().put(ContainerType.TANKER, 1);
+    }
+}
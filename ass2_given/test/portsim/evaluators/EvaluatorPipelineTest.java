@@ -0,0 +1,124 @@
+package portsim.evaluators;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.GeneratedSave;
+import portsim.cargo.Cargo;
+import portsim.movement.Movement;
+import portsim.port.Port;
+import portsim.ship.Ship;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class EvaluatorPipelineTest {
+
+    private GeneratedSave save;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        save = new GeneratedSave(11, 2000, 40, 4, 6);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /* Counts minutes, waiting for the latch before the first one */
+    private static class BlockedEvaluator extends StatisticsEvaluator {
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public boolean canEvaluateAsynchronously() {
+            return true;
+        }
+
+        @Override
+        public void onProcessMovement(Movement movement) {
+        }
+
+        @Override
+        public void elapseOneMinute() {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            super.elapseOneMinute();
+        }
+    }
+
+    @Test
+    public void testSameStatisticsAsSynchronous() throws Exception {
+        Port synchronous = save.load();
+        Port asynchronous = save.load();
+        long start = asynchronous.getTime();
+        asynchronous.startEvaluatorThread(4);
+        for (int i = 0; i < 100; i++) {
+            synchronous.elapseOneMinute();
+            asynchronous.elapseOneMinute();
+        }
+        synchronous.advanceTo(start + 3000);
+        asynchronous.advanceTo(start + 3000);
+        asynchronous.awaitEvaluators();
+
+        assertEquals(start + 3000, asynchronous.getEvaluatedTime());
+        assertEquals(synchronous.readEvaluators(EvaluatorSummary::describe),
+                asynchronous.readEvaluators(EvaluatorSummary::describe));
+        asynchronous.stopEvaluatorThread();
+    }
+
+    @Test
+    public void testSimulationDoesNotWaitForEvaluators() throws Exception {
+        Port port = save.load();
+        long start = port.getTime();
+        BlockedEvaluator blocked = new BlockedEvaluator();
+        port.addStatisticsEvaluator(blocked);
+        port.startEvaluatorThread(1);
+
+        port.advanceTo(start + 5000);
+        assertEquals(start + 5000, port.getTime());
+        assertTrue(port.getEvaluatedTime() < port.getTime());
+
+        blocked.latch.countDown();
+        port.awaitEvaluators();
+        assertEquals(port.getTime(), port.getEvaluatedTime());
+        assertEquals(5000, (long) port.readEvaluators(evaluators -> blocked.getTime()));
+
+        // after stopping, the evaluators are run on this thread again
+        port.stopEvaluatorThread();
+        port.elapseOneMinute();
+        assertEquals(5001, blocked.getTime());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEvaluatorFailure() throws Exception {
+        Port port = save.load();
+        port.addStatisticsEvaluator(new BlockedEvaluator() {
+            @Override
+            public void elapseOneMinute() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        port.startEvaluatorThread(1);
+        port.elapseOneMinute();
+        port.awaitEvaluators();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartTwice() throws Exception {
+        Port port = save.load();
+        port.startEvaluatorThread(1);
+        try {
+            port.startEvaluatorThread(1);
+        } finally {
+            port.stopEvaluatorThread();
+        }
+    }
+}
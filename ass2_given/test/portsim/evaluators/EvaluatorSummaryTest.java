@@ -0,0 +1,60 @@
+package portsim.evaluators;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.Cargo;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.port.BulkQuay;
+import portsim.port.Port;
+import portsim.ship.BulkCarrier;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EvaluatorSummaryTest {
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testNoEvaluators() {
+        assertEquals("No Evaluators Present", EvaluatorSummary.describe(List.of()));
+    }
+
+    @Test
+    public void testDescribe() {
+        Port port = new Port("Port of Brisbane");
+        port.addQuay(new BulkQuay(1, 100));
+        ShipFlagEvaluator flags = new ShipFlagEvaluator();
+        ShipThroughputEvaluator throughput = new ShipThroughputEvaluator();
+        Ship ship = new BulkCarrier(3456789, "Glorious", "Australia", NauticalFlag.HOTEL, 120);
+        ShipMovement movement = new ShipMovement(0, MovementDirection.INBOUND, ship);
+        flags.onProcessMovement(movement);
+        throughput.onProcessMovement(new ShipMovement(0, MovementDirection.OUTBOUND, ship));
+
+        String expected = String.join(System.lineSeparator(),
+                "QuayOccupancyEvaluator",
+                "0 Quay(s) currently occupied",
+                "ShipFlagEvaluator",
+                "Australia : 1",
+                "ShipThroughputEvaluator",
+                "1 Ships passed in the last hour",
+                "CargoDecompositionEvaluator");
+        assertEquals(expected, EvaluatorSummary.describe(List.of(new QuayOccupancyEvaluator(port),
+                flags, throughput, new CargoDecompositionEvaluator())));
+    }
+}
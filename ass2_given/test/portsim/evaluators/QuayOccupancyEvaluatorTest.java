@@ -0,0 +1,97 @@
+package portsim.evaluators;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.Cargo;
+import portsim.port.BulkQuay;
+import portsim.port.ContainerQuay;
+import portsim.port.Port;
+import portsim.port.Quay;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import static org.junit.Assert.*;
+
+public class QuayOccupancyEvaluatorTest {
+
+    private Port port;
+    private QuayOccupancyEvaluator evaluator;
+    private Quay bulkQuay;
+    private Quay containerQuay;
+    private Ship bulkCarrier;
+    private Ship containerShip;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        port = new Port("Port of Brisbane");
+        bulkQuay = new BulkQuay(1, 200);
+        containerQuay = new ContainerQuay(2, 10);
+        port.addQuay(bulkQuay);
+        port.addQuay(containerQuay);
+        port.addQuay(new ContainerQuay(3, 10));
+        evaluator = new QuayOccupancyEvaluator(port);
+        port.addStatisticsEvaluator(evaluator);
+        bulkCarrier = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        containerShip = new ContainerShip(1000002, "Voyager", "Chile", NauticalFlag.BRAVO, 5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testGetQuaysOccupied() {
+        assertEquals(0, evaluator.getQuaysOccupied());
+        bulkQuay.shipArrives(bulkCarrier);
+        containerQuay.shipArrives(containerShip);
+        assertEquals(2, evaluator.getQuaysOccupied());
+        assertEquals(1, evaluator.getBulkQuaysOccupied());
+        assertEquals(1, evaluator.getContainerQuaysOccupied());
+
+        // docking at an occupied quay or leaving an empty one changes nothing
+        containerQuay.shipArrives(containerShip);
+        port.getQuays().get(2).shipDeparts();
+        assertEquals(2, evaluator.getQuaysOccupied());
+
+        bulkQuay.shipDeparts();
+        assertEquals(1, evaluator.getQuaysOccupied());
+        assertEquals(0, evaluator.getBulkQuaysOccupied());
+        assertEquals(1, evaluator.getContainerQuaysOccupied());
+    }
+
+    @Test
+    public void testAddOccupiedQuay() {
+        Quay occupied = new ContainerQuay(4, 10);
+        occupied.shipArrives(containerShip);
+        port.addQuay(occupied);
+        assertEquals(1, evaluator.getQuaysOccupied());
+        assertEquals(1, evaluator.getContainerQuaysOccupied());
+    }
+
+    @Test
+    public void testAverageQuaysOccupied() {
+        assertEquals(0, evaluator.getAverageQuaysOccupied(), 0);
+        bulkQuay.shipArrives(bulkCarrier);
+        assertEquals(1, evaluator.getAverageQuaysOccupied(), 0);
+
+        port.advanceTo(10);
+        containerQuay.shipArrives(containerShip);
+        port.advanceTo(20);
+        // one quay for 10 minutes then two for 10 minutes
+        assertEquals(1.5, evaluator.getAverageQuaysOccupied(), 1e-9);
+
+        bulkQuay.shipDeparts();
+        containerQuay.shipDeparts();
+        for (int i = 0; i < 20; i++) {
+            port.elapseOneMinute();
+        }
+        assertEquals(0.75, evaluator.getAverageQuaysOccupied(), 1e-9);
+    }
+}
@@ -80,4 +80,49 @@ public class ShipThroughputEvaluatorTest {
         assertEquals(1,e.getTime());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testShipsLeavingInSameMinute() {
+        e.onProcessMovement(movement1);
+        e.onProcessMovement(movement3);
+        assertEquals(2, e.getThroughputPerHour());
+        assertEquals(0, e.getTime());
+    }
+
+    @Test
+    public void testWindowBoundary() {
+        e.onProcessMovement(movement1);
+        for (int i = 0; i < 59; i++) {
+            e.elapseOneMinute();
+        }
+        e.onProcessMovement(movement3);
+        assertEquals(2, e.getThroughputPerHour());
+        e.elapseOneMinute();
+        assertEquals(1, e.getThroughputPerHour());
+        e.elapseMinutes(59);
+        assertEquals(0, e.getThroughputPerHour());
+        assertEquals(119, e.getTime());
+    }
+
+    @Test
+    public void testElapseMinutesMatchesElapseOneMinute() {
+        ShipThroughputEvaluator stepped = new ShipThroughputEvaluator(24 * 60);
+        ShipThroughputEvaluator jumped = new ShipThroughputEvaluator(24 * 60);
+        assertEquals(24 * 60, jumped.getWindow());
+        for (long minutes : new long[] {0, 1, 7, 300, 1439, 1440, 5000}) {
+            stepped.onProcessMovement(movement1);
+            jumped.onProcessMovement(movement1);
+            for (long i = 0; i < minutes; i++) {
+                stepped.elapseOneMinute();
+            }
+            jumped.elapseMinutes(minutes);
+            assertEquals(stepped.getTime(), jumped.getTime());
+            assertEquals(stepped.getThroughput(), jumped.getThroughput());
+        }
+        assertEquals(0, jumped.getThroughput());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindow() {
+        new ShipThroughputEvaluator(0);
+    }
+}
@@ -0,0 +1,116 @@
+package portsim.movement;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelMovementSchedulerTest {
+
+    private TimingWheelMovementScheduler wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new TimingWheelMovementScheduler();
+    }
+
+    private static Movement movement(long time) {
+        return new CargoMovement(time, MovementDirection.INBOUND, new ArrayList<>());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(wheel.isEmpty());
+        assertEquals(Long.MAX_VALUE, wheel.nextTime());
+        assertNull(wheel.pollDue(1000));
+    }
+
+    @Test
+    public void testPollDueOrder() {
+        Movement late = movement(130);
+        Movement early = movement(5);
+        Movement sameTimeFirst = movement(70);
+        Movement sameTimeSecond = movement(70);
+        wheel.add(late);
+        wheel.add(sameTimeFirst);
+        wheel.add(early);
+        wheel.add(sameTimeSecond);
+
+        assertEquals(4, wheel.size());
+        assertEquals(5, wheel.nextTime());
+        assertNull(wheel.pollDue(4));
+        assertSame(early, wheel.pollDue(5));
+        assertNull(wheel.pollDue(69));
+        assertEquals(70, wheel.nextTime());
+        assertSame(sameTimeFirst, wheel.pollDue(100));
+        assertSame(sameTimeSecond, wheel.pollDue(100));
+        assertNull(wheel.pollDue(100));
+        assertSame(late, wheel.pollDue(130));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testFarFuture() {
+        Movement farFuture = movement(Long.MAX_VALUE / 2);
+        Movement soon = movement(10);
+        wheel.add(farFuture);
+        wheel.add(soon);
+        assertSame(soon, wheel.pollDue(10));
+        assertEquals(Long.MAX_VALUE / 2, wheel.nextTime());
+        assertNull(wheel.pollDue(Long.MAX_VALUE / 2 - 1));
+        wheel.add(movement(Long.MAX_VALUE / 2 - 1));
+        assertEquals(Long.MAX_VALUE / 2 - 1, wheel.pollDue(Long.MAX_VALUE).getTime());
+        assertSame(farFuture, wheel.pollDue(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testIterator() {
+        Set<Movement> added = new HashSet<>();
+        for (long time : new long[] {0, 1, 63, 64, 5000, 1L << 40}) {
+            Movement movement = movement(time);
+            added.add(movement);
+            wheel.add(movement);
+        }
+        wheel.pollDue(0);
+        added.removeIf(movement -> movement.getTime() == 0);
+        Set<Movement> iterated = new HashSet<>();
+        wheel.forEach(iterated::add);
+        assertEquals(added, iterated);
+    }
+
+    @Test
+    public void testMatchesHeapScheduler() {
+        Random random = new Random(2002);
+        HeapMovementScheduler heap = new HeapMovementScheduler();
+        long now = 0;
+        for (int step = 0; step < 20000; step++) {
+            if (random.nextInt(3) > 0) {
+                long offset = random.nextInt(10) == 0
+                        ? random.nextInt(1 << 20) : random.nextInt(200);
+                Movement movement = movement(now + offset);
+                heap.add(movement);
+                wheel.add(movement);
+            } else {
+                now += random.nextInt(50);
+                List<Movement> expected = new ArrayList<>();
+                List<Movement> actual = new ArrayList<>();
+                Movement movement;
+                while ((movement = heap.pollDue(now)) != null) {
+                    expected.add(movement);
+                }
+                while ((movement = wheel.pollDue(now)) != null) {
+                    actual.add(movement);
+                }
+                assertEquals(expected, actual);
+            }
+            assertEquals(heap.size(), wheel.size());
+            assertEquals(heap.nextTime(), wheel.nextTime());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.GeneratedSave;
+import portsim.cargo.Cargo;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+import portsim.util.SimulationContext;
+
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelLoadTest {
+
+    private String save;
+    private String[] lines;
+    private int numCargo;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        save = new GeneratedSave(5, 20000, 300, 10, 10).getText();
+        lines = save.split("\n", -1);
+        numCargo = Integer.parseInt(lines[2]);
+        pool = new ForkJoinPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @SuppressWarnings("try")
+    private Port load(String text, ForkJoinPool pool) throws Exception {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            return Port.initialisePort(new StringReader(text), pool);
+        }
+    }
+
+    @Test
+    public void testSameAsSerial() throws Exception {
+        assertTrue(numCargo > 4096 * 4);
+        Port serial = load(save, null);
+        Port parallel = load(save, pool);
+        assertEquals(serial.encode(), parallel.encode());
+        SimulationContext context = parallel.getContext();
+        assertEquals(numCargo, context.getCargoRegistry().size());
+        assertEquals(serial.getContext().getShipRegistry().size(),
+                context.getShipRegistry().size());
+    }
+
+    @Test
+    public void testShipsShareLoadedCargo() throws Exception {
+        SimulationContext context = load(save, pool).getContext();
+        int onBoard = 0;
+        for (Ship ship : context.getShipRegistry().values()) {
+            String encoded = ship.encode();
+            String[] fields = encoded.split(":", -1);
+            String ids = fields[fields.length - 1];
+            if (!ids.isEmpty()) {
+                for (String id : ids.split(",")) {
+                    assertNotNull(context.getCargoRegistry().get(Integer.parseInt(id)));
+                    onBoard++;
+                }
+            }
+        }
+        assertTrue(onBoard > 0);
+    }
+
+    @Test(expected = BadEncodingException.class)
+    public void testDuplicateCargoInLaterChunk() throws Exception {
+        lines[3 + numCargo - 1] = lines[3];
+        load(String.join("\n", lines), pool);
+    }
+
+    @Test(expected = BadEncodingException.class)
+    public void testInvalidCargoLine() throws Exception {
+        lines[3 + numCargo / 2] = "BulkCargo:x:Brisbane:COAL:10";
+        load(String.join("\n", lines), pool);
+    }
+
+    @Test(expected = BadEncodingException.class)
+    public void testInvalidShipLine() throws Exception {
+        lines[3 + numCargo + 1] = "Rowboat:1000001:Dinghy:Brisbane:BRAVO:1";
+        load(String.join("\n", lines), pool);
+    }
+
+    @Test(expected = BadEncodingException.class)
+    public void testMissingCargoLines() throws Exception {
+        lines[2] = String.valueOf(numCargo + numCargo);
+        load(String.join("\n", lines), pool);
+    }
+}
@@ -0,0 +1,216 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.GeneratedSave;
+import portsim.cargo.Cargo;
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PortDeltasTest {
+
+    private Path directory;
+    private Path base;
+    private GeneratedSave save;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        directory = Files.createTempDirectory("deltas");
+        base = directory.resolve("port.txt");
+        save = new GeneratedSave(7, 1000, 30, 4, 5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        GeneratedSave.deleteDirectory(directory);
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /* Loads the base and its deltas into a context of their own */
+    @SuppressWarnings("try")
+    private Port loadDeltas() throws Exception {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            return PortDeltas.load(base);
+        }
+    }
+
+    /* The encoding of the port a full save of the given port loads as */
+    @SuppressWarnings("try")
+    private static String reloaded(Port port) throws Exception {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            return Port.initialisePort(new StringReader(port.encode())).encode();
+        }
+    }
+
+    /* Number of delta files next to the base */
+    private long deltaFiles() throws Exception {
+        return Files.list(directory).filter(file -> file.getFileName().toString()
+                .startsWith("port.txt.delta.")).count();
+    }
+
+    @Test
+    public void testLoadMatchesFullSave() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        for (int i = 1; i <= 5; i++) {
+            GeneratedSave.change(port, i);
+            port.advanceTo(port.getTime() + 300);
+            deltas.save();
+        }
+        port.addStatisticsEvaluator(new CargoDecompositionEvaluator());
+        deltas.save();
+
+        assertEquals(6, deltas.getSequence());
+        assertEquals(6, deltaFiles());
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testDeltaSmallerThanBase() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        port.advanceTo(port.getTime() + 30);
+        Path delta = deltas.save();
+
+        assertTrue(Files.size(delta) * 4 < Files.size(base));
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testUnchangedSave() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        deltas.save();
+        deltas.save();
+
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        for (int i = 1; i <= PortDeltas.COMPACTION_THRESHOLD; i++) {
+            GeneratedSave.change(port, i);
+            port.advanceTo(port.getTime() + 100);
+            deltas.save();
+        }
+        deltas.awaitCompaction();
+
+        assertEquals(0, deltaFiles());
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testInterruptedCompaction() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        Map<Path, byte[]> written = new HashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            GeneratedSave.change(port, i);
+            port.advanceTo(port.getTime() + 200);
+            Path delta = deltas.save();
+            written.put(delta, Files.readAllBytes(delta));
+        }
+        deltas.compact();
+        deltas.awaitCompaction();
+        GeneratedSave.change(port, 5);
+        port.advanceTo(port.getTime() + 200);
+        deltas.save();
+
+        // the compaction wrote the new base but died before deleting the deltas
+        for (Map.Entry<Path, byte[]> delta : written.entrySet()) {
+            Files.write(delta.getKey(), delta.getValue());
+        }
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testLoadedPortContinuesSaving() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        GeneratedSave.change(port, 1);
+        port.advanceTo(port.getTime() + 200);
+        deltas.save();
+
+        Port loaded = loadDeltas();
+        assertEquals(1, loaded.getDeltaSaves().getSequence());
+        GeneratedSave.change(loaded, 2);
+        loaded.advanceTo(loaded.getTime() + 200);
+        assertEquals(base.resolveSibling("port.txt.delta.2"), loaded.getDeltaSaves().save());
+
+        assertEquals(reloaded(loaded), loadDeltas().encode());
+        loaded.stopDeltaSaves();
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testStartRemovesStaleDeltas() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        GeneratedSave.change(port, 1);
+        deltas.save();
+        port.advanceTo(port.getTime() + 100);
+        port.startDeltaSaves(base);
+
+        assertEquals(0, deltaFiles());
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testSaveAsBaseRestartsDeltas() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        GeneratedSave.change(port, 1);
+        port.advanceTo(port.getTime() + 200);
+        deltas.save();
+        GeneratedSave.change(port, 2);
+        port.advanceTo(port.getTime() + 200);
+        port.saveAs(base);
+
+        assertEquals(0, deltaFiles());
+        assertEquals(0, port.getDeltaSaves().getSequence());
+        assertEquals(reloaded(port), loadDeltas().encode());
+        GeneratedSave.change(port, 3);
+        port.advanceTo(port.getTime() + 200);
+        assertEquals(base.resolveSibling("port.txt.delta.1"), port.getDeltaSaves().save());
+        assertEquals(reloaded(port), loadDeltas().encode());
+        port.stopDeltaSaves();
+    }
+
+    @Test
+    public void testSaveAsOtherFileRemovesItsDeltas() throws Exception {
+        Port port = save.load();
+        PortDeltas deltas = port.startDeltaSaves(base);
+        GeneratedSave.change(port, 1);
+        deltas.save();
+        port.stopDeltaSaves();
+        port.advanceTo(port.getTime() + 200);
+
+        // a port with no delta saves overwrites the base with a full save
+        Port other = save.load();
+        other.saveAs(base);
+        assertEquals(0, deltaFiles());
+        assertNull(other.getDeltaSaves());
+        assertEquals(reloaded(other), loadDeltas().encode());
+    }
+}
@@ -0,0 +1,134 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.GeneratedSave;
+import portsim.cargo.Cargo;
+import portsim.evaluators.EvaluatorSummary;
+import portsim.ship.Ship;
+import portsim.util.SimulationContext;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PortJournalTest {
+
+    private Path directory;
+    private Path snapshot;
+    private Path journal;
+    private GeneratedSave save;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        directory = Files.createTempDirectory("journal");
+        snapshot = directory.resolve("port.snapshot");
+        journal = directory.resolve("port.journal");
+        save = new GeneratedSave(5, 1000, 30, 4, 5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        GeneratedSave.deleteDirectory(directory);
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /* Recovers the port from the files into a context of its own */
+    @SuppressWarnings("try")
+    private Port recover() throws Exception {
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            return PortJournal.recover(snapshot, journal);
+        }
+    }
+
+    /* The encoding of a port, ignoring the order movements are listed in */
+    private static String state(Port port) {
+        String[] lines = port.encode().split("\\R");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    @Test
+    public void testRecoverAfterCrash() throws Exception {
+        Port port = save.load();
+        long start = port.getTime();
+        PortJournal recorded = port.startJournal(snapshot, journal, 60_000);
+        for (int i = 0; i < 200; i++) {
+            port.elapseOneMinute();
+        }
+        GeneratedSave.change(port, 1);
+        port.advanceTo(start + 3000);
+        // the program dies after the last sync, without closing the journal
+        recorded.sync();
+
+        Port recovered = recover();
+        assertEquals(start + 3000, recovered.getTime());
+        assertEquals(state(port), state(recovered));
+        // the snapshot holds no statistics, but the journal has every event since it
+        assertEquals(EvaluatorSummary.describe(port.getEvaluators()),
+                EvaluatorSummary.describe(recovered.getEvaluators()));
+        assertTrue(recorded.getRecords() > 0);
+        assertEquals(Files.size(journal), recorded.getBytesWritten());
+        port.stopJournal();
+    }
+
+    @Test
+    public void testRecoverFromCheckpoint() throws Exception {
+        Port port = save.load();
+        port.startJournal(snapshot, journal, 0);
+        port.advanceTo(port.getTime() + 500);
+        GeneratedSave.change(port, 1);
+        port.startJournal(snapshot, journal, 0);
+        port.advanceTo(port.getTime() + 500);
+        port.stopJournal();
+
+        assertEquals(state(port), state(recover()));
+    }
+
+    @Test
+    public void testIncompleteGroupIgnored() throws Exception {
+        Port port = save.load();
+        PortJournal recorded = port.startJournal(snapshot, journal, 60_000);
+        port.advanceTo(port.getTime() + 1000);
+        recorded.sync();
+        long synced = recorded.getBytesWritten();
+        String expected = state(port);
+        GeneratedSave.change(port, 1);
+        port.advanceTo(port.getTime() + 1000);
+        port.stopJournal();
+
+        // the program died part way through writing the next group
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(synced + (Files.size(journal) - synced) / 2);
+        }
+        assertEquals(expected, state(recover()));
+    }
+
+    @Test
+    public void testStaleJournalIgnored() throws Exception {
+        Port port = save.load();
+        port.startJournal(snapshot, journal, 0);
+        port.advanceTo(port.getTime() + 1000);
+        port.stopJournal();
+        byte[] stale = Files.readAllBytes(journal);
+
+        // the program died after writing a checkpoint's snapshot but not its journal
+        port.startJournal(snapshot, journal, 0);
+        port.stopJournal();
+        Files.write(journal, stale);
+        assertEquals(state(port), state(recover()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSyncInterval() throws Exception {
+        save.load().startJournal(snapshot, journal, -1);
+    }
+}
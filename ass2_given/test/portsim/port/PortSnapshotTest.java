@@ -0,0 +1,100 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.QuayOccupancyEvaluator;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+import portsim.util.BadEncodingException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PortSnapshotTest {
+
+    private Path file;
+    private Port port;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        file = Files.createTempFile("port", ".snapshot");
+
+        port = new Port("Port of Brisbane");
+        port.addQuay(new BulkQuay(1, 200));
+        port.addQuay(new ContainerQuay(2, 10));
+        Ship bulk = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        bulk.loadCargo(new BulkCargo(1, "China", 100, BulkCargoType.COAL));
+        Ship container = new ContainerShip(1000002, "Voyager", "Chile", NauticalFlag.BRAVO, 5);
+        container.loadCargo(new Container(2, "Chile", ContainerType.REEFER));
+        Ship empty = new ContainerShip(1000003, "Freedom", "Japan", NauticalFlag.HOTEL, 5);
+        port.addMovement(new ShipMovement(3, MovementDirection.INBOUND, bulk));
+        port.addMovement(new ShipMovement(4, MovementDirection.INBOUND, empty));
+        port.addMovement(new CargoMovement(12, MovementDirection.INBOUND,
+                List.of(new Container(3, "Japan", ContainerType.STANDARD))));
+        port.addMovement(new ShipMovement(90, MovementDirection.INBOUND, container));
+        port.addStatisticsEvaluator(new ShipFlagEvaluator());
+        port.addStatisticsEvaluator(new QuayOccupancyEvaluator(port));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (long target : new long[] {0, 10, 20}) {
+            port.advanceTo(target);
+            String expected = port.encode();
+            PortSnapshot.write(port, file);
+
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            port = PortSnapshot.read(file);
+            assertEquals(expected, port.encode());
+        }
+    }
+
+    @Test
+    public void testTruncatedSnapshot() throws Exception {
+        PortSnapshot.write(port, file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[] {0, 6, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            try {
+                PortSnapshot.read(file);
+                fail("Read a snapshot truncated to " + length + " bytes");
+            } catch (BadEncodingException expected) {
+                // the snapshot is incomplete
+            }
+        }
+    }
+
+    @Test(expected = BadEncodingException.class)
+    public void testTextSave() throws Exception {
+        Files.write(file, port.encode().getBytes());
+        PortSnapshot.read(file);
+    }
+}
@@ -0,0 +1,284 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.evaluators.CargoDecompositionEvaluator;
+import portsim.evaluators.PortEvent;
+import portsim.evaluators.QuayOccupancyEvaluator;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.evaluators.ShipThroughputEvaluator;
+import portsim.evaluators.StatisticsEvaluator;
+import portsim.movement.CargoMovement;
+import portsim.movement.Movement;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.ship.BulkCarrier;
+import portsim.ship.ContainerShip;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PortTest {
+
+    private Port port;
+    private ShipThroughputEvaluator throughput;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        port = createPort();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    /* Builds the same small port every time it is called on empty registries */
+    private Port createPort() {
+        Port port = new Port("Port of Brisbane");
+        port.addQuay(new BulkQuay(1, 200));
+        port.addQuay(new ContainerQuay(2, 10));
+        port.addQuay(new ContainerQuay(3, 10));
+
+        Ship bulk = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        bulk.loadCargo(new BulkCargo(1, "China", 100, BulkCargoType.COAL));
+        Ship container = new ContainerShip(1000002, "Voyager", "New Zealand",
+                NauticalFlag.BRAVO, 5);
+        container.loadCargo(new Container(2, "New Zealand", ContainerType.REEFER));
+        Ship late = new ContainerShip(1000003, "Freedom", "Japan", NauticalFlag.HOTEL, 5);
+        Container outbound = new Container(3, "Japan", ContainerType.STANDARD);
+        Container removed = new Container(4, "Japan", ContainerType.OPEN_TOP);
+
+        port.addMovement(new ShipMovement(3, MovementDirection.INBOUND, bulk));
+        port.addMovement(new ShipMovement(7, MovementDirection.INBOUND, container));
+        port.addMovement(new CargoMovement(12, MovementDirection.INBOUND,
+                List.of(outbound, removed)));
+        port.addMovement(new ShipMovement(23, MovementDirection.INBOUND, late));
+        port.addMovement(new CargoMovement(41, MovementDirection.OUTBOUND, List.of(removed)));
+        port.addMovement(new ShipMovement(55, MovementDirection.OUTBOUND, bulk));
+        port.addMovement(new ShipMovement(77, MovementDirection.OUTBOUND, late));
+        port.addMovement(new ShipMovement(1234, MovementDirection.INBOUND, bulk));
+
+        throughput = new ShipThroughputEvaluator();
+        port.addStatisticsEvaluator(throughput);
+        port.addStatisticsEvaluator(new ShipFlagEvaluator());
+        port.addStatisticsEvaluator(new CargoDecompositionEvaluator());
+        port.addStatisticsEvaluator(new QuayOccupancyEvaluator(port));
+        return port;
+    }
+
+    @Test
+    public void testElapseOneMinuteDocksShip() {
+        for (int i = 0; i < 10; i++) {
+            port.elapseOneMinute();
+        }
+        assertEquals(10, port.getTime());
+        // BRAVO container ship docks first, the bulk carrier is still waiting
+        assertEquals(1, port.getShipQueue().getShipQueue().size());
+        assertTrue(port.getQuays().get(0).isEmpty());
+        assertEquals(1000002, port.getQuays().get(1).getShip().getImoNumber());
+        assertTrue(port.getQuays().get(2).isEmpty());
+    }
+
+    @Test
+    public void testElapseOneMinuteRemovesProcessedMovements() {
+        for (int i = 0; i < 12; i++) {
+            port.elapseOneMinute();
+        }
+        assertEquals(5, port.getMovements().size());
+    }
+
+    @Test
+    public void testElapseOneMinuteDocksAtSmallestFreeQuay() {
+        Port port = new Port("Terminal");
+        ContainerQuay large = new ContainerQuay(4, 50);
+        ContainerQuay small = new ContainerQuay(5, 2);
+        ContainerQuay medium = new ContainerQuay(6, 5);
+        port.addQuay(large);
+        port.addQuay(small);
+        port.addQuay(medium);
+        // quays changed outside the port are still tracked
+        medium.shipArrives(new ContainerShip(1000009, "Busy", "Fiji",
+                NauticalFlag.NOVEMBER, 1));
+
+        Ship ship = new ContainerShip(1000008, "Fits", "Chile", NauticalFlag.NOVEMBER, 5);
+        for (int i = 0; i < 3; i++) {
+            ship.loadCargo(new Container(20 + i, "Chile", ContainerType.STANDARD));
+        }
+        port.getShipQueue().add(ship);
+        port.advanceTo(10);
+        assertSame(ship, large.getShip());
+
+        // the ship has been unloaded, so the small quay would fit if it were free
+        small.shipArrives(medium.shipDeparts());
+        large.shipDeparts();
+        port.getShipQueue().add(ship);
+        port.advanceTo(20);
+        assertTrue(large.isEmpty());
+        assertSame(ship, medium.getShip());
+    }
+
+    @Test
+    public void testElapseOneMinuteEmptyQueue() {
+        Port empty = new Port("Empty");
+        empty.addQuay(new BulkQuay(9, 10));
+        for (int i = 0; i < 20; i++) {
+            empty.elapseOneMinute();
+        }
+        assertEquals(20, empty.getTime());
+    }
+
+    @Test
+    public void testAdvanceToMatchesElapseOneMinute() {
+        for (long target : new long[] {1, 9, 10, 42, 60, 61, 200, 1500}) {
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            Port stepped = createPort();
+            ShipThroughputEvaluator steppedThroughput = throughput;
+            for (long i = 0; i < target; i++) {
+                stepped.elapseOneMinute();
+            }
+            String expected = stepped.encode();
+
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            Port jumped = createPort();
+            jumped.advanceTo(target);
+
+            assertEquals(expected, jumped.encode());
+            assertEquals(steppedThroughput.getTime(), throughput.getTime());
+            assertEquals(steppedThroughput.getThroughputPerHour(),
+                    throughput.getThroughputPerHour());
+        }
+    }
+
+    @Test
+    public void testAdvanceToCurrentTime() {
+        port.advanceTo(0);
+        assertEquals(0, port.getTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdvanceToPast() {
+        port.advanceTo(20);
+        port.advanceTo(19);
+    }
+
+    @Test
+    public void testEncodeToRoundTrip() throws Exception {
+        for (long target : new long[] {0, 10, 60}) {
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            Port port = createPort();
+            port.advanceTo(target);
+            StringWriter writer = new StringWriter();
+            port.encodeTo(writer);
+            String expected = port.encode();
+            assertEquals(expected, writer.toString());
+
+            // empty ships and an empty queue must be readable again
+            Cargo.resetCargoRegistry();
+            Ship.resetShipRegistry();
+            Port loaded = Port.initialisePort(new StringReader(expected));
+            assertEquals(expected, loaded.encode());
+        }
+    }
+
+    /* Records the dock, depart and unload events it receives */
+    private static class EventRecorder extends StatisticsEvaluator {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public Set<PortEvent> getSubscriptions() {
+            return EnumSet.of(PortEvent.SHIP_DOCKED, PortEvent.SHIP_DEPARTED,
+                    PortEvent.CARGO_UNLOADED);
+        }
+
+        @Override
+        public void onProcessMovement(Movement movement) {
+            events.add("movement " + movement.getTime());
+        }
+
+        @Override
+        public void onShipDocked(Ship ship, Quay quay) {
+            events.add("docked " + ship.getImoNumber() + " " + quay.getId());
+        }
+
+        @Override
+        public void onShipDeparted(Ship ship, Quay quay) {
+            events.add("departed " + ship.getImoNumber() + " " + quay.getId());
+        }
+
+        @Override
+        public void onCargoUnloaded(Ship ship, List<? extends Cargo> cargo) {
+            for (Cargo unloaded : cargo) {
+                events.add("unloaded " + ship.getImoNumber() + " " + unloaded.getId());
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluatorReceivesOnlySubscribedEvents() {
+        EventRecorder recorder = new EventRecorder();
+        port.addStatisticsEvaluator(recorder);
+        port.advanceTo(100);
+        // no movements, and nothing unloaded from the empty late ship
+        assertEquals(List.of("docked 1000002 2", "unloaded 1000002 2",
+                "docked 1000001 1", "unloaded 1000001 1", "docked 1000003 3",
+                "departed 1000001 1", "departed 1000003 3"), recorder.events);
+    }
+
+    @Test
+    public void testPortEventOfMovement() {
+        Ship ship = new ContainerShip(1000010, "Kind", "Peru", NauticalFlag.BRAVO, 1);
+        assertEquals(PortEvent.SHIP_INBOUND,
+                PortEvent.of(new ShipMovement(1, MovementDirection.INBOUND, ship)));
+        assertEquals(PortEvent.SHIP_OUTBOUND,
+                PortEvent.of(new ShipMovement(1, MovementDirection.OUTBOUND, ship)));
+        Container container = new Container(10, "Peru", ContainerType.STANDARD);
+        assertEquals(PortEvent.CARGO_INBOUND, PortEvent.of(
+                new CargoMovement(1, MovementDirection.INBOUND, List.of(container))));
+        assertEquals(PortEvent.CARGO_OUTBOUND, PortEvent.of(
+                new CargoMovement(1, MovementDirection.OUTBOUND, List.of(container))));
+    }
+
+    @Test
+    public void testTimings() {
+        assertNull(port.getTimings());
+        PortTimings timings = port.enableTimings();
+        assertSame(timings, port.enableTimings());
+        for (int i = 0; i < 100; i++) {
+            port.elapseOneMinute();
+        }
+        assertEquals(10, timings.getHistogram(PortTimings.Phase.DOCKING).getCount());
+        assertEquals(20, timings.getHistogram(PortTimings.Phase.UNLOADING).getCount());
+        assertEquals(100, timings.getHistogram(PortTimings.Phase.MOVEMENTS).getCount());
+        assertEquals(100, timings.getHistogram(PortTimings.Phase.EVALUATORS).getCount());
+        assertEquals(7, timings.getMovementsDispatched());
+        assertEquals(3, timings.getShipsDocked());
+        // the bulk cargo and the reefer container, the late ship is empty
+        assertEquals(2, timings.getCargoUnloaded());
+
+        port.disableTimings();
+        assertNull(port.getTimings());
+        port.advanceTo(200);
+        assertEquals(7, timings.getMovementsDispatched());
+    }
+}
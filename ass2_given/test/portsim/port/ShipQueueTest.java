@@ -10,6 +10,8 @@ import portsim.ship.NauticalFlag;
 import portsim.ship.Ship;
 import portsim.util.BadEncodingException;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
 
@@ -73,7 +75,48 @@ public class ShipQueueTest {
 
     @Test
     public void testGetShipQueue() {
+        s.add(ship1);
+        s.add(ship2);
+        s.add(ship3);
+        s.add(ship4);
+        s.add(ship5);
+        assertEquals(List.of(ship1, ship2, ship3, ship4, ship5), s.getShipQueue());
+        assertEquals(5, s.size());
+        s.poll();
+        s.poll();
+        assertEquals(List.of(ship1, ship2, ship5), s.getShipQueue());
+        s.getShipQueue().clear();
+        assertEquals(3, s.size());
+    }
 
+    @Test
+    public void testPollOrder() {
+        Ship container = new ContainerShip(7654321, "Ever Given", "Panama",
+                NauticalFlag.NOVEMBER, 200);
+        s.add(ship1);
+        s.add(ship5);
+        s.add(container);
+        s.add(ship4);
+        s.add(ship2);
+        s.add(ship3);
+        assertEquals(ship3, s.poll());
+        assertEquals(ship4, s.poll());
+        assertEquals(ship5, s.poll());
+        assertEquals(ship2, s.poll());
+        assertEquals(container, s.poll());
+        assertEquals(ship1, s.poll());
+        assertNull(s.poll());
+        assertNull(s.peek());
+        assertEquals(0, s.size());
+    }
+
+    @Test
+    public void testEncode() {
+        s.add(ship2);
+        s.add(ship1);
+        s.add(ship3);
+        s.poll();
+        assertEquals("ShipQueue:2:3456789,1234567", s.encode());
     }
 
     @Test
@@ -0,0 +1,67 @@
+package portsim.port;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.cargo.Container;
+import portsim.cargo.ContainerType;
+import portsim.ship.Ship;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WarehouseTest {
+
+    private Warehouse warehouse;
+    private Container standard;
+    private Container reefer;
+    private BulkCargo coal;
+    private Container elsewhere;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        warehouse = new Warehouse();
+        standard = new Container(1, "Japan", ContainerType.STANDARD);
+        reefer = new Container(11, "Japan", ContainerType.REEFER);
+        coal = new BulkCargo(2, "Japan", 50, BulkCargoType.COAL);
+        elsewhere = new Container(3, "China", ContainerType.STANDARD);
+        warehouse.addAll(List.of(standard, reefer, coal, elsewhere));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @Test
+    public void testIndexes() {
+        assertEquals(4, warehouse.size());
+        assertFalse(warehouse.add(standard));
+        assertEquals(List.of(standard, reefer, coal, elsewhere), warehouse.getCargo());
+        assertEquals(List.of(standard, reefer), List.copyOf(warehouse.getContainers("Japan")));
+        assertEquals(List.of(coal), List.copyOf(warehouse.getBulkCargo("Japan")));
+        assertTrue(warehouse.getBulkCargo("China").isEmpty());
+        assertEquals(List.of(standard, elsewhere),
+                List.copyOf(warehouse.getContainers(ContainerType.STANDARD)));
+        assertSame(coal, warehouse.get(2));
+    }
+
+    @Test
+    public void testRemove() {
+        assertSame(standard, warehouse.remove(1));
+        assertNull(warehouse.remove(1));
+        // removing ID 1 must leave ID 11 in place
+        assertTrue(warehouse.contains(11));
+        assertEquals(List.of(reefer), List.copyOf(warehouse.getContainers("Japan")));
+        assertEquals(List.of(elsewhere),
+                List.copyOf(warehouse.getContainers(ContainerType.STANDARD)));
+        assertEquals(3, warehouse.size());
+    }
+}
@@ -0,0 +1,69 @@
+package portsim.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(1, Histogram.bucketOf(1));
+        assertEquals(2, Histogram.bucketOf(2));
+        assertEquals(2, Histogram.bucketOf(3));
+        assertEquals(11, Histogram.bucketOf(1024));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(3, Histogram.upperBound(2));
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void testRecord() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(32, histogram.getBucketCount(6));
+        // the median, 50, is in the bucket 32 - 63
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(100));
+        assertEquals(0, histogram.getPercentile(0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testRecordConcurrently() throws Exception {
+        Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            long offset = i;
+            threads[i] = new Thread(() -> {
+                for (long value = 0; value < 10000; value++) {
+                    histogram.record(value * 4 + offset);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(39999L * 40000 / 2, histogram.getSum());
+        assertEquals(39999, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new Histogram().getPercentile(101);
+    }
+}
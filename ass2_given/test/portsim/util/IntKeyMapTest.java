@@ -0,0 +1,58 @@
+package portsim.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntKeyMapTest {
+
+    private IntKeyMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new IntKeyMap<>();
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        map.put(5, "five");
+        map.put(1, "one");
+        map.put(1_000_000_000, "big");
+        map.put(-3, "negative");
+        assertNull(map.put(7, "seven"));
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals("seven", map.remove(7));
+        assertEquals(List.of(5, 1, 1_000_000_000, -3), List.copyOf(map.keySet()));
+        assertEquals("uno", map.get(1));
+        assertEquals("big", map.get((Object) 1_000_000_000));
+        assertFalse(map.containsKey(7));
+        assertNull(map.get("1"));
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        // dense keys first, then scattered keys switch the map to hashing
+        for (int range : new int[] {500, Integer.MAX_VALUE}) {
+            Random random = new Random(range);
+            Map<Integer, String> expected = new LinkedHashMap<>();
+            for (int step = 0; step < 20000; step++) {
+                int key = random.nextInt(range);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    String value = Integer.toString(step);
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            map.clear();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package portsim.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LongKeyMapTest {
+
+    @Test
+    public void testMatchesLinkedHashMap() {
+        LongKeyMap<String> map = new LongKeyMap<>();
+        Map<Long, String> expected = new LinkedHashMap<>();
+        Random random = new Random(1000000);
+        for (int step = 0; step < 20000; step++) {
+            // seven digit keys, like IMO numbers
+            long key = 1000000 + random.nextInt(3000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = Integer.toString(step);
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        assertEquals(expected, map);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+    }
+}
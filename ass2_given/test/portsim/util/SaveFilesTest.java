@@ -0,0 +1,135 @@
+package portsim.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.GeneratedSave;
+import portsim.cargo.Cargo;
+import portsim.port.Port;
+import portsim.ship.Ship;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.*;
+
+public class SaveFilesTest {
+
+    private String save;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        save = new GeneratedSave(3, 100000, 300, 10, 10).getText();
+    }
+
+    @After
+    public void tearDown() {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    private static byte[] write(String text, boolean compressed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = SaveFiles.newWriter(bytes, compressed)) {
+            writer.write(text);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        StringWriter text = new StringWriter();
+        try (Reader reader = SaveFiles.newReader(in)) {
+            reader.transferTo(text);
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void testPlainRoundTrip() throws Exception {
+        byte[] plain = write(save, false);
+        assertArrayEquals(save.getBytes(StandardCharsets.UTF_8), plain);
+        assertEquals(save, read(new ByteArrayInputStream(plain)));
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws Exception {
+        byte[] compressed = write(save, true);
+        assertTrue(save.length() > 2 * BlockGzipOutputStream.BLOCK_SIZE);
+        assertTrue(compressed.length * 3 < save.length());
+        assertEquals(save, read(new ByteArrayInputStream(compressed)));
+    }
+
+    @Test
+    public void testCompressedReadableAsGzip() throws Exception {
+        byte[] compressed = write(save, true);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(save, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testGzipDetected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(save.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(save, read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertEquals("", read(new ByteArrayInputStream(write("", true))));
+        assertEquals("", read(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testOnGivenPool() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try (InputStream in = new BlockGzipInputStream(
+                new ByteArrayInputStream(write(save, true)), pool, 3)) {
+            assertEquals(save, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testCorruptBlock() throws Exception {
+        byte[] compressed = write(save, true);
+        compressed[compressed.length / 2] ^= 0x55;
+        read(new ByteArrayInputStream(compressed));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws Exception {
+        byte[] compressed = write(save, true);
+        read(new ByteArrayInputStream(compressed, 0, compressed.length - 100));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testInitialisePortCompressed() throws Exception {
+        String expected;
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            expected = Port.initialisePort(new ByteArrayInputStream(write(save, false)))
+                    .encode();
+        }
+        try (SimulationContext.Scope scope = new SimulationContext().enter()) {
+            assertEquals(expected,
+                    Port.initialisePort(new ByteArrayInputStream(write(save, true))).encode());
+        }
+    }
+}
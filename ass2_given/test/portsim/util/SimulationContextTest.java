@@ -0,0 +1,176 @@
+package portsim.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import portsim.cargo.BulkCargo;
+import portsim.cargo.BulkCargoType;
+import portsim.cargo.Cargo;
+import portsim.evaluators.ShipFlagEvaluator;
+import portsim.movement.MovementDirection;
+import portsim.movement.ShipMovement;
+import portsim.port.BulkQuay;
+import portsim.port.Port;
+import portsim.ship.BulkCarrier;
+import portsim.ship.NauticalFlag;
+import portsim.ship.Ship;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SimulationContextTest {
+
+    private String save;
+
+    @Before
+    public void setUp() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+        Port port = new Port("Port of Brisbane");
+        port.addQuay(new BulkQuay(1, 200));
+        Ship ship = new BulkCarrier(1000001, "Odyssey", "China", NauticalFlag.NOVEMBER, 150);
+        ship.loadCargo(new BulkCargo(1, "China", 100, BulkCargoType.COAL));
+        port.addMovement(new ShipMovement(3, MovementDirection.INBOUND, ship));
+        port.addMovement(new ShipMovement(40, MovementDirection.OUTBOUND, ship));
+        port.addStatisticsEvaluator(new ShipFlagEvaluator());
+        save = port.encode();
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Cargo.resetCargoRegistry();
+        Ship.resetShipRegistry();
+    }
+
+    @SuppressWarnings("try")
+    private Port load(SimulationContext context) throws IOException, BadEncodingException {
+        try (SimulationContext.Scope scope = context.enter()) {
+            return Port.initialisePort(new StringReader(save));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testEnterRestoresPreviousContext() {
+        SimulationContext outer = new SimulationContext();
+        SimulationContext inner = new SimulationContext();
+        assertSame(SimulationContext.getDefault(), SimulationContext.current());
+        try (SimulationContext.Scope a = outer.enter()) {
+            try (SimulationContext.Scope b = inner.enter()) {
+                assertSame(inner, SimulationContext.current());
+            }
+            assertSame(outer, SimulationContext.current());
+        }
+        assertSame(SimulationContext.getDefault(), SimulationContext.current());
+    }
+
+    @Test
+    public void testContextsHaveSeparateRegistries() throws Exception {
+        SimulationContext first = new SimulationContext();
+        SimulationContext second = new SimulationContext();
+        Port a = load(first);
+        Port b = load(second);
+
+        assertSame(first, a.getContext());
+        assertSame(second, b.getContext());
+        assertEquals(1, first.getShipRegistry().size());
+        assertEquals(1, second.getShipRegistry().size());
+        assertNotSame(first.getShipRegistry().get(1000001L),
+                second.getShipRegistry().get(1000001L));
+        assertTrue(Ship.getShipRegistry().isEmpty());
+        assertTrue(Cargo.getCargoRegistry().isEmpty());
+        // encoding uses the port's own registries, not those of the calling thread
+        assertEquals(save, a.encode());
+    }
+
+    @Test
+    public void testPortsRunConcurrently() throws Exception {
+        List<Port> ports = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ports.add(load(new SimulationContext()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(ports.size());
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (Port port : ports) {
+                results.add(pool.submit(() -> {
+                    port.advanceTo(60);
+                    return port.encode();
+                }));
+            }
+            String expected = results.get(0).get();
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+            assertFalse(save.equals(expected));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testMergeBatch() throws Exception {
+        SimulationContext context = new SimulationContext();
+        SimulationContext batch = context.newBatch(false);
+        try (SimulationContext.Scope scope = batch.enter()) {
+            Ship ship = new BulkCarrier(1000002, "Argo", "China", NauticalFlag.BRAVO, 150);
+            ship.loadCargo(new BulkCargo(2, "China", 100, BulkCargoType.COAL));
+        }
+        assertTrue(context.getCargoRegistry().isEmpty());
+        assertTrue(context.getShipRegistry().isEmpty());
+        context.trackChanges();
+        context.mergeBatch(batch);
+        assertTrue(context.getCargoRegistry().containsKey(2));
+        assertTrue(context.getShipRegistry().containsKey(1000002L));
+        assertTrue(context.getCreatedCargo().contains(context.getCargoRegistry().get(2)));
+        assertTrue(context.getChangedShips().contains(context.getShipRegistry().get(1000002L)));
+
+        // changes to the batch's ships are recorded in the context after the merge
+        context.clearChanges();
+        BulkCarrier ship = (BulkCarrier) context.getShipRegistry().get(1000002L);
+        try (SimulationContext.Scope scope = context.enter()) {
+            ship.unloadCargo();
+        }
+        assertTrue(context.getChangedShips().contains(ship));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testMergeBatchRejectsDuplicateCargo() {
+        SimulationContext context = new SimulationContext();
+        SimulationContext batch = context.newBatch(false);
+        try (SimulationContext.Scope scope = context.enter()) {
+            new BulkCargo(3, "China", 100, BulkCargoType.COAL);
+        }
+        try (SimulationContext.Scope scope = batch.enter()) {
+            new BulkCargo(3, "Japan", 50, BulkCargoType.OIL);
+        }
+        try {
+            context.mergeBatch(batch);
+            fail("Merged a batch with duplicate cargo");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("China", context.getCargoRegistry().get(3).getDestination());
+        }
+        // a batch can only be merged once, and only into its own context
+        try {
+            context.mergeBatch(batch);
+            fail("Merged a batch twice");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new SimulationContext().mergeBatch(context.newBatch(true));
+            fail("Merged a batch into another context");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}